@@ -0,0 +1,76 @@
+package org.mule.tools.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * File lookups in a directory holding a growing number of files, a single
+ * one matching the pattern
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FileFinderBenchmark {
+
+	/**
+	 * Number of files in the searched directory
+	 */
+	@Param({ "100", "10000", "50000" })
+	public int files;
+
+	private File directory;
+	private String uniquePattern;
+	private String widePattern;
+
+	@Setup
+	public void setup() throws IOException {
+		directory = File.createTempFile("FileFinderBenchmark", "");
+		directory.delete();
+		if (!directory.mkdir()) {
+			throw new IOException("Unable to create \"" + directory + "\"");
+		}
+		for (int i = 0; i < files; i++) {
+			new File(directory, "library-" + i + ".jar").createNewFile();
+		}
+		new File(directory, "my-app-1.0.zip").createNewFile();
+
+		uniquePattern = directory.getAbsolutePath() + "/my-app-*.zip";
+		widePattern = directory.getAbsolutePath() + "/library-1*.jar";
+	}
+
+	@TearDown
+	public void tearDown() {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Benchmark
+	public File find() throws Exception {
+		return FileFinder.find(uniquePattern);
+	}
+
+	@Benchmark
+	public List<File> findAll() throws Exception {
+		return FileFinder.findAll(widePattern);
+	}
+}
@@ -0,0 +1,52 @@
+package org.mule.tools.maven.plugin;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of archive file names, short and long, with and without version
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MuleFileInfoBenchmark {
+
+	@Param({ "my-app-1.0.zip", "/home/build/workspace/project/target/my-mule-application-with-a-long-name-1.2.3-SNAPSHOT.zip", "C:\\build\\target\\no_version_application.zip" })
+	public String filePath;
+
+	/**
+	 * Number of path segments prepended to the file path
+	 */
+	@Param({ "0", "50" })
+	public int depth;
+
+	private String path;
+
+	@Setup
+	public void setup() {
+		StringBuilder prefix = new StringBuilder();
+		for (int i = 0; i < depth; i++) {
+			prefix.append("directory-").append(i).append('/');
+		}
+		path = prefix + filePath;
+	}
+
+	@Benchmark
+	public MuleFileInfo parseFromFile() {
+		return MuleFileInfo.parseFromFile(path);
+	}
+}
@@ -0,0 +1,58 @@
+package org.mule.tools.mmc.rest;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Generation of the body of the deployment creation request, for names and
+ * ids of growing length
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CreateDeploymentJsonBenchmark {
+
+	/**
+	 * Length of the deployment name and of the ids
+	 */
+	@Param({ "16", "256", "4096" })
+	public int length;
+
+	private String serverOrGroupId;
+	private String name;
+	private String versionId;
+
+	@Setup
+	public void setup() {
+		serverOrGroupId = _repeat('s', length);
+		name = _repeat('n', length);
+		versionId = _repeat('v', length);
+	}
+
+	@Benchmark
+	public String createDeploymentJson() throws IOException {
+		return MuleRest.createDeploymentJson(serverOrGroupId, name, versionId);
+	}
+
+	private static String _repeat(char c, int length) {
+		char[] chars = new char[length];
+		Arrays.fill(chars, c);
+		return new String(chars);
+	}
+}
@@ -0,0 +1,152 @@
+package org.mule.tools.mmc.rest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of synthetic /repository and /servers listings of growing size, by
+ * the streaming readers of {@link MuleRest} and, as a baseline, into a tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JsonParsingBenchmark {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	/**
+	 * Number of applications in /repository and of servers in /servers
+	 */
+	@Param({ "10", "1000", "10000" })
+	public int size;
+
+	/**
+	 * Number of versions of each application
+	 */
+	@Param({ "5" })
+	public int versionsPerApplication;
+
+	private byte[] repositoryJson;
+	private byte[] serversJson;
+
+	@Setup
+	public void setup() throws IOException {
+		repositoryJson = repositoryJson(size, versionsPerApplication).getBytes("UTF-8");
+		serversJson = serversJson(size, 10).getBytes("UTF-8");
+	}
+
+	@Benchmark
+	public RepositoryIndex readRepositoryIndex() throws IOException {
+		JsonParser parser = MmcJson.JSON_FACTORY.createJsonParser(repositoryJson);
+		try {
+			return MuleRest.readRepositoryIndex(parser);
+		} finally {
+			parser.close();
+		}
+	}
+
+	@Benchmark
+	public JsonNode readRepositoryTree() throws IOException {
+		return OBJECT_MAPPER.readTree(new ByteArrayInputStream(repositoryJson));
+	}
+
+	@Benchmark
+	public Object readServers() throws IOException {
+		JsonParser parser = MmcJson.JSON_FACTORY.createJsonParser(serversJson);
+		try {
+			return MuleRest.readServers(parser, null);
+		} finally {
+			parser.close();
+		}
+	}
+
+	@Benchmark
+	public Object readServersUpToMiddle() throws IOException {
+		JsonParser parser = MmcJson.JSON_FACTORY.createJsonParser(serversJson);
+		try {
+			return MuleRest.readServers(parser, "server-" + size / 2);
+		} finally {
+			parser.close();
+		}
+	}
+
+	@Benchmark
+	public JsonNode readServersTree() throws IOException {
+		return OBJECT_MAPPER.readTree(new ByteArrayInputStream(serversJson));
+	}
+
+	static String repositoryJson(int applications, int versionsPerApplication) throws IOException {
+		StringWriter stringWriter = new StringWriter();
+		JsonGenerator generator = MmcJson.JSON_FACTORY.createJsonGenerator(stringWriter);
+		generator.writeStartObject();
+		generator.writeNumberField("total", applications);
+		generator.writeArrayFieldStart("data");
+		for (int i = 0; i < applications; i++) {
+			generator.writeStartObject();
+			generator.writeStringField("name", "application-" + i);
+			generator.writeStringField("id", "local$" + i);
+			generator.writeStringField("href", "http://localhost:8080/mmc/api/repository/local$" + i);
+			generator.writeArrayFieldStart("versions");
+			for (int j = 0; j < versionsPerApplication; j++) {
+				generator.writeStartObject();
+				generator.writeStringField("name", "1." + j);
+				generator.writeStringField("id", "local$" + i + "-" + j);
+				generator.writeStringField("parentPath", "/Applications/application-" + i);
+				generator.writeEndObject();
+			}
+			generator.writeEndArray();
+			generator.writeEndObject();
+		}
+		generator.writeEndArray();
+		generator.writeEndObject();
+		generator.close();
+		return stringWriter.toString();
+	}
+
+	static String serversJson(int servers, int groups) throws IOException {
+		StringWriter stringWriter = new StringWriter();
+		JsonGenerator generator = MmcJson.JSON_FACTORY.createJsonGenerator(stringWriter);
+		generator.writeStartObject();
+		generator.writeNumberField("total", servers);
+		generator.writeArrayFieldStart("data");
+		for (int i = 0; i < servers; i++) {
+			generator.writeStartObject();
+			generator.writeStringField("name", "server-" + i);
+			generator.writeStringField("id", "local$server-" + i);
+			generator.writeStringField("href", "http://localhost:8080/mmc/api/servers/local$server-" + i);
+			generator.writeStringField("status", "RUNNING");
+			generator.writeArrayFieldStart("groups");
+			generator.writeStartObject();
+			generator.writeStringField("name", "group-" + i % groups);
+			generator.writeStringField("id", "local$group-" + i % groups);
+			generator.writeEndObject();
+			generator.writeEndArray();
+			generator.writeEndObject();
+		}
+		generator.writeEndArray();
+		generator.writeEndObject();
+		generator.close();
+		return stringWriter.toString();
+	}
+}
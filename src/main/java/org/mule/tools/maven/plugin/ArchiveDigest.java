@@ -0,0 +1,76 @@
+package org.mule.tools.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Content hash of a Mule application archive
+ */
+public class ArchiveDigest {
+
+	/**
+	 * Size of the file regions mapped at once, large enough to hash most
+	 * archives in a single mapping while staying well below the address
+	 * space limits of 32 bits JVMs
+	 */
+	static final long MAPPING_SIZE = 64L * 1024 * 1024;
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	/**
+	 * Returns the hexadecimal SHA-256 of a file, read through memory mappings
+	 * so the content is hashed straight from the page cache without being
+	 * copied on the heap
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static String sha256(File file) throws IOException {
+		MessageDigest digest = _newSha256Digest();
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r"); FileChannel channel = randomAccessFile.getChannel()) {
+			long size = channel.size();
+			for (long position = 0; position < size; position += MAPPING_SIZE) {
+				MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPING_SIZE, size - position));
+				digest.update(mapping);
+			}
+		}
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * Returns the hexadecimal SHA-256 of the remaining bytes of a buffer,
+	 * leaving its position untouched
+	 *
+	 * @param content
+	 * @return
+	 */
+	public static String sha256(ByteBuffer content) {
+		MessageDigest digest = _newSha256Digest();
+		digest.update(content.duplicate());
+		return toHex(digest.digest());
+	}
+
+	private static MessageDigest _newSha256Digest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+		}
+	}
+
+	static String toHex(byte[] bytes) {
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+			chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+		}
+		return new String(chars);
+	}
+}
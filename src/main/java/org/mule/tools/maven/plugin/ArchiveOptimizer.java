@@ -0,0 +1,210 @@
+package org.mule.tools.maven.plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Repacks a Mule application archive before its upload to cut the bytes sent
+ * to the MMC.
+ *
+ * The entries are recompressed at the given level, the entries matching the
+ * exclusion globs are dropped, and so are the jars whose content is the same
+ * as a jar already kept in the same directory. The output only depends on
+ * the content of the input: the entries are sorted by name and written with a
+ * fixed time and no comment, so the same archive always gives the same bytes
+ * and the same hash.
+ */
+public class ArchiveOptimizer {
+
+	public static final int DEFAULT_COMPRESSION_LEVEL = Deflater.BEST_COMPRESSION;
+
+	/**
+	 * Time of all the entries, the lowest one of the zip format
+	 */
+	static final long ENTRY_TIME = new GregorianCalendar(1980, Calendar.JANUARY, 1).getTimeInMillis();
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final int compressionLevel;
+	private final List<PathMatcher> excludes = new ArrayList<PathMatcher>();
+	private final List<String> excludeGlobs;
+	private final boolean dropDuplicateJars;
+
+	/**
+	 * Outcome of an optimization
+	 */
+	public static class Report {
+		public long originalBytes;
+		public long optimizedBytes;
+		public long durationMs;
+		public int entries;
+		public List<String> droppedEntries = new ArrayList<String>();
+
+		/**
+		 * @return Bytes saved, in percent of the original size
+		 */
+		public double getReductionPercent() {
+			return originalBytes == 0 ? 0 : (originalBytes - optimizedBytes) * 100.0 / originalBytes;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d -> %d bytes (-%.1f%%) in %d ms, %d entries kept, %d dropped", originalBytes, optimizedBytes, getReductionPercent(), durationMs, entries, droppedEntries.size());
+		}
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param compressionLevel
+	 *            Deflate level, from 0 to 9
+	 * @param excludeGlobs
+	 *            Globs of the names of the entries to drop, e.g.
+	 *            <code>**&#47;*.java</code>, with the syntax of the
+	 *            {@link FileFinder} patterns
+	 * @param dropDuplicateJars
+	 *            If true, a jar having the same content as another one of the
+	 *            same directory is dropped
+	 */
+	public ArchiveOptimizer(int compressionLevel, List<String> excludeGlobs, boolean dropDuplicateJars) {
+		if (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+			throw new IllegalArgumentException("Compression level must be between 0 and 9, got " + compressionLevel);
+		}
+		this.compressionLevel = compressionLevel;
+		this.excludeGlobs = excludeGlobs == null ? Collections.<String> emptyList() : new ArrayList<String>(excludeGlobs);
+		for (String excludeGlob : this.excludeGlobs) {
+			excludes.add(FileFinder.getMatcher(excludeGlob.trim()));
+		}
+		this.dropDuplicateJars = dropDuplicateJars;
+	}
+
+	/**
+	 * Writes the optimized archive
+	 *
+	 * @param source
+	 * @param target
+	 *            Overwritten if it exists
+	 * @return
+	 * @throws IOException
+	 */
+	public Report optimize(File source, File target) throws IOException {
+		long startTime = System.currentTimeMillis();
+		Report report = new Report();
+		report.originalBytes = source.length();
+
+		File parent = target.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+			throw new IOException("Unable to create directory \"" + parent + "\"");
+		}
+
+		try (ZipFile zipFile = new ZipFile(source); OutputStream outputStream = new FileOutputStream(target)) {
+			// sorted by name, whatever the order of the source
+			TreeMap<String, ZipEntry> entries = new TreeMap<String, ZipEntry>();
+			Enumeration<? extends ZipEntry> enumeration = zipFile.entries();
+			while (enumeration.hasMoreElements()) {
+				ZipEntry entry = enumeration.nextElement();
+				entries.put(entry.getName(), entry);
+			}
+
+			ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+			zipOutputStream.setLevel(compressionLevel);
+			Set<String> keptJars = new HashSet<String>();
+			byte[] buffer = new byte[BUFFER_SIZE];
+
+			for (ZipEntry entry : entries.values()) {
+				String name = entry.getName();
+				if (_isExcluded(name)) {
+					report.droppedEntries.add(name);
+					continue;
+				}
+
+				ZipEntry targetEntry = new ZipEntry(name);
+				targetEntry.setTime(ENTRY_TIME);
+				targetEntry.setMethod(ZipEntry.DEFLATED);
+
+				if (dropDuplicateJars && !entry.isDirectory() && name.toLowerCase().endsWith(".jar")) {
+					byte[] content = _read(zipFile, entry, buffer);
+					String directory = name.substring(0, name.lastIndexOf('/') + 1);
+					if (!keptJars.add(directory + ArchiveDigest.sha256(ByteBuffer.wrap(content)))) {
+						report.droppedEntries.add(name);
+						continue;
+					}
+					zipOutputStream.putNextEntry(targetEntry);
+					zipOutputStream.write(content);
+				} else {
+					zipOutputStream.putNextEntry(targetEntry);
+					if (!entry.isDirectory()) {
+						try (InputStream inputStream = zipFile.getInputStream(entry)) {
+							_copy(inputStream, zipOutputStream, buffer);
+						}
+					}
+				}
+				zipOutputStream.closeEntry();
+				report.entries++;
+			}
+			zipOutputStream.close();
+		}
+
+		report.optimizedBytes = target.length();
+		report.durationMs = System.currentTimeMillis() - startTime;
+		return report;
+	}
+
+	/**
+	 * @return The exclusion globs
+	 */
+	public List<String> getExcludeGlobs() {
+		return excludeGlobs;
+	}
+
+	private boolean _isExcluded(String name) {
+		if (excludes.isEmpty()) {
+			return false;
+		}
+		String path = name.endsWith("/") ? name.substring(0, name.length() - 1) : name;
+		if (path.isEmpty()) {
+			return false;
+		}
+		for (PathMatcher exclude : excludes) {
+			if (exclude.matches(Paths.get(path))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static byte[] _read(ZipFile zipFile, ZipEntry entry, byte[] buffer) throws IOException {
+		ByteArrayOutputStream content = new ByteArrayOutputStream(entry.getSize() > 0 ? (int) entry.getSize() : BUFFER_SIZE);
+		try (InputStream inputStream = zipFile.getInputStream(entry)) {
+			_copy(inputStream, content, buffer);
+		}
+		return content.toByteArray();
+	}
+
+	private static void _copy(InputStream inputStream, OutputStream outputStream, byte[] buffer) throws IOException {
+		int read;
+		while ((read = inputStream.read(buffer)) != -1) {
+			outputStream.write(buffer, 0, read);
+		}
+	}
+}
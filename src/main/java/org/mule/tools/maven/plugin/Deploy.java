@@ -1,18 +1,41 @@
 package org.mule.tools.maven.plugin;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.mule.tools.mmc.rest.CircuitBreaker;
+import org.mule.tools.mmc.rest.ConditionalGetCache;
 import org.mule.tools.mmc.rest.DeploymentState;
 import org.mule.tools.mmc.rest.DeploymentStatus;
+import org.mule.tools.mmc.rest.DeploymentWaiter;
+import org.mule.tools.mmc.rest.ExponentialBackoffPollingStrategy;
 import org.mule.tools.mmc.rest.MuleRest;
+import org.mule.tools.mmc.rest.MuleRestAsync;
+import org.mule.tools.mmc.rest.MuleRestCallback;
+import org.mule.tools.mmc.rest.MuleRestMetrics;
+import org.mule.tools.mmc.rest.PersistentIdCache;
+import org.mule.tools.mmc.rest.PollingStrategy;
+import org.mule.tools.mmc.rest.RollingDeployer;
+import org.mule.tools.mmc.rest.TopologyCache;
+import org.mule.tools.mmc.rest.WebClientPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.impl.StaticLoggerBinder;
@@ -30,9 +53,15 @@ import org.slf4j.impl.StaticLoggerBinder;
 public class Deploy extends AbstractMojo {
 
 	public int DEPLOYMENT_TIMEOUT_MS = 30000;
-	public int DEPLOYMENT_WAIT_SLEEP_MS = 500;
 
-	private Logger _logger;
+	public static final String DEFAULT_METRICS_FILE_NAME = "mule-mmc-metrics.json";
+
+	/**
+	 * Format of the repository versions generated with useTimestampVersion
+	 */
+	public static final String TIMESTAMP_VERSION_FORMAT = "MM-dd-yyyy-HH:mm:ss";
+
+	protected Logger _logger;
 
 	/**
 	 * The output directory coming from the pom.xml of the Mule app. This
@@ -161,6 +190,306 @@ public class Deploy extends AbstractMojo {
 	 */
 	protected int deploymentTimeoutMs = DEPLOYMENT_TIMEOUT_MS;
 
+	/**
+	 * Maximum number of connections opened at the same time to the MMC
+	 * 
+	 * @parameter property="mmcMaxConnections"
+	 *            default-value="4"
+	 */
+	protected int mmcMaxConnections = WebClientPool.DEFAULT_MAX_CONNECTIONS;
+
+	/**
+	 * Time after which an unused connection to the MMC is closed instead of
+	 * being reused
+	 * 
+	 * @parameter property="mmcConnectionIdleTimeoutMs"
+	 *            default-value="30000"
+	 */
+	protected long mmcConnectionIdleTimeoutMs = WebClientPool.DEFAULT_IDLE_TIMEOUT_MS;
+
+	/**
+	 * Time during which the server and server group ids downloaded from the
+	 * MMC are reused without asking the MMC again. 0 disables the cache.
+	 * 
+	 * @parameter property="topologyCacheTtlMs"
+	 *            default-value="60000"
+	 */
+	protected long topologyCacheTtlMs = TopologyCache.DEFAULT_TTL_MS;
+
+	/**
+	 * Number of MMC GET responses kept with their ETag and Last-Modified
+	 * headers, so that the same GET is sent again as a conditional request
+	 * and a 304 Not Modified answer is served from the kept result. 0
+	 * disables the conditional requests.
+	 * 
+	 * @parameter property="conditionalGetCacheSize" default-value="64"
+	 */
+	protected int conditionalGetCacheSize = ConditionalGetCache.DEFAULT_MAX_ENTRIES;
+
+	/**
+	 * Number of elements asked per request when looking up the MMC listings,
+	 * so that a lookup stops downloading at the page holding its match. 0
+	 * downloads each listing in a single request.
+	 * 
+	 * @parameter property="mmcPageSize" default-value="0"
+	 */
+	protected int mmcPageSize;
+
+	/**
+	 * If true, the next page of a listing is downloaded while the current one
+	 * is read
+	 * 
+	 * @parameter property="mmcPagePrefetch" default-value="false"
+	 */
+	protected boolean mmcPagePrefetch;
+
+	/**
+	 * Number of attempts of the GET and DELETE requests failing with a server
+	 * error or a connection error. 1 disables the retries.
+	 * 
+	 * @parameter property="mmcRetryAttempts" default-value="3"
+	 */
+	protected int mmcRetryAttempts = MuleRest.DEFAULT_RETRY_MAX_ATTEMPTS;
+
+	/**
+	 * Delay before the first retry of a failed request, doubled at each retry
+	 * 
+	 * @parameter property="mmcRetryInitialDelayMs" default-value="500"
+	 */
+	protected long mmcRetryInitialDelayMs = MuleRest.DEFAULT_RETRY_INITIAL_DELAY_MS;
+
+	/**
+	 * Maximum delay between two attempts of a failed request
+	 * 
+	 * @parameter property="mmcRetryMaxDelayMs" default-value="10000"
+	 */
+	protected long mmcRetryMaxDelayMs = MuleRest.DEFAULT_RETRY_MAX_DELAY_MS;
+
+	/**
+	 * Number of consecutive failed calls after which the calls to the MMC fail
+	 * at once instead of being sent. 0 disables the circuit breaker.
+	 * 
+	 * @parameter property="circuitBreakerFailureThreshold" default-value="5"
+	 */
+	protected int circuitBreakerFailureThreshold = CircuitBreaker.DEFAULT_FAILURE_THRESHOLD;
+
+	/**
+	 * Time during which the calls fail at once before a trial call is sent to
+	 * the MMC again
+	 * 
+	 * @parameter property="circuitBreakerOpenMs" default-value="30000"
+	 */
+	protected long circuitBreakerOpenMs = CircuitBreaker.DEFAULT_OPEN_DURATION_MS;
+
+	/**
+	 * JSON file where the latency and volume of the requests sent to the MMC
+	 * are written at the end of the run, per endpoint
+	 * 
+	 * @parameter property="metricsFile"
+	 *            default-value="${project.build.directory}/mule-mmc-metrics.json"
+	 */
+	protected File metricsFile;
+
+	/**
+	 * If true, the archive is not uploaded when an archive with the same
+	 * content (SHA-256) is already in the repository of the MMC, the existing
+	 * version is deployed instead
+	 * 
+	 * @parameter property="deduplicateUploads" default-value="true"
+	 */
+	protected boolean deduplicateUploads = true;
+
+	/**
+	 * File recording the SHA-256 and version id of the archives uploaded to
+	 * each MMC, used to detect archives already in the repository
+	 * 
+	 * @parameter property="uploadManifestFile"
+	 *            default-value="${user.home}/.m2/mule-mmc-rest-plugin/upload-manifest.properties"
+	 */
+	protected File uploadManifestFile = new File(System.getProperty("user.home"), ".m2/mule-mmc-rest-plugin/upload-manifest.properties");
+
+	/**
+	 * If true, the ids of the server groups, servers, deployments and
+	 * application versions are kept in persistentIdCacheFile between
+	 * invocations instead of being resolved from the MMC listings each time
+	 * 
+	 * @parameter property="persistentIdCache" default-value="false"
+	 */
+	protected boolean persistentIdCache;
+
+	/**
+	 * File of the persistent id cache, shared by all the MMCs
+	 * 
+	 * @parameter property="persistentIdCacheFile"
+	 *            default-value="${user.home}/.m2/mule-mmc-rest-plugin/id-cache.properties"
+	 */
+	protected File persistentIdCacheFile = new File(System.getProperty("user.home"), ".m2/mule-mmc-rest-plugin/id-cache.properties");
+
+	/**
+	 * Age after which an id of the persistent cache is resolved again from
+	 * the MMC
+	 * 
+	 * @parameter property="persistentIdCacheMaxAgeMs" default-value="604800000"
+	 */
+	protected long persistentIdCacheMaxAgeMs = PersistentIdCache.DEFAULT_MAX_AGE_MS;
+
+	/**
+	 * Delay between the first two polls of the deployment state, the delay
+	 * then grows exponentially
+	 * 
+	 * @parameter property="pollInitialDelayMs" default-value="100"
+	 */
+	protected long pollInitialDelayMs = ExponentialBackoffPollingStrategy.DEFAULT_INITIAL_DELAY_MS;
+
+	/**
+	 * Maximum delay between two polls of the deployment state
+	 * 
+	 * @parameter property="pollMaxDelayMs" default-value="5000"
+	 */
+	protected long pollMaxDelayMs = ExponentialBackoffPollingStrategy.DEFAULT_MAX_DELAY_MS;
+
+	/**
+	 * Factor applied to the delay between two polls of the deployment state
+	 * after each poll. 1 polls at a fixed rate.
+	 * 
+	 * @parameter property="pollBackoffMultiplier" default-value="2.0"
+	 */
+	protected double pollBackoffMultiplier = ExponentialBackoffPollingStrategy.DEFAULT_MULTIPLIER;
+
+	/**
+	 * Fraction of the delay between two polls randomly added or removed, so
+	 * that concurrent deployments do not poll the MMC at the same time
+	 * 
+	 * @parameter property="pollJitter" default-value="0.2"
+	 */
+	protected double pollJitter = ExponentialBackoffPollingStrategy.DEFAULT_JITTER;
+
+	/**
+	 * If true, the target server or group is resolved and the previous
+	 * deployment of the same name is deleted while the archive is uploaded,
+	 * and a timeline of the phases is logged. The previous deployment is then
+	 * deleted even if the upload fails.
+	 * 
+	 * @parameter property="pipelined" default-value="false"
+	 */
+	protected boolean pipelined;
+
+	/**
+	 * If true and targetDeploymentServer is a server group, the application
+	 * is deployed to the servers of the group in waves, each server having its
+	 * own deployment, a wave starting once the previous one is deployed.
+	 * Ignored if targetDeploymentServer is a server.
+	 * 
+	 * @parameter property="rolling" default-value="false"
+	 */
+	protected boolean rolling;
+
+	/**
+	 * Number of servers deployed at the same time in rolling mode
+	 * 
+	 * @parameter property="rollingWaveSize" default-value="1"
+	 */
+	protected int rollingWaveSize = 1;
+
+	/**
+	 * Percentage of the servers of the group deployed at the same time in
+	 * rolling mode, rounded up. Overrides rollingWaveSize if positive.
+	 * 
+	 * @parameter property="rollingWavePercent" default-value="0"
+	 */
+	protected int rollingWavePercent = 0;
+
+	/**
+	 * If true, a deployment previously made to the whole group under the
+	 * deployment name is deleted once the last wave of the rolling deployment
+	 * is deployed. If false, its existence fails the rolling deployment, as
+	 * the servers would otherwise be targeted by two deployments.
+	 * 
+	 * @parameter property="rollingReplaceGroupDeployment" default-value="false"
+	 */
+	protected boolean rollingReplaceGroupDeployment;
+
+	/**
+	 * MMCs to deploy the archive to at the same time, instead of mmcApiUrl,
+	 * each one as [SERVER_OR_GROUP]@[MMC_URL], or [MMC_URL] to deploy to
+	 * targetDeploymentServer. The archive is read once for all the uploads.
+	 * 
+	 * @parameter property="mmcTargets"
+	 */
+	protected List<String> mmcTargets;
+
+	/**
+	 * Number of mmcTargets whose deployment may fail without failing the
+	 * build
+	 * 
+	 * @parameter property="mmcTargetsMaxFailures" default-value="0"
+	 */
+	protected int mmcTargetsMaxFailures = 0;
+
+	/**
+	 * If true, the archive is repacked before its upload: recompressed at
+	 * optimizeArchiveCompressionLevel, without the entries matching
+	 * optimizeArchiveExcludes nor duplicate jars, see {@link ArchiveOptimizer}
+	 * 
+	 * @parameter property="optimizeArchive" default-value="false"
+	 */
+	protected boolean optimizeArchive;
+
+	/**
+	 * Globs of the names of the archive entries dropped by optimizeArchive,
+	 * e.g. <code>**&#47;*.java</code>
+	 * 
+	 * @parameter property="optimizeArchiveExcludes"
+	 */
+	protected List<String> optimizeArchiveExcludes;
+
+	/**
+	 * Deflate level of the entries repacked by optimizeArchive, from 0 to 9
+	 * 
+	 * @parameter property="optimizeArchiveCompressionLevel" default-value="9"
+	 */
+	protected int optimizeArchiveCompressionLevel = ArchiveOptimizer.DEFAULT_COMPRESSION_LEVEL;
+
+	/**
+	 * If true, optimizeArchive drops the jars having the same content as
+	 * another jar of the same directory
+	 * 
+	 * @parameter property="optimizeArchiveDropDuplicateJars" default-value="true"
+	 */
+	protected boolean optimizeArchiveDropDuplicateJars = true;
+
+	/**
+	 * Directory where optimizeArchive writes the repacked archives, each one
+	 * under the name of the original in a sub-directory named after a hash of
+	 * its path
+	 * 
+	 * @parameter property="optimizedArchiveDirectory"
+	 *            default-value="${project.build.directory}/mmc-optimized"
+	 */
+	protected File optimizedArchiveDirectory;
+
+	/**
+	 * A MMC of mmcTargets and the outcome of the deployment to it
+	 */
+	protected static class MmcTarget {
+		int index;
+		URL mmcApiUrl;
+		String targetDeploymentServer;
+		String deploymentId;
+		long durationMs;
+		Throwable failure;
+	}
+
+	private UploadManifest _uploadManifest;
+
+	private PersistentIdCache _persistentIdCache;
+
+	private final Map<MuleRest, DeploymentWaiter> _deploymentWaiters = new IdentityHashMap<MuleRest, DeploymentWaiter>();
+
+	private final Map<MuleRest, MuleRestAsync> _muleRestAsyncs = new IdentityHashMap<MuleRest, MuleRestAsync>();
+
+	private volatile SharedArchive _sharedArchive;
+
 	/**
 	 * Constructor
 	 */
@@ -173,7 +502,7 @@ public class Deploy extends AbstractMojo {
 	public void execute() throws MojoExecutionException, MojoFailureException {
 
 		// Mule zip file to use
-		File muleAppFile = this.getMuleAppFile();
+		File muleAppFile = _optimizeArchive(this.getMuleAppFile());
 
 		// Extract app name and version from Mule app file name
 		MuleFileInfo muleFileInfo = MuleFileInfo.parseFromFile(muleAppFile.getName());
@@ -181,7 +510,7 @@ public class Deploy extends AbstractMojo {
 		String artifactVersionToUse = this.noPomMode ? muleFileInfo.appVersion : this.version;
 
 		// Mule app version on the repository
-		String repositoryAppVersion = (this.useTimestampVersion) ? new SimpleDateFormat("MM-dd-yyyy-HH:mm:ss").format(Calendar.getInstance().getTime()) : (!StringUtils.isEmpty(this.customRepositoryAppVersion) ? this.customRepositoryAppVersion : artifactVersionToUse);
+		String repositoryAppVersion = _getRepositoryAppVersion(artifactVersionToUse);
 
 		// Name of the Mule app on the repository
 		String repositoryAppName = StringUtils.isEmpty(this.customRepositoryAppName) ? artifactIdToUse : this.customRepositoryAppName;
@@ -197,6 +526,11 @@ public class Deploy extends AbstractMojo {
 		mmcUsername = this.mmcUsername;
 		mmcPassword = this.mmcUsername;
 
+		if (this.mmcTargets != null && !this.mmcTargets.isEmpty()) {
+			_deployToMmcTargets(muleAppFile, repositoryAppName, repositoryAppVersion, deploymentName, mmcUsername, mmcPassword);
+			return;
+		}
+
 		// URL of the MMC
 		URL mmcApiUrl = getMmcApiUrl();
 
@@ -212,41 +546,490 @@ public class Deploy extends AbstractMojo {
 
 		_logDeploymentSummary(muleAppFile.getAbsolutePath(), mmcApiUrl.getPath(), mmcUsername, mmcPassword, repositoryAppName, repositoryAppVersion, deploymentName, targetDeploymentServer, deploymentTimeoutMs);
 
+		MuleRest muleRest = _createMuleRest(mmcUsername, mmcPassword, mmcApiUrl);
 		try {
-			MuleRest muleRest = _createMuleRest(mmcUsername, mmcPassword, mmcApiUrl);
+			_deployArchive(muleRest, mmcApiUrl, muleAppFile, repositoryAppName, repositoryAppVersion, targetDeploymentServer, deploymentName);
 
-			String versionId = muleRest.restfullyUploadRepository(repositoryAppName, repositoryAppVersion, muleAppFile);
-			String deploymentId = muleRest.restfullyCreateDeployment(targetDeploymentServer, deploymentName, versionId);
-			muleRest.restfullyDeployDeploymentById(deploymentId);
+			_logger.info("Application \"" + muleAppFile.getAbsolutePath() + "\" successfully deployed in deployment \"" + customDeploymentName + "\".");
+
+		} catch (Exception e) {
+			throw new MojoFailureException("Error in attempting to deploy archive: " + e.toString(), e);
+		} finally {
+			_closeMuleRest(muleRest);
+		}
+	}
 
-			DeploymentState deploymentState = null;
+	/**
+	 * Deploys the archive to all the mmcTargets at the same time, the archive
+	 * being read once for all the uploads
+	 * 
+	 * @throws MojoFailureException
+	 *             if more than mmcTargetsMaxFailures deployments failed
+	 */
+	protected void _deployToMmcTargets(final File muleAppFile, final String repositoryAppName, final String repositoryAppVersion, final String deploymentName, final String mmcUsername, final String mmcPassword) throws MojoExecutionException,
+			MojoFailureException {
+		List<MmcTarget> targets = _parseMmcTargets();
 
-			long startTime = System.currentTimeMillis();
+		_logger.info("___MULE APPLICATION DEPLOYMENT TO " + targets.size() + " MMCS___");
+		_logger.info("> Artifact to be deployed : \"" + muleAppFile.getAbsolutePath() + "\"");
+		_logger.info("> App name and version on the repository : \"" + repositoryAppName + "\" \"" + repositoryAppVersion + "\"");
+		_logger.info("> Name of the deployment : \"" + deploymentName + "\"");
+		for (MmcTarget target : targets) {
+			_logger.info("> MMC : \"" + target.mmcApiUrl + "\", target server or group : \"" + target.targetDeploymentServer + "\"");
+		}
+		_logger.info("> Failures allowed : " + this.mmcTargetsMaxFailures);
 
-			// Wait for application to be deployed
-			while (true) {
-				deploymentState = muleRest.restfullyGetDeploymentState(deploymentId);
-				if (deploymentState.status == DeploymentStatus.IN_PROGRESS) {
-					long elaspedTime = System.currentTimeMillis() - startTime;
+		try {
+			_sharedArchive = SharedArchive.map(muleAppFile);
+		} catch (IOException e) {
+			_logger.warn("Unable to map \"" + muleAppFile.getAbsolutePath() + "\", each upload will read it: " + e.getMessage());
+		}
 
-					if (elaspedTime > this.deploymentTimeoutMs) {
-						throw new TimeoutException("Timeout of \"" + deploymentTimeoutMs + "ms\" occurred while waiting for Mule application \"" + versionId + "\" to be deployed");
+		ExecutorService executor = Executors.newFixedThreadPool(targets.size());
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (final MmcTarget target : targets) {
+				futures.add(executor.submit(new Runnable() {
+					@Override
+					public void run() {
+						_deployToMmcTarget(target, muleAppFile, repositoryAppName, repositoryAppVersion, deploymentName, mmcUsername, mmcPassword);
 					}
+				}));
+			}
 
-					Thread.sleep(DEPLOYMENT_WAIT_SLEEP_MS);
-					continue;
-				} else if (deploymentState.status == DeploymentStatus.DEPLOYED) {
-					break;
-				} else {
-					throw new Exception("Failed to deploy application with deployment id \"" + deploymentId + "\", unexpected deployment state \"" + deploymentState.status + "\"");
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					// _deployToMmcTarget catches everything, only errors can get here
+					throw new MojoExecutionException("Unexpected error while deploying to the MMCs", e.getCause());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new MojoExecutionException("Interrupted while deploying to the MMCs", e);
 				}
 			}
+		} finally {
+			executor.shutdownNow();
+			_sharedArchive = null;
+		}
 
-			_logger.info("Application \"" + muleAppFile.getAbsolutePath() + "\" successfully deployed in deployment \"" + customDeploymentName + "\".");
+		_logMmcTargetResults(targets);
+	}
 
+	/**
+	 * Deploys the archive to one of the mmcTargets with its own MuleRest,
+	 * never throws, the outcome being recorded in the target
+	 */
+	protected void _deployToMmcTarget(MmcTarget target, File muleAppFile, String repositoryAppName, String repositoryAppVersion, String deploymentName, String mmcUsername, String mmcPassword) {
+		long startTime = System.currentTimeMillis();
+		MuleRest muleRest = null;
+		try {
+			muleRest = _createMuleRest(mmcUsername, mmcPassword, target.mmcApiUrl);
+			target.deploymentId = _deployArchive(muleRest, target.mmcApiUrl, muleAppFile, repositoryAppName, repositoryAppVersion, target.targetDeploymentServer, deploymentName);
 		} catch (Exception e) {
-			throw new MojoFailureException("Error in attempting to deploy archive: " + e.toString(), e);
+			_logger.error("Failed to deploy to \"" + target.mmcApiUrl + "\": " + e.toString());
+			target.failure = e;
+		} finally {
+			if (muleRest != null) {
+				_closeMuleRest(muleRest, _getMetricsFile(target));
+			}
+		}
+		target.durationMs = System.currentTimeMillis() - startTime;
+	}
+
+	/**
+	 * Parses mmcTargets
+	 */
+	protected List<MmcTarget> _parseMmcTargets() throws MojoFailureException {
+		List<MmcTarget> targets = new ArrayList<MmcTarget>(this.mmcTargets.size());
+		for (String mmcTarget : this.mmcTargets) {
+			String entry = mmcTarget.trim();
+
+			// the @ of credentials in the URL is not a separator
+			int separator = entry.indexOf('@');
+			if (separator >= 0 && entry.substring(0, separator).contains("://")) {
+				separator = -1;
+			}
+
+			MmcTarget target = new MmcTarget();
+			target.index = targets.size() + 1;
+			target.targetDeploymentServer = separator >= 0 ? entry.substring(0, separator).trim() : this.targetDeploymentServer;
+			if (StringUtils.isEmpty(target.targetDeploymentServer)) {
+				throw new MojoFailureException("No target server or group for MMC \"" + entry + "\", and targetDeploymentServer is undefined.");
+			}
+			try {
+				target.mmcApiUrl = new URL(entry.substring(separator + 1).trim());
+			} catch (Exception e) {
+				throw new MojoFailureException("Invalid MMC URL in mmcTargets \"" + entry + "\" : " + e.getMessage());
+			}
+			targets.add(target);
+		}
+		return targets;
+	}
+
+	private void _logMmcTargetResults(List<MmcTarget> targets) throws MojoFailureException {
+		int failures = 0;
+		_logger.info("___MULE APPLICATION DEPLOYMENT RESULTS BY MMC___");
+		for (MmcTarget target : targets) {
+			if (target.failure == null) {
+				_logger.info("> " + target.mmcApiUrl + " : DEPLOYED to \"" + target.targetDeploymentServer + "\" (deployment id \"" + target.deploymentId + "\") in " + target.durationMs + " ms");
+			} else {
+				failures++;
+				_logger.error("> " + target.mmcApiUrl + " : FAILED after " + target.durationMs + " ms: " + target.failure.toString());
+			}
+		}
+		_logger.info("> " + (targets.size() - failures) + " deployed, " + failures + " failed");
+
+		if (failures > this.mmcTargetsMaxFailures) {
+			throw new MojoFailureException(failures + " of " + targets.size() + " MMC deployments failed, at most " + this.mmcTargetsMaxFailures + " allowed");
+		}
+		if (failures > 0) {
+			_logger.warn(failures + " of " + targets.size() + " MMC deployments failed, within the " + this.mmcTargetsMaxFailures + " allowed");
+		}
+	}
+
+	/**
+	 * Uploads the archive, (re)creates the deployment, deploys it and waits
+	 * for it to be deployed
+	 * 
+	 * @return The id of the deployment
+	 */
+	protected String _deployArchive(MuleRest muleRest, URL mmcApiUrl, File muleAppFile, String repositoryAppName, String repositoryAppVersion, String targetDeploymentServer, String deploymentName) throws Exception {
+		if (this.rolling && !StringUtils.isEmpty(muleRest.restfullyGetServerGroupId(targetDeploymentServer))) {
+			return _deployArchiveRolling(muleRest, mmcApiUrl, muleAppFile, repositoryAppName, repositoryAppVersion, targetDeploymentServer, deploymentName);
+		}
+		if (this.pipelined) {
+			return _deployArchivePipelined(muleRest, mmcApiUrl, muleAppFile, repositoryAppName, repositoryAppVersion, targetDeploymentServer, deploymentName);
+		}
+
+		String versionId = _uploadArchive(muleRest, mmcApiUrl, repositoryAppName, repositoryAppVersion, muleAppFile);
+		String deploymentId = muleRest.restfullyCreateDeployment(targetDeploymentServer, deploymentName, versionId);
+		muleRest.restfullyDeployDeploymentById(deploymentId);
+
+		_waitForDeployment(muleRest, deploymentId, versionId);
+		return deploymentId;
+	}
+
+	/**
+	 * Same as {@link #_deployArchive}, except that the target server or group
+	 * id lookup and the deletion of the previous deployment run while the
+	 * archive is uploaded, none of them depending on the upload
+	 * 
+	 * @return The id of the deployment
+	 */
+	protected String _deployArchivePipelined(MuleRest muleRest, URL mmcApiUrl, File muleAppFile, String repositoryAppName, String repositoryAppVersion, String targetDeploymentServer, String deploymentName) throws Exception {
+		PhaseTimeline timeline = new PhaseTimeline();
+		MuleRestAsync muleRestAsync = _getMuleRestAsync(muleRest);
+
+		Future<String> serverOrGroupIdFuture = muleRestAsync.restfullyResolveServerOrGroupId(targetDeploymentServer, new PhaseCallback<String>(timeline.start("Resolve server or group")));
+		Future<Void> deleteFuture = muleRestAsync.restfullyDeleteDeployment(deploymentName, new PhaseCallback<Void>(timeline.start("Delete previous deployment")));
+
+		String versionId;
+		PhaseTimeline.Phase phase = timeline.start("Upload archive");
+		try {
+			versionId = _uploadArchive(muleRest, mmcApiUrl, repositoryAppName, repositoryAppVersion, muleAppFile);
+		} catch (Exception e) {
+			serverOrGroupIdFuture.cancel(false);
+			deleteFuture.cancel(false);
+			throw e;
+		} finally {
+			phase.end();
+		}
+
+		String serverOrGroupId = _join(serverOrGroupIdFuture);
+		_join(deleteFuture);
+
+		phase = timeline.start("Create deployment");
+		String deploymentId = muleRest.restfullyCreateDeploymentById(serverOrGroupId, deploymentName, versionId);
+		phase.end();
+
+		phase = timeline.start("Deploy");
+		muleRest.restfullyDeployDeploymentById(deploymentId);
+		phase.end();
+
+		phase = timeline.start("Wait for deployment");
+		_waitForDeployment(muleRest, deploymentId, versionId);
+		phase.end();
+
+		timeline.log(_logger, "DEPLOYMENT TIMELINE OF \"" + deploymentName + "\"");
+		return deploymentId;
+	}
+
+	/**
+	 * Uploads the archive and deploys it to the servers of the group in waves,
+	 * see {@link RollingDeployer}
+	 * 
+	 * @return The ids of the deployments, comma separated
+	 */
+	protected String _deployArchiveRolling(MuleRest muleRest, URL mmcApiUrl, File muleAppFile, String repositoryAppName, String repositoryAppVersion, String serverGroupName, String deploymentName) throws Exception {
+		String versionId = _uploadArchive(muleRest, mmcApiUrl, repositoryAppName, repositoryAppVersion, muleAppFile);
+
+		RollingDeployer rollingDeployer = new RollingDeployer(muleRest, _getDeploymentWaiter(muleRest), this.deploymentTimeoutMs);
+		List<String> deploymentIds = rollingDeployer.deploy(serverGroupName, deploymentName, versionId, this.rollingWaveSize, this.rollingWavePercent, this.rollingReplaceGroupDeployment);
+		return StringUtils.join(deploymentIds, ",");
+	}
+
+	/**
+	 * Ends a phase of a timeline once an asynchronous call is done
+	 */
+	private static class PhaseCallback<T> implements MuleRestCallback<T> {
+		private final PhaseTimeline.Phase phase;
+
+		PhaseCallback(PhaseTimeline.Phase phase) {
+			this.phase = phase;
+		}
+
+		@Override
+		public void onSuccess(T result) {
+			phase.end();
+		}
+
+		@Override
+		public void onFailure(Throwable failure) {
+			phase.end();
+		}
+	}
+
+	/**
+	 * Waits for an asynchronous call and rethrows its failure
+	 */
+	private static <T> T _join(Future<T> future) throws Exception {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	protected synchronized MuleRestAsync _getMuleRestAsync(MuleRest muleRest) {
+		MuleRestAsync muleRestAsync = _muleRestAsyncs.get(muleRest);
+		if (muleRestAsync == null) {
+			muleRestAsync = new MuleRestAsync(muleRest, this.mmcMaxConnections);
+			_muleRestAsyncs.put(muleRest, muleRestAsync);
+		}
+		return muleRestAsync;
+	}
+
+	/**
+	 * Waits for the deployment to leave the IN_PROGRESS state
+	 */
+	protected void _waitForDeployment(MuleRest muleRest, String deploymentId, String versionId) throws Exception {
+		DeploymentState deploymentState;
+		try {
+			deploymentState = _getDeploymentWaiter(muleRest).waitForDeployment(deploymentId, this.deploymentTimeoutMs);
+		} catch (TimeoutException e) {
+			throw new TimeoutException("Timeout of \"" + deploymentTimeoutMs + "ms\" occurred while waiting for Mule application \"" + versionId + "\" to be deployed");
+		}
+
+		if (deploymentState.status != DeploymentStatus.DEPLOYED) {
+			throw new Exception("Failed to deploy application with deployment id \"" + deploymentId + "\", unexpected deployment state \"" + deploymentState.status + "\"");
+		}
+	}
+
+	protected synchronized DeploymentWaiter _getDeploymentWaiter(MuleRest muleRest) {
+		DeploymentWaiter deploymentWaiter = _deploymentWaiters.get(muleRest);
+		if (deploymentWaiter == null) {
+			PollingStrategy pollingStrategy = new ExponentialBackoffPollingStrategy(this.pollInitialDelayMs, this.pollMaxDelayMs, this.pollBackoffMultiplier, this.pollJitter);
+			_logger.info("Polling deployment state " + pollingStrategy);
+			deploymentWaiter = _createDeploymentWaiter(muleRest, pollingStrategy);
+			_deploymentWaiters.put(muleRest, deploymentWaiter);
 		}
+		return deploymentWaiter;
+	}
+
+	protected DeploymentWaiter _createDeploymentWaiter(MuleRest muleRest, PollingStrategy pollingStrategy) {
+		return new DeploymentWaiter(muleRest, pollingStrategy);
+	}
+
+	protected void _closeMuleRest(MuleRest muleRest) {
+		_closeMuleRest(muleRest, _getMetricsFile(null));
+	}
+
+	/**
+	 * Closes a MuleRest and what was created for it, and writes its request
+	 * metrics to the given file
+	 */
+	protected void _closeMuleRest(MuleRest muleRest, File metricsFile) {
+		synchronized (this) {
+			DeploymentWaiter deploymentWaiter = _deploymentWaiters.remove(muleRest);
+			if (deploymentWaiter != null) {
+				_logger.info("Deployment state polls issued: " + deploymentWaiter.getTotalPolls());
+				deploymentWaiter.close();
+			}
+			MuleRestAsync muleRestAsync = _muleRestAsyncs.remove(muleRest);
+			if (muleRestAsync != null) {
+				muleRestAsync.close();
+			}
+		}
+		_logger.info("MMC connections reused: " + muleRest.getConnectionPoolHits() + ", opened: " + muleRest.getConnectionPoolMisses());
+		_writeMetrics(muleRest.getMetrics(), metricsFile);
+		CircuitBreaker circuitBreaker = muleRest.getCircuitBreaker();
+		if (circuitBreaker != null && (muleRest.getRetryCount() > 0 || circuitBreaker.getOpenedCount() > 0)) {
+			_logger.info("MMC requests retried: " + muleRest.getRetryCount() + ", circuit breaker opened: " + circuitBreaker.getOpenedCount() + " times, calls rejected: " + circuitBreaker.getRejectedCount());
+		}
+		ConditionalGetCache conditionalGetCache = muleRest.getConditionalGetCache();
+		if (conditionalGetCache != null && conditionalGetCache.isEnabled()) {
+			_logger.info("MMC GETs answered not modified: " + conditionalGetCache.getNotModifiedCount() + ", downloaded: " + (conditionalGetCache.getModifiedCount() + conditionalGetCache.getUnvalidatedCount()) + " (" + conditionalGetCache.getUnvalidatedCount() + " without validators)");
+		}
+		PersistentIdCache idCache = muleRest.getPersistentIdCache();
+		if (idCache != null) {
+			_logger.info("Persistent id cache hits: " + idCache.getHits() + ", misses: " + idCache.getMisses() + ", stale ids dropped: " + idCache.getInvalidations());
+			try {
+				idCache.save();
+			} catch (IOException e) {
+				_logger.warn("Unable to save persistent id cache: " + e.getMessage());
+			}
+		}
+		muleRest.close();
+	}
+
+	/**
+	 * Writes the request metrics for the CI to trend, never fails the build
+	 */
+	private void _writeMetrics(MuleRestMetrics metrics, File file) {
+		if (metrics == null) {
+			return;
+		}
+		try {
+			metrics.writeJson(file);
+			_logger.info("MMC request metrics written to \"" + file.getAbsolutePath() + "\"");
+		} catch (IOException e) {
+			_logger.warn("Unable to write MMC request metrics to \"" + file.getAbsolutePath() + "\": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns the archive to upload, repacked if optimizeArchive is true. An
+	 * archive that cannot be repacked is uploaded as is.
+	 */
+	protected File _optimizeArchive(File muleAppFile) {
+		if (!this.optimizeArchive) {
+			return muleAppFile;
+		}
+
+		File directory = this.optimizedArchiveDirectory != null ? this.optimizedArchiveDirectory : new File(StringUtils.isEmpty(this.outputDirectory) ? "target" : this.outputDirectory, "mmc-optimized");
+		File optimizedFile = _getOptimizedArchiveFile(directory, muleAppFile);
+		if (optimizedFile.getAbsoluteFile().equals(muleAppFile.getAbsoluteFile())) {
+			_logger.warn("Archive \"" + muleAppFile.getAbsolutePath() + "\" is already in the optimized archive directory, uploading it as is.");
+			return muleAppFile;
+		}
+
+		try {
+			ArchiveOptimizer archiveOptimizer = new ArchiveOptimizer(this.optimizeArchiveCompressionLevel, this.optimizeArchiveExcludes, this.optimizeArchiveDropDuplicateJars);
+			ArchiveOptimizer.Report report = archiveOptimizer.optimize(muleAppFile, optimizedFile);
+			_logger.info("Archive \"" + muleAppFile.getName() + "\" optimized: " + report);
+			for (String droppedEntry : report.droppedEntries) {
+				_logger.debug("> Dropped entry \"" + droppedEntry + "\"");
+			}
+			return optimizedFile;
+		} catch (IOException | RuntimeException e) {
+			_logger.warn("Unable to optimize archive \"" + muleAppFile.getAbsolutePath() + "\", uploading it as is: " + e.toString());
+			return muleAppFile;
+		}
+	}
+
+	/**
+	 * Returns the file optimizeArchive repacks an archive to. The file keeps
+	 * the name of the archive, it is the name uploaded, and is put in a
+	 * sub-directory named after a hash of the path of the archive so that
+	 * archives of the same name deployed at the same time do not overwrite
+	 * each other.
+	 */
+	protected static File _getOptimizedArchiveFile(File directory, File muleAppFile) {
+		String pathHash = ArchiveDigest.sha256(ByteBuffer.wrap(muleAppFile.getAbsolutePath().getBytes(StandardCharsets.UTF_8))).substring(0, 16);
+		return new File(new File(directory, pathHash), muleAppFile.getName());
+	}
+
+	/**
+	 * Returns the file where to write the request metrics of a MMC
+	 * 
+	 * @param target
+	 *            One of the mmcTargets, suffixing the file name with its
+	 *            position in mmcTargets, host and port, or null. The position
+	 *            keeps apart the consoles sharing a host and port.
+	 */
+	protected File _getMetricsFile(MmcTarget target) {
+		File file = this.metricsFile != null ? this.metricsFile : new File(StringUtils.isEmpty(this.outputDirectory) ? "target" : this.outputDirectory, DEFAULT_METRICS_FILE_NAME);
+		if (target == null) {
+			return file;
+		}
+		URL mmcApiUrl = target.mmcApiUrl;
+		String name = file.getName().endsWith(".json") ? file.getName().substring(0, file.getName().length() - ".json".length()) : file.getName();
+		return new File(file.getParentFile(), name + "-" + target.index + "-" + mmcApiUrl.getHost() + (mmcApiUrl.getPort() >= 0 ? "-" + mmcApiUrl.getPort() : "") + ".json");
+	}
+
+	/**
+	 * Returns the version the application will have on the repository
+	 * 
+	 * @param artifactVersion
+	 *            Version of the artifact
+	 */
+	protected String _getRepositoryAppVersion(String artifactVersion) {
+		if (this.useTimestampVersion) {
+			return new SimpleDateFormat(TIMESTAMP_VERSION_FORMAT).format(Calendar.getInstance().getTime());
+		}
+		return !StringUtils.isEmpty(this.customRepositoryAppVersion) ? this.customRepositoryAppVersion : artifactVersion;
+	}
+
+	/**
+	 * Uploads the archive to the repository unless the same content is
+	 * already there, and returns the version id to deploy
+	 */
+	protected String _uploadArchive(MuleRest muleRest, URL mmcApiUrl, String repositoryAppName, String repositoryAppVersion, File muleAppFile) throws IOException {
+		SharedArchive sharedArchive = _sharedArchive;
+		if (sharedArchive != null && !sharedArchive.getFile().equals(muleAppFile)) {
+			sharedArchive = null;
+		}
+
+		if (!this.deduplicateUploads) {
+			return _uploadArchive(muleRest, repositoryAppName, repositoryAppVersion, muleAppFile, sharedArchive);
+		}
+
+		String sha256 = sharedArchive != null ? sharedArchive.getSha256() : ArchiveDigest.sha256(muleAppFile);
+		UploadManifest uploadManifest = _getUploadManifest();
+
+		String knownVersionId = uploadManifest.getVersionId(mmcApiUrl.toString(), sha256);
+		if (knownVersionId != null) {
+			if (muleRest.restfullyRepositoryContainsVersionId(knownVersionId)) {
+				_logger.info("Archive \"" + muleAppFile.getName() + "\" (SHA-256 " + sha256 + ") is already in the repository with version id \"" + knownVersionId + "\", skipping upload.");
+				return knownVersionId;
+			}
+			uploadManifest.remove(mmcApiUrl.toString(), sha256);
+		}
+
+		String versionId = _uploadArchive(muleRest, repositoryAppName, repositoryAppVersion, muleAppFile, sharedArchive);
+
+		uploadManifest.putVersionId(mmcApiUrl.toString(), sha256, versionId);
+		try {
+			uploadManifest.save();
+		} catch (IOException e) {
+			_logger.warn("Unable to save upload manifest: " + e.getMessage());
+		}
+		return versionId;
+	}
+
+	private static String _uploadArchive(MuleRest muleRest, String repositoryAppName, String repositoryAppVersion, File muleAppFile, SharedArchive sharedArchive) throws IOException {
+		if (sharedArchive != null) {
+			return muleRest.restfullyUploadRepository(repositoryAppName, repositoryAppVersion, muleAppFile, sharedArchive.newContent());
+		}
+		return muleRest.restfullyUploadRepository(repositoryAppName, repositoryAppVersion, muleAppFile);
+	}
+
+	private synchronized PersistentIdCache _getPersistentIdCache() {
+		if (_persistentIdCache == null) {
+			_persistentIdCache = new PersistentIdCache(this.persistentIdCacheFile, this.persistentIdCacheMaxAgeMs);
+		}
+		return _persistentIdCache;
+	}
+
+	private synchronized UploadManifest _getUploadManifest() {
+		if (_uploadManifest == null) {
+			_uploadManifest = new UploadManifest(this.uploadManifestFile);
+		}
+		return _uploadManifest;
 	}
 
 	private static String _getStrRepr(String str) {
@@ -269,7 +1052,7 @@ public class Deploy extends AbstractMojo {
 		this._logger.info("> Deployment timeout (ms) : " + deploymentTimeoutMs);
 	}
 
-	private URL getMmcApiUrl() throws MojoFailureException {
+	protected URL getMmcApiUrl() throws MojoFailureException {
 		if (StringUtils.isEmpty(this.mmcApiUrl)) {
 			throw new MojoFailureException("mmcApiUrl is not defined");
 		}
@@ -285,7 +1068,17 @@ public class Deploy extends AbstractMojo {
 	}
 
 	protected MuleRest _createMuleRest(String mmcUsername, String mmcPassword, URL mmcApiUrl) {
-		return new MuleRest(mmcApiUrl, mmcUsername, mmcPassword);
+		MuleRest muleRest = new MuleRest(mmcApiUrl, mmcUsername, mmcPassword, this.mmcMaxConnections, this.mmcConnectionIdleTimeoutMs);
+		muleRest.setTopologyCacheTtlMs(this.topologyCacheTtlMs);
+		muleRest.setConditionalGetCacheSize(this.conditionalGetCacheSize);
+		muleRest.setPageSize(this.mmcPageSize);
+		muleRest.setPagePrefetch(this.mmcPagePrefetch);
+		muleRest.setRetryPolicy(this.mmcRetryAttempts, this.mmcRetryInitialDelayMs, this.mmcRetryMaxDelayMs);
+		muleRest.setCircuitBreaker(new CircuitBreaker(this.circuitBreakerFailureThreshold, this.circuitBreakerOpenMs));
+		if (this.persistentIdCache) {
+			muleRest.setPersistentIdCache(_getPersistentIdCache());
+		}
+		return muleRest;
 	}
 
 	protected File getMuleAppFile() throws MojoFailureException {
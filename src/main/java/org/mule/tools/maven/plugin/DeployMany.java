@@ -0,0 +1,196 @@
+package org.mule.tools.maven.plugin;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.mule.tools.mmc.rest.BatchDeploymentWaiter;
+import org.mule.tools.mmc.rest.DeploymentWaiter;
+import org.mule.tools.mmc.rest.MuleRest;
+import org.mule.tools.mmc.rest.PollingStrategy;
+
+/**
+ * Deploys several Mule application archives at once. Each archive goes
+ * through the same upload, create, deploy and wait steps as the deploy goal,
+ * the archives being processed concurrently on a bounded number of threads
+ * sharing the same MMC connections. The application name and version of each
+ * archive are taken from its file name, as in noPomMode, and the deployment
+ * is named after the application.
+ *
+ * @goal deploy-many
+ * @requiresDirectInvocation true
+ * @requiresProject false
+ */
+public class DeployMany extends Deploy {
+
+	public static final int DEFAULT_DEPLOY_THREADS = 4;
+
+	/**
+	 * Paths or patterns of the Mule application archives to deploy, see
+	 * customMuleAppFilePath for the pattern syntax
+	 *
+	 * @parameter property="muleAppFiles"
+	 * @required
+	 */
+	protected List<String> muleAppFiles;
+
+	/**
+	 * Maximum number of archives deployed at the same time
+	 *
+	 * @parameter property="deployThreads" default-value="4"
+	 */
+	protected int deployThreads = DEFAULT_DEPLOY_THREADS;
+
+	/**
+	 * If true, the directories searched for the muleAppFiles patterns are
+	 * walked concurrently, for patterns recursing into large trees
+	 *
+	 * @parameter property="parallelFileSearch" default-value="false"
+	 */
+	protected boolean parallelFileSearch = false;
+
+	/**
+	 * Outcome of the deployment of one archive
+	 */
+	protected static class DeploymentResult {
+		File muleAppFile;
+		String deploymentName;
+		String deploymentId;
+		long durationMs;
+		Throwable failure;
+	}
+
+	@Override
+	public void execute() throws MojoExecutionException, MojoFailureException {
+		List<File> files = _findMuleAppFiles();
+
+		if (this.mmcUsername == null || this.mmcPassword == null) {
+			throw new MojoFailureException("mmcUsername and/or mmcPassword not set.");
+		}
+		if (StringUtils.isEmpty(this.targetDeploymentServer)) {
+			throw new MojoFailureException("targetDeploymentServer is undefined.");
+		}
+		if (this.deployThreads <= 0) {
+			throw new MojoFailureException("deployThreads must be greater than 0.");
+		}
+		final URL mmcApiUrl = getMmcApiUrl();
+
+		_logger.info("___MULE APPLICATIONS DEPLOYMENT___");
+		_logger.info("> Artifacts to be deployed : " + files.size());
+		_logger.info("> MMC URL : \"" + mmcApiUrl.getPath() + "\"");
+		_logger.info("> Target server or group : \"" + this.targetDeploymentServer + "\"");
+		_logger.info("> Concurrent deployments : " + Math.min(this.deployThreads, files.size()));
+
+		final MuleRest muleRest = _createMuleRest(this.mmcUsername, this.mmcPassword, mmcApiUrl);
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.deployThreads, files.size()));
+		List<DeploymentResult> results = new ArrayList<DeploymentResult>();
+		try {
+			List<Future<DeploymentResult>> futures = new ArrayList<Future<DeploymentResult>>();
+			for (final File muleAppFile : files) {
+				futures.add(executor.submit(new Callable<DeploymentResult>() {
+					@Override
+					public DeploymentResult call() {
+						return _deployOne(muleRest, mmcApiUrl, muleAppFile);
+					}
+				}));
+			}
+
+			for (Future<DeploymentResult> future : futures) {
+				try {
+					results.add(future.get());
+				} catch (ExecutionException e) {
+					// _deployOne catches everything, only errors can get here
+					throw new MojoExecutionException("Unexpected error while deploying archives", e.getCause());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new MojoExecutionException("Interrupted while deploying archives", e);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+			_closeMuleRest(muleRest);
+		}
+
+		_logResults(results);
+	}
+
+	/**
+	 * Deploys one archive, never throws so that a failing archive does not
+	 * prevent the others from being deployed
+	 */
+	protected DeploymentResult _deployOne(MuleRest muleRest, URL mmcApiUrl, File muleAppFile) {
+		DeploymentResult result = new DeploymentResult();
+		result.muleAppFile = muleAppFile;
+
+		long startTime = System.currentTimeMillis();
+		try {
+			MuleFileInfo muleFileInfo = MuleFileInfo.parseFromFile(muleAppFile.getName());
+			result.deploymentName = muleFileInfo.appName;
+			String repositoryAppVersion = _getRepositoryAppVersion(muleFileInfo.appVersion);
+			if (StringUtils.isEmpty(repositoryAppVersion)) {
+				throw new IllegalArgumentException("No version found in file name \"" + muleAppFile.getName() + "\"");
+			}
+
+			_logger.info("Deploying \"" + muleAppFile.getName() + "\" as \"" + muleFileInfo.appName + "\" version \"" + repositoryAppVersion + "\"");
+			result.deploymentId = _deployArchive(muleRest, mmcApiUrl, _optimizeArchive(muleAppFile), muleFileInfo.appName, repositoryAppVersion, this.targetDeploymentServer, muleFileInfo.appName);
+		} catch (Exception e) {
+			_logger.error("Failed to deploy \"" + muleAppFile.getName() + "\": " + e.toString());
+			result.failure = e;
+		}
+		result.durationMs = System.currentTimeMillis() - startTime;
+		return result;
+	}
+
+	/**
+	 * The archives being deployed concurrently, their deployments are awaited
+	 * together from a single listing of the deployments per poll
+	 */
+	@Override
+	protected DeploymentWaiter _createDeploymentWaiter(MuleRest muleRest, PollingStrategy pollingStrategy) {
+		return new BatchDeploymentWaiter(muleRest, pollingStrategy);
+	}
+
+	private List<File> _findMuleAppFiles() throws MojoFailureException {
+		if (this.muleAppFiles == null || this.muleAppFiles.isEmpty()) {
+			throw new MojoFailureException("muleAppFiles should contain at least one file or pattern");
+		}
+
+		List<String> patterns = new ArrayList<String>(this.muleAppFiles.size());
+		for (String muleAppFile : this.muleAppFiles) {
+			patterns.add(muleAppFile.trim());
+		}
+
+		// an archive matched by several patterns is deployed once
+		try {
+			return FileFinder.findAll(patterns, this.parallelFileSearch);
+		} catch (Exception e) {
+			throw new MojoFailureException(e.getMessage());
+		}
+	}
+
+	private void _logResults(List<DeploymentResult> results) throws MojoFailureException {
+		int failures = 0;
+		_logger.info("___MULE APPLICATIONS DEPLOYMENT RESULTS___");
+		for (DeploymentResult result : results) {
+			if (result.failure == null) {
+				_logger.info("> " + result.muleAppFile.getName() + " : DEPLOYED as \"" + result.deploymentName + "\" (deployment id \"" + result.deploymentId + "\") in " + result.durationMs + " ms");
+			} else {
+				failures++;
+				_logger.error("> " + result.muleAppFile.getName() + " : FAILED after " + result.durationMs + " ms: " + result.failure.toString());
+			}
+		}
+
+		if (failures > 0) {
+			throw new MojoFailureException(failures + " of " + results.size() + " Mule applications failed to deploy");
+		}
+	}
+}
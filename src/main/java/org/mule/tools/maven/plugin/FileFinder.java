@@ -2,54 +2,333 @@ package org.mule.tools.maven.plugin;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import org.apache.cxf.common.util.StringUtils;
 import wiremock.org.apache.commons.lang.NullArgumentException;
 
+/**
+ * Finds files from glob patterns.
+ *
+ * A pattern is a path whose elements may contain the wildcards of
+ * {@link java.nio.file.FileSystem#getPathMatcher(String)}: "*" matches any
+ * sequence of characters of a file name, "?" a single character and "**" any
+ * sequence of directories, possibly none. The leading elements without
+ * wildcards are the root of the search, the current directory if there are
+ * none. Only files are matched, the walk does not follow the links to
+ * directories.
+ */
 public class FileFinder {
 
+	/**
+	 * Above this number of compiled patterns, the cache is cleared
+	 */
+	static final int MAX_CACHED_MATCHERS = 256;
+
+	private static final ConcurrentMap<String, PathMatcher> _matchers = new ConcurrentHashMap<String, PathMatcher>();
+
+	/**
+	 * Root of the search and pattern of the paths relative to it
+	 */
+	private static class SearchPattern {
+		final Path root;
+		final String glob;
+		final PathMatcher matcher;
+		final int maxDepth;
+
+		SearchPattern(String filePathPattern) {
+			String standarizedFilePathPattern = filePathPattern.replace("\\", "/");
+
+			// the root ends before the first element holding a wildcard, or
+			// before the last element if none has
+			int globStart = standarizedFilePathPattern.lastIndexOf("/") + 1;
+			int elementStart = 0;
+			while (elementStart < standarizedFilePathPattern.length()) {
+				int elementEnd = standarizedFilePathPattern.indexOf('/', elementStart);
+				if (elementEnd < 0) {
+					elementEnd = standarizedFilePathPattern.length();
+				}
+				if (_hasWildcard(standarizedFilePathPattern, elementStart, elementEnd)) {
+					globStart = elementStart;
+					break;
+				}
+				elementStart = elementEnd + 1;
+			}
+
+			root = Paths.get(globStart > 0 ? standarizedFilePathPattern.substring(0, globStart) : "./");
+			glob = standarizedFilePathPattern.substring(globStart);
+			matcher = getMatcher(glob);
+			maxDepth = glob.contains("**") ? Integer.MAX_VALUE : glob.split("/").length;
+		}
+
+		boolean matches(Path file) {
+			return matcher.matches(root.relativize(file));
+		}
+	}
+
 	public static File find(String filePathPattern) throws Exception {
+		List<File> matchingFiles = findAll(filePathPattern);
+		if (matchingFiles.size() > 1) {
+			File rootSearchDir = matchingFiles.get(0).getParentFile();
+			throw new Exception("More than one file found matching pattern \"" + _getFileNameSearchPattern(filePathPattern) + "\" in directory \"" + rootSearchDir.getAbsolutePath() + "\"");
+		}
+		return matchingFiles.get(0);
+	}
+
+	/**
+	 * Returns all the files matching the pattern, sorted by name
+	 *
+	 * @param filePathPattern
+	 *            Path of a file, or glob pattern of paths, see
+	 *            {@link FileFinder}
+	 * @return
+	 * @throws FileNotFoundException
+	 *             if no file matches the pattern
+	 */
+	public static List<File> findAll(String filePathPattern) throws FileNotFoundException {
+		return findAll(filePathPattern, false);
+	}
+
+	/**
+	 * Returns all the files matching the pattern, sorted by name
+	 *
+	 * @param filePathPattern
+	 *            Path of a file, or glob pattern of paths, see
+	 *            {@link FileFinder}
+	 * @param parallel
+	 *            If true, the sub-directories of the root are walked
+	 *            concurrently
+	 * @return
+	 * @throws FileNotFoundException
+	 *             if no file matches the pattern
+	 */
+	public static List<File> findAll(String filePathPattern, boolean parallel) throws FileNotFoundException {
 		if (StringUtils.isEmpty(filePathPattern)) {
 			throw new NullArgumentException("Can't find files from null or empty pattern");
 		}
 
 		File filePath = new File(filePathPattern);
 		if (filePath.exists()) {
-			return filePath;
+			return Collections.singletonList(filePath);
 		}
 
-		String standarizedFilePathPattern = filePathPattern.replace("\\", "/");
+		SearchPattern searchPattern = new SearchPattern(filePathPattern);
+		List<Path> matchingPaths;
+		if (!Files.isDirectory(searchPattern.root)) {
+			matchingPaths = Collections.emptyList();
+		} else if (parallel) {
+			matchingPaths = ParallelHolder.POOL.invoke(new WalkTask(searchPattern, searchPattern.root, 1));
+		} else {
+			matchingPaths = _walk(searchPattern);
+		}
 
-		int lastSlashPos = standarizedFilePathPattern.lastIndexOf("/");
+		if (matchingPaths.isEmpty()) {
+			throw new FileNotFoundException("No file matching pattern \"" + searchPattern.glob + "\" found in directory \"" + searchPattern.root.toFile().getAbsolutePath() + "\"");
+		}
+		List<File> matchingFiles = new ArrayList<File>(matchingPaths.size());
+		for (Path matchingPath : matchingPaths) {
+			matchingFiles.add(matchingPath.toFile());
+		}
+		Collections.sort(matchingFiles);
+		return matchingFiles;
+	}
 
-		String rootSearchDirPath;
-		String fileNameSearchPattern;
-		if (lastSlashPos >= 0) {
-			rootSearchDirPath = filePathPattern.substring(0, lastSlashPos);
-			fileNameSearchPattern = filePathPattern.substring(lastSlashPos + 1);
-		} else {
-			rootSearchDirPath = "./";
-			fileNameSearchPattern = filePathPattern;
+	/**
+	 * Returns all the files matching any of the patterns, each pattern being
+	 * searched from its own root
+	 *
+	 * @param filePathPatterns
+	 *            See {@link #findAll(String)}
+	 * @param parallel
+	 *            See {@link #findAll(String, boolean)}
+	 * @return The absolute files, by pattern then by name, a file matching
+	 *         several patterns being returned once
+	 * @throws FileNotFoundException
+	 *             if no file matches one of the patterns
+	 */
+	public static List<File> findAll(Collection<String> filePathPatterns, boolean parallel) throws FileNotFoundException {
+		Set<File> files = new LinkedHashSet<File>();
+		for (String filePathPattern : filePathPatterns) {
+			for (File file : findAll(filePathPattern, parallel)) {
+				files.add(file.getAbsoluteFile());
+			}
 		}
+		return new ArrayList<File>(files);
+	}
 
-		final String fileNameSearchRegex = fileNameSearchPattern.replace(".", "\\.").replace("*", ".*");
+	private static List<Path> _walk(final SearchPattern searchPattern) throws FileNotFoundException {
+		final List<Path> matchingPaths = new ArrayList<Path>();
+		try {
+			Files.walkFileTree(searchPattern.root, EnumSet.noneOf(FileVisitOption.class), searchPattern.maxDepth, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+					if ((attributes.isRegularFile() || (attributes.isSymbolicLink() && Files.isRegularFile(file))) && searchPattern.matches(file)) {
+						matchingPaths.add(file);
+					}
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(Path file, IOException e) {
+					// unreadable entries are skipped, as File.listFiles does
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (IOException e) {
+			throw _fileNotFound(searchPattern, e);
+		}
+		return matchingPaths;
+	}
 
-		File rootSearchDir = new File(rootSearchDirPath);
-		File[] matchingFiles = rootSearchDir.listFiles(new FilenameFilter() {
-			@Override
-			public boolean accept(File dir, String name) {
-				return name.matches(fileNameSearchRegex);
+	/**
+	 * Walks a directory, its sub-directories being walked by forked tasks
+	 */
+	private static class WalkTask extends RecursiveTask<List<Path>> {
+		private static final long serialVersionUID = 1L;
+
+		private final SearchPattern searchPattern;
+		private final Path directory;
+		private final int depth;
+
+		WalkTask(SearchPattern searchPattern, Path directory, int depth) {
+			this.searchPattern = searchPattern;
+			this.directory = directory;
+			this.depth = depth;
+		}
+
+		@Override
+		protected List<Path> compute() {
+			List<Path> matchingPaths = new ArrayList<Path>();
+			List<WalkTask> subTasks = new ArrayList<WalkTask>();
+			try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+				for (Path entry : entries) {
+					if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+						if (depth < searchPattern.maxDepth) {
+							WalkTask subTask = new WalkTask(searchPattern, entry, depth + 1);
+							subTask.fork();
+							subTasks.add(subTask);
+						}
+					} else if (Files.isRegularFile(entry) && searchPattern.matches(entry)) {
+						matchingPaths.add(entry);
+					}
+				}
+			} catch (IOException e) {
+				// unreadable directories are skipped, as File.listFiles does
 			}
-		});
 
-		if (matchingFiles == null || matchingFiles.length <= 0) {
-			throw new FileNotFoundException("No file matching pattern \"" + fileNameSearchPattern + "\" found in directory \"" + rootSearchDir.getAbsolutePath() + "\"");
-		} else if (matchingFiles.length > 1) {
-			throw new Exception("More than one file found matching pattern \"" + fileNameSearchPattern + "\" in directory \"" + rootSearchDir.getAbsolutePath() + "\"");
-		} else {
-			return matchingFiles[0];
+			for (WalkTask subTask : subTasks) {
+				matchingPaths.addAll(subTask.join());
+			}
+			return matchingPaths;
+		}
+	}
+
+	/**
+	 * Pool created on the first parallel search only
+	 */
+	private static class ParallelHolder {
+		static final ForkJoinPool POOL = new ForkJoinPool();
+	}
+
+	/**
+	 * Returns the compiled matcher of a glob, "**&#47;" also matching no
+	 * directory at all
+	 */
+	static PathMatcher getMatcher(String glob) {
+		PathMatcher matcher = _matchers.get(glob);
+		if (matcher == null) {
+			if (glob.indexOf('{') < 0) {
+				matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob.replace("**/", "{**/,}"));
+			} else {
+				// groups do not nest, each "**/" is dropped in turn instead
+				final List<PathMatcher> matchers = new ArrayList<PathMatcher>();
+				for (String variant : _withoutAnyDirectories(glob)) {
+					matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + variant));
+				}
+				matcher = new PathMatcher() {
+					@Override
+					public boolean matches(Path path) {
+						for (PathMatcher variantMatcher : matchers) {
+							if (variantMatcher.matches(path)) {
+								return true;
+							}
+						}
+						return false;
+					}
+				};
+			}
+			if (_matchers.size() >= MAX_CACHED_MATCHERS) {
+				_matchers.clear();
+			}
+			_matchers.put(glob, matcher);
 		}
+		return matcher;
+	}
+
+	/**
+	 * Returns the glob and its variants without some of the "**&#47;" starting
+	 * a path element, for instance "**&#47;a/**&#47;*.{zip,jar}" and
+	 * "a/*.{zip,jar}"
+	 */
+	private static Set<String> _withoutAnyDirectories(String glob) {
+		Set<String> variants = new LinkedHashSet<String>();
+		variants.add(glob);
+		for (int i = glob.indexOf("**/"); i >= 0; i = glob.indexOf("**/", i + 1)) {
+			char previous = i == 0 ? '/' : glob.charAt(i - 1);
+			if (previous != '/' && previous != '{' && previous != ',') {
+				continue;
+			}
+			// the occurrences before this one are dropped or kept by the variants already there
+			for (String variant : new ArrayList<String>(variants)) {
+				int start = variant.length() - (glob.length() - i);
+				variants.add(variant.substring(0, start) + variant.substring(start + 3));
+			}
+		}
+		return variants;
+	}
+
+	private static boolean _hasWildcard(String pattern, int start, int end) {
+		for (int i = start; i < end; i++) {
+			char c = pattern.charAt(i);
+			if (c == '*' || c == '?' || c == '[' || c == '{') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static FileNotFoundException _fileNotFound(SearchPattern searchPattern, IOException cause) {
+		FileNotFoundException fileNotFoundException = new FileNotFoundException("Unable to search files matching pattern \"" + searchPattern.glob + "\" in directory \""
+				+ searchPattern.root.toFile().getAbsolutePath() + "\": " + cause.getMessage());
+		fileNotFoundException.initCause(cause);
+		return fileNotFoundException;
+	}
+
+	private static String _getFileNameSearchPattern(String filePathPattern) {
+		int lastSlashPos = filePathPattern.replace("\\", "/").lastIndexOf("/");
+		return lastSlashPos >= 0 ? filePathPattern.substring(lastSlashPos + 1) : filePathPattern;
 	}
 
 }
@@ -1,60 +1,195 @@
 package org.mule.tools.maven.plugin;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class MuleFileInfo {
-	
+
+	/**
+	 * Number of file names below which a bulk parse is not split further
+	 */
+	static final int PARALLEL_THRESHOLD = 1024;
+
 	/**
 	 * Version of Mule application if found (or null)
 	 */
 	public String appVersion;
-	
+
 	/**
 	 * Name of the Mule application without extension and version if found
 	 */
 	public String appName;
-	
+
+	/**
+	 * Parses the name of an archive. The version starts after the first "-"
+	 * followed by a number, possibly after white spaces, the extension is
+	 * dropped.
+	 *
+	 * The characters are scanned in place, the only strings allocated being the
+	 * name and the version.
+	 *
+	 * @param customMuleAppFilePath
+	 *            File name or path, with "/" or "\" separators
+	 * @return
+	 */
 	public static MuleFileInfo parseFromFile(String customMuleAppFilePath) {
-		String fileName = getFileName(customMuleAppFilePath);
-		String fileNameWithoutExt = MuleFileInfo.getFileNameWithoutExt(fileName);
-		
-		Pattern versionRegex = Pattern.compile("-\\s*\\d+"); //Something in the form of [ANY_CHAR-AT_LEAST_ONE_NUMBER]
-		Matcher matcher = versionRegex.matcher(fileNameWithoutExt);
-		MuleFileInfo  muleFileInfo = new MuleFileInfo();
-		
-		if (matcher.find()){
-			int matchPos = matcher.start();
-			muleFileInfo.appName = fileNameWithoutExt.substring(0,matchPos).trim();
-			muleFileInfo.appVersion = fileNameWithoutExt.substring(matchPos + 1).trim();
+		String path = customMuleAppFilePath;
+		int start = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\')) + 1;
+		int end = path.lastIndexOf('.');
+		if (end < start) {
+			end = path.length();
+		}
+
+		MuleFileInfo muleFileInfo = new MuleFileInfo();
+		int versionSeparator = _findVersionSeparator(path, start, end);
+		if (versionSeparator >= 0) {
+			muleFileInfo.appName = _trimmedSubstring(path, start, versionSeparator);
+			muleFileInfo.appVersion = _trimmedSubstring(path, versionSeparator + 1, end);
 		} else {
-			muleFileInfo.appName = fileNameWithoutExt;
+			muleFileInfo.appName = path.substring(start, end);
 		}
-		
-		
 		return muleFileInfo;
 	}
-	
-	private static String getFileName(String filePath){
-		String standardFilePath = filePath.replace("\\", "/");
-		int lastSlashPos = standardFilePath.lastIndexOf("/");
-		if(lastSlashPos >= 0){
-			String fileName = filePath.substring(lastSlashPos + 1);
-			return fileName;
-		} else  {
-			return filePath;
-		}
-	}
-	
-	private static String getFileNameWithoutExt(String fileName){
-		int pos = fileName.lastIndexOf(".");
-		if (pos >= 0) {
-			String fileNameWithoutExt = fileName.substring(0, pos);
-			return fileNameWithoutExt;
+
+	/**
+	 * Parses many file names or paths
+	 *
+	 * @param paths
+	 * @param parallel
+	 *            If true, large lists are split and parsed on several threads
+	 * @return The parsed names, in the order of the paths
+	 */
+	public static List<MuleFileInfo> parseAll(List<String> paths, boolean parallel) {
+		String[] pathArray = paths.toArray(new String[paths.size()]);
+		MuleFileInfo[] muleFileInfos = new MuleFileInfo[pathArray.length];
+
+		if (parallel && pathArray.length > PARALLEL_THRESHOLD) {
+			ParallelHolder.POOL.invoke(new ParseAction(pathArray, muleFileInfos, 0, pathArray.length));
 		} else {
-			return fileName;
+			_parseRange(pathArray, muleFileInfos, 0, pathArray.length);
 		}
+		return Arrays.asList(muleFileInfos);
 	}
-	
 
+	/**
+	 * Parses the names of the files of a directory, sub-directories excluded
+	 *
+	 * @param directory
+	 * @param parallel
+	 *            See {@link #parseAll(List, boolean)}
+	 * @return The parsed names by file, sorted by file name, empty if the
+	 *         directory does not exist
+	 */
+	public static Map<File, MuleFileInfo> parseDirectory(File directory, boolean parallel) {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return Collections.emptyMap();
+		}
+		Arrays.sort(files);
+
+		List<File> regularFiles = new ArrayList<File>(files.length);
+		List<String> names = new ArrayList<String>(files.length);
+		for (File file : files) {
+			if (file.isFile()) {
+				regularFiles.add(file);
+				names.add(file.getName());
+			}
+		}
+
+		List<MuleFileInfo> muleFileInfos = parseAll(names, parallel);
+		Map<File, MuleFileInfo> muleFileInfosByFile = new LinkedHashMap<File, MuleFileInfo>();
+		for (int i = 0; i < regularFiles.size(); i++) {
+			muleFileInfosByFile.put(regularFiles.get(i), muleFileInfos.get(i));
+		}
+		return muleFileInfosByFile;
+	}
+
+	/**
+	 * Returns the position of the first "-" followed by optional white spaces
+	 * and a digit, or -1
+	 */
+	private static int _findVersionSeparator(String path, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (path.charAt(i) != '-') {
+				continue;
+			}
+			int j = i + 1;
+			while (j < end && _isWhitespace(path.charAt(j))) {
+				j++;
+			}
+			if (j < end && path.charAt(j) >= '0' && path.charAt(j) <= '9') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Same white spaces as the \s regular expression class
+	 */
+	private static boolean _isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+
+	/**
+	 * Same as substring(start, end).trim() without the intermediate string
+	 */
+	private static String _trimmedSubstring(String path, int start, int end) {
+		while (start < end && path.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && path.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		return path.substring(start, end);
+	}
+
+	private static void _parseRange(String[] paths, MuleFileInfo[] muleFileInfos, int from, int to) {
+		for (int i = from; i < to; i++) {
+			muleFileInfos[i] = parseFromFile(paths[i]);
+		}
+	}
+
+	/**
+	 * Parses a range of paths, split in halves until small enough
+	 */
+	private static class ParseAction extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final String[] paths;
+		private final MuleFileInfo[] muleFileInfos;
+		private final int from;
+		private final int to;
+
+		ParseAction(String[] paths, MuleFileInfo[] muleFileInfos, int from, int to) {
+			this.paths = paths;
+			this.muleFileInfos = muleFileInfos;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= PARALLEL_THRESHOLD) {
+				_parseRange(paths, muleFileInfos, from, to);
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new ParseAction(paths, muleFileInfos, from, middle), new ParseAction(paths, muleFileInfos, middle, to));
+			}
+		}
+	}
+
+	/**
+	 * Pool created on the first parallel parse only
+	 */
+	private static class ParallelHolder {
+		static final ForkJoinPool POOL = new ForkJoinPool();
+	}
 }
@@ -0,0 +1,95 @@
+package org.mule.tools.maven.plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+
+/**
+ * Records when the phases of a deployment start and end, possibly on
+ * different threads, and logs them as a timeline along with the time saved
+ * by running some of them concurrently.
+ */
+public class PhaseTimeline {
+
+	private final long startTime = System.currentTimeMillis();
+	private final List<Phase> phases = new ArrayList<Phase>();
+
+	/**
+	 * A timed phase, see {@link PhaseTimeline#start(String)}
+	 */
+	public class Phase {
+		private final String name;
+		private final long start;
+		private long end = -1;
+
+		private Phase(String name) {
+			this.name = name;
+			this.start = System.currentTimeMillis();
+		}
+
+		/**
+		 * Ends the phase
+		 */
+		public void end() {
+			synchronized (PhaseTimeline.this) {
+				end = System.currentTimeMillis();
+			}
+		}
+	}
+
+	/**
+	 * Starts a phase
+	 *
+	 * @param name
+	 * @return The phase, to be ended once done
+	 */
+	public synchronized Phase start(String name) {
+		Phase phase = new Phase(name);
+		phases.add(phase);
+		return phase;
+	}
+
+	/**
+	 * @return Time elapsed since the creation of the timeline
+	 */
+	public long getElapsedMs() {
+		return System.currentTimeMillis() - startTime;
+	}
+
+	/**
+	 * @return Sum of the durations of the ended phases, that is the time they
+	 *         would have taken one after the other
+	 */
+	public synchronized long getSequentialMs() {
+		long sequentialMs = 0;
+		for (Phase phase : phases) {
+			if (phase.end >= 0) {
+				sequentialMs += phase.end - phase.start;
+			}
+		}
+		return sequentialMs;
+	}
+
+	/**
+	 * Logs each phase with its offset from the start of the timeline and its
+	 * duration, then the wall-clock time against the sequential time
+	 *
+	 * @param logger
+	 * @param title
+	 */
+	public synchronized void log(Logger logger, String title) {
+		logger.info("___" + title + "___");
+		for (Phase phase : phases) {
+			if (phase.end >= 0) {
+				logger.info(String.format("> %-28s : +%6d ms -> +%6d ms (%d ms)", phase.name, phase.start - startTime, phase.end - startTime, phase.end - phase.start));
+			} else {
+				logger.info(String.format("> %-28s : +%6d ms -> not ended", phase.name, phase.start - startTime));
+			}
+		}
+
+		long elapsedMs = getElapsedMs();
+		long sequentialMs = getSequentialMs();
+		logger.info("> Wall-clock time : " + elapsedMs + " ms, sequential time : " + sequentialMs + " ms, saved : " + Math.max(0, sequentialMs - elapsedMs) + " ms");
+	}
+}
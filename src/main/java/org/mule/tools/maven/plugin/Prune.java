@@ -0,0 +1,185 @@
+package org.mule.tools.maven.plugin;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.cxf.transport.http.HTTPException;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.mule.tools.mmc.rest.MuleRest;
+
+/**
+ * Deletes from the repository of the MMC the application versions that the
+ * {@link RetentionPolicy} does not keep: the versions not referenced by a
+ * deployment that are not among the last versions of their application, or
+ * are older than the maximum age. The deletes are sent concurrently by a
+ * bounded number of threads.
+ *
+ * A dry run lists the versions that would be deleted without deleting them.
+ *
+ * @goal prune
+ * @requiresDirectInvocation true
+ * @requiresProject false
+ */
+public class Prune extends Deploy {
+
+	public static final int DEFAULT_PRUNE_KEEP_VERSIONS = 5;
+	public static final int DEFAULT_PRUNE_THREADS = 4;
+
+	/**
+	 * Number of versions kept per application, the last ones by upload time
+	 * or Maven version, see {@link RetentionPolicy}. 0 keeps them all.
+	 *
+	 * @parameter property="pruneKeepVersions" default-value="5"
+	 */
+	protected int pruneKeepVersions = DEFAULT_PRUNE_KEEP_VERSIONS;
+
+	/**
+	 * Age in days after which a version named after its upload time, see
+	 * useTimestampVersion, is deleted. 0 for no maximum age.
+	 *
+	 * @parameter property="pruneMaxAgeDays" default-value="0"
+	 */
+	protected int pruneMaxAgeDays;
+
+	/**
+	 * Comma separated names of the applications to prune, all the
+	 * applications of the repository if empty
+	 *
+	 * @parameter property="pruneApplications"
+	 */
+	protected String pruneApplications;
+
+	/**
+	 * Maximum number of versions deleted at the same time
+	 *
+	 * @parameter property="pruneThreads" default-value="4"
+	 */
+	protected int pruneThreads = DEFAULT_PRUNE_THREADS;
+
+	/**
+	 * If true, the versions to delete are only listed
+	 *
+	 * @parameter property="pruneDryRun" default-value="false"
+	 */
+	protected boolean pruneDryRun;
+
+	@Override
+	public void execute() throws MojoExecutionException, MojoFailureException {
+		if (this.mmcUsername == null || this.mmcPassword == null) {
+			throw new MojoFailureException("mmcUsername and/or mmcPassword not set.");
+		}
+		if (this.pruneThreads <= 0) {
+			throw new MojoFailureException("pruneThreads must be greater than 0.");
+		}
+		URL mmcApiUrl = getMmcApiUrl();
+
+		_logger.info("___MULE REPOSITORY PRUNING___");
+		_logger.info("> MMC URL : \"" + mmcApiUrl.getPath() + "\"");
+		_logger.info("> Applications : " + (StringUtils.isBlank(this.pruneApplications) ? "all" : this.pruneApplications));
+		_logger.info("> Versions kept per application : " + (this.pruneKeepVersions > 0 ? this.pruneKeepVersions : "all"));
+		_logger.info("> Maximum age : " + (this.pruneMaxAgeDays > 0 ? this.pruneMaxAgeDays + " days" : "none"));
+
+		MuleRest muleRest = _createMuleRest(this.mmcUsername, this.mmcPassword, mmcApiUrl);
+		List<RetentionPolicy.Version> versions;
+		int failures;
+		try {
+			Map<String, Map<String, String>> versionIdsByApplication = _selectApplications(muleRest.restfullyGetRepositoryVersions());
+			Set<String> deployedVersionIds = muleRest.restfullyGetDeployedVersionIds();
+			versions = new RetentionPolicy(this.pruneKeepVersions, this.pruneMaxAgeDays).selectVersionsToDelete(versionIdsByApplication, deployedVersionIds, System.currentTimeMillis());
+
+			_logger.info((this.pruneDryRun ? "Versions that would be deleted: " : "Versions to delete: ") + versions.size());
+			for (RetentionPolicy.Version version : versions) {
+				_logger.info("> " + version);
+			}
+			if (this.pruneDryRun || versions.isEmpty()) {
+				return;
+			}
+			failures = _deleteVersions(muleRest, versions);
+		} catch (IOException e) {
+			throw new MojoFailureException("Error in attempting to prune the repository: " + e.toString(), e);
+		} finally {
+			_closeMuleRest(muleRest);
+		}
+
+		if (failures > 0) {
+			throw new MojoFailureException(failures + " of " + versions.size() + " application versions could not be deleted");
+		}
+		_logger.info(versions.size() + " application versions deleted");
+	}
+
+	private Map<String, Map<String, String>> _selectApplications(Map<String, Map<String, String>> versionIdsByApplication) {
+		if (StringUtils.isBlank(this.pruneApplications)) {
+			return versionIdsByApplication;
+		}
+		Set<String> names = new HashSet<String>();
+		for (String name : this.pruneApplications.split(",")) {
+			names.add(name.trim());
+		}
+		Map<String, Map<String, String>> selected = new LinkedHashMap<String, Map<String, String>>();
+		for (Map.Entry<String, Map<String, String>> application : versionIdsByApplication.entrySet()) {
+			if (names.contains(application.getKey())) {
+				selected.put(application.getKey(), application.getValue());
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * Deletes the versions with at most pruneThreads deletes in flight, a
+	 * version already gone being counted as deleted
+	 *
+	 * @return Number of versions that could not be deleted
+	 */
+	protected int _deleteVersions(final MuleRest muleRest, List<RetentionPolicy.Version> versions) throws MojoExecutionException {
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.pruneThreads, versions.size()));
+		List<Future<Void>> deletes = new ArrayList<Future<Void>>(versions.size());
+		try {
+			for (final RetentionPolicy.Version version : versions) {
+				deletes.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws IOException {
+						try {
+							muleRest.restfullyDeleteApplicationById(version.versionId);
+						} catch (HTTPException e) {
+							if (e.getResponseCode() != Status.NOT_FOUND.getStatusCode()) {
+								throw e;
+							}
+						}
+						return null;
+					}
+				}));
+			}
+
+			int failures = 0;
+			for (int i = 0; i < deletes.size(); i++) {
+				try {
+					deletes.get(i).get();
+				} catch (ExecutionException e) {
+					failures++;
+					_logger.error("Failed to delete " + versions.get(i).applicationName + " " + versions.get(i).version + ": " + e.getCause().toString());
+				}
+			}
+			return failures;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MojoExecutionException("Interrupted while deleting application versions", e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,273 @@
+package org.mule.tools.maven.plugin;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.mule.tools.mmc.rest.BatchDeploymentWaiter;
+import org.mule.tools.mmc.rest.DeploymentWaiter;
+import org.mule.tools.mmc.rest.MuleRest;
+import org.mule.tools.mmc.rest.PollingStrategy;
+
+/**
+ * Deploys the Mule applications of a {@link ReleasePlan} in the order of
+ * their dependencies. The applications whose dependencies are all deployed
+ * are deployed concurrently, each one going through the same upload, create,
+ * deploy and wait steps as the deploy goal, and an application starts as soon
+ * as the last of its dependencies reaches the DEPLOYED state. The
+ * applications depending, directly or not, on a failed one are skipped.
+ *
+ * Once done, the goal logs the critical path of the release: the chain of
+ * dependent deployments that set its duration.
+ *
+ * @goal release
+ * @requiresDirectInvocation true
+ * @requiresProject false
+ */
+public class Release extends Deploy {
+
+	public static final int DEFAULT_RELEASE_THREADS = 4;
+
+	/**
+	 * JSON file of the release plan, see {@link ReleasePlan}
+	 *
+	 * @parameter property="releasePlan"
+	 * @required
+	 */
+	protected File releasePlan;
+
+	/**
+	 * Maximum number of applications deployed at the same time
+	 *
+	 * @parameter property="releaseThreads" default-value="4"
+	 */
+	protected int releaseThreads = DEFAULT_RELEASE_THREADS;
+
+	/**
+	 * Application of the plan, ready to be deployed
+	 */
+	protected static class ReleaseStep {
+		ReleasePlan.App app;
+		File muleAppFile;
+		String repositoryAppVersion;
+		String target;
+		String deploymentName;
+	}
+
+	/**
+	 * Outcome of one step, the times being relative to the start of the
+	 * release
+	 */
+	protected static class StepResult {
+		ReleaseStep step;
+		String deploymentId;
+		long startMs;
+		long endMs;
+		Throwable failure;
+		boolean skipped;
+	}
+
+	@Override
+	public void execute() throws MojoExecutionException, MojoFailureException {
+		final ReleasePlan plan = _readReleasePlan();
+		Map<String, ReleaseStep> steps = _prepareSteps(plan);
+
+		if (this.mmcUsername == null || this.mmcPassword == null) {
+			throw new MojoFailureException("mmcUsername and/or mmcPassword not set.");
+		}
+		if (this.releaseThreads <= 0) {
+			throw new MojoFailureException("releaseThreads must be greater than 0.");
+		}
+		final URL mmcApiUrl = getMmcApiUrl();
+
+		_logger.info("___MULE APPLICATIONS RELEASE___");
+		_logger.info("> Release plan : \"" + this.releasePlan.getAbsolutePath() + "\"");
+		_logger.info("> Applications : " + StringUtils.join(plan.getOrder(), ", "));
+		_logger.info("> MMC URL : \"" + mmcApiUrl.getPath() + "\"");
+		_logger.info("> Concurrent deployments : " + Math.min(this.releaseThreads, steps.size()));
+
+		final MuleRest muleRest = _createMuleRest(this.mmcUsername, this.mmcPassword, mmcApiUrl);
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.releaseThreads, steps.size()));
+		CompletionService<StepResult> completionService = new ExecutorCompletionService<StepResult>(executor);
+		Map<String, StepResult> results = new HashMap<String, StepResult>();
+		final long startTime = System.currentTimeMillis();
+		try {
+			Map<String, Integer> pendingDependencies = new HashMap<String, Integer>();
+			int running = 0;
+			for (String name : plan.getOrder()) {
+				pendingDependencies.put(name, plan.getDependencies(name).size());
+				if (plan.getDependencies(name).isEmpty()) {
+					_submit(completionService, muleRest, mmcApiUrl, steps.get(name), startTime);
+					running++;
+				}
+			}
+
+			while (running > 0) {
+				StepResult result;
+				try {
+					result = completionService.take().get();
+				} catch (ExecutionException e) {
+					// _deployStep catches everything, only errors can get here
+					throw new MojoExecutionException("Unexpected error while releasing applications", e.getCause());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new MojoExecutionException("Interrupted while releasing applications", e);
+				}
+				running--;
+
+				String name = result.step.app.name;
+				results.put(name, result);
+				if (result.failure != null) {
+					continue;
+				}
+				for (String dependant : plan.getDependants(name)) {
+					int pending = pendingDependencies.get(dependant) - 1;
+					pendingDependencies.put(dependant, pending);
+					if (pending == 0) {
+						_submit(completionService, muleRest, mmcApiUrl, steps.get(dependant), startTime);
+						running++;
+					}
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+			_closeMuleRest(muleRest);
+		}
+
+		_logResults(plan, steps, results, System.currentTimeMillis() - startTime);
+	}
+
+	private void _submit(CompletionService<StepResult> completionService, final MuleRest muleRest, final URL mmcApiUrl, final ReleaseStep step, final long startTime) {
+		completionService.submit(new Callable<StepResult>() {
+			@Override
+			public StepResult call() {
+				return _deployStep(muleRest, mmcApiUrl, step, startTime);
+			}
+		});
+	}
+
+	/**
+	 * Deploys one application of the plan, never throws so that the
+	 * independent applications keep on being deployed
+	 */
+	protected StepResult _deployStep(MuleRest muleRest, URL mmcApiUrl, ReleaseStep step, long startTime) {
+		StepResult result = new StepResult();
+		result.step = step;
+		result.startMs = System.currentTimeMillis() - startTime;
+		try {
+			_logger.info("Releasing \"" + step.app.name + "\" version \"" + step.repositoryAppVersion + "\" to \"" + step.target + "\"");
+			result.deploymentId = _deployArchive(muleRest, mmcApiUrl, _optimizeArchive(step.muleAppFile), step.app.name, step.repositoryAppVersion, step.target, step.deploymentName);
+		} catch (Exception e) {
+			_logger.error("Failed to release \"" + step.app.name + "\": " + e.toString());
+			result.failure = e;
+		}
+		result.endMs = System.currentTimeMillis() - startTime;
+		return result;
+	}
+
+	/**
+	 * The independent applications being deployed concurrently, their
+	 * deployments are awaited together from a single listing of the
+	 * deployments per poll
+	 */
+	@Override
+	protected DeploymentWaiter _createDeploymentWaiter(MuleRest muleRest, PollingStrategy pollingStrategy) {
+		return new BatchDeploymentWaiter(muleRest, pollingStrategy);
+	}
+
+	private ReleasePlan _readReleasePlan() throws MojoFailureException {
+		if (this.releasePlan == null || !this.releasePlan.isFile()) {
+			throw new MojoFailureException("Release plan \"" + this.releasePlan + "\" not found");
+		}
+		try {
+			return ReleasePlan.read(this.releasePlan);
+		} catch (Exception e) {
+			throw new MojoFailureException("Invalid release plan \"" + this.releasePlan.getAbsolutePath() + "\": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Finds the archives and resolves the versions and targets of all the
+	 * applications before anything is deployed
+	 */
+	protected Map<String, ReleaseStep> _prepareSteps(ReleasePlan plan) throws MojoFailureException {
+		File planDirectory = this.releasePlan.getAbsoluteFile().getParentFile();
+		Map<String, ReleaseStep> steps = new LinkedHashMap<String, ReleaseStep>();
+		for (String name : plan.getOrder()) {
+			ReleasePlan.App app = plan.getApp(name);
+			ReleaseStep step = new ReleaseStep();
+			step.app = app;
+
+			String path = app.file.trim();
+			if (!new File(path).isAbsolute()) {
+				path = new File(planDirectory, path).getPath();
+			}
+			try {
+				step.muleAppFile = FileFinder.find(path);
+			} catch (Exception e) {
+				throw new MojoFailureException("Archive of \"" + name + "\" not found: " + e.getMessage());
+			}
+
+			step.repositoryAppVersion = StringUtils.isEmpty(app.version) ? _getRepositoryAppVersion(MuleFileInfo.parseFromFile(step.muleAppFile.getName()).appVersion) : app.version;
+			if (StringUtils.isEmpty(step.repositoryAppVersion)) {
+				throw new MojoFailureException("No version given for \"" + name + "\" and none found in file name \"" + step.muleAppFile.getName() + "\"");
+			}
+
+			step.target = StringUtils.isEmpty(app.target) ? this.targetDeploymentServer : app.target;
+			if (StringUtils.isEmpty(step.target)) {
+				throw new MojoFailureException("No target for \"" + name + "\" and targetDeploymentServer is undefined.");
+			}
+			step.deploymentName = StringUtils.isEmpty(app.deploymentName) ? name : app.deploymentName;
+			steps.put(name, step);
+		}
+		return steps;
+	}
+
+	private void _logResults(ReleasePlan plan, Map<String, ReleaseStep> steps, Map<String, StepResult> results, long durationMs) throws MojoFailureException {
+		int failures = 0;
+		int skipped = 0;
+		Map<String, Long> endTimes = new HashMap<String, Long>();
+		_logger.info("___MULE APPLICATIONS RELEASE RESULTS___");
+		for (String name : plan.getOrder()) {
+			StepResult result = results.get(name);
+			if (result == null) {
+				skipped++;
+				_logger.error("> " + name + " : SKIPPED, a dependency failed");
+			} else if (result.failure == null) {
+				endTimes.put(name, result.endMs);
+				_logger.info("> " + name + " : DEPLOYED as \"" + result.step.deploymentName + "\" (deployment id \"" + result.deploymentId + "\") from +" + result.startMs + " ms to +" + result.endMs + " ms");
+			} else {
+				failures++;
+				_logger.error("> " + name + " : FAILED from +" + result.startMs + " ms to +" + result.endMs + " ms: " + result.failure.toString());
+			}
+		}
+
+		List<String> criticalPath = plan.getCriticalPath(endTimes);
+		if (!criticalPath.isEmpty()) {
+			List<String> pathSteps = new ArrayList<String>();
+			for (String name : criticalPath) {
+				StepResult result = results.get(name);
+				pathSteps.add(name + " (" + (result.endMs - result.startMs) + " ms)");
+			}
+			_logger.info("> Critical path : " + StringUtils.join(pathSteps, " -> "));
+		}
+		_logger.info("> Release duration : " + durationMs + " ms");
+
+		if (failures > 0 || skipped > 0) {
+			throw new MojoFailureException(failures + " of " + steps.size() + " Mule applications failed to deploy, " + skipped + " skipped");
+		}
+	}
+}
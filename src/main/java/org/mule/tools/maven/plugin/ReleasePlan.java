@@ -0,0 +1,254 @@
+package org.mule.tools.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * Mule applications to release together and the order constraints between
+ * them, read from a JSON file such as:
+ *
+ * <pre>
+ * { "apps" : [
+ *     { "name" : "shared-domain", "file" : "domain/target/shared-domain-1.0.zip", "target" : "Production" },
+ *     { "name" : "orders-api", "file" : "orders/target/orders-api-*.zip", "dependsOn" : [ "shared-domain" ] }
+ * ] }
+ * </pre>
+ *
+ * An application is deployed once all the applications it depends on are
+ * deployed. The dependencies must form a directed acyclic graph.
+ */
+public class ReleasePlan {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	/**
+	 * One application of the plan
+	 */
+	public static class App {
+		/**
+		 * Unique name of the application in the plan, also its name on the
+		 * repository and the name of its deployment by default
+		 */
+		public String name;
+
+		/**
+		 * Path or pattern of the archive, see {@link FileFinder}, relative
+		 * to the directory of the plan file
+		 */
+		public String file;
+
+		/**
+		 * Server or group to deploy to, the one of the goal if null
+		 */
+		public String target;
+
+		/**
+		 * Version on the repository, taken from the archive name if null
+		 */
+		public String version;
+
+		/**
+		 * Name of the deployment, the name of the application if null
+		 */
+		public String deploymentName;
+
+		/**
+		 * Names of the applications to deploy before this one
+		 */
+		public List<String> dependsOn = new ArrayList<String>();
+	}
+
+	private final Map<String, App> apps = new LinkedHashMap<String, App>();
+	private final Map<String, Set<String>> dependencies = new HashMap<String, Set<String>>();
+	private final Map<String, Set<String>> dependants = new HashMap<String, Set<String>>();
+	private final List<String> order;
+
+	/**
+	 * Constructor
+	 *
+	 * @param apps
+	 * @throws IllegalArgumentException
+	 *             if an application has no name or no file, if two have the
+	 *             same name, or if the dependencies are unknown or cyclic
+	 */
+	public ReleasePlan(Collection<App> apps) {
+		for (App app : apps) {
+			if (app.name == null || app.name.trim().isEmpty()) {
+				throw new IllegalArgumentException("Every application of the release plan needs a name");
+			}
+			if (app.file == null || app.file.trim().isEmpty()) {
+				throw new IllegalArgumentException("Application \"" + app.name + "\" of the release plan has no file");
+			}
+			if (this.apps.put(app.name, app) != null) {
+				throw new IllegalArgumentException("Application \"" + app.name + "\" appears twice in the release plan");
+			}
+			dependencies.put(app.name, new LinkedHashSet<String>());
+			dependants.put(app.name, new LinkedHashSet<String>());
+		}
+		if (this.apps.isEmpty()) {
+			throw new IllegalArgumentException("The release plan has no application");
+		}
+
+		for (App app : apps) {
+			for (String dependency : app.dependsOn) {
+				if (!this.apps.containsKey(dependency)) {
+					throw new IllegalArgumentException("Application \"" + app.name + "\" depends on \"" + dependency + "\" which is not in the release plan");
+				}
+				dependencies.get(app.name).add(dependency);
+				dependants.get(dependency).add(app.name);
+			}
+		}
+		this.order = _sort();
+	}
+
+	/**
+	 * Reads a plan from a JSON file
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 *             if the file cannot be read or parsed
+	 * @throws IllegalArgumentException
+	 *             if the plan is invalid, see
+	 *             {@link #ReleasePlan(Collection)}
+	 */
+	public static ReleasePlan read(File file) throws IOException {
+		JsonNode root = OBJECT_MAPPER.readTree(file);
+		JsonNode appNodes = root == null ? null : root.path("apps");
+		if (appNodes == null || !appNodes.isArray()) {
+			throw new IOException("Release plan \"" + file.getAbsolutePath() + "\" should hold an \"apps\" array");
+		}
+
+		List<App> apps = new ArrayList<App>();
+		for (JsonNode appNode : appNodes) {
+			App app = new App();
+			app.name = appNode.path("name").getTextValue();
+			app.file = appNode.path("file").getTextValue();
+			app.target = appNode.path("target").getTextValue();
+			app.version = appNode.path("version").getTextValue();
+			app.deploymentName = appNode.path("deploymentName").getTextValue();
+			for (JsonNode dependency : appNode.path("dependsOn")) {
+				app.dependsOn.add(dependency.getTextValue());
+			}
+			apps.add(app);
+		}
+		return new ReleasePlan(apps);
+	}
+
+	/**
+	 * @param name
+	 * @return The application of the plan having this name, or null
+	 */
+	public App getApp(String name) {
+		return apps.get(name);
+	}
+
+	/**
+	 * @return Names of the applications, each one after the applications it
+	 *         depends on
+	 */
+	public List<String> getOrder() {
+		return Collections.unmodifiableList(order);
+	}
+
+	/**
+	 * @param name
+	 * @return Names of the applications the given one depends on directly
+	 */
+	public Set<String> getDependencies(String name) {
+		return Collections.unmodifiableSet(dependencies.get(name));
+	}
+
+	/**
+	 * @param name
+	 * @return Names of the applications depending directly on the given one
+	 */
+	public Set<String> getDependants(String name) {
+		return Collections.unmodifiableSet(dependants.get(name));
+	}
+
+	/**
+	 * Returns the chain of applications that made the release last as long as
+	 * it did: the application that finished last, preceded by its dependency
+	 * that finished last, and so on
+	 *
+	 * @param endTimes
+	 *            End time of the deployment of each deployed application
+	 * @return Names of the applications of the path, first deployed first
+	 */
+	public List<String> getCriticalPath(Map<String, Long> endTimes) {
+		Deque<String> path = new ArrayDeque<String>();
+		String current = _latest(endTimes.keySet(), endTimes);
+		while (current != null) {
+			path.addFirst(current);
+			current = _latest(dependencies.get(current), endTimes);
+		}
+		return new ArrayList<String>(path);
+	}
+
+	private static String _latest(Collection<String> names, Map<String, Long> endTimes) {
+		String latest = null;
+		for (String name : names) {
+			Long endTime = endTimes.get(name);
+			if (endTime != null && (latest == null || endTime > endTimes.get(latest))) {
+				latest = name;
+			}
+		}
+		return latest;
+	}
+
+	/**
+	 * Sorts the applications topologically, keeping the order of the file
+	 * among the applications that are ready at the same time
+	 */
+	private List<String> _sort() {
+		Map<String, Integer> pendingDependencies = new HashMap<String, Integer>();
+		Deque<String> ready = new ArrayDeque<String>();
+		for (String name : apps.keySet()) {
+			int dependencyCount = dependencies.get(name).size();
+			pendingDependencies.put(name, dependencyCount);
+			if (dependencyCount == 0) {
+				ready.add(name);
+			}
+		}
+
+		List<String> sorted = new ArrayList<String>(apps.size());
+		while (!ready.isEmpty()) {
+			String name = ready.poll();
+			sorted.add(name);
+			for (String dependant : dependants.get(name)) {
+				int pending = pendingDependencies.get(dependant) - 1;
+				pendingDependencies.put(dependant, pending);
+				if (pending == 0) {
+					ready.add(dependant);
+				}
+			}
+		}
+
+		if (sorted.size() < apps.size()) {
+			Set<String> cycle = new LinkedHashSet<String>(apps.keySet());
+			for (Iterator<String> iterator = cycle.iterator(); iterator.hasNext();) {
+				if (sorted.contains(iterator.next())) {
+					iterator.remove();
+				}
+			}
+			throw new IllegalArgumentException("The dependencies of the release plan are cyclic between " + cycle);
+		}
+		return sorted;
+	}
+}
@@ -0,0 +1,166 @@
+package org.mule.tools.maven.plugin;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.artifact.versioning.ComparableVersion;
+
+/**
+ * Retention rules of the application versions of an MMC repository. A
+ * version referenced by a deployment is always kept. Any other version is
+ * deleted when it is not one of the last versions of its application, or
+ * when it is older than the maximum age.
+ *
+ * The versions of an application are ranked by their upload time when all
+ * of them are named after it, see {@link Deploy#TIMESTAMP_VERSION_FORMAT},
+ * or as Maven versions when none of them is, the order of the repository
+ * listing being unspecified. The versions of an application mixing both
+ * kinds of names cannot be ranked and are never deleted for not being one of
+ * the last versions, nor are the versions ranking the same as one of the
+ * last versions. Only the versions named after their upload time have a
+ * known age, the others are never deleted for their age.
+ */
+public class RetentionPolicy {
+
+	private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+	/**
+	 * Application version to delete
+	 */
+	public static class Version {
+		public final String applicationName;
+		public final String version;
+		public final String versionId;
+		/**
+		 * Rule the version is deleted for
+		 */
+		public final String reason;
+
+		Version(String applicationName, String version, String versionId, String reason) {
+			this.applicationName = applicationName;
+			this.version = version;
+			this.versionId = versionId;
+			this.reason = reason;
+		}
+
+		@Override
+		public String toString() {
+			return applicationName + " " + version + " (" + versionId + "): " + reason;
+		}
+	}
+
+	private final int keepVersions;
+	private final int maxAgeDays;
+
+	/**
+	 * Constructor
+	 *
+	 * @param keepVersions
+	 *            Number of versions kept per application, 0 or less to keep
+	 *            them all
+	 * @param maxAgeDays
+	 *            Age after which a version is deleted, 0 or less for no
+	 *            maximum age
+	 */
+	public RetentionPolicy(int keepVersions, int maxAgeDays) {
+		this.keepVersions = keepVersions;
+		this.maxAgeDays = maxAgeDays;
+	}
+
+	/**
+	 * Selects the versions to delete
+	 *
+	 * @param versionIdsByApplication
+	 *            Version ids by version name by application name, see
+	 *            {@link org.mule.tools.mmc.rest.MuleRest#restfullyGetRepositoryVersions()}
+	 * @param deployedVersionIds
+	 *            Ids of the versions referenced by the deployments
+	 * @param now
+	 *            Time the ages are computed from
+	 * @return The versions to delete, application by application
+	 */
+	public List<Version> selectVersionsToDelete(Map<String, Map<String, String>> versionIdsByApplication, Set<String> deployedVersionIds, long now) {
+		List<Version> versions = new ArrayList<Version>();
+		for (Map.Entry<String, Map<String, String>> application : versionIdsByApplication.entrySet()) {
+			List<Comparable<?>> ranks = keepVersions > 0 ? versionRanks(application.getValue().keySet()) : null;
+
+			int index = 0;
+			for (Map.Entry<String, String> version : application.getValue().entrySet()) {
+				Comparable<?> rank = ranks == null ? null : ranks.get(index);
+				index++;
+				if (deployedVersionIds.contains(version.getValue())) {
+					continue;
+				}
+
+				String reason = null;
+				if (ranks != null && _countGreater(ranks, rank) >= keepVersions) {
+					reason = "not one of the last " + keepVersions + " versions";
+				} else if (maxAgeDays > 0) {
+					long time = versionTime(version.getKey());
+					if (time >= 0 && now - time > maxAgeDays * DAY_MS) {
+						reason = "older than " + maxAgeDays + " days";
+					}
+				}
+				if (reason != null) {
+					versions.add(new Version(application.getKey(), version.getKey(), version.getValue(), reason));
+				}
+			}
+		}
+		return versions;
+	}
+
+	/**
+	 * Ranks the versions of an application
+	 *
+	 * @param versions
+	 * @return The rank of each version, in the order of the given versions:
+	 *         its upload time if all the versions are named after it, its
+	 *         Maven version if none is, null if the versions mix both kinds
+	 *         of names
+	 */
+	static List<Comparable<?>> versionRanks(Iterable<String> versions) {
+		List<Comparable<?>> times = new ArrayList<Comparable<?>>();
+		List<Comparable<?>> mavenVersions = new ArrayList<Comparable<?>>();
+		for (String version : versions) {
+			long time = versionTime(version);
+			if (time >= 0) {
+				times.add(time);
+			} else {
+				mavenVersions.add(new ComparableVersion(version));
+			}
+		}
+		if (mavenVersions.isEmpty()) {
+			return times;
+		}
+		return times.isEmpty() ? mavenVersions : null;
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static int _countGreater(List<Comparable<?>> ranks, Comparable rank) {
+		int count = 0;
+		for (Comparable<?> other : ranks) {
+			if (rank.compareTo(other) < 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @param version
+	 * @return The time of a version named after its upload time, or -1 for
+	 *         another name
+	 */
+	static long versionTime(String version) {
+		SimpleDateFormat format = new SimpleDateFormat(Deploy.TIMESTAMP_VERSION_FORMAT);
+		format.setLenient(false);
+		ParsePosition position = new ParsePosition(0);
+		Date date = format.parse(version, position);
+		return date == null || position.getIndex() != version.length() ? -1 : date.getTime();
+	}
+}
@@ -0,0 +1,67 @@
+package org.mule.tools.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Content of an archive uploaded to several MMCs at the same time.
+ *
+ * The file is memory mapped once, each upload reading it through its own
+ * view of the mapping, so the archive is read from disk a single time
+ * whatever the number of uploads. The mapping is released when the instance
+ * is garbage collected.
+ */
+public class SharedArchive {
+
+	private final File file;
+	private final ByteBuffer content;
+	private String sha256;
+
+	private SharedArchive(File file, ByteBuffer content) {
+		this.file = file;
+		this.content = content;
+	}
+
+	/**
+	 * Maps an archive
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 *             if the file cannot be read or is too large to be mapped at
+	 *             once
+	 */
+	public static SharedArchive map(File file) throws IOException {
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r"); FileChannel channel = randomAccessFile.getChannel()) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("File \"" + file.getAbsolutePath() + "\" is too large to be shared, " + size + " bytes");
+			}
+			return new SharedArchive(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+		}
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * @return A view of the content with its own position, for one upload
+	 */
+	public ByteBuffer newContent() {
+		return content.duplicate();
+	}
+
+	/**
+	 * @return The hexadecimal SHA-256 of the content, computed once
+	 */
+	public synchronized String getSha256() {
+		if (sha256 == null) {
+			sha256 = ArchiveDigest.sha256(content);
+		}
+		return sha256;
+	}
+}
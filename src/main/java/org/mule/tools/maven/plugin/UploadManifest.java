@@ -0,0 +1,76 @@
+package org.mule.tools.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.mule.tools.mmc.rest.SharedPropertiesFile;
+
+/**
+ * Local record of the archives already uploaded to MMC repositories: for each
+ * MMC URL and archive SHA-256, the version id the archive was stored under.
+ *
+ * The manifest is a plain properties file, it is only a hint: a version id
+ * read from it must still be checked against the repository before being
+ * reused. Builds sharing the file merge their entries into it, see
+ * {@link SharedPropertiesFile}.
+ */
+public class UploadManifest {
+	private final SharedPropertiesFile entries;
+
+	/**
+	 * Loads the manifest from the given file, or starts an empty one if the
+	 * file does not exist or cannot be read
+	 *
+	 * @param file
+	 */
+	public UploadManifest(File file) {
+		this.entries = new SharedPropertiesFile(file, "upload manifest", "Mule archives uploaded to MMC repositories (MMC URL and SHA-256 to version id)");
+	}
+
+	/**
+	 * Returns the version id an archive was uploaded under, or null if unknown
+	 *
+	 * @param mmcApiUrl
+	 * @param sha256
+	 * @return
+	 */
+	public String getVersionId(String mmcApiUrl, String sha256) {
+		return entries.get(_key(mmcApiUrl, sha256));
+	}
+
+	/**
+	 * Records the version id an archive was uploaded under
+	 *
+	 * @param mmcApiUrl
+	 * @param sha256
+	 * @param versionId
+	 */
+	public void putVersionId(String mmcApiUrl, String sha256, String versionId) {
+		entries.put(_key(mmcApiUrl, sha256), versionId);
+	}
+
+	/**
+	 * Forgets an archive, typically because its version is no longer in the
+	 * repository
+	 *
+	 * @param mmcApiUrl
+	 * @param sha256
+	 */
+	public void remove(String mmcApiUrl, String sha256) {
+		entries.remove(_key(mmcApiUrl, sha256));
+	}
+
+	/**
+	 * Writes the manifest, merging the entries recorded here with those
+	 * written to the file by other builds since it was loaded
+	 *
+	 * @throws IOException
+	 */
+	public void save() throws IOException {
+		entries.save();
+	}
+
+	private static String _key(String mmcApiUrl, String sha256) {
+		return mmcApiUrl + "#" + sha256;
+	}
+}
@@ -0,0 +1,263 @@
+package org.mule.tools.mmc.rest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Waits for many deployments at once. A single scheduler thread polls the
+ * state of all the awaited deployments from one /deployments listing per
+ * tick, see {@link MuleRest#restfullyGetDeploymentStates(java.util.Collection)},
+ * and wakes the waiters whose deployment left the IN_PROGRESS state.
+ * Deployments missing from the listing are polled one by one, a failure
+ * of such a poll only fails the deployment concerned. A failure of the
+ * listing itself fails no deployment: they are all polled again on the next
+ * tick until their own timeout.
+ *
+ * The ticks are spaced by the {@link PollingStrategy}, starting over each
+ * time a new deployment is awaited.
+ */
+public class BatchDeploymentWaiter extends DeploymentWaiter {
+	private static final Logger _logger = LoggerFactory.getLogger(BatchDeploymentWaiter.class);
+
+	private final Object lock = new Object();
+	private final Map<String, PendingDeployment> pendingDeployments = new HashMap<String, PendingDeployment>();
+	private final AtomicLong totalPolls = new AtomicLong();
+
+	private Thread schedulerThread;
+	private boolean closed;
+	private int tickCount;
+	private long nextTickTime;
+
+	/**
+	 * Deployment awaited by at least one thread
+	 */
+	private static class PendingDeployment {
+		final CountDownLatch done = new CountDownLatch(1);
+		final long startTime = System.currentTimeMillis();
+		int waiters;
+		int pollCount;
+		DeploymentState deploymentState;
+		IOException failure;
+		Exception lastPollFailure;
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param muleRest
+	 * @param pollingStrategy
+	 */
+	public BatchDeploymentWaiter(MuleRest muleRest, PollingStrategy pollingStrategy) {
+		super(muleRest, pollingStrategy);
+	}
+
+	@Override
+	public DeploymentState waitForDeployment(String deploymentId, long timeoutMs) throws IOException, TimeoutException, InterruptedException {
+		PendingDeployment pendingDeployment = _register(deploymentId);
+
+		boolean done = false;
+		try {
+			done = pendingDeployment.done.await(timeoutMs, TimeUnit.MILLISECONDS);
+		} finally {
+			_unregister(deploymentId, pendingDeployment, done);
+		}
+
+		if (!done) {
+			TimeoutException timeoutException;
+			synchronized (lock) {
+				timeoutException = new TimeoutException("Timeout of \"" + timeoutMs + "ms\" occurred while waiting for deployment \"" + deploymentId + "\" after " + pendingDeployment.pollCount + " polls");
+				if (pendingDeployment.lastPollFailure != null) {
+					timeoutException.initCause(pendingDeployment.lastPollFailure);
+				}
+			}
+			throw timeoutException;
+		}
+		if (pendingDeployment.failure != null) {
+			throw pendingDeployment.failure;
+		}
+		return pendingDeployment.deploymentState;
+	}
+
+	/**
+	 * @param deploymentId
+	 * @return Number of polls issued so far for the deployment, 0 if it is
+	 *         no longer awaited
+	 */
+	@Override
+	public int getPollCount(String deploymentId) {
+		synchronized (lock) {
+			PendingDeployment pendingDeployment = pendingDeployments.get(deploymentId);
+			return pendingDeployment == null ? 0 : pendingDeployment.pollCount;
+		}
+	}
+
+	/**
+	 * @return Number of requests issued to poll the awaited deployments, a
+	 *         listing counting for one whatever the number of deployments it
+	 *         resolves
+	 */
+	@Override
+	public long getTotalPolls() {
+		return totalPolls.get();
+	}
+
+	/**
+	 * Stops the scheduler thread, the deployments still awaited time out
+	 */
+	@Override
+	public void close() {
+		synchronized (lock) {
+			closed = true;
+			lock.notifyAll();
+		}
+	}
+
+	private PendingDeployment _register(String deploymentId) {
+		synchronized (lock) {
+			if (closed) {
+				throw new IllegalStateException("Deployment waiter is closed");
+			}
+
+			PendingDeployment pendingDeployment = pendingDeployments.get(deploymentId);
+			if (pendingDeployment == null) {
+				pendingDeployment = new PendingDeployment();
+				pendingDeployments.put(deploymentId, pendingDeployment);
+
+				// a new deployment is polled right away, the delays start over
+				tickCount = 0;
+				nextTickTime = System.currentTimeMillis();
+				lock.notifyAll();
+			}
+			pendingDeployment.waiters++;
+
+			if (schedulerThread == null) {
+				schedulerThread = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						_schedule();
+					}
+				}, "mmc-deployment-poller");
+				schedulerThread.setDaemon(true);
+				schedulerThread.start();
+			}
+			return pendingDeployment;
+		}
+	}
+
+	private void _unregister(String deploymentId, PendingDeployment pendingDeployment, boolean done) {
+		synchronized (lock) {
+			pendingDeployment.waiters--;
+			if (!done && pendingDeployment.waiters == 0 && pendingDeployments.get(deploymentId) == pendingDeployment) {
+				pendingDeployments.remove(deploymentId);
+			}
+		}
+	}
+
+	private void _schedule() {
+		while (true) {
+			List<String> deploymentIds;
+			int tick;
+			synchronized (lock) {
+				try {
+					while (!closed && (pendingDeployments.isEmpty() || System.currentTimeMillis() < nextTickTime)) {
+						if (pendingDeployments.isEmpty()) {
+							lock.wait();
+						} else {
+							lock.wait(Math.max(1, nextTickTime - System.currentTimeMillis()));
+						}
+					}
+				} catch (InterruptedException e) {
+					closed = true;
+				}
+				if (closed) {
+					schedulerThread = null;
+					return;
+				}
+				deploymentIds = new ArrayList<String>(pendingDeployments.keySet());
+				tick = ++tickCount;
+			}
+
+			_tick(deploymentIds);
+
+			synchronized (lock) {
+				// a deployment registered during the tick has reset the count
+				if (tickCount == tick) {
+					nextTickTime = System.currentTimeMillis() + pollingStrategy.nextDelayMs(tick);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Polls the given deployments and completes those which are no longer in
+	 * progress
+	 */
+	private void _tick(List<String> deploymentIds) {
+		Map<String, DeploymentState> deploymentStates;
+		try {
+			deploymentStates = new HashMap<String, DeploymentState>(muleRest.restfullyGetDeploymentStates(deploymentIds));
+			totalPolls.incrementAndGet();
+		} catch (IOException | RuntimeException e) {
+			// the deployments stay pending, polled again on the next tick
+			_logger.warn("Failed to list the state of " + deploymentIds.size() + " deployments, polling again on the next tick", e);
+			totalPolls.incrementAndGet();
+			synchronized (lock) {
+				for (String deploymentId : deploymentIds) {
+					PendingDeployment pendingDeployment = pendingDeployments.get(deploymentId);
+					if (pendingDeployment != null) {
+						pendingDeployment.pollCount++;
+						pendingDeployment.lastPollFailure = e;
+					}
+				}
+			}
+			return;
+		}
+
+		Map<String, IOException> failures = new HashMap<String, IOException>();
+		for (String deploymentId : deploymentIds) {
+			if (!deploymentStates.containsKey(deploymentId)) {
+				try {
+					deploymentStates.put(deploymentId, muleRest.restfullyGetDeploymentState(deploymentId));
+				} catch (IOException e) {
+					failures.put(deploymentId, e);
+				} catch (RuntimeException e) {
+					failures.put(deploymentId, new IOException("Failed to poll the state of deployment \"" + deploymentId + "\"", e));
+				}
+				totalPolls.incrementAndGet();
+			}
+		}
+
+		synchronized (lock) {
+			for (String deploymentId : deploymentIds) {
+				PendingDeployment pendingDeployment = pendingDeployments.get(deploymentId);
+				if (pendingDeployment == null) {
+					continue;
+				}
+				pendingDeployment.pollCount++;
+
+				DeploymentState deploymentState = deploymentStates.get(deploymentId);
+				IOException failure = failures.get(deploymentId);
+				if (failure != null) {
+					pendingDeployment.failure = failure;
+				} else if (deploymentState != null && deploymentState.status != DeploymentStatus.IN_PROGRESS) {
+					pendingDeployment.deploymentState = deploymentState;
+					_logger.info("Deployment \"" + deploymentId + "\" reached state " + deploymentState.status + " after " + pendingDeployment.pollCount + " polls in " + (System.currentTimeMillis() - pendingDeployment.startTime) + " ms");
+				} else {
+					continue;
+				}
+				pendingDeployments.remove(deploymentId);
+				pendingDeployment.done.countDown();
+			}
+		}
+	}
+}
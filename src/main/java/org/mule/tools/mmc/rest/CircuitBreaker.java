@@ -0,0 +1,165 @@
+package org.mule.tools.mmc.rest;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fails the calls to the MMC fast once it is clearly down, instead of letting
+ * each of them wait for its own timeout.
+ *
+ * The breaker opens after a number of consecutive failures, rejects the calls
+ * while open, then lets a single trial call through (half open) once the open
+ * duration has elapsed: the breaker closes if the trial succeeds, and opens
+ * again otherwise. A failure threshold of 0 or less disables the breaker.
+ */
+public class CircuitBreaker {
+	private static final Logger _logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+	public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+	public static final long DEFAULT_OPEN_DURATION_MS = 30000;
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final int failureThreshold;
+	private final long openDurationMs;
+
+	private State state = State.CLOSED;
+	private int consecutiveFailures;
+	private long openedAt;
+	private boolean trialInFlight;
+
+	private final AtomicLong openedCount = new AtomicLong();
+	private final AtomicLong halfOpenedCount = new AtomicLong();
+	private final AtomicLong closedCount = new AtomicLong();
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	public CircuitBreaker() {
+		this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION_MS);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param failureThreshold
+	 *            Number of consecutive failures opening the breaker, 0 or less
+	 *            to disable it
+	 * @param openDurationMs
+	 *            Time during which the calls are rejected before a trial call
+	 *            is let through
+	 */
+	public CircuitBreaker(int failureThreshold, long openDurationMs) {
+		this.failureThreshold = failureThreshold;
+		this.openDurationMs = openDurationMs;
+	}
+
+	public boolean isEnabled() {
+		return failureThreshold > 0;
+	}
+
+	/**
+	 * Must be called before each call, which must then be reported with
+	 * {@link #onSuccess()} or {@link #onFailure()}
+	 * 
+	 * @throws CircuitBreakerOpenException
+	 *             if the call is rejected
+	 */
+	public synchronized void acquire() throws CircuitBreakerOpenException {
+		if (!isEnabled() || state == State.CLOSED) {
+			return;
+		}
+
+		if (state == State.OPEN) {
+			long openForMs = System.currentTimeMillis() - openedAt;
+			if (openForMs < openDurationMs) {
+				rejectedCount.incrementAndGet();
+				throw new CircuitBreakerOpenException("MMC calls suspended for " + (openDurationMs - openForMs) + " ms after " + consecutiveFailures + " consecutive failures");
+			}
+			_transition(State.HALF_OPEN);
+		}
+
+		// half open, a single trial call at a time
+		if (trialInFlight) {
+			rejectedCount.incrementAndGet();
+			throw new CircuitBreakerOpenException("MMC calls suspended while a trial call is in progress");
+		}
+		trialInFlight = true;
+	}
+
+	/**
+	 * Reports a call that reached the MMC, whatever its status code
+	 */
+	public synchronized void onSuccess() {
+		consecutiveFailures = 0;
+		trialInFlight = false;
+		if (state != State.CLOSED) {
+			_transition(State.CLOSED);
+		}
+	}
+
+	/**
+	 * Reports a call that did not reach the MMC or got a server error
+	 */
+	public synchronized void onFailure() {
+		consecutiveFailures++;
+		trialInFlight = false;
+		if (!isEnabled()) {
+			return;
+		}
+		if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+			openedAt = System.currentTimeMillis();
+			_transition(State.OPEN);
+		}
+	}
+
+	private void _transition(State newState) {
+		_logger.info("MMC circuit breaker " + state + " -> " + newState);
+		state = newState;
+		switch (newState) {
+		case OPEN:
+			openedCount.incrementAndGet();
+			break;
+		case HALF_OPEN:
+			halfOpenedCount.incrementAndGet();
+			break;
+		case CLOSED:
+			closedCount.incrementAndGet();
+			break;
+		}
+	}
+
+	public synchronized State getState() {
+		return state;
+	}
+
+	/**
+	 * @return Number of transitions to the OPEN state
+	 */
+	public long getOpenedCount() {
+		return openedCount.get();
+	}
+
+	/**
+	 * @return Number of transitions to the HALF_OPEN state
+	 */
+	public long getHalfOpenedCount() {
+		return halfOpenedCount.get();
+	}
+
+	/**
+	 * @return Number of transitions back to the CLOSED state
+	 */
+	public long getClosedCount() {
+		return closedCount.get();
+	}
+
+	/**
+	 * @return Number of calls rejected without reaching the MMC
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+}
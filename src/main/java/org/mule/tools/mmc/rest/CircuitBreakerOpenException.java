@@ -0,0 +1,15 @@
+package org.mule.tools.mmc.rest;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of calling the MMC while the {@link CircuitBreaker} is open
+ */
+public class CircuitBreakerOpenException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	public CircuitBreakerOpenException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,143 @@
+package org.mule.tools.mmc.rest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process cache of the validators (ETag and Last-Modified headers) of the
+ * GET responses of the MMC, with the result parsed from each response.
+ *
+ * The next GET of the same resource sends the ETag back in an If-None-Match
+ * header, or the Last-Modified date in an If-Modified-Since header if there is
+ * no ETag, and a 304 Not Modified response is answered from the stored result
+ * without any body being downloaded or parsed. Responses without validators
+ * are not stored, their resource being fully downloaded each time. The caller
+ * leaves out a Last-Modified date too close to the response to tell a later
+ * change apart. The least recently used entries are dropped
+ * beyond the maximum number of entries, a maximum of 0 or less disables the
+ * cache.
+ */
+public class ConditionalGetCache {
+
+	public static final int DEFAULT_MAX_ENTRIES = 64;
+
+	/**
+	 * Validators of a response and the result parsed from its body
+	 */
+	public static class StoredResponse {
+		public final String entityTag;
+		public final String lastModified;
+		public final Object result;
+
+		StoredResponse(String entityTag, String lastModified, Object result) {
+			this.entityTag = entityTag;
+			this.lastModified = lastModified;
+			this.result = result;
+		}
+	}
+
+	private final int maxEntries;
+	private final Map<String, StoredResponse> entries;
+	private final AtomicLong notModified = new AtomicLong();
+	private final AtomicLong modified = new AtomicLong();
+	private final AtomicLong unvalidated = new AtomicLong();
+
+	/**
+	 * Constructor
+	 *
+	 * @param maxEntries
+	 *            Maximum number of stored responses, 0 or less to disable the
+	 *            cache
+	 */
+	public ConditionalGetCache(final int maxEntries) {
+		this.maxEntries = maxEntries;
+		this.entries = new LinkedHashMap<String, StoredResponse>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	public boolean isEnabled() {
+		return maxEntries > 0;
+	}
+
+	/**
+	 * @param key
+	 *            Resource, and parameters of the parsing of its body
+	 * @return The stored response, or null if none
+	 */
+	public synchronized StoredResponse get(String key) {
+		return isEnabled() ? entries.get(key) : null;
+	}
+
+	/**
+	 * Stores the validators of a full response and the result parsed from it,
+	 * or forgets the resource if the response has no validator
+	 *
+	 * @param key
+	 * @param entityTag
+	 *            ETag header of the response, may be null
+	 * @param lastModified
+	 *            Last-Modified header of the response, may be null
+	 * @param result
+	 */
+	public synchronized void put(String key, String entityTag, String lastModified, Object result) {
+		if (entityTag == null && lastModified == null) {
+			unvalidated.incrementAndGet();
+			entries.remove(key);
+			return;
+		}
+		modified.incrementAndGet();
+		if (isEnabled()) {
+			entries.put(key, new StoredResponse(entityTag, lastModified, result));
+		}
+	}
+
+	/**
+	 * Counts a 304 response answered from the stored result
+	 */
+	public void recordNotModified() {
+		notModified.incrementAndGet();
+	}
+
+	/**
+	 * @return Number of GETs answered with 304 Not Modified
+	 */
+	public long getNotModifiedCount() {
+		return notModified.get();
+	}
+
+	/**
+	 * @return Number of full responses carrying validators
+	 */
+	public long getModifiedCount() {
+		return modified.get();
+	}
+
+	/**
+	 * @return Number of full responses without validators, which cannot be
+	 *         revalidated
+	 */
+	public long getUnvalidatedCount() {
+		return unvalidated.get();
+	}
+
+	/**
+	 * @return Number of stored responses
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Forgets all the stored responses
+	 */
+	public synchronized void invalidate() {
+		entries.clear();
+	}
+}
@@ -0,0 +1,99 @@
+package org.mule.tools.mmc.rest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Polls the state of deployments until they leave the IN_PROGRESS state,
+ * spacing the polls according to a {@link PollingStrategy}, and keeps count
+ * of the polls issued for each deployment.
+ */
+public class DeploymentWaiter implements Closeable {
+	private static final Logger _logger = LoggerFactory.getLogger(DeploymentWaiter.class);
+
+	protected final MuleRest muleRest;
+	protected final PollingStrategy pollingStrategy;
+
+	private final Map<String, Integer> pollCounts = new ConcurrentHashMap<String, Integer>();
+	private final AtomicLong totalPolls = new AtomicLong();
+
+	/**
+	 * Constructor
+	 * 
+	 * @param muleRest
+	 * @param pollingStrategy
+	 */
+	public DeploymentWaiter(MuleRest muleRest, PollingStrategy pollingStrategy) {
+		this.muleRest = muleRest;
+		this.pollingStrategy = pollingStrategy;
+	}
+
+	/**
+	 * Waits for the deployment to leave the IN_PROGRESS state and returns its
+	 * final state, which is not necessarily DEPLOYED
+	 * 
+	 * @param deploymentId
+	 * @param timeoutMs
+	 * @return
+	 * @throws IOException
+	 * @throws TimeoutException
+	 *             if the deployment is still in progress after timeoutMs
+	 * @throws InterruptedException
+	 */
+	public DeploymentState waitForDeployment(String deploymentId, long timeoutMs) throws IOException, TimeoutException, InterruptedException {
+		long startTime = System.currentTimeMillis();
+		int pollCount = 0;
+
+		while (true) {
+			DeploymentState deploymentState = muleRest.restfullyGetDeploymentState(deploymentId);
+			pollCount++;
+			totalPolls.incrementAndGet();
+			pollCounts.put(deploymentId, pollCount);
+
+			long elapsedTime = System.currentTimeMillis() - startTime;
+			if (deploymentState.status != DeploymentStatus.IN_PROGRESS) {
+				_logger.info("Deployment \"" + deploymentId + "\" reached state " + deploymentState.status + " after " + pollCount + " polls in " + elapsedTime + " ms");
+				return deploymentState;
+			}
+
+			if (elapsedTime > timeoutMs) {
+				throw new TimeoutException("Timeout of \"" + timeoutMs + "ms\" occurred while waiting for deployment \"" + deploymentId + "\" after " + pollCount + " polls");
+			}
+
+			long delayMs = Math.min(pollingStrategy.nextDelayMs(pollCount), Math.max(0, timeoutMs - elapsedTime) + 1);
+			Thread.sleep(delayMs);
+		}
+	}
+
+	/**
+	 * @param deploymentId
+	 * @return Number of polls issued while waiting for the deployment, 0 if
+	 *         not awaited
+	 */
+	public int getPollCount(String deploymentId) {
+		Integer pollCount = pollCounts.get(deploymentId);
+		return pollCount == null ? 0 : pollCount;
+	}
+
+	/**
+	 * @return Number of polls issued for all the awaited deployments
+	 */
+	public long getTotalPolls() {
+		return totalPolls.get();
+	}
+
+	/**
+	 * Releases the resources held by the waiter, nothing to release for this
+	 * one
+	 */
+	@Override
+	public void close() {
+	}
+}
@@ -0,0 +1,68 @@
+package org.mule.tools.mmc.rest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Polls quickly at first, then backs off exponentially up to a maximum delay.
+ * A random jitter spreads the polls of concurrent deployments so they do not
+ * hit the MMC at the same instants.
+ */
+public class ExponentialBackoffPollingStrategy implements PollingStrategy {
+
+	public static final long DEFAULT_INITIAL_DELAY_MS = 100;
+	public static final long DEFAULT_MAX_DELAY_MS = 5000;
+	public static final double DEFAULT_MULTIPLIER = 2.0;
+	public static final double DEFAULT_JITTER = 0.2;
+
+	private final long initialDelayMs;
+	private final long maxDelayMs;
+	private final double multiplier;
+	private final double jitter;
+
+	public ExponentialBackoffPollingStrategy() {
+		this(DEFAULT_INITIAL_DELAY_MS, DEFAULT_MAX_DELAY_MS, DEFAULT_MULTIPLIER, DEFAULT_JITTER);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param initialDelayMs
+	 *            Delay after the first poll
+	 * @param maxDelayMs
+	 *            Cap of the delay, jitter included
+	 * @param multiplier
+	 *            Factor applied to the delay after each poll, at least 1
+	 * @param jitter
+	 *            Fraction of the delay randomly added or removed, between 0
+	 *            and 1
+	 */
+	public ExponentialBackoffPollingStrategy(long initialDelayMs, long maxDelayMs, double multiplier, double jitter) {
+		if (initialDelayMs < 0 || maxDelayMs < initialDelayMs) {
+			throw new IllegalArgumentException("Polling delays must satisfy 0 <= initial delay <= max delay");
+		}
+		if (multiplier < 1) {
+			throw new IllegalArgumentException("Polling backoff multiplier must be at least 1");
+		}
+		if (jitter < 0 || jitter > 1) {
+			throw new IllegalArgumentException("Polling jitter must be between 0 and 1");
+		}
+		this.initialDelayMs = initialDelayMs;
+		this.maxDelayMs = maxDelayMs;
+		this.multiplier = multiplier;
+		this.jitter = jitter;
+	}
+
+	@Override
+	public long nextDelayMs(int pollCount) {
+		double delay = initialDelayMs * Math.pow(multiplier, Math.max(0, pollCount - 1));
+		if (jitter > 0) {
+			delay *= 1 - jitter + 2 * jitter * ThreadLocalRandom.current().nextDouble();
+		}
+		return (long) Math.min(delay, maxDelayMs);
+	}
+
+	@Override
+	public String toString() {
+		return "from " + initialDelayMs + " ms to " + maxDelayMs + " ms, x" + multiplier + " +/-" + Math.round(jitter * 100) + "%";
+	}
+}
@@ -0,0 +1,29 @@
+package org.mule.tools.mmc.rest;
+
+/**
+ * Polls at a constant rate
+ */
+public class FixedPollingStrategy implements PollingStrategy {
+
+	private final long delayMs;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param delayMs
+	 *            Delay between two polls
+	 */
+	public FixedPollingStrategy(long delayMs) {
+		this.delayMs = delayMs;
+	}
+
+	@Override
+	public long nextDelayMs(int pollCount) {
+		return delayMs;
+	}
+
+	@Override
+	public String toString() {
+		return "every " + delayMs + " ms";
+	}
+}
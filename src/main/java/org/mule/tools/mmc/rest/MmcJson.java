@@ -0,0 +1,195 @@
+package org.mule.tools.mmc.rest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+
+/**
+ * Streaming helpers for the MMC listings, which all have the form
+ * <code>{"total": n, "data": [ {...}, {...} ]}</code>.
+ *
+ * The listings are read token by token straight from the response stream, so
+ * no document or tree is ever held in memory and a lookup can stop at the
+ * first matching element.
+ */
+final class MmcJson {
+
+	static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	/**
+	 * Called for each object of an array. The parser is positioned on the
+	 * START_OBJECT token and must be left on the matching END_OBJECT token.
+	 */
+	interface ElementHandler {
+		/**
+		 * @param parser
+		 * @return false to stop reading the array
+		 * @throws IOException
+		 */
+		boolean handle(JsonParser parser) throws IOException;
+	}
+
+	/**
+	 * Builds an element from an object of an array. The parser is positioned
+	 * on the START_OBJECT token and must be left on the matching END_OBJECT
+	 * token.
+	 */
+	interface ElementReader<T> {
+		T read(JsonParser parser) throws IOException;
+	}
+
+	private MmcJson() {
+	}
+
+	/**
+	 * Reads one page of a listing: its "total" field and the elements of its
+	 * "data" array
+	 *
+	 * @param parser
+	 *            Parser positioned before the root object
+	 * @param reader
+	 * @return
+	 * @throws IOException
+	 */
+	static <T> PagedIterator.Page<T> readPage(JsonParser parser, final ElementReader<T> reader) throws IOException {
+		final List<T> elements = new ArrayList<T>();
+		long total = -1;
+		if (parser.nextToken() == JsonToken.START_OBJECT) {
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String fieldName = parser.getCurrentName();
+				JsonToken valueToken = parser.nextToken();
+				if ("data".equals(fieldName) && valueToken == JsonToken.START_ARRAY) {
+					forEachElement(parser, new ElementHandler() {
+						@Override
+						public boolean handle(JsonParser parser) throws IOException {
+							elements.add(reader.read(parser));
+							return true;
+						}
+					});
+				} else if ("total".equals(fieldName) && valueToken == JsonToken.VALUE_NUMBER_INT) {
+					total = parser.getLongValue();
+				} else {
+					parser.skipChildren();
+				}
+			}
+		}
+		return new PagedIterator.Page<T>(elements, total);
+	}
+
+	/**
+	 * Calls the handler for each object of the root "data" array
+	 *
+	 * @param parser
+	 *            Parser positioned before the root object
+	 * @param handler
+	 * @return false if the handler stopped the reading before the end of the
+	 *         array
+	 * @throws IOException
+	 */
+	static boolean forEachDataElement(JsonParser parser, ElementHandler handler) throws IOException {
+		if (parser.nextToken() != JsonToken.START_OBJECT) {
+			return true;
+		}
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String fieldName = parser.getCurrentName();
+			JsonToken valueToken = parser.nextToken();
+			if ("data".equals(fieldName) && valueToken == JsonToken.START_ARRAY) {
+				if (!forEachElement(parser, handler)) {
+					return false;
+				}
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Calls the handler for each object of the current array
+	 *
+	 * @param parser
+	 *            Parser positioned on a START_ARRAY token, left on the matching
+	 *            END_ARRAY token unless the handler stops the reading
+	 * @param handler
+	 * @return false if the handler stopped the reading before the end of the
+	 *         array
+	 * @throws IOException
+	 */
+	static boolean forEachElement(JsonParser parser, ElementHandler handler) throws IOException {
+		JsonToken token;
+		while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+			if (token == JsonToken.START_OBJECT) {
+				if (!handler.handle(parser)) {
+					return false;
+				}
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the current object and returns the text value of the requested
+	 * fields, null for missing or non textual fields. If arrayFieldName is not
+	 * null, each object of that array field is passed to arrayHandler, other
+	 * nested values are skipped.
+	 *
+	 * @param parser
+	 *            Parser positioned on a START_OBJECT token, left on the
+	 *            matching END_OBJECT token
+	 * @param fieldNames
+	 * @param arrayFieldName
+	 * @param arrayHandler
+	 * @return
+	 * @throws IOException
+	 */
+	static String[] readFields(JsonParser parser, String[] fieldNames, String arrayFieldName, ElementHandler arrayHandler) throws IOException {
+		String[] values = new String[fieldNames.length];
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String fieldName = parser.getCurrentName();
+			JsonToken valueToken = parser.nextToken();
+
+			if (valueToken == JsonToken.START_ARRAY && arrayFieldName != null && arrayFieldName.equals(fieldName)) {
+				forEachElement(parser, arrayHandler);
+				continue;
+			}
+
+			int index = _indexOf(fieldNames, fieldName);
+			if (index >= 0 && valueToken == JsonToken.VALUE_STRING) {
+				values[index] = parser.getText();
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Reads the current object and returns the text value of the requested
+	 * fields, null for missing or non textual fields
+	 *
+	 * @param parser
+	 *            Parser positioned on a START_OBJECT token, left on the
+	 *            matching END_OBJECT token
+	 * @param fieldNames
+	 * @return
+	 * @throws IOException
+	 */
+	static String[] readFields(JsonParser parser, String... fieldNames) throws IOException {
+		return readFields(parser, fieldNames, null, null);
+	}
+
+	private static int _indexOf(String[] fieldNames, String fieldName) {
+		for (int i = 0; i < fieldNames.length; i++) {
+			if (fieldNames[i].equals(fieldName)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
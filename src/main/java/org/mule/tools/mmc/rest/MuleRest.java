@@ -1,42 +1,95 @@
 package org.mule.tools.mmc.rest;
 
+import java.io.Closeable;
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
 import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.TimeZone;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
 import org.apache.cxf.common.util.StringUtils;
 import org.apache.cxf.helpers.IOUtils;
 import org.apache.cxf.jaxrs.client.WebClient;
-import org.apache.cxf.jaxrs.ext.multipart.Attachment;
-import org.apache.cxf.jaxrs.ext.multipart.AttachmentBuilder;
-import org.apache.cxf.jaxrs.ext.multipart.ContentDisposition;
-import org.apache.cxf.jaxrs.ext.multipart.MultipartBody;
 import org.apache.cxf.transport.http.HTTPException;
 import org.codehaus.jackson.JsonFactory;
 import org.codehaus.jackson.JsonGenerator;
 import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParseException;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonProcessingException;
+import org.codehaus.jackson.JsonToken;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class MuleRest {
+public class MuleRest implements Closeable {
 	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 	private static final Logger _logger = LoggerFactory.getLogger(MuleRest.class);
 	private static final String SNAPSHOT = "SNAPSHOT";
+	private static final int MAX_ERROR_BODY_LENGTH = 4096;
+	private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+	public static final int DEFAULT_RETRY_MAX_ATTEMPTS = 3;
+	public static final long DEFAULT_RETRY_INITIAL_DELAY_MS = 500;
+	public static final long DEFAULT_RETRY_MAX_DELAY_MS = 10000;
+
+	/**
+	 * Query parameters of the paged listings
+	 */
+	public static final String OFFSET_PARAMETER = "offset";
+	public static final String LIMIT_PARAMETER = "limit";
 
 	private URL mmcUrl;
 	private String username;
 	private String password;
+	private WebClientPool webClientPool;
+	private volatile TopologyCache topologyCache = new TopologyCache(TopologyCache.DEFAULT_TTL_MS);
+	private final Object groupsLock = new Object();
+	private final Object serversLock = new Object();
+	private volatile RepositoryIndex repositoryIndex;
+	private final Object repositoryLock = new Object();
+	private volatile int retryMaxAttempts = DEFAULT_RETRY_MAX_ATTEMPTS;
+	private volatile PollingStrategy retryBackoff = new ExponentialBackoffPollingStrategy(DEFAULT_RETRY_INITIAL_DELAY_MS, DEFAULT_RETRY_MAX_DELAY_MS, 2.0, ExponentialBackoffPollingStrategy.DEFAULT_JITTER);
+	private volatile CircuitBreaker circuitBreaker = new CircuitBreaker();
+	private final AtomicLong retryCount = new AtomicLong();
+	private final MuleRestMetrics metrics = new MuleRestMetrics();
+	private volatile PersistentIdCache idCache;
+	private volatile ConditionalGetCache conditionalGetCache = new ConditionalGetCache(ConditionalGetCache.DEFAULT_MAX_ENTRIES);
+	private volatile int pageSize;
+	private volatile boolean pagePrefetch;
+	private ExecutorService prefetchExecutor;
 
 	/**
 	 * Constructor
@@ -46,27 +99,473 @@ public class MuleRest {
 	 * @param password
 	 */
 	public MuleRest(URL mmcUrl, String username, String password) {
+		this(mmcUrl, username, password, WebClientPool.DEFAULT_MAX_CONNECTIONS, WebClientPool.DEFAULT_IDLE_TIMEOUT_MS);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param mmcUrl
+	 * @param username
+	 * @param password
+	 * @param maxConnections
+	 *            Maximum number of concurrent connections to the MMC
+	 * @param idleTimeoutMs
+	 *            Time after which an unused connection is closed
+	 */
+	public MuleRest(URL mmcUrl, String username, String password, int maxConnections, long idleTimeoutMs) {
 		this.mmcUrl = mmcUrl;
 		this.username = username;
 		this.password = password;
-		_logger.debug("MMC URL: {}, Username: {}", mmcUrl, username);
+		this.webClientPool = new WebClientPool(mmcUrl, username, password, maxConnections, idleTimeoutMs);
+		_logger.debug("MMC URL: {}, Username: {}, Max connections: {}", mmcUrl, username, maxConnections);
 	}
 
 	private WebClient _getWebClient(String... paths) {
-		WebClient webClient = WebClient.create(mmcUrl.toString(), username, password, null);
-		for (String path : paths) {
-			webClient.path(path);
+		return webClientPool.borrow(paths);
+	}
+
+	private void _releaseWebClient(WebClient webClient) {
+		webClientPool.release(webClient);
+	}
+
+	/**
+	 * Sets how long server and server group ids are cached, 0 or less disables
+	 * the cache
+	 * 
+	 * @param topologyCacheTtlMs
+	 */
+	public void setTopologyCacheTtlMs(long topologyCacheTtlMs) {
+		this.topologyCache = new TopologyCache(topologyCacheTtlMs);
+	}
+
+	/**
+	 * Sets the on-disk cache of the ids, shared across Maven invocations,
+	 * null to resolve every name from the listings of the MMC
+	 * 
+	 * @param idCache
+	 */
+	public void setPersistentIdCache(PersistentIdCache idCache) {
+		this.idCache = idCache;
+	}
+
+	public PersistentIdCache getPersistentIdCache() {
+		return idCache;
+	}
+
+	/**
+	 * Sets how many GET responses are kept with their ETag and Last-Modified
+	 * validators, to be revalidated instead of downloaded again, 0 or less
+	 * disables the conditional GETs
+	 * 
+	 * @param maxEntries
+	 */
+	public void setConditionalGetCacheSize(int maxEntries) {
+		this.conditionalGetCache = new ConditionalGetCache(maxEntries);
+	}
+
+	public ConditionalGetCache getConditionalGetCache() {
+		return conditionalGetCache;
+	}
+
+	/**
+	 * Sets how many elements of a listing are asked per request, with the
+	 * {@value #OFFSET_PARAMETER} and {@value #LIMIT_PARAMETER} query
+	 * parameters, 0 or less to download each listing in a single request
+	 * 
+	 * @param pageSize
+	 */
+	public void setPageSize(int pageSize) {
+		this.pageSize = pageSize;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Sets whether the next page of a listing is downloaded in the background
+	 * while the current one is read
+	 * 
+	 * @param pagePrefetch
+	 */
+	public void setPagePrefetch(boolean pagePrefetch) {
+		this.pagePrefetch = pagePrefetch;
+	}
+
+	/**
+	 * Sets how GET and DELETE requests failing with a server error or a
+	 * connection error are retried, with an exponential backoff and jitter
+	 * between the attempts
+	 * 
+	 * @param maxAttempts
+	 *            Number of attempts of a request, 1 disables the retries
+	 * @param initialDelayMs
+	 *            Delay before the first retry
+	 * @param maxDelayMs
+	 *            Maximum delay between two attempts
+	 */
+	public void setRetryPolicy(int maxAttempts, long initialDelayMs, long maxDelayMs) {
+		if (maxAttempts < 1) {
+			throw new IllegalArgumentException("The number of attempts must be at least 1");
+		}
+		this.retryBackoff = new ExponentialBackoffPollingStrategy(initialDelayMs, maxDelayMs, 2.0, ExponentialBackoffPollingStrategy.DEFAULT_JITTER);
+		this.retryMaxAttempts = maxAttempts;
+	}
+
+	/**
+	 * Replaces the circuit breaker guarding the calls to the MMC
+	 * 
+	 * @param circuitBreaker
+	 */
+	public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	public CircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	/**
+	 * @return Number of requests sent again after a transient failure
+	 */
+	public long getRetryCount() {
+		return retryCount.get();
+	}
+
+	/**
+	 * @return Latency and volume of the requests sent so far
+	 */
+	public MuleRestMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * @return Number of calls that reused an already opened connection
+	 */
+	public long getConnectionPoolHits() {
+		return webClientPool.getHits();
+	}
+
+	/**
+	 * @return Number of calls that had to open a new connection
+	 */
+	public long getConnectionPoolMisses() {
+		return webClientPool.getMisses();
+	}
+
+	/**
+	 * Closes the pooled connections to the MMC
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (prefetchExecutor != null) {
+				prefetchExecutor.shutdownNow();
+				prefetchExecutor = null;
+			}
+		}
+		webClientPool.close();
+	}
+
+	/**
+	 * Reads the body of a response from the MMC
+	 */
+	private interface ResponseHandler<T> {
+		T handle(InputStream body) throws IOException;
+	}
+
+	/**
+	 * Returns the body of a response as text
+	 */
+	private static final ResponseHandler<String> TEXT_RESPONSE = new ResponseHandler<String>() {
+		@Override
+		public String handle(InputStream body) throws IOException {
+			return IOUtils.toString(body);
+		}
+	};
+
+	/**
+	 * Failure to send a request or to get its response, as opposed to an
+	 * error status returned by the MMC
+	 */
+	private static class TransportException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		TransportException(String message, Throwable cause) {
+			super(message, cause);
+		}
+	}
+
+	/**
+	 * Sends a GET request and lets the handler read the response body as a
+	 * stream, see {@link #_request}. The request is conditional when the
+	 * validators of a previous response are known, and a 304 response is
+	 * answered with the result the handler returned for that response.
+	 * 
+	 * @param variant
+	 *            Parameters of the handler changing its result for the same
+	 *            body, null if none
+	 */
+	private <T> T _get(String variant, ResponseHandler<T> handler, String... paths) throws IOException {
+		return _get(variant, null, handler, paths);
+	}
+
+	/**
+	 * Same as {@link #_get(String, ResponseHandler, String...)} with query
+	 * parameters, null if none
+	 */
+	private <T> T _get(String variant, Map<String, Object> query, ResponseHandler<T> handler, String... paths) throws IOException {
+		StringBuilder cacheKey = new StringBuilder(_toPath(paths));
+		if (query != null) {
+			cacheKey.append('?').append(query);
+		}
+		if (variant != null) {
+			cacheKey.append('#').append(variant);
+		}
+		return _request("GET", null, conditionalGetCache.isEnabled() ? cacheKey.toString() : null, query, handler, paths);
+	}
+
+	private <T> T _request(String method, String json, ResponseHandler<T> handler, String... paths) throws IOException {
+		return _request(method, json, null, null, handler, paths);
+	}
+
+	/**
+	 * Sends a request through the circuit breaker and lets the handler read
+	 * the body of the successful response as a stream. The body is closed once
+	 * the handler returns, even if it did not read it entirely.
+	 * 
+	 * GET and DELETE requests failing with a server error or a connection error,
+	 * including a connection lost while the body is read, are retried after a
+	 * backoff delay. If the circuit breaker opens before a retry, the failure
+	 * of the last attempt is thrown, the rejection being attached to it as a
+	 * suppressed exception. A DELETE retried after its response
+	 * was lost may find the resource gone, which is then not an error.
+	 * 
+	 * @param method
+	 *            GET, POST or DELETE
+	 * @param json
+	 *            JSON body of a POST request, may be null
+	 * @param cacheKey
+	 *            Key of the response in the conditional GET cache, null to
+	 *            always download the body
+	 * @param query
+	 *            Query parameters, may be null
+	 */
+	private <T> T _request(String method, String json, String cacheKey, Map<String, Object> query, ResponseHandler<T> handler, String... paths) throws IOException {
+		boolean idempotent = !"POST".equals(method);
+		int maxAttempts = idempotent ? retryMaxAttempts : 1;
+		CircuitBreaker breaker = circuitBreaker;
+
+		IOException lastFailure = null;
+		for (int attempt = 1;; attempt++) {
+			try {
+				breaker.acquire();
+			} catch (CircuitBreakerOpenException e) {
+				if (lastFailure == null) {
+					throw e;
+				}
+				// opened by the failures of the previous attempts, the last one tells why
+				lastFailure.addSuppressed(e);
+				throw lastFailure;
+			}
+			boolean transientFailure = false;
+			try {
+				return _requestOnce(method, json, cacheKey, query, handler, paths);
+			} catch (TransportException e) {
+				transientFailure = true;
+				if (attempt >= maxAttempts) {
+					throw e;
+				}
+				lastFailure = e;
+				_logRetry(method, paths, e, attempt, maxAttempts);
+			} catch (HTTPException e) {
+				transientFailure = e.getResponseCode() >= 500;
+				if ("DELETE".equals(method) && attempt > 1 && e.getResponseCode() == Status.NOT_FOUND.getStatusCode()) {
+					return null;
+				}
+				if (!transientFailure || attempt >= maxAttempts) {
+					throw e;
+				}
+				lastFailure = e;
+				_logRetry(method, paths, e, attempt, maxAttempts);
+			} finally {
+				if (transientFailure) {
+					breaker.onFailure();
+				} else {
+					breaker.onSuccess();
+				}
+			}
+
+			retryCount.incrementAndGet();
+			try {
+				Thread.sleep(retryBackoff.nextDelayMs(attempt));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting to retry " + method + " " + _toPath(paths));
+			}
+		}
+	}
+
+	private <T> T _requestOnce(String method, String json, String cacheKey, Map<String, Object> query, ResponseHandler<T> handler, String... paths) throws IOException {
+		WebClient webClient = _getWebClient(paths);
+		long startTime = System.nanoTime();
+		MuleRestMetrics.CountingInputStream countingBody = null;
+		boolean error = true;
+		try {
+			if (query != null) {
+				for (Map.Entry<String, Object> parameter : query.entrySet()) {
+					webClient.query(parameter.getKey(), parameter.getValue());
+				}
+			}
+			ConditionalGetCache cache = conditionalGetCache;
+			ConditionalGetCache.StoredResponse cached = cacheKey == null ? null : cache.get(cacheKey);
+			Response response;
+			try {
+				if ("GET".equals(method)) {
+					if (cached != null && cached.entityTag != null) {
+						webClient.header("If-None-Match", cached.entityTag);
+					} else if (cached != null && cached.lastModified != null) {
+						webClient.header("If-Modified-Since", cached.lastModified);
+					}
+					response = webClient.get();
+				} else if ("DELETE".equals(method)) {
+					response = webClient.delete();
+				} else {
+					if (json != null) {
+						webClient.type(MediaType.APPLICATION_JSON_TYPE);
+					}
+					response = webClient.post(json);
+				}
+			} catch (RuntimeException e) {
+				// CXF reports connection failures as runtime exceptions
+				throw new TransportException("Unable to reach the MMC for " + method + " " + _toPath(paths) + ": " + e.getMessage(), e);
+			}
+
+			if (cached != null && response.getStatus() == Status.NOT_MODIFIED.getStatusCode()) {
+				if (response.getEntity() instanceof InputStream) {
+					((InputStream) response.getEntity()).close();
+				}
+				cache.recordNotModified();
+				error = false;
+				@SuppressWarnings("unchecked")
+				T result = (T) cached.result;
+				return result;
+			}
+
+			countingBody = new MuleRestMetrics.CountingInputStream(_checkResponse(response));
+			try {
+				T result;
+				try {
+					result = handler.handle(countingBody);
+				} catch (JsonProcessingException | HTTPException e) {
+					throw e;
+				} catch (IOException e) {
+					// the connection was lost while reading the body, e.g. reset
+					throw new TransportException("Unable to read the response of the MMC for " + method + " " + _toPath(paths) + ": " + e.getMessage(), e);
+				}
+				if (cacheKey != null) {
+					cache.put(cacheKey, _getHeader(response, "ETag"), _getStrongLastModified(response), result);
+				}
+				error = false;
+				return result;
+			} finally {
+				countingBody.close();
+			}
+		} finally {
+			metrics.recordRequest(MuleRestMetrics.endpointOf(method, paths), System.nanoTime() - startTime, countingBody == null ? 0 : countingBody.getCount(), error);
+			_releaseWebClient(webClient);
 		}
-		return webClient;
 	}
 
-	private String _processResponse(Response response) throws IOException {
-		int statusCode = response.getStatus();
-		String responseText = IOUtils.toString((InputStream) response.getEntity());
+	/**
+	 * Returns the first value of a response header, whatever the case of its
+	 * name, or null if the header is missing
+	 */
+	private static String _getHeader(Response response, String name) {
+		MultivaluedMap<String, Object> headers = response.getMetadata();
+		if (headers == null) {
+			return null;
+		}
+		for (Map.Entry<String, List<Object>> header : headers.entrySet()) {
+			if (name.equalsIgnoreCase(header.getKey()) && header.getValue() != null && !header.getValue().isEmpty()) {
+				Object value = header.getValue().get(0);
+				return value == null ? null : value.toString();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the Last-Modified header of a response, or null if it is missing
+	 * or within the second before the Date of the response: Last-Modified
+	 * has a resolution of one second, a change later in that second, e.g. of
+	 * the state of a deployment, would be answered 304 Not Modified.
+	 */
+	private static String _getStrongLastModified(Response response) {
+		String lastModified = _getHeader(response, "Last-Modified");
+		if (lastModified == null) {
+			return null;
+		}
+		String date = _getHeader(response, "Date");
+		Date lastModifiedDate = _parseHttpDate(lastModified);
+		Date responseDate = date != null ? _parseHttpDate(date) : new Date();
+		if (lastModifiedDate == null || responseDate == null || responseDate.getTime() - lastModifiedDate.getTime() < 1000) {
+			return null;
+		}
+		return lastModified;
+	}
+
+	/**
+	 * @return The date of an HTTP header, or null if it cannot be parsed
+	 */
+	private static Date _parseHttpDate(String value) {
+		SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
+		format.setTimeZone(TimeZone.getTimeZone("GMT"));
+		try {
+			return format.parse(value);
+		} catch (ParseException e) {
+			return null;
+		}
+	}
+
+	private void _logRetry(String method, String[] paths, IOException failure, int attempt, int maxAttempts) {
+		_logger.warn("MMC request " + method + " " + _toPath(paths) + " failed (" + failure.getMessage() + "), attempt " + attempt + " of " + maxAttempts + ", retrying");
+	}
+
+	private static String _toPath(String[] paths) {
+		StringBuilder path = new StringBuilder();
+		for (String element : paths) {
+			path.append('/').append(element);
+		}
+		return path.toString();
+	}
+
+	/**
+	 * Returns the body of a successful response or throws an
+	 * {@link HTTPException} describing the error
+	 */
+	private InputStream _checkResponse(Response response) throws IOException {
+		return _checkResponse(response.getStatus(), (InputStream) response.getEntity());
+	}
+
+	private InputStream _checkResponse(int statusCode, InputStream body) throws IOException {
+		if (body == null) {
+			body = new ByteArrayInputStream(new byte[0]);
+		}
 
 		if (statusCode == Status.OK.getStatusCode() || statusCode == Status.CREATED.getStatusCode()) {
-			return responseText;
-		} else if (statusCode == Status.NOT_FOUND.getStatusCode()) {
+			return body;
+		}
+
+		String responseText;
+		try {
+			responseText = _readErrorBody(body);
+		} finally {
+			body.close();
+		}
+
+		if (statusCode == Status.NOT_FOUND.getStatusCode()) {
 			throw new HTTPException(statusCode, "The resource was not found.", mmcUrl);
 		} else if (statusCode == Status.CONFLICT.getStatusCode()) {
 			throw new HTTPException(statusCode, "The operation was unsuccessful because a resource with that name already exists.", mmcUrl);
@@ -77,6 +576,91 @@ public class MuleRest {
 		}
 	}
 
+	/**
+	 * Reads at most {@link #MAX_ERROR_BODY_LENGTH} characters of an error body,
+	 * an error page can be arbitrarily large and only its beginning is useful
+	 * in an error message
+	 */
+	private static String _readErrorBody(InputStream body) throws IOException {
+		Reader reader = new InputStreamReader(body, "UTF-8");
+		char[] buffer = new char[MAX_ERROR_BODY_LENGTH];
+		int length = 0;
+		int read;
+		while (length < buffer.length && (read = reader.read(buffer, length, buffer.length - length)) != -1) {
+			length += read;
+		}
+		String responseText = new String(buffer, 0, length);
+		return reader.read() == -1 ? responseText : responseText + "...";
+	}
+
+	/**
+	 * Iterates lazily over a listing of the MMC, downloading it page by page,
+	 * see {@link #setPageSize(int)}. Each element is given as the text values
+	 * of the requested fields, null for missing or non textual ones.
+	 * 
+	 * @param collection
+	 *            Listing, such as "deployments" or "serverGroups"
+	 * @param fieldNames
+	 * @return An iterator to close if not read to the end
+	 */
+	public PagedIterator<String[]> restfullyIterate(String collection, final String... fieldNames) {
+		return _iterate(collection, Arrays.toString(fieldNames), new MmcJson.ElementReader<String[]>() {
+			@Override
+			public String[] read(JsonParser parser) throws IOException {
+				return MmcJson.readFields(parser, fieldNames);
+			}
+		});
+	}
+
+	/**
+	 * Iterates over a listing, see {@link #restfullyIterate(String, String...)}
+	 * 
+	 * @param variant
+	 *            Description of the reader, part of the key of the pages in
+	 *            the conditional GET cache
+	 */
+	private <T> PagedIterator<T> _iterate(final String collection, final String variant, final MmcJson.ElementReader<T> reader) {
+		int size = pageSize;
+		return new PagedIterator<T>(new PagedIterator.PageFetcher<T>() {
+			@Override
+			public PagedIterator.Page<T> fetch(int offset, int limit) throws IOException {
+				Map<String, Object> query = null;
+				if (limit > 0) {
+					query = new LinkedHashMap<String, Object>();
+					query.put(OFFSET_PARAMETER, offset);
+					query.put(LIMIT_PARAMETER, limit);
+				}
+				return _get(variant, query, new ResponseHandler<PagedIterator.Page<T>>() {
+					@Override
+					public PagedIterator.Page<T> handle(InputStream body) throws IOException {
+						JsonParser parser = MmcJson.JSON_FACTORY.createJsonParser(body);
+						try {
+							return MmcJson.readPage(parser, reader);
+						} finally {
+							parser.close();
+						}
+					}
+				}, collection);
+			}
+		}, size, size > 0 && pagePrefetch ? _getPrefetchExecutor() : null);
+	}
+
+	private synchronized ExecutorService _getPrefetchExecutor() {
+		if (prefetchExecutor == null) {
+			prefetchExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+				private final AtomicInteger threadCount = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "mmc-prefetch-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return prefetchExecutor;
+	}
+
 	/**
 	 * Creates a new deployment without deploying the application referenced by
 	 * the version id. To deploy the application, see method
@@ -93,50 +677,123 @@ public class MuleRest {
 	 * @throws Exception
 	 */
 	public String restfullyCreateDeployment(String targetServerName, String name, String versionId) throws IOException {
-		String serverOrGroupId = restfullyGetServerGroupId(targetServerName);
-		if (StringUtils.isEmpty(serverOrGroupId)) {
-			serverOrGroupId = restfullyGetServerId(targetServerName);
+		String serverOrGroupId = restfullyResolveServerOrGroupId(targetServerName);
+
+		// delete existing deployment before creating new one
+		restfullyDeleteDeployment(name);
+
+		try {
+			return restfullyCreateDeploymentById(serverOrGroupId, name, versionId);
+		} catch (HTTPException e) {
+			if (idCache == null || e.getResponseCode() != Status.NOT_FOUND.getStatusCode()) {
+				throw e;
+			}
+			// the id may come from a stale cache, resolve the target again
+			invalidateTopologyCache();
+			String freshServerOrGroupId = restfullyResolveServerOrGroupId(targetServerName);
+			if (freshServerOrGroupId.equals(serverOrGroupId)) {
+				throw e;
+			}
+			_logger.info("Id of \"" + targetServerName + "\" changed from \"" + serverOrGroupId + "\" to \"" + freshServerOrGroupId + "\", creating the deployment again");
+			return restfullyCreateDeploymentById(freshServerOrGroupId, name, versionId);
 		}
+	}
 
-		if (StringUtils.isEmpty(serverOrGroupId)) {
-			throw new IllegalArgumentException("No group or server named \"" + targetServerName + "\" found");
+	/**
+	 * Returns the id of the server group or, if there is no such group, of the
+	 * server having the given name
+	 * 
+	 * @param targetServerName
+	 *            Name of the server or group
+	 * @return
+	 * @throws IOException
+	 * @throws IllegalArgumentException
+	 *             if there is neither a group nor a server with that name
+	 */
+	public String restfullyResolveServerOrGroupId(String targetServerName) throws IOException {
+		String serverOrGroupId = _getCachedId(PersistentIdCache.Kind.GROUP, targetServerName);
+		if (serverOrGroupId != null) {
+			return serverOrGroupId;
+		}
+		serverOrGroupId = _getCachedId(PersistentIdCache.Kind.SERVER, targetServerName);
+		if (serverOrGroupId != null) {
+			return serverOrGroupId;
 		}
 
-		// delete existing deployment before creating new one
-		restfullyDeleteDeployment(name);
+		serverOrGroupId = restfullyGetServerGroupId(targetServerName);
+		if (!StringUtils.isEmpty(serverOrGroupId)) {
+			_cacheId(PersistentIdCache.Kind.GROUP, targetServerName, serverOrGroupId);
+			return serverOrGroupId;
+		}
 
-		WebClient webClient = _getWebClient("deployments");
-		webClient.type(MediaType.APPLICATION_JSON_TYPE);
+		serverOrGroupId = restfullyGetServerId(targetServerName);
+		if (StringUtils.isEmpty(serverOrGroupId)) {
+			throw new IllegalArgumentException("No group or server named \"" + targetServerName + "\" found");
+		}
+		_cacheId(PersistentIdCache.Kind.SERVER, targetServerName, serverOrGroupId);
+		return serverOrGroupId;
+	}
 
+	/**
+	 * Creates a new deployment on an already resolved server or group, without
+	 * deleting a previous deployment of the same name, see
+	 * {@link #restfullyCreateDeployment(String, String, String)}
+	 * 
+	 * @param serverOrGroupId
+	 *            Id of the server or group where to deploy the application
+	 * @param name
+	 *            Name of the deployment
+	 * @param versionId
+	 *            Version id of an application on the repository
+	 * @return Returns the id of the deployment
+	 * @throws IOException
+	 */
+	public String restfullyCreateDeploymentById(String serverOrGroupId, String name, String versionId) throws IOException {
+		String responseText;
 		try {
-			StringWriter stringWriter = new StringWriter();
-			JsonFactory jfactory = new JsonFactory();
-			JsonGenerator jGenerator = jfactory.createJsonGenerator(stringWriter);
-			jGenerator.writeStartObject(); // {
-			jGenerator.writeStringField("name", name); // "name" : name
-			jGenerator.writeFieldName("servers"); // "servers" :
-			jGenerator.writeStartArray(); // [
-			jGenerator.writeString(serverOrGroupId); // "serverId"
-			jGenerator.writeEndArray(); // ]
-			jGenerator.writeFieldName("applications"); // "applications" :
-			jGenerator.writeStartArray(); // [
-			jGenerator.writeString(versionId); // "application version Id"
-			jGenerator.writeEndArray(); // ]
-			jGenerator.writeEndObject(); // }
-			jGenerator.close();
-
-			Response response = webClient.post(stringWriter.toString());
-
-			String responseText = _processResponse(response);
-			JsonNode jsonNode = OBJECT_MAPPER.readTree(responseText);
-			String deploymentId = jsonNode.path("id").getTextValue();
-
-			_logger.info("Deployment successfully created with id \"" + deploymentId + "\"");
-
-			return deploymentId;
-		} finally {
-			webClient.close();
+			responseText = _request("POST", createDeploymentJson(serverOrGroupId, name, versionId), TEXT_RESPONSE, "deployments");
+		} catch (HTTPException e) {
+			if (e.getResponseCode() == Status.NOT_FOUND.getStatusCode()) {
+				_uncacheId(PersistentIdCache.Kind.GROUP, serverOrGroupId);
+				_uncacheId(PersistentIdCache.Kind.SERVER, serverOrGroupId);
+			}
+			throw e;
 		}
+		JsonNode jsonNode = OBJECT_MAPPER.readTree(responseText);
+		String deploymentId = jsonNode.path("id").getTextValue();
+		_cacheId(PersistentIdCache.Kind.DEPLOYMENT, name, deploymentId);
+
+		_logger.info("Deployment successfully created with id \"" + deploymentId + "\"");
+
+		return deploymentId;
+	}
+
+	/**
+	 * Builds the body of a deployment creation request
+	 * 
+	 * @param serverOrGroupId
+	 * @param name
+	 * @param versionId
+	 * @return
+	 * @throws IOException
+	 */
+	static String createDeploymentJson(String serverOrGroupId, String name, String versionId) throws IOException {
+		StringWriter stringWriter = new StringWriter();
+		JsonFactory jfactory = new JsonFactory();
+		JsonGenerator jGenerator = jfactory.createJsonGenerator(stringWriter);
+		jGenerator.writeStartObject(); // {
+		jGenerator.writeStringField("name", name); // "name" : name
+		jGenerator.writeFieldName("servers"); // "servers" :
+		jGenerator.writeStartArray(); // [
+		jGenerator.writeString(serverOrGroupId); // "serverId"
+		jGenerator.writeEndArray(); // ]
+		jGenerator.writeFieldName("applications"); // "applications" :
+		jGenerator.writeStartArray(); // [
+		jGenerator.writeString(versionId); // "application version Id"
+		jGenerator.writeEndArray(); // ]
+		jGenerator.writeEndObject(); // }
+		jGenerator.close();
+		return stringWriter.toString();
 	}
 
 	public void restfullyDeleteDeployment(String name) throws IOException {
@@ -147,14 +804,15 @@ public class MuleRest {
 	}
 
 	public void restfullyDeleteDeploymentById(String deploymentId) throws IOException {
-		WebClient webClient = _getWebClient("deployments", deploymentId);
-
 		try {
-			Response response = webClient.delete();
-			_processResponse(response);
-		} finally {
-			webClient.close();
+			_request("DELETE", null, TEXT_RESPONSE, "deployments", deploymentId);
+		} catch (HTTPException e) {
+			if (e.getResponseCode() == Status.NOT_FOUND.getStatusCode()) {
+				_uncacheId(PersistentIdCache.Kind.DEPLOYMENT, deploymentId);
+			}
+			throw e;
 		}
+		_uncacheId(PersistentIdCache.Kind.DEPLOYMENT, deploymentId);
 	}
 
 	/**
@@ -165,46 +823,75 @@ public class MuleRest {
 	 * @throws IOException
 	 */
 	public void restfullyDeployDeploymentById(String deploymentId) throws IOException {
-		WebClient webClient = _getWebClient("deployments", deploymentId, "deploy");
-
-		try {
-			Response response = webClient.post(null);
-			String responseText = _processResponse(response);
-			_logger.info("Application deployed with answer \"" + responseText + "\"");
-		} finally {
-			webClient.close();
-		}
+		String responseText = _request("POST", null, TEXT_RESPONSE, "deployments", deploymentId, "deploy");
+		_logger.info("Application deployed with answer \"" + responseText + "\"");
 	}
 
 	/**
-	 * Returns the deployment id from the deployment name
+	 * Returns the deployment id from the deployment name. An id found in the
+	 * persistent cache is checked with a request on that single deployment
+	 * instead of downloading the listing.
 	 * 
 	 * @param deploymentName
 	 * @return
 	 * @throws IOException
 	 */
 	public String restfullyGetDeploymentIdByName(String deploymentName) throws IOException {
-		WebClient webClient = _getWebClient("deployments");
-
-		String deploymentId = null;
-		try {
-			Response response = webClient.get();
-
-			String responseText = _processResponse(response);
-			JsonNode jsonNode = OBJECT_MAPPER.readTree(responseText);
-			JsonNode deploymentsNode = jsonNode.path("data");
-			for (JsonNode deploymentNode : deploymentsNode) {
-				if (deploymentName.equals(deploymentNode.path("name").getTextValue())) {
-					deploymentId = deploymentNode.path("id").getTextValue();
-					break;
+		String cachedId = _getCachedId(PersistentIdCache.Kind.DEPLOYMENT, deploymentName);
+		if (cachedId != null) {
+			try {
+				if (deploymentName.equals(restfullyGetDeploymentState(cachedId).name)) {
+					return cachedId;
+				}
+			} catch (HTTPException e) {
+				if (e.getResponseCode() != Status.NOT_FOUND.getStatusCode()) {
+					throw e;
 				}
 			}
-		} finally {
-			webClient.close();
+			_uncacheName(PersistentIdCache.Kind.DEPLOYMENT, deploymentName);
 		}
+
+		String deploymentId = _fetchDeploymentIdByName(deploymentName);
+		_cacheId(PersistentIdCache.Kind.DEPLOYMENT, deploymentName, deploymentId);
 		return deploymentId;
 	}
 
+	private String _fetchDeploymentIdByName(final String deploymentName) throws IOException {
+		if (pageSize > 0) {
+			String[] nameAndId = restfullyIterate("deployments", "name", "id").find(new PagedIterator.Filter<String[]>() {
+				@Override
+				public boolean accept(String[] nameAndId) {
+					return deploymentName.equals(nameAndId[0]);
+				}
+			});
+			return nameAndId == null ? null : nameAndId[1];
+		}
+
+		return _get("name=" + deploymentName, new ResponseHandler<String>() {
+			@Override
+			public String handle(InputStream body) throws IOException {
+				final String[] deploymentId = new String[1];
+				JsonParser parser = MmcJson.JSON_FACTORY.createJsonParser(body);
+				try {
+					MmcJson.forEachDataElement(parser, new MmcJson.ElementHandler() {
+						@Override
+						public boolean handle(JsonParser parser) throws IOException {
+							String[] nameAndId = MmcJson.readFields(parser, "name", "id");
+							if (deploymentName.equals(nameAndId[0])) {
+								deploymentId[0] = nameAndId[1];
+								return false;
+							}
+							return true;
+						}
+					});
+				} finally {
+					parser.close();
+				}
+				return deploymentId[0];
+			}
+		}, "deployments");
+	}
+
 	/**
 	 * Get deployment info from deployment id
 	 * 
@@ -213,78 +900,331 @@ public class MuleRest {
 	 * @throws IOException
 	 */
 	public DeploymentState restfullyGetDeploymentState(String deploymentId) throws IOException {
-		WebClient webClient = _getWebClient("deployments", deploymentId);
-		try {
-			Response response = webClient.get();
-			String responseText = _processResponse(response);
+		String responseText = _get(null, TEXT_RESPONSE, "deployments", deploymentId);
 
-			JsonNode jsonNode = OBJECT_MAPPER.readTree(responseText);
-			DeploymentState deploymentState = new DeploymentState();
-			deploymentState.reconciled = jsonNode.path("reconciled").getBooleanValue();
-			deploymentState.status = DeploymentStatus.valueOf(jsonNode.path("status").getTextValue().toUpperCase());
-			deploymentState.href = jsonNode.path("href").getTextValue();
-			deploymentState.name = jsonNode.path("name").getTextValue();
+		JsonNode jsonNode = OBJECT_MAPPER.readTree(responseText);
+		DeploymentState deploymentState = new DeploymentState();
+		deploymentState.reconciled = jsonNode.path("reconciled").getBooleanValue();
+		deploymentState.status = DeploymentStatus.valueOf(jsonNode.path("status").getTextValue().toUpperCase());
+		deploymentState.href = jsonNode.path("href").getTextValue();
+		deploymentState.name = jsonNode.path("name").getTextValue();
 
-			return deploymentState;
+		return deploymentState;
+	}
 
-		} finally {
-			webClient.close();
+	/**
+	 * Get the deployment info of several deployments from a single
+	 * /deployments listing. Deployments not found in the listing are missing
+	 * from the returned map, see {@link #restfullyGetDeploymentState(String)}
+	 * to get them one by one.
+	 *
+	 * @param deploymentIds
+	 * @return Deployment states by deployment id
+	 * @throws IOException
+	 */
+	public Map<String, DeploymentState> restfullyGetDeploymentStates(Collection<String> deploymentIds) throws IOException {
+		if (deploymentIds.isEmpty()) {
+			return new HashMap<String, DeploymentState>();
 		}
+
+		final Set<String> wantedIds = new HashSet<String>(deploymentIds);
+		// copied, the map may be the one stored for a previous response
+		return new HashMap<String, DeploymentState>(_get("ids=" + new TreeSet<String>(wantedIds), new ResponseHandler<Map<String, DeploymentState>>() {
+			@Override
+			public Map<String, DeploymentState> handle(InputStream body) throws IOException {
+				JsonParser parser = MmcJson.JSON_FACTORY.createJsonParser(body);
+				try {
+					return readDeploymentStates(parser, wantedIds);
+				} finally {
+					parser.close();
+				}
+			}
+		}, "deployments"));
 	}
 
+	/**
+	 * Reads the state of the wanted deployments from a /deployments listing,
+	 * stopping as soon as all of them have been found
+	 *
+	 * @param parser
+	 *            Parser positioned before the listing
+	 * @param deploymentIds
+	 * @return
+	 * @throws IOException
+	 */
+	static Map<String, DeploymentState> readDeploymentStates(JsonParser parser, final Set<String> deploymentIds) throws IOException {
+		final Map<String, DeploymentState> deploymentStates = new HashMap<String, DeploymentState>();
+		MmcJson.forEachDataElement(parser, new MmcJson.ElementHandler() {
+			@Override
+			public boolean handle(JsonParser parser) throws IOException {
+				String id = null;
+				DeploymentState deploymentState = new DeploymentState();
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					String fieldName = parser.getCurrentName();
+					JsonToken valueToken = parser.nextToken();
+					if (valueToken == JsonToken.VALUE_STRING && "id".equals(fieldName)) {
+						id = parser.getText();
+					} else if (valueToken == JsonToken.VALUE_STRING && "status".equals(fieldName)) {
+						deploymentState.status = DeploymentStatus.valueOf(parser.getText().toUpperCase());
+					} else if (valueToken == JsonToken.VALUE_STRING && "href".equals(fieldName)) {
+						deploymentState.href = parser.getText();
+					} else if (valueToken == JsonToken.VALUE_STRING && "name".equals(fieldName)) {
+						deploymentState.name = parser.getText();
+					} else if ((valueToken == JsonToken.VALUE_TRUE || valueToken == JsonToken.VALUE_FALSE) && "reconciled".equals(fieldName)) {
+						deploymentState.reconciled = parser.getBooleanValue();
+					} else {
+						parser.skipChildren();
+					}
+				}
+				if (id != null && deploymentState.status != null && deploymentIds.contains(id)) {
+					deploymentStates.put(id, deploymentState);
+				}
+				return deploymentStates.size() < deploymentIds.size();
+			}
+		});
+		return deploymentStates;
+	}
+
+	/**
+	 * Returns the version id of an application version on the repository or
+	 * null if not found. The repository is downloaded once and then looked up
+	 * in memory, see {@link #invalidateRepositoryIndex()}.
+	 * 
+	 * @param name
+	 *            Name of the application on the repository
+	 * @param version
+	 *            Version of the application on the repository
+	 * @return
+	 * @throws IOException
+	 */
 	public String restfullyGetApplicationId(String name, String version) throws IOException {
-		WebClient webClient = _getWebClient("repository");
+		return _getRepositoryIndex().get(name, version);
+	}
 
-		String applicationId = null;
-		try {
-			Response response = webClient.get();
-
-			String responseText = _processResponse(response);
-			JsonNode jsonNode = OBJECT_MAPPER.readTree(responseText);
-			JsonNode applicationsNode = jsonNode.path("data");
-			for (JsonNode applicationNode : applicationsNode) {
-				if (name.equals(applicationNode.path("name").getTextValue())) {
-					JsonNode versionsNode = applicationNode.path("versions");
-					for (JsonNode versionNode : versionsNode) {
-						if (version.equals(versionNode.path("name").getTextValue())) {
-							applicationId = versionNode.get("id").getTextValue();
-							break;
-						}
+	/**
+	 * Returns true if the repository holds an application version with the
+	 * given id
+	 * 
+	 * @param versionId
+	 * @return
+	 * @throws IOException
+	 */
+	public boolean restfullyRepositoryContainsVersionId(String versionId) throws IOException {
+		return _getRepositoryIndex().containsVersionId(versionId);
+	}
+
+	/**
+	 * Forgets the indexed repository content, the next lookup will download
+	 * it again from the MMC
+	 */
+	public void invalidateRepositoryIndex() {
+		repositoryIndex = null;
+	}
+
+	private RepositoryIndex _getRepositoryIndex() throws IOException {
+		RepositoryIndex index = repositoryIndex;
+		if (index != null) {
+			return index;
+		}
+		synchronized (repositoryLock) {
+			if (repositoryIndex == null) {
+				repositoryIndex = _fetchRepositoryIndex();
+			}
+			return repositoryIndex;
+		}
+	}
+
+	private RepositoryIndex _fetchRepositoryIndex() throws IOException {
+		if (pageSize > 0) {
+			final RepositoryIndex index = new RepositoryIndex();
+			_iterate("repository", "applications", APPLICATION_READER).find(new PagedIterator.Filter<String[]>() {
+				@Override
+				public boolean accept(String[] application) {
+					for (int i = 1; application[0] != null && i + 1 < application.length; i += 2) {
+						index.put(application[0], application[i], application[i + 1]);
 					}
+					return false;
 				}
-			}
-		} finally {
-			webClient.close();
+			});
+			_logger.debug("Indexed {} application versions from the repository", index.size());
+			return index;
 		}
-		return applicationId;
+
+		RepositoryIndex listedIndex = _get(null, new ResponseHandler<RepositoryIndex>() {
+			@Override
+			public RepositoryIndex handle(InputStream body) throws IOException {
+				JsonParser parser = MmcJson.JSON_FACTORY.createJsonParser(body);
+				try {
+					return readRepositoryIndex(parser);
+				} finally {
+					parser.close();
+				}
+			}
+		}, "repository");
+		// copied, the index is updated by the uploads and deletes while the
+		// listed one may be reused for a 304 response
+		RepositoryIndex index = listedIndex.copy();
+		_logger.debug("Indexed {} application versions from the repository", index.size());
+		return index;
 	}
 
 	/**
-	 * Returns id of given group name or null if not found
+	 * Lists the application versions of the repository
+	 * 
+	 * @return Version ids by version name by application name, the versions
+	 *         of an application being in the order of the listing
+	 * @throws IOException
+	 */
+	public Map<String, Map<String, String>> restfullyGetRepositoryVersions() throws IOException {
+		final Map<String, Map<String, String>> versionIdsByApplication = new LinkedHashMap<String, Map<String, String>>();
+		_iterate("repository", "applications", APPLICATION_READER).find(new PagedIterator.Filter<String[]>() {
+			@Override
+			public boolean accept(String[] application) {
+				if (application[0] == null) {
+					return false;
+				}
+				Map<String, String> versionIds = versionIdsByApplication.get(application[0]);
+				if (versionIds == null) {
+					versionIds = new LinkedHashMap<String, String>();
+					versionIdsByApplication.put(application[0], versionIds);
+				}
+				for (int i = 1; i + 1 < application.length; i += 2) {
+					versionIds.put(application[i], application[i + 1]);
+				}
+				return false;
+			}
+		});
+		return versionIdsByApplication;
+	}
+
+	/**
+	 * Returns the ids of the application versions referenced by the
+	 * deployments, whatever their state
 	 * 
-	 * @param serverGroupName
 	 * @return
 	 * @throws IOException
 	 */
-	public final String restfullyGetServerGroupId(String serverGroupName) throws IOException {
-		String serverGroupId = null;
-		WebClient webClient = _getWebClient("serverGroups");
-		try {
-			Response response = webClient.get();
+	public Set<String> restfullyGetDeployedVersionIds() throws IOException {
+		final Set<String> versionIds = new HashSet<String>();
+		_iterate("deployments", "applications", DEPLOYMENT_READER).find(new PagedIterator.Filter<String[]>() {
+			@Override
+			public boolean accept(String[] deployment) {
+				for (int i = 1; i < deployment.length; i++) {
+					versionIds.add(deployment[i]);
+				}
+				return false;
+			}
+		});
+		return versionIds;
+	}
 
-			String responseText = _processResponse(response);
-			JsonNode jsonNode = OBJECT_MAPPER.readTree(responseText);
-			JsonNode groupsNode = jsonNode.path("data");
-			for (JsonNode groupNode : groupsNode) {
-				if (serverGroupName.equals(groupNode.path("name").getTextValue())) {
-					serverGroupId = groupNode.path("id").getTextValue();
-					break;
+	/**
+	 * Reads a deployment of a /deployments listing as its id followed by the
+	 * ids of the application versions it references
+	 */
+	private static final MmcJson.ElementReader<String[]> DEPLOYMENT_READER = new MmcJson.ElementReader<String[]>() {
+		@Override
+		public String[] read(JsonParser parser) throws IOException {
+			List<String> fields = new ArrayList<String>();
+			fields.add(null);
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String fieldName = parser.getCurrentName();
+				JsonToken valueToken = parser.nextToken();
+				if (valueToken == JsonToken.VALUE_STRING && "id".equals(fieldName)) {
+					fields.set(0, parser.getText());
+				} else if (valueToken == JsonToken.START_ARRAY && "applications".equals(fieldName)) {
+					JsonToken token;
+					while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+						// skipping an unexpected reference would let its version be pruned
+						if (token != JsonToken.VALUE_STRING) {
+							throw new JsonParseException("Expected application version ids in the applications of deployment \"" + fields.get(0) + "\", got " + token, parser.getCurrentLocation());
+						}
+						fields.add(parser.getText());
+					}
+				} else {
+					parser.skipChildren();
 				}
 			}
-			return serverGroupId;
-		} finally {
-			webClient.close();
+			return fields.toArray(new String[fields.size()]);
 		}
+	};
+
+	/**
+	 * Reads an application of a /repository listing as its name followed by
+	 * the name and id of each of its named versions
+	 */
+	private static final MmcJson.ElementReader<String[]> APPLICATION_READER = new MmcJson.ElementReader<String[]>() {
+		@Override
+		public String[] read(JsonParser parser) throws IOException {
+			final List<String> versions = new ArrayList<String>();
+			// the versions may come before the application name
+			String applicationName = MmcJson.readFields(parser, new String[] { "name" }, "versions", new MmcJson.ElementHandler() {
+				@Override
+				public boolean handle(JsonParser parser) throws IOException {
+					String[] nameAndId = MmcJson.readFields(parser, "name", "id");
+					if (nameAndId[0] != null) {
+						versions.add(nameAndId[0]);
+						versions.add(nameAndId[1]);
+					}
+					return true;
+				}
+			})[0];
+
+			String[] application = new String[1 + versions.size()];
+			application[0] = applicationName;
+			for (int i = 0; i < versions.size(); i++) {
+				application[1 + i] = versions.get(i);
+			}
+			return application;
+		}
+	};
+
+	/**
+	 * Builds a {@link RepositoryIndex} from a /repository listing
+	 * 
+	 * @param parser
+	 *            Parser positioned before the listing
+	 * @return
+	 * @throws IOException
+	 */
+	static RepositoryIndex readRepositoryIndex(JsonParser parser) throws IOException {
+		final RepositoryIndex index = new RepositoryIndex();
+		final List<String[]> versions = new ArrayList<String[]>();
+		MmcJson.forEachDataElement(parser, new MmcJson.ElementHandler() {
+			@Override
+			public boolean handle(JsonParser parser) throws IOException {
+				versions.clear();
+				// the versions may come before the application name
+				String applicationName = MmcJson.readFields(parser, new String[] { "name" }, "versions", new MmcJson.ElementHandler() {
+					@Override
+					public boolean handle(JsonParser parser) throws IOException {
+						versions.add(MmcJson.readFields(parser, "name", "id"));
+						return true;
+					}
+				})[0];
+
+				if (applicationName != null) {
+					for (String[] nameAndId : versions) {
+						if (nameAndId[0] != null) {
+							index.put(applicationName, nameAndId[0], nameAndId[1]);
+						}
+					}
+				}
+				return true;
+			}
+		});
+		return index;
+	}
+
+	/**
+	 * Returns id of given group name or null if not found
+	 * 
+	 * @param serverGroupName
+	 * @return
+	 * @throws IOException
+	 */
+	public String restfullyGetServerGroupId(String serverGroupName) throws IOException {
+		return _getGroupIdsByName(serverGroupName).get(serverGroupName);
 	}
 
 	/**
@@ -296,26 +1236,9 @@ public class MuleRest {
 	 */
 	public Set<String> restfullyGetServerIdsInGroup(String serverGroupName) throws IOException {
 		Set<String> serversId = new TreeSet<String>();
-		WebClient webClient = _getWebClient("servers");
-
-		try {
-			Response response = webClient.get();
-
-			String responseText = _processResponse(response);
-			JsonNode jsonNode = OBJECT_MAPPER.readTree(responseText);
-			JsonNode serversNode = jsonNode.path("data");
-			for (JsonNode serverNode : serversNode) {
-				String serverId = serverNode.path("id").getTextValue();
-
-				JsonNode groupsNode = serverNode.path("groups");
-				for (JsonNode groupNode : groupsNode) {
-					if (serverGroupName.equals(groupNode.path("name").getTextValue())) {
-						serversId.add(serverId);
-					}
-				}
-			}
-		} finally {
-			webClient.close();
+		Set<String> cachedServersId = _getServerIdsByGroupName().get(serverGroupName);
+		if (cachedServersId != null) {
+			serversId.addAll(cachedServersId);
 		}
 		return serversId;
 	}
@@ -328,24 +1251,257 @@ public class MuleRest {
 	 * @throws IOException
 	 */
 	public String restfullyGetServerId(String serverName) throws IOException {
-		String serverId = null;
-		WebClient webClient = _getWebClient("servers");
+		return _getServerIdsByName(serverName).get(serverName);
+	}
 
-		try {
-			Response response = webClient.get();
-			String responseText = _processResponse(response);
-			JsonNode jsonNode = OBJECT_MAPPER.readTree(responseText);
-			JsonNode serversNode = jsonNode.path("data");
-			for (JsonNode serverNode : serversNode) {
-				if (serverName.equals(serverNode.path("name").getTextValue())) {
-					serverId = serverNode.path("id").getTextValue();
-					break;
+	/**
+	 * Forgets the cached server and server group ids, the next lookup will
+	 * download them again from the MMC
+	 */
+	public void invalidateTopologyCache() {
+		topologyCache.invalidate();
+	}
+
+	private Map<String, String> _getGroupIdsByName(String serverGroupName) throws IOException {
+		Map<String, String> groupIdsByName = topologyCache.getGroupIdsByName();
+		if (groupIdsByName != null) {
+			return groupIdsByName;
+		}
+		if (!topologyCache.isEnabled()) {
+			// nothing to keep, stop reading at the requested group
+			return _fetchGroupIdsByName(serverGroupName);
+		}
+		synchronized (groupsLock) {
+			groupIdsByName = topologyCache.getGroupIdsByName();
+			if (groupIdsByName == null) {
+				groupIdsByName = _fetchGroupIdsByName(null);
+				topologyCache.putGroups(groupIdsByName);
+			}
+			return groupIdsByName;
+		}
+	}
+
+	private Map<String, String> _getServerIdsByName(String serverName) throws IOException {
+		Map<String, String> serverIdsByName = topologyCache.getServerIdsByName();
+		if (serverIdsByName != null) {
+			return serverIdsByName;
+		}
+		if (!topologyCache.isEnabled()) {
+			// nothing to keep, stop reading at the requested server
+			return _fetchServers(serverName).serverIdsByName;
+		}
+		synchronized (serversLock) {
+			serverIdsByName = topologyCache.getServerIdsByName();
+			if (serverIdsByName == null) {
+				serverIdsByName = _fetchServers(null).serverIdsByName;
+			}
+			return serverIdsByName;
+		}
+	}
+
+	private Map<String, Set<String>> _getServerIdsByGroupName() throws IOException {
+		Map<String, Set<String>> serverIdsByGroupName = topologyCache.getServerIdsByGroupName();
+		if (serverIdsByGroupName != null) {
+			return serverIdsByGroupName;
+		}
+		synchronized (serversLock) {
+			serverIdsByGroupName = topologyCache.getServerIdsByGroupName();
+			if (serverIdsByGroupName == null) {
+				serverIdsByGroupName = _fetchServers(null).serverIdsByGroupName;
+			}
+			return serverIdsByGroupName;
+		}
+	}
+
+	/**
+	 * Downloads the /serverGroups listing
+	 * 
+	 * @param stopAtName
+	 *            If not null, the listing is read only up to the group having
+	 *            this name
+	 */
+	private Map<String, String> _fetchGroupIdsByName(final String stopAtName) throws IOException {
+		if (pageSize > 0) {
+			final Map<String, String> groupIdsByName = new HashMap<String, String>();
+			restfullyIterate("serverGroups", "name", "id").find(new PagedIterator.Filter<String[]>() {
+				@Override
+				public boolean accept(String[] nameAndId) {
+					// first group with a given name wins
+					if (!groupIdsByName.containsKey(nameAndId[0])) {
+						groupIdsByName.put(nameAndId[0], nameAndId[1]);
+					}
+					return stopAtName != null && stopAtName.equals(nameAndId[0]);
+				}
+			});
+			return groupIdsByName;
+		}
+
+		return _get(stopAtName == null ? null : "stopAt=" + stopAtName, new ResponseHandler<Map<String, String>>() {
+			@Override
+			public Map<String, String> handle(InputStream body) throws IOException {
+				JsonParser parser = MmcJson.JSON_FACTORY.createJsonParser(body);
+				try {
+					return readGroupIdsByName(parser, stopAtName);
+				} finally {
+					parser.close();
 				}
 			}
+		}, "serverGroups");
+	}
 
-			return serverId;
-		} finally {
-			webClient.close();
+	/**
+	 * Builds the group name to id map from a /serverGroups listing
+	 * 
+	 * @param parser
+	 *            Parser positioned before the listing
+	 * @param stopAtName
+	 *            If not null, the listing is read only up to the group having
+	 *            this name
+	 * @return
+	 * @throws IOException
+	 */
+	static Map<String, String> readGroupIdsByName(JsonParser parser, final String stopAtName) throws IOException {
+		final Map<String, String> groupIdsByName = new HashMap<String, String>();
+		MmcJson.forEachDataElement(parser, new MmcJson.ElementHandler() {
+			@Override
+			public boolean handle(JsonParser parser) throws IOException {
+				String[] nameAndId = MmcJson.readFields(parser, "name", "id");
+				// first group with a given name wins
+				if (!groupIdsByName.containsKey(nameAndId[0])) {
+					groupIdsByName.put(nameAndId[0], nameAndId[1]);
+				}
+				return stopAtName == null || !stopAtName.equals(nameAndId[0]);
+			}
+		});
+		return groupIdsByName;
+	}
+
+	/**
+	 * Downloads the /servers listing
+	 * 
+	 * @param stopAtName
+	 *            If not null, the listing is read only up to the server having
+	 *            this name and is not cached
+	 */
+	private ServersListing _fetchServers(final String stopAtName) throws IOException {
+		if (pageSize > 0) {
+			final ServersListing serversListing = new ServersListing();
+			_iterate("servers", "servers", SERVER_READER).find(new PagedIterator.Filter<String[]>() {
+				@Override
+				public boolean accept(String[] server) {
+					serversListing.addServer(server[0], server[1]);
+					for (int i = 2; i < server.length; i++) {
+						serversListing.addServerToGroup(server[i], server[1]);
+					}
+					return stopAtName != null && stopAtName.equals(server[0]);
+				}
+			});
+			if (stopAtName == null) {
+				topologyCache.putServers(serversListing.serverIdsByName, serversListing.serverIdsByGroupName);
+			}
+			return serversListing;
+		}
+
+		ServersListing serversListing = _get(stopAtName == null ? null : "stopAt=" + stopAtName, new ResponseHandler<ServersListing>() {
+			@Override
+			public ServersListing handle(InputStream body) throws IOException {
+				JsonParser parser = MmcJson.JSON_FACTORY.createJsonParser(body);
+				try {
+					return readServers(parser, stopAtName);
+				} finally {
+					parser.close();
+				}
+			}
+		}, "servers");
+
+		if (stopAtName == null) {
+			topologyCache.putServers(serversListing.serverIdsByName, serversListing.serverIdsByGroupName);
+		}
+		return serversListing;
+	}
+
+	/**
+	 * Reads a server of a /servers listing as its name and id followed by the
+	 * names of its groups
+	 */
+	private static final MmcJson.ElementReader<String[]> SERVER_READER = new MmcJson.ElementReader<String[]>() {
+		@Override
+		public String[] read(JsonParser parser) throws IOException {
+			final List<String> groupNames = new ArrayList<String>();
+			String[] nameAndId = MmcJson.readFields(parser, new String[] { "name", "id" }, "groups", new MmcJson.ElementHandler() {
+				@Override
+				public boolean handle(JsonParser parser) throws IOException {
+					groupNames.add(MmcJson.readFields(parser, "name")[0]);
+					return true;
+				}
+			});
+			String[] server = new String[2 + groupNames.size()];
+			server[0] = nameAndId[0];
+			server[1] = nameAndId[1];
+			for (int i = 0; i < groupNames.size(); i++) {
+				server[2 + i] = groupNames.get(i);
+			}
+			return server;
+		}
+	};
+
+	/**
+	 * Builds the server maps from a /servers listing
+	 * 
+	 * @param parser
+	 *            Parser positioned before the listing
+	 * @param stopAtName
+	 *            If not null, the listing is read only up to the server having
+	 *            this name
+	 * @return
+	 * @throws IOException
+	 */
+	static ServersListing readServers(JsonParser parser, final String stopAtName) throws IOException {
+		final ServersListing serversListing = new ServersListing();
+		final List<String> groupNames = new ArrayList<String>();
+		MmcJson.forEachDataElement(parser, new MmcJson.ElementHandler() {
+			@Override
+			public boolean handle(JsonParser parser) throws IOException {
+				groupNames.clear();
+				String[] nameAndId = MmcJson.readFields(parser, new String[] { "name", "id" }, "groups", new MmcJson.ElementHandler() {
+					@Override
+					public boolean handle(JsonParser parser) throws IOException {
+						groupNames.add(MmcJson.readFields(parser, "name")[0]);
+						return true;
+					}
+				});
+
+				serversListing.addServer(nameAndId[0], nameAndId[1]);
+				for (String groupName : groupNames) {
+					serversListing.addServerToGroup(groupName, nameAndId[1]);
+				}
+				return stopAtName == null || !stopAtName.equals(nameAndId[0]);
+			}
+		});
+		return serversListing;
+	}
+
+	/**
+	 * Maps built from one /servers listing
+	 */
+	static class ServersListing {
+		final Map<String, String> serverIdsByName = new HashMap<String, String>();
+		final Map<String, Set<String>> serverIdsByGroupName = new HashMap<String, Set<String>>();
+
+		void addServer(String serverName, String serverId) {
+			// first server with a given name wins
+			if (!serverIdsByName.containsKey(serverName)) {
+				serverIdsByName.put(serverName, serverId);
+			}
+		}
+
+		void addServerToGroup(String groupName, String serverId) {
+			Set<String> serverIds = serverIdsByGroupName.get(groupName);
+			if (serverIds == null) {
+				serverIds = new TreeSet<String>();
+				serverIdsByGroupName.put(groupName, serverIds);
+			}
+			serverIds.add(serverId);
 		}
 	}
 
@@ -363,50 +1519,158 @@ public class MuleRest {
 	 */
 
 	public String restfullyUploadRepository(String appName, String appVersion, File packageFile) throws IOException {
-		WebClient webClient = _getWebClient("repository");
-		webClient.type("multipart/form-data");
-
-		try {
-			// delete application first
-			if (isSnapshotVersion(appVersion)) {
-				restfullyDeleteApplication(appName, appVersion);
-			}
-			Attachment nameAttachment = new AttachmentBuilder().id("name").object(appName).contentDisposition(new ContentDisposition("form-data; name=\"name\"")).build();
-			Attachment versionAttachment = new AttachmentBuilder().id("version").object(appVersion).contentDisposition(new ContentDisposition("form-data; name=\"version\"")).build();
-			Attachment fileAttachment = new Attachment("file", new FileInputStream(packageFile), new ContentDisposition("form-data; name=\"file\"; filename=\"" + packageFile.getName() + "\""));
+		return restfullyUploadRepository(appName, appVersion, packageFile, null);
+	}
 
-			MultipartBody multipartBody = new MultipartBody(Arrays.asList(fileAttachment, nameAttachment, versionAttachment), MediaType.MULTIPART_FORM_DATA_TYPE, true);
+	/**
+	 * Same as {@link #restfullyUploadRepository(String, String, File)}, the
+	 * archive being sent from a buffer
+	 * 
+	 * @param appName
+	 * @param appVersion
+	 * @param packageFile
+	 *            The application file, named in the upload
+	 * @param packageContent
+	 *            If not null, the content of the file, sent from its position
+	 *            to its limit without modifying them
+	 * @return The id of the uploaded application on the repository
+	 * @throws IOException
+	 */
+	public String restfullyUploadRepository(String appName, String appVersion, File packageFile, ByteBuffer packageContent) throws IOException {
+		// delete application first
+		if (isSnapshotVersion(appVersion)) {
+			restfullyDeleteApplication(appName, appVersion);
+		}
 
-			Response response = webClient.post(multipartBody);
+		MultipartUpload upload = new MultipartUpload(_getUrl("repository"), username, password);
+		upload.file("file", packageFile, packageContent).field("name", appName).field("version", appVersion);
 
-			String responseObject = _processResponse(response);
+		// not retried, the upload is not idempotent and can take minutes
+		CircuitBreaker breaker = circuitBreaker;
+		breaker.acquire();
+		HttpURLConnection connection;
+		int statusCode;
+		long startTime = System.nanoTime();
+		boolean transientFailure = false;
+		try {
+			connection = upload.send();
+			metrics.recordUpload(packageContent != null ? packageContent.remaining() : packageFile.length(), System.nanoTime() - startTime);
+			statusCode = connection.getResponseCode();
+			transientFailure = statusCode >= 500;
+		} catch (IOException e) {
+			transientFailure = true;
+			metrics.recordRequest(MuleRestMetrics.endpointOf("POST", "repository"), System.nanoTime() - startTime, 0, true);
+			throw e;
+		} finally {
+			// always reported, a half-open trial left in flight would reject every later call
+			if (transientFailure) {
+				breaker.onFailure();
+			} else {
+				breaker.onSuccess();
+			}
+		}
 
-			ObjectMapper mapper = new ObjectMapper();
-			JsonNode result = mapper.readTree(responseObject);
-			return result.path("versionId").getTextValue();
+		String versionId;
+		MuleRestMetrics.CountingInputStream countingBody = null;
+		boolean error = true;
+		try {
+			countingBody = new MuleRestMetrics.CountingInputStream(_checkResponse(statusCode, statusCode >= 400 ? connection.getErrorStream() : connection.getInputStream()));
+			try {
+				JsonNode result = OBJECT_MAPPER.readTree(countingBody);
+				versionId = result.path("versionId").getTextValue();
+				error = false;
+			} finally {
+				// fully read and closed, the connection goes back to the keep-alive cache
+				countingBody.close();
+			}
 		} finally {
-			webClient.close();
+			metrics.recordRequest(MuleRestMetrics.endpointOf("POST", "repository"), System.nanoTime() - startTime, countingBody == null ? 0 : countingBody.getCount(), error);
+		}
+
+		RepositoryIndex index = repositoryIndex;
+		if (index != null) {
+			index.put(appName, appVersion, versionId);
 		}
+		_cacheId(PersistentIdCache.Kind.VERSION, PersistentIdCache.versionName(appName, appVersion), versionId);
+		return versionId;
 	}
 
-	public void restfullyDeleteApplicationById(String applicationVersionId) throws IOException {
-		WebClient webClient = _getWebClient("repository", applicationVersionId);
+	private URL _getUrl(String path) throws MalformedURLException {
+		String baseUrl = mmcUrl.toString();
+		return new URL(baseUrl.endsWith("/") ? baseUrl + path : baseUrl + "/" + path);
+	}
 
+	public void restfullyDeleteApplicationById(String applicationVersionId) throws IOException {
 		try {
-			Response response = webClient.delete();
-			_processResponse(response);
-		} finally {
-			webClient.close();
+			_request("DELETE", null, TEXT_RESPONSE, "repository", applicationVersionId);
+		} catch (HTTPException e) {
+			if (e.getResponseCode() == Status.NOT_FOUND.getStatusCode()) {
+				_uncacheId(PersistentIdCache.Kind.VERSION, applicationVersionId);
+			}
+			throw e;
+		}
+		_uncacheId(PersistentIdCache.Kind.VERSION, applicationVersionId);
+
+		RepositoryIndex index = repositoryIndex;
+		if (index != null) {
+			index.removeById(applicationVersionId);
 		}
 	}
 
+	/**
+	 * Deletes an application version from the repository if it is there. An
+	 * id found in the persistent cache is deleted directly, the repository
+	 * being downloaded only if the MMC does not know it.
+	 * 
+	 * @param applicationName
+	 * @param version
+	 * @throws IOException
+	 */
 	public void restfullyDeleteApplication(String applicationName, String version) throws IOException {
+		String cachedId = _getCachedId(PersistentIdCache.Kind.VERSION, PersistentIdCache.versionName(applicationName, version));
+		if (cachedId != null) {
+			try {
+				restfullyDeleteApplicationById(cachedId);
+				return;
+			} catch (HTTPException e) {
+				if (e.getResponseCode() != Status.NOT_FOUND.getStatusCode()) {
+					throw e;
+				}
+			}
+		}
+
 		String applicationVersionId = restfullyGetApplicationId(applicationName, version);
 		if (applicationVersionId != null) {
 			restfullyDeleteApplicationById(applicationVersionId);
 		}
 	}
 
+	private String _getCachedId(PersistentIdCache.Kind kind, String name) {
+		PersistentIdCache cache = idCache;
+		return cache == null ? null : cache.get(mmcUrl.toString(), kind, name);
+	}
+
+	private void _cacheId(PersistentIdCache.Kind kind, String name, String id) {
+		PersistentIdCache cache = idCache;
+		if (cache != null) {
+			cache.put(mmcUrl.toString(), kind, name, id);
+		}
+	}
+
+	private void _uncacheName(PersistentIdCache.Kind kind, String name) {
+		PersistentIdCache cache = idCache;
+		if (cache != null) {
+			cache.remove(mmcUrl.toString(), kind, name);
+		}
+	}
+
+	private void _uncacheId(PersistentIdCache.Kind kind, String id) {
+		PersistentIdCache cache = idCache;
+		if (cache != null) {
+			cache.removeId(mmcUrl.toString(), kind, id);
+		}
+	}
+
 	protected boolean isSnapshotVersion(String version) {
 		return version.contains(SNAPSHOT);
 	}
@@ -0,0 +1,437 @@
+package org.mule.tools.mmc.rest;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Asynchronous facade of {@link MuleRest}. Each operation returns at once a
+ * {@link Future} of its result and, if a callback is given, reports its
+ * outcome to the callback as well.
+ *
+ * The calls run on a fixed number of threads, as many as there are
+ * connections to the MMC by default, since no more requests than that can be
+ * in flight at the same time anyway. The MuleRest instance is not closed with
+ * this facade.
+ */
+public class MuleRestAsync implements Closeable {
+	private static final Logger _logger = LoggerFactory.getLogger(MuleRestAsync.class);
+
+	public static final int DEFAULT_THREADS = WebClientPool.DEFAULT_MAX_CONNECTIONS;
+
+	private final MuleRest muleRest;
+	private final ExecutorService executor;
+
+	/**
+	 * Constructor
+	 *
+	 * @param muleRest
+	 */
+	public MuleRestAsync(MuleRest muleRest) {
+		this(muleRest, DEFAULT_THREADS);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param muleRest
+	 * @param threads
+	 *            Number of threads running the calls, usually the maximum
+	 *            number of connections of the MuleRest instance
+	 */
+	public MuleRestAsync(MuleRest muleRest, int threads) {
+		this.muleRest = muleRest;
+		this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private final AtomicInteger threadCount = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "mmc-async-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * @return The synchronous API the calls are run with
+	 */
+	public MuleRest getMuleRest() {
+		return muleRest;
+	}
+
+	/**
+	 * Stops the threads once the submitted calls are done
+	 */
+	@Override
+	public void close() {
+		executor.shutdown();
+	}
+
+	/**
+	 * An operation of {@link MuleRest}
+	 */
+	private interface Call<T> {
+		T call() throws IOException;
+	}
+
+	private <T> Future<T> _submit(final Call<T> call, final MuleRestCallback<T> callback) {
+		return executor.submit(new Callable<T>() {
+			@Override
+			public T call() throws IOException {
+				T result;
+				try {
+					result = call.call();
+				} catch (IOException | RuntimeException e) {
+					_notifyFailure(callback, e);
+					throw e;
+				}
+				_notifySuccess(callback, result);
+				return result;
+			}
+		});
+	}
+
+	/**
+	 * A failing callback is logged, the Future keeping the outcome of the
+	 * call
+	 */
+	private static <T> void _notifySuccess(MuleRestCallback<T> callback, T result) {
+		if (callback == null) {
+			return;
+		}
+		try {
+			callback.onSuccess(result);
+		} catch (RuntimeException e) {
+			_logger.error("Callback failed while handling result \"" + result + "\"", e);
+		}
+	}
+
+	/**
+	 * Same as {@link #_notifySuccess(MuleRestCallback, Object)}
+	 */
+	private static void _notifyFailure(MuleRestCallback<?> callback, Throwable failure) {
+		if (callback == null) {
+			return;
+		}
+		try {
+			callback.onFailure(failure);
+		} catch (RuntimeException e) {
+			_logger.error("Callback failed while handling \"" + failure + "\"", e);
+		}
+	}
+
+	/**
+	 * See {@link MuleRest#restfullyCreateDeployment(String, String, String)}
+	 *
+	 * @param targetServerName
+	 * @param name
+	 * @param versionId
+	 * @param callback
+	 *            Optional callback
+	 * @return Future of the id of the deployment
+	 */
+	public Future<String> restfullyCreateDeployment(final String targetServerName, final String name, final String versionId, MuleRestCallback<String> callback) {
+		return _submit(new Call<String>() {
+			@Override
+			public String call() throws IOException {
+				return muleRest.restfullyCreateDeployment(targetServerName, name, versionId);
+			}
+		}, callback);
+	}
+
+	/**
+	 * See {@link MuleRest#restfullyResolveServerOrGroupId(String)}
+	 *
+	 * @param targetServerName
+	 * @param callback
+	 *            Optional callback
+	 * @return Future of the id of the server group or server
+	 */
+	public Future<String> restfullyResolveServerOrGroupId(final String targetServerName, MuleRestCallback<String> callback) {
+		return _submit(new Call<String>() {
+			@Override
+			public String call() throws IOException {
+				return muleRest.restfullyResolveServerOrGroupId(targetServerName);
+			}
+		}, callback);
+	}
+
+	/**
+	 * See {@link MuleRest#restfullyCreateDeploymentById(String, String, String)}
+	 *
+	 * @param serverOrGroupId
+	 * @param name
+	 * @param versionId
+	 * @param callback
+	 *            Optional callback
+	 * @return Future of the id of the deployment
+	 */
+	public Future<String> restfullyCreateDeploymentById(final String serverOrGroupId, final String name, final String versionId, MuleRestCallback<String> callback) {
+		return _submit(new Call<String>() {
+			@Override
+			public String call() throws IOException {
+				return muleRest.restfullyCreateDeploymentById(serverOrGroupId, name, versionId);
+			}
+		}, callback);
+	}
+
+	/**
+	 * See {@link MuleRest#restfullyDeleteDeployment(String)}
+	 *
+	 * @param name
+	 * @param callback
+	 *            Optional callback
+	 * @return
+	 */
+	public Future<Void> restfullyDeleteDeployment(final String name, MuleRestCallback<Void> callback) {
+		return _submit(new Call<Void>() {
+			@Override
+			public Void call() throws IOException {
+				muleRest.restfullyDeleteDeployment(name);
+				return null;
+			}
+		}, callback);
+	}
+
+	/**
+	 * See {@link MuleRest#restfullyDeleteDeploymentById(String)}
+	 *
+	 * @param deploymentId
+	 * @param callback
+	 *            Optional callback
+	 * @return
+	 */
+	public Future<Void> restfullyDeleteDeploymentById(final String deploymentId, MuleRestCallback<Void> callback) {
+		return _submit(new Call<Void>() {
+			@Override
+			public Void call() throws IOException {
+				muleRest.restfullyDeleteDeploymentById(deploymentId);
+				return null;
+			}
+		}, callback);
+	}
+
+	/**
+	 * See {@link MuleRest#restfullyDeployDeploymentById(String)}
+	 *
+	 * @param deploymentId
+	 * @param callback
+	 *            Optional callback
+	 * @return
+	 */
+	public Future<Void> restfullyDeployDeploymentById(final String deploymentId, MuleRestCallback<Void> callback) {
+		return _submit(new Call<Void>() {
+			@Override
+			public Void call() throws IOException {
+				muleRest.restfullyDeployDeploymentById(deploymentId);
+				return null;
+			}
+		}, callback);
+	}
+
+	/**
+	 * See {@link MuleRest#restfullyGetDeploymentIdByName(String)}
+	 *
+	 * @param deploymentName
+	 * @param callback
+	 *            Optional callback
+	 * @return Future of the deployment id, null if not found
+	 */
+	public Future<String> restfullyGetDeploymentIdByName(final String deploymentName, MuleRestCallback<String> callback) {
+		return _submit(new Call<String>() {
+			@Override
+			public String call() throws IOException {
+				return muleRest.restfullyGetDeploymentIdByName(deploymentName);
+			}
+		}, callback);
+	}
+
+	/**
+	 * See {@link MuleRest#restfullyGetDeploymentState(String)}
+	 *
+	 * @param deploymentId
+	 * @param callback
+	 *            Optional callback
+	 * @return
+	 */
+	public Future<DeploymentState> restfullyGetDeploymentState(final String deploymentId, MuleRestCallback<DeploymentState> callback) {
+		return _submit(new Call<DeploymentState>() {
+			@Override
+			public DeploymentState call() throws IOException {
+				return muleRest.restfullyGetDeploymentState(deploymentId);
+			}
+		}, callback);
+	}
+
+	/**
+	 * See {@link MuleRest#restfullyGetDeploymentStates(Collection)}
+	 *
+	 * @param deploymentIds
+	 * @param callback
+	 *            Optional callback
+	 * @return
+	 */
+	public Future<Map<String, DeploymentState>> restfullyGetDeploymentStates(final Collection<String> deploymentIds, MuleRestCallback<Map<String, DeploymentState>> callback) {
+		return _submit(new Call<Map<String, DeploymentState>>() {
+			@Override
+			public Map<String, DeploymentState> call() throws IOException {
+				return muleRest.restfullyGetDeploymentStates(deploymentIds);
+			}
+		}, callback);
+	}
+
+	/**
+	 * See {@link MuleRest#restfullyGetApplicationId(String, String)}
+	 *
+	 * @param name
+	 * @param version
+	 * @param callback
+	 *            Optional callback
+	 * @return Future of the version id, null if not found
+	 */
+	public Future<String> restfullyGetApplicationId(final String name, final String version, MuleRestCallback<String> callback) {
+		return _submit(new Call<String>() {
+			@Override
+			public String call() throws IOException {
+				return muleRest.restfullyGetApplicationId(name, version);
+			}
+		}, callback);
+	}
+
+	/**
+	 * See {@link MuleRest#restfullyRepositoryContainsVersionId(String)}
+	 *
+	 * @param versionId
+	 * @param callback
+	 *            Optional callback
+	 * @return
+	 */
+	public Future<Boolean> restfullyRepositoryContainsVersionId(final String versionId, MuleRestCallback<Boolean> callback) {
+		return _submit(new Call<Boolean>() {
+			@Override
+			public Boolean call() throws IOException {
+				return muleRest.restfullyRepositoryContainsVersionId(versionId);
+			}
+		}, callback);
+	}
+
+	/**
+	 * See {@link MuleRest#restfullyGetServerGroupId(String)}
+	 *
+	 * @param serverGroupName
+	 * @param callback
+	 *            Optional callback
+	 * @return
+	 */
+	public Future<String> restfullyGetServerGroupId(final String serverGroupName, MuleRestCallback<String> callback) {
+		return _submit(new Call<String>() {
+			@Override
+			public String call() throws IOException {
+				return muleRest.restfullyGetServerGroupId(serverGroupName);
+			}
+		}, callback);
+	}
+
+	/**
+	 * See {@link MuleRest#restfullyGetServerIdsInGroup(String)}
+	 *
+	 * @param serverGroupName
+	 * @param callback
+	 *            Optional callback
+	 * @return
+	 */
+	public Future<Set<String>> restfullyGetServerIdsInGroup(final String serverGroupName, MuleRestCallback<Set<String>> callback) {
+		return _submit(new Call<Set<String>>() {
+			@Override
+			public Set<String> call() throws IOException {
+				return muleRest.restfullyGetServerIdsInGroup(serverGroupName);
+			}
+		}, callback);
+	}
+
+	/**
+	 * See {@link MuleRest#restfullyGetServerId(String)}
+	 *
+	 * @param serverName
+	 * @param callback
+	 *            Optional callback
+	 * @return
+	 */
+	public Future<String> restfullyGetServerId(final String serverName, MuleRestCallback<String> callback) {
+		return _submit(new Call<String>() {
+			@Override
+			public String call() throws IOException {
+				return muleRest.restfullyGetServerId(serverName);
+			}
+		}, callback);
+	}
+
+	/**
+	 * See {@link MuleRest#restfullyUploadRepository(String, String, File)}
+	 *
+	 * @param appName
+	 * @param appVersion
+	 * @param packageFile
+	 * @param callback
+	 *            Optional callback
+	 * @return Future of the version id of the uploaded application
+	 */
+	public Future<String> restfullyUploadRepository(final String appName, final String appVersion, final File packageFile, MuleRestCallback<String> callback) {
+		return _submit(new Call<String>() {
+			@Override
+			public String call() throws IOException {
+				return muleRest.restfullyUploadRepository(appName, appVersion, packageFile);
+			}
+		}, callback);
+	}
+
+	/**
+	 * See {@link MuleRest#restfullyDeleteApplicationById(String)}
+	 *
+	 * @param applicationVersionId
+	 * @param callback
+	 *            Optional callback
+	 * @return
+	 */
+	public Future<Void> restfullyDeleteApplicationById(final String applicationVersionId, MuleRestCallback<Void> callback) {
+		return _submit(new Call<Void>() {
+			@Override
+			public Void call() throws IOException {
+				muleRest.restfullyDeleteApplicationById(applicationVersionId);
+				return null;
+			}
+		}, callback);
+	}
+
+	/**
+	 * See {@link MuleRest#restfullyDeleteApplication(String, String)}
+	 *
+	 * @param applicationName
+	 * @param version
+	 * @param callback
+	 *            Optional callback
+	 * @return
+	 */
+	public Future<Void> restfullyDeleteApplication(final String applicationName, final String version, MuleRestCallback<Void> callback) {
+		return _submit(new Call<Void>() {
+			@Override
+			public Void call() throws IOException {
+				muleRest.restfullyDeleteApplication(applicationName, version);
+				return null;
+			}
+		}, callback);
+	}
+}
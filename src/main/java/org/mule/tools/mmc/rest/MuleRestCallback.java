@@ -0,0 +1,23 @@
+package org.mule.tools.mmc.rest;
+
+/**
+ * Receives the outcome of a {@link MuleRestAsync} call, on the thread that
+ * ran the call
+ *
+ * @param <T>
+ *            Result type of the call, Void for calls without result
+ */
+public interface MuleRestCallback<T> {
+
+	/**
+	 * @param result
+	 *            Result of the call, null for calls without result
+	 */
+	void onSuccess(T result);
+
+	/**
+	 * @param failure
+	 *            Exception thrown by the call
+	 */
+	void onFailure(Throwable failure);
+}
@@ -0,0 +1,310 @@
+package org.mule.tools.mmc.rest;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
+
+/**
+ * Latency and volume of the requests sent to the MMC, per endpoint.
+ *
+ * An endpoint is a method and a path template, ids being replaced by
+ * <code>{id}</code>, e.g. <code>DELETE /deployments/{id}</code>. The latency
+ * of each endpoint is kept in a histogram of power of two buckets of
+ * milliseconds. All the counters are atomic, recording a request takes no
+ * lock.
+ */
+public class MuleRestMetrics {
+
+	/**
+	 * Bucket i counts the requests that took less than 2^i ms, and at least
+	 * 2^(i-1) ms. The last bucket counts all the longer requests.
+	 */
+	static final int HISTOGRAM_BUCKETS = 22;
+
+	private final long startTime = System.currentTimeMillis();
+
+	private final ConcurrentMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<String, EndpointMetrics>();
+
+	private final AtomicLong uploads = new AtomicLong();
+	private final AtomicLong uploadBytes = new AtomicLong();
+	private final AtomicLong uploadNanos = new AtomicLong();
+
+	/**
+	 * Counters of one endpoint
+	 */
+	public static class EndpointMetrics {
+		private final AtomicLong requests = new AtomicLong();
+		private final AtomicLong errors = new AtomicLong();
+		private final AtomicLong totalNanos = new AtomicLong();
+		private final AtomicLong maxNanos = new AtomicLong();
+		private final AtomicLong responseBytes = new AtomicLong();
+		private final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+
+		void record(long nanos, long bytes, boolean error) {
+			requests.incrementAndGet();
+			if (error) {
+				errors.incrementAndGet();
+			}
+			totalNanos.addAndGet(nanos);
+			responseBytes.addAndGet(bytes);
+			histogram.incrementAndGet(bucketOf(nanos));
+
+			long max;
+			while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+				// retry until the max is updated or a longer request is recorded
+			}
+		}
+
+		public long getRequests() {
+			return requests.get();
+		}
+
+		public long getErrors() {
+			return errors.get();
+		}
+
+		public long getResponseBytes() {
+			return responseBytes.get();
+		}
+
+		public double getMeanMs() {
+			long count = requests.get();
+			return count == 0 ? 0 : totalNanos.get() / 1e6 / count;
+		}
+
+		public double getMaxMs() {
+			return maxNanos.get() / 1e6;
+		}
+
+		/**
+		 * @param percentile
+		 *            Between 0 and 100
+		 * @return Upper bound in ms of the histogram bucket holding the
+		 *         percentile, 0 if no request was recorded
+		 */
+		public long getPercentileMs(double percentile) {
+			long count = 0;
+			long[] buckets = new long[HISTOGRAM_BUCKETS];
+			for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+				buckets[i] = histogram.get(i);
+				count += buckets[i];
+			}
+			if (count == 0) {
+				return 0;
+			}
+
+			long rank = (long) Math.ceil(count * percentile / 100.0);
+			long seen = 0;
+			for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+				seen += buckets[i];
+				if (seen >= rank) {
+					return bucketUpperBoundMs(i);
+				}
+			}
+			return bucketUpperBoundMs(HISTOGRAM_BUCKETS - 1);
+		}
+
+		public long getBucketCount(int bucket) {
+			return histogram.get(bucket);
+		}
+	}
+
+	static int bucketOf(long nanos) {
+		long ms = TimeUnit.NANOSECONDS.toMillis(nanos);
+		int bucket = 64 - Long.numberOfLeadingZeros(ms);
+		return Math.min(bucket, HISTOGRAM_BUCKETS - 1);
+	}
+
+	static long bucketUpperBoundMs(int bucket) {
+		return 1L << bucket;
+	}
+
+	/**
+	 * Returns the endpoint of a request, the path elements after the first
+	 * one being ids except for the deploy action
+	 *
+	 * @param method
+	 * @param paths
+	 * @return
+	 */
+	static String endpointOf(String method, String... paths) {
+		StringBuilder endpoint = new StringBuilder(method).append(' ');
+		for (int i = 0; i < paths.length; i++) {
+			endpoint.append('/').append(i == 0 || "deploy".equals(paths[i]) ? paths[i] : "{id}");
+		}
+		return endpoint.toString();
+	}
+
+	/**
+	 * Records a request
+	 *
+	 * @param endpoint
+	 *            See {@link #endpointOf(String, String...)}
+	 * @param nanos
+	 *            Time from the sending of the request to the end of the
+	 *            reading of its response
+	 * @param responseBytes
+	 * @param error
+	 *            True if the request failed or got an error status
+	 */
+	public void recordRequest(String endpoint, long nanos, long responseBytes, boolean error) {
+		EndpointMetrics endpointMetrics = endpoints.get(endpoint);
+		if (endpointMetrics == null) {
+			EndpointMetrics newEndpointMetrics = new EndpointMetrics();
+			endpointMetrics = endpoints.putIfAbsent(endpoint, newEndpointMetrics);
+			if (endpointMetrics == null) {
+				endpointMetrics = newEndpointMetrics;
+			}
+		}
+		endpointMetrics.record(nanos, responseBytes, error);
+	}
+
+	/**
+	 * Records the sending of an archive, in addition to its request
+	 *
+	 * @param bytes
+	 * @param nanos
+	 */
+	public void recordUpload(long bytes, long nanos) {
+		uploads.incrementAndGet();
+		uploadBytes.addAndGet(bytes);
+		uploadNanos.addAndGet(nanos);
+	}
+
+	/**
+	 * @return Metrics by endpoint, sorted by endpoint
+	 */
+	public Map<String, EndpointMetrics> getEndpoints() {
+		return new TreeMap<String, EndpointMetrics>(endpoints);
+	}
+
+	public long getUploadBytes() {
+		return uploadBytes.get();
+	}
+
+	/**
+	 * @return Average upload throughput in MB/s, 0 if nothing was uploaded
+	 */
+	public double getUploadMBPerSecond() {
+		long nanos = uploadNanos.get();
+		return nanos == 0 ? 0 : uploadBytes.get() / (1024.0 * 1024.0) / (nanos / 1e9);
+	}
+
+	/**
+	 * Counts the bytes read through it, read by a single thread
+	 */
+	static class CountingInputStream extends FilterInputStream {
+		private long count;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		long getCount() {
+			return count;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b != -1) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int read = super.read(buffer, offset, length);
+			if (read > 0) {
+				count += read;
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+	}
+
+	/**
+	 * Writes the metrics as a JSON document
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void writeJson(File file) throws IOException {
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+			throw new IOException("Unable to create directory \"" + parent + "\"");
+		}
+
+		OutputStream outputStream = new FileOutputStream(file);
+		try {
+			JsonGenerator generator = MmcJson.JSON_FACTORY.createJsonGenerator(outputStream, JsonEncoding.UTF8);
+			generator.useDefaultPrettyPrinter();
+			_writeJson(generator);
+			generator.close();
+		} finally {
+			outputStream.close();
+		}
+	}
+
+	private void _writeJson(JsonGenerator generator) throws IOException {
+		generator.writeStartObject();
+		generator.writeNumberField("startTime", startTime);
+		generator.writeNumberField("durationMs", System.currentTimeMillis() - startTime);
+
+		generator.writeObjectFieldStart("endpoints");
+		for (Map.Entry<String, EndpointMetrics> entry : getEndpoints().entrySet()) {
+			EndpointMetrics endpointMetrics = entry.getValue();
+			generator.writeObjectFieldStart(entry.getKey());
+			generator.writeNumberField("requests", endpointMetrics.getRequests());
+			generator.writeNumberField("errors", endpointMetrics.getErrors());
+			generator.writeNumberField("responseBytes", endpointMetrics.getResponseBytes());
+			generator.writeNumberField("meanMs", endpointMetrics.getMeanMs());
+			generator.writeNumberField("maxMs", endpointMetrics.getMaxMs());
+			generator.writeNumberField("p50Ms", endpointMetrics.getPercentileMs(50));
+			generator.writeNumberField("p90Ms", endpointMetrics.getPercentileMs(90));
+			generator.writeNumberField("p99Ms", endpointMetrics.getPercentileMs(99));
+
+			// non empty buckets only, keyed by their upper bound
+			generator.writeObjectFieldStart("histogramMs");
+			for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+				long count = endpointMetrics.getBucketCount(i);
+				if (count > 0) {
+					generator.writeNumberField((i == HISTOGRAM_BUCKETS - 1 ? ">=" + bucketUpperBoundMs(i - 1) : "<" + bucketUpperBoundMs(i)), count);
+				}
+			}
+			generator.writeEndObject();
+
+			generator.writeEndObject();
+		}
+		generator.writeEndObject();
+
+		generator.writeObjectFieldStart("uploads");
+		generator.writeNumberField("count", uploads.get());
+		generator.writeNumberField("bytes", uploadBytes.get());
+		generator.writeNumberField("durationMs", TimeUnit.NANOSECONDS.toMillis(uploadNanos.get()));
+		generator.writeNumberField("mbPerSecond", getUploadMBPerSecond());
+		generator.writeEndObject();
+
+		generator.writeEndObject();
+	}
+}
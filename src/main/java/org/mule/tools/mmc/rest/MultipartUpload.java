@@ -0,0 +1,262 @@
+package org.mule.tools.mmc.rest;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.cxf.common.util.Base64Utility;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * multipart/form-data POST streaming a file with a known Content-Length.
+ *
+ * The file is copied through a single heap buffer, so the heap used does not
+ * depend on the size of the file, and nothing is buffered by the HTTP stack
+ * since the length of the whole body is announced up front. The connection
+ * only offers an OutputStream, which takes a byte array: reading the file
+ * straight into that array is the copy with the fewest steps, a direct
+ * buffer or a channel wrapping the stream would only add a copy to a heap
+ * array of their own. The content may also be given as a buffer, e.g. a
+ * mapping of the file shared by several uploads.
+ */
+final class MultipartUpload {
+	private static final Logger _logger = LoggerFactory.getLogger(MultipartUpload.class);
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final String CRLF = "\r\n";
+
+	static final int BUFFER_SIZE = 256 * 1024;
+	static final long PROGRESS_LOG_INTERVAL_MS = 2000;
+	static final int CONNECT_TIMEOUT_MS = 30000;
+	static final int READ_TIMEOUT_MS = 300000;
+
+	private final URL url;
+	private final String authorization;
+	private final String boundary = "MuleRestBoundary" + UUID.randomUUID().toString().replace("-", "");
+	private final List<String[]> fields = new ArrayList<String[]>();
+
+	private String fileFieldName;
+	private File file;
+	private ByteBuffer content;
+
+	/**
+	 * Constructor
+	 *
+	 * @param url
+	 *            URL to post to
+	 * @param username
+	 * @param password
+	 */
+	MultipartUpload(URL url, String username, String password) {
+		this.url = url;
+		this.authorization = "Basic " + Base64Utility.encode((username + ":" + password).getBytes(UTF_8));
+	}
+
+	/**
+	 * Adds a text part
+	 *
+	 * @param name
+	 * @param value
+	 * @return
+	 */
+	MultipartUpload field(String name, String value) {
+		fields.add(new String[] { name, value });
+		return this;
+	}
+
+	/**
+	 * Sets the file part, sent before the text parts
+	 *
+	 * @param name
+	 * @param file
+	 * @return
+	 */
+	MultipartUpload file(String name, File file) {
+		return file(name, file, null);
+	}
+
+	/**
+	 * Sets the file part, sent before the text parts
+	 *
+	 * @param name
+	 * @param file
+	 *            The file, named in the part
+	 * @param content
+	 *            If not null, the content of the file, sent from its
+	 *            position to its limit instead of reading the file
+	 * @return
+	 */
+	MultipartUpload file(String name, File file, ByteBuffer content) {
+		this.fileFieldName = name;
+		this.file = file;
+		this.content = content;
+		return this;
+	}
+
+	/**
+	 * Sends the request and returns the connection, ready for its response to
+	 * be read
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	HttpURLConnection send() throws IOException {
+		byte[] fileHeader = _partHeader("application/octet-stream", fileFieldName, "form-data; name=\"" + fileFieldName + "\"; filename=\"" + file.getName() + "\"");
+		List<byte[]> textParts = new ArrayList<byte[]>();
+		for (String[] field : fields) {
+			byte[] header = _partHeader("text/plain", field[0], "form-data; name=\"" + field[0] + "\"");
+			textParts.add(_concat(header, (field[1] + CRLF).getBytes(UTF_8)));
+		}
+		byte[] crlf = CRLF.getBytes(UTF_8);
+		byte[] trailer = ("--" + boundary + "--" + CRLF).getBytes(UTF_8);
+
+		long fileLength = content != null ? content.remaining() : file.length();
+		long contentLength = fileHeader.length + fileLength + crlf.length + trailer.length;
+		for (byte[] textPart : textParts) {
+			contentLength += textPart.length;
+		}
+
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		connection.setUseCaches(false);
+		connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+		connection.setReadTimeout(READ_TIMEOUT_MS);
+		connection.setFixedLengthStreamingMode(contentLength);
+		connection.setRequestProperty("Authorization", authorization);
+		connection.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + boundary);
+		connection.setRequestProperty("Accept", "application/json");
+
+		OutputStream outputStream = connection.getOutputStream();
+		boolean sent = false;
+		try {
+			outputStream.write(fileHeader);
+			if (content != null) {
+				_copyContent(outputStream, fileLength);
+			} else {
+				_copyFile(outputStream, fileLength);
+			}
+			outputStream.write(crlf);
+			for (byte[] textPart : textParts) {
+				outputStream.write(textPart);
+			}
+			outputStream.write(trailer);
+			sent = true;
+		} finally {
+			if (sent) {
+				outputStream.close();
+			} else {
+				// closing an incomplete fixed length body fails too, the first failure is the one reported
+				try {
+					outputStream.close();
+				} catch (IOException e) {
+					_logger.debug("Ignoring the failure to close an incomplete upload: " + e.getMessage());
+				}
+				connection.disconnect();
+			}
+		}
+		return connection;
+	}
+
+	private void _copyFile(OutputStream outputStream, long fileLength) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+
+		long startTime = System.currentTimeMillis();
+		long lastLogTime = startTime;
+		long written = 0;
+
+		try (InputStream inputStream = new FileInputStream(file)) {
+			// never more than announced, the connection would reject the extra bytes
+			int read;
+			while (written < fileLength && (read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, fileLength - written))) != -1) {
+				outputStream.write(buffer, 0, read);
+				written += read;
+
+				lastLogTime = _logProgress(startTime, lastLogTime, written, fileLength);
+			}
+			if (written == fileLength && inputStream.read() != -1) {
+				throw new IOException("File \"" + file.getAbsolutePath() + "\" changed during upload, expected " + fileLength + " bytes but it grew");
+			}
+		}
+
+		if (written != fileLength) {
+			throw new IOException("File \"" + file.getAbsolutePath() + "\" changed during upload, expected " + fileLength + " bytes but sent " + written);
+		}
+		_logUploaded(startTime, written);
+	}
+
+	private void _copyContent(OutputStream outputStream, long fileLength) throws IOException {
+		ByteBuffer source = content.duplicate();
+		byte[] buffer = source.hasArray() ? null : new byte[(int) Math.min(BUFFER_SIZE, fileLength)];
+
+		long startTime = System.currentTimeMillis();
+		long lastLogTime = startTime;
+		long written = 0;
+
+		while (source.hasRemaining()) {
+			// bounded writes, for the progress to be logged on large archives
+			int length = Math.min(source.remaining(), BUFFER_SIZE);
+			if (buffer == null) {
+				outputStream.write(source.array(), source.arrayOffset() + source.position(), length);
+				source.position(source.position() + length);
+			} else {
+				source.get(buffer, 0, length);
+				outputStream.write(buffer, 0, length);
+			}
+			written += length;
+
+			lastLogTime = _logProgress(startTime, lastLogTime, written, fileLength);
+		}
+		_logUploaded(startTime, written);
+	}
+
+	private long _logProgress(long startTime, long lastLogTime, long written, long fileLength) {
+		long now = System.currentTimeMillis();
+		if (now - lastLogTime < PROGRESS_LOG_INTERVAL_MS) {
+			return lastLogTime;
+		}
+		_logger.info(String.format("Uploading \"%s\": %.1f/%.1f MB (%d%%) at %.2f MB/s", file.getName(), _toMB(written), _toMB(fileLength), fileLength == 0 ? 100 : written * 100 / fileLength, _toMBPerSecond(written, now - startTime)));
+		return now;
+	}
+
+	private void _logUploaded(long startTime, long written) {
+		long elapsedMs = System.currentTimeMillis() - startTime;
+		_logger.info(String.format("Uploaded \"%s\": %.1f MB in %d ms (%.2f MB/s)", file.getName(), _toMB(written), elapsedMs, _toMBPerSecond(written, elapsedMs)));
+	}
+
+	private byte[] _partHeader(String contentType, String contentId, String contentDisposition) {
+		StringBuilder header = new StringBuilder();
+		header.append("--").append(boundary).append(CRLF);
+		header.append("Content-Type: ").append(contentType).append(CRLF);
+		header.append("Content-Transfer-Encoding: binary").append(CRLF);
+		header.append("Content-ID: <").append(contentId).append(">").append(CRLF);
+		header.append("Content-Disposition: ").append(contentDisposition).append(CRLF);
+		header.append(CRLF);
+		return header.toString().getBytes(UTF_8);
+	}
+
+	private static byte[] _concat(byte[] first, byte[] second) {
+		byte[] result = new byte[first.length + second.length];
+		System.arraycopy(first, 0, result, 0, first.length);
+		System.arraycopy(second, 0, result, first.length, second.length);
+		return result;
+	}
+
+	private static double _toMB(long bytes) {
+		return bytes / (1024.0 * 1024.0);
+	}
+
+	private static double _toMBPerSecond(long bytes, long elapsedMs) {
+		return elapsedMs <= 0 ? 0 : _toMB(bytes) * 1000.0 / elapsedMs;
+	}
+}
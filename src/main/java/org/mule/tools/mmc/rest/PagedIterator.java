@@ -0,0 +1,253 @@
+package org.mule.tools.mmc.rest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Lazy iterator over an MMC listing read page by page. A page is only
+ * downloaded when the elements of the previous one have all been consumed,
+ * and optionally prefetched in the background while they are, so a lookup
+ * stopping at its first match, see {@link #find(Filter)}, downloads only the
+ * pages up to that match.
+ *
+ * The end of the listing is detected from the page sizes and the "total"
+ * field of the listing. A console ignoring the paging parameters returns the
+ * whole listing in the first page, which is then the only one read: a page
+ * larger than the page size, or a page starting with the first element of the
+ * listing again, ends the iteration.
+ *
+ * The iterator is not thread-safe. A failed page download is thrown by
+ * {@link #hasNext()} and {@link #next()} as a {@link PageException}.
+ */
+public class PagedIterator<T> implements Iterator<T>, Closeable {
+
+	/**
+	 * Downloads one page of a listing
+	 */
+	public interface PageFetcher<T> {
+		/**
+		 * @param offset
+		 *            Index of the first element of the page in the listing
+		 * @param limit
+		 *            Maximum number of elements of the page, 0 or less to ask
+		 *            for the whole listing
+		 * @return
+		 * @throws IOException
+		 */
+		Page<T> fetch(int offset, int limit) throws IOException;
+	}
+
+	/**
+	 * Tells whether an element is the one looked for
+	 */
+	public interface Filter<T> {
+		boolean accept(T element);
+	}
+
+	/**
+	 * Elements of one page and total number of elements of the listing
+	 */
+	public static class Page<T> {
+		public final List<T> elements;
+		/**
+		 * Total number of elements of the listing, -1 if unknown
+		 */
+		public final long total;
+
+		/**
+		 * Constructor
+		 *
+		 * @param elements
+		 * @param total
+		 *            Total number of elements of the listing, -1 if unknown
+		 */
+		public Page(List<T> elements, long total) {
+			this.elements = Collections.unmodifiableList(elements);
+			this.total = total;
+		}
+	}
+
+	/**
+	 * Failure to download a page, thrown by the {@link Iterator} methods
+	 */
+	public static class PageException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		PageException(IOException cause) {
+			super(cause.getMessage(), cause);
+		}
+
+		@Override
+		public synchronized IOException getCause() {
+			return (IOException) super.getCause();
+		}
+	}
+
+	private final PageFetcher<T> fetcher;
+	private final int pageSize;
+	private final ExecutorService prefetchExecutor;
+
+	private List<T> elements = Collections.emptyList();
+	private int index;
+	private int nextOffset;
+	private boolean lastPage;
+	private boolean closed;
+	private Object[] firstElement;
+	private Future<Page<T>> prefetchedPage;
+	private int pageCount;
+
+	/**
+	 * Constructor, no page is downloaded before the first call
+	 *
+	 * @param fetcher
+	 * @param pageSize
+	 *            Number of elements asked per page, 0 or less to read the
+	 *            listing in a single request
+	 * @param prefetchExecutor
+	 *            Executor downloading the next page while the current one is
+	 *            consumed, null to download each page when needed
+	 */
+	public PagedIterator(PageFetcher<T> fetcher, int pageSize, ExecutorService prefetchExecutor) {
+		this.fetcher = fetcher;
+		this.pageSize = pageSize;
+		this.prefetchExecutor = prefetchExecutor;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (index >= elements.size()) {
+			if (lastPage || closed) {
+				return false;
+			}
+			_loadNextPage();
+		}
+		return true;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return elements.get(index++);
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("MMC listings are read only");
+	}
+
+	/**
+	 * Returns the first remaining element accepted by the filter, downloading
+	 * no page after the one holding it, and closes the iterator
+	 *
+	 * @param filter
+	 * @return The element or null if none is accepted
+	 * @throws IOException
+	 */
+	public T find(Filter<T> filter) throws IOException {
+		try {
+			while (hasNext()) {
+				T element = next();
+				if (filter.accept(element)) {
+					return element;
+				}
+			}
+			return null;
+		} catch (PageException e) {
+			throw e.getCause();
+		} finally {
+			close();
+		}
+	}
+
+	/**
+	 * @return Number of pages downloaded so far, the prefetched one excluded
+	 */
+	public int getPageCount() {
+		return pageCount;
+	}
+
+	/**
+	 * Stops the iteration, cancelling the download of a prefetched page
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		if (prefetchedPage != null) {
+			prefetchedPage.cancel(true);
+			prefetchedPage = null;
+		}
+	}
+
+	private void _loadNextPage() {
+		int offset = nextOffset;
+		Page<T> page;
+		if (prefetchedPage != null) {
+			page = _await(prefetchedPage);
+			prefetchedPage = null;
+		} else {
+			page = _fetch(offset);
+		}
+		pageCount++;
+
+		List<T> pageElements = page.elements;
+		if (offset > 0 && !pageElements.isEmpty() && Arrays.deepEquals(new Object[] { pageElements.get(0) }, firstElement)) {
+			// the console ignored the offset and sent the first page again
+			elements = Collections.emptyList();
+			index = 0;
+			lastPage = true;
+			return;
+		}
+		if (offset == 0 && !pageElements.isEmpty()) {
+			firstElement = new Object[] { pageElements.get(0) };
+		}
+
+		elements = pageElements;
+		index = 0;
+		nextOffset = offset + pageElements.size();
+		// a shorter page is the last one, a longer one is the whole listing
+		lastPage = pageSize <= 0 || pageElements.size() != pageSize || (page.total >= 0 && nextOffset >= page.total);
+		if (!lastPage && prefetchExecutor != null) {
+			final int prefetchOffset = nextOffset;
+			prefetchedPage = prefetchExecutor.submit(new Callable<Page<T>>() {
+				@Override
+				public Page<T> call() throws IOException {
+					return fetcher.fetch(prefetchOffset, pageSize);
+				}
+			});
+		}
+	}
+
+	private Page<T> _fetch(int offset) {
+		try {
+			return fetcher.fetch(offset, pageSize);
+		} catch (IOException e) {
+			throw new PageException(e);
+		}
+	}
+
+	private Page<T> _await(Future<Page<T>> future) {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw new PageException((IOException) e.getCause());
+			}
+			throw new IllegalStateException("Unexpected error while prefetching an MMC page", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new PageException(new InterruptedIOException("Interrupted while waiting for an MMC page"));
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package org.mule.tools.mmc.rest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * On-disk cache of the ids the MMC gives to server groups, servers,
+ * deployments and application versions, keyed by MMC URL and name, so that
+ * the next Maven invocation against the same console does not download the
+ * listings again to resolve them.
+ *
+ * The cache is only a hint: an id read from it is dropped as soon as the MMC
+ * answers 404 for it, or when it is older than the maximum age, and the name
+ * is then resolved again from the listings. The file is a plain properties
+ * file, each value being the id and the time it was stored, into which the
+ * invocations sharing it merge their ids, see {@link SharedPropertiesFile}.
+ */
+public class PersistentIdCache {
+	public static final long DEFAULT_MAX_AGE_MS = 7L * 24 * 60 * 60 * 1000;
+
+	/**
+	 * Kind of the cached ids
+	 */
+	public enum Kind {
+		GROUP, SERVER, DEPLOYMENT, VERSION
+	}
+
+	private static final char TIME_SEPARATOR = '|';
+
+	private final long maxAgeMs;
+	private final SharedPropertiesFile entries;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong invalidations = new AtomicLong();
+
+	/**
+	 * Loads the cache from the given file, or starts an empty one if the file
+	 * does not exist or cannot be read
+	 *
+	 * @param file
+	 * @param maxAgeMs
+	 *            Age after which a cached id is no longer used
+	 */
+	public PersistentIdCache(File file, long maxAgeMs) {
+		this.maxAgeMs = maxAgeMs;
+		this.entries = new SharedPropertiesFile(file, "id cache", "Ids of the MMC groups, servers, deployments and application versions (MMC URL, kind and name to id and storage time)");
+	}
+
+	/**
+	 * Returns a cached id, or null if unknown or too old
+	 *
+	 * @param mmcUrl
+	 * @param kind
+	 * @param name
+	 *            Name of the group, server or deployment, or application name
+	 *            and version, see {@link #versionName(String, String)}
+	 * @return
+	 */
+	public synchronized String get(String mmcUrl, Kind kind, String name) {
+		String key = _key(mmcUrl, kind, name);
+		String value = entries.get(key);
+		int separator = value == null ? -1 : value.lastIndexOf(TIME_SEPARATOR);
+		if (separator <= 0) {
+			misses.incrementAndGet();
+			return null;
+		}
+
+		long storedAt;
+		try {
+			storedAt = Long.parseLong(value.substring(separator + 1));
+		} catch (NumberFormatException e) {
+			storedAt = 0;
+		}
+		if (System.currentTimeMillis() - storedAt > maxAgeMs) {
+			entries.remove(key);
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return value.substring(0, separator);
+	}
+
+	/**
+	 * Stores an id
+	 *
+	 * @param mmcUrl
+	 * @param kind
+	 * @param name
+	 * @param id
+	 */
+	public synchronized void put(String mmcUrl, Kind kind, String name, String id) {
+		if (name == null || id == null) {
+			return;
+		}
+		entries.put(_key(mmcUrl, kind, name), id + TIME_SEPARATOR + System.currentTimeMillis());
+	}
+
+	/**
+	 * Forgets the id of a name, typically because the MMC no longer knows it
+	 *
+	 * @param mmcUrl
+	 * @param kind
+	 * @param name
+	 */
+	public synchronized void remove(String mmcUrl, Kind kind, String name) {
+		if (entries.remove(_key(mmcUrl, kind, name))) {
+			invalidations.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Forgets all the names having the given id
+	 *
+	 * @param mmcUrl
+	 * @param kind
+	 * @param id
+	 */
+	public synchronized void removeId(String mmcUrl, Kind kind, String id) {
+		String prefix = _key(mmcUrl, kind, "");
+		String idPrefix = id + TIME_SEPARATOR;
+		for (String key : entries.keys()) {
+			String value = entries.get(key);
+			if (key.startsWith(prefix) && value != null && value.startsWith(idPrefix) && entries.remove(key)) {
+				invalidations.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * @return Number of lookups answered from the cache
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return Number of lookups the cache could not answer
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * @return Number of ids dropped because the MMC no longer knows them
+	 */
+	public long getInvalidations() {
+		return invalidations.get();
+	}
+
+	/**
+	 * Writes the cache if it was modified, merging the ids stored here with
+	 * those written to the file by other invocations since it was loaded
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void save() throws IOException {
+		entries.save();
+	}
+
+	/**
+	 * @param applicationName
+	 * @param version
+	 * @return The name under which the id of an application version is cached
+	 */
+	public static String versionName(String applicationName, String version) {
+		return applicationName + "#" + version;
+	}
+
+	private static String _key(String mmcUrl, Kind kind, String name) {
+		return mmcUrl + "#" + kind.name().toLowerCase() + "#" + name;
+	}
+}
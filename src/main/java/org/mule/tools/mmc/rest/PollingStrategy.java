@@ -0,0 +1,17 @@
+package org.mule.tools.mmc.rest;
+
+/**
+ * Decides how long to wait between two polls of the MMC
+ */
+public interface PollingStrategy {
+
+	/**
+	 * Returns the time to wait before the next poll
+	 * 
+	 * @param pollCount
+	 *            Number of polls already issued for the awaited deployment,
+	 *            at least 1
+	 * @return Delay in milliseconds
+	 */
+	long nextDelayMs(int pollCount);
+}
@@ -0,0 +1,142 @@
+package org.mule.tools.mmc.rest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index of the application versions stored in the MMC repository, built once
+ * from a /repository listing and kept up to date by the uploads and deletes
+ * done through {@link MuleRest}.
+ *
+ * Application names are interned: the name of an application is held once by
+ * its {@link Application} entry, whatever the number of its versions, and the
+ * versions only hold their own name and id. A repository with tens of
+ * thousands of versions then costs two map entries and a small
+ * {@link Version} per version, without any JSON node kept alive.
+ */
+public class RepositoryIndex {
+
+	private final Map<String, Application> applicationsByName;
+	private final Map<String, Version> versionsById;
+
+	public RepositoryIndex() {
+		this(16);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param expectedVersions
+	 *            Number of versions expected in the repository, used to size
+	 *            the maps
+	 */
+	public RepositoryIndex(int expectedVersions) {
+		this.applicationsByName = new HashMap<String, Application>();
+		this.versionsById = new HashMap<String, Version>(Math.max(16, (int) (expectedVersions / 0.75f) + 1));
+	}
+
+	/**
+	 * Returns the version id of the given application version or null if not
+	 * found
+	 *
+	 * @param appName
+	 * @param version
+	 * @return
+	 */
+	public synchronized String get(String appName, String version) {
+		Application application = applicationsByName.get(appName);
+		return application != null ? application.versionIdsByVersion.get(version) : null;
+	}
+
+	/**
+	 * Adds or replaces an application version
+	 *
+	 * @param appName
+	 * @param version
+	 * @param versionId
+	 */
+	public synchronized void put(String appName, String version, String versionId) {
+		Application application = applicationsByName.get(appName);
+		if (application == null) {
+			application = new Application(appName);
+			applicationsByName.put(appName, application);
+		}
+		String previousVersionId = application.versionIdsByVersion.put(version, versionId);
+		if (previousVersionId != null) {
+			versionsById.remove(previousVersionId);
+		}
+		if (versionId != null) {
+			versionsById.put(versionId, new Version(application, version));
+		}
+	}
+
+	/**
+	 * Removes the version having the given id
+	 *
+	 * @param versionId
+	 * @return true if the version was indexed
+	 */
+	public synchronized boolean removeById(String versionId) {
+		Version version = versionsById.remove(versionId);
+		if (version == null) {
+			return false;
+		}
+		Application application = version.application;
+		application.versionIdsByVersion.remove(version.name);
+		if (application.versionIdsByVersion.isEmpty()) {
+			applicationsByName.remove(application.name);
+		}
+		return true;
+	}
+
+	/**
+	 * @param versionId
+	 * @return true if a version with the given id is indexed
+	 */
+	public synchronized boolean containsVersionId(String versionId) {
+		return versionsById.containsKey(versionId);
+	}
+
+	/**
+	 * @return A new index holding the same versions
+	 */
+	public synchronized RepositoryIndex copy() {
+		RepositoryIndex copy = new RepositoryIndex(versionsById.size());
+		for (Application application : applicationsByName.values()) {
+			for (Map.Entry<String, String> versionId : application.versionIdsByVersion.entrySet()) {
+				copy.put(application.name, versionId.getKey(), versionId.getValue());
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * @return Number of indexed versions
+	 */
+	public synchronized int size() {
+		int size = 0;
+		for (Application application : applicationsByName.values()) {
+			size += application.versionIdsByVersion.size();
+		}
+		return size;
+	}
+
+	private static final class Application {
+		private final String name;
+		private final Map<String, String> versionIdsByVersion = new HashMap<String, String>(4);
+
+		private Application(String name) {
+			this.name = name;
+		}
+	}
+
+	private static final class Version {
+		private final Application application;
+		private final String name;
+
+		private Version(Application application, String name) {
+			this.application = application;
+			this.name = name;
+		}
+	}
+}
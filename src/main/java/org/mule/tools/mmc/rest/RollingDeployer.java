@@ -0,0 +1,189 @@
+package org.mule.tools.mmc.rest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Deploys an application to the servers of a group in waves instead of
+ * deploying it to the whole group at once.
+ *
+ * Each server of a wave gets its own deployment, named after the deployment
+ * and the server id, replacing the one of the previous rolling release. The
+ * next wave starts once all the deployments of the wave are DEPLOYED. The
+ * first failing wave stops the release, the servers of the following waves
+ * keeping the previous version.
+ *
+ * A deployment made to the whole group under the deployment name would keep
+ * targeting every server with its own version. The rolling deployment
+ * refuses to start over it unless told to replace it, it is then deleted
+ * once the last wave is DEPLOYED, leaving the servers to their own
+ * deployments.
+ */
+public class RollingDeployer {
+	private static final Logger _logger = LoggerFactory.getLogger(RollingDeployer.class);
+
+	private final MuleRest muleRest;
+	private final DeploymentWaiter deploymentWaiter;
+	private final long deploymentTimeoutMs;
+
+	/**
+	 * Constructor
+	 *
+	 * @param muleRest
+	 * @param deploymentWaiter
+	 *            Waiter of the deployments of each wave
+	 * @param deploymentTimeoutMs
+	 *            Maximum time to wait for the deployments of one wave
+	 */
+	public RollingDeployer(MuleRest muleRest, DeploymentWaiter deploymentWaiter, long deploymentTimeoutMs) {
+		this.muleRest = muleRest;
+		this.deploymentWaiter = deploymentWaiter;
+		this.deploymentTimeoutMs = deploymentTimeoutMs;
+	}
+
+	/**
+	 * Splits servers into waves
+	 *
+	 * @param serverIds
+	 *            Servers, in deployment order
+	 * @param waveSize
+	 *            Number of servers per wave, used if wavePercent is not
+	 *            positive
+	 * @param wavePercent
+	 *            Percentage of the servers per wave, rounded up
+	 * @return The waves, each holding at least one server
+	 */
+	public static List<List<String>> planWaves(Collection<String> serverIds, int waveSize, int wavePercent) {
+		int size = wavePercent > 0 ? (int) Math.ceil(serverIds.size() * Math.min(wavePercent, 100) / 100.0) : waveSize;
+		size = Math.max(1, size);
+
+		List<List<String>> waves = new ArrayList<List<String>>();
+		List<String> wave = null;
+		for (String serverId : serverIds) {
+			if (wave == null || wave.size() == size) {
+				wave = new ArrayList<String>(size);
+				waves.add(wave);
+			}
+			wave.add(serverId);
+		}
+		return waves;
+	}
+
+	/**
+	 * Returns the name of the deployment of a server
+	 *
+	 * @param deploymentName
+	 * @param serverId
+	 * @return
+	 */
+	public static String serverDeploymentName(String deploymentName, String serverId) {
+		return deploymentName + "-" + serverId;
+	}
+
+	/**
+	 * Deploys an application version to the servers of a group, wave after
+	 * wave
+	 *
+	 * @param serverGroupName
+	 * @param deploymentName
+	 * @param versionId
+	 *            Version id of the application on the repository
+	 * @param waveSize
+	 *            See {@link #planWaves(Collection, int, int)}
+	 * @param wavePercent
+	 *            See {@link #planWaves(Collection, int, int)}
+	 * @return Ids of the deployments, one per server, in deployment order
+	 * @throws IOException
+	 *             if a request fails or a deployment of a wave does not reach
+	 *             the DEPLOYED state
+	 * @throws IllegalArgumentException
+	 *             if the group has no server
+	 * @throws TimeoutException
+	 * @throws InterruptedException
+	 */
+	public List<String> deploy(String serverGroupName, String deploymentName, String versionId, int waveSize, int wavePercent) throws IOException, TimeoutException, InterruptedException {
+		return deploy(serverGroupName, deploymentName, versionId, waveSize, wavePercent, false);
+	}
+
+	/**
+	 * Same as {@link #deploy(String, String, String, int, int)}, replacing
+	 * the deployment previously made to the whole group if told to
+	 *
+	 * @param serverGroupName
+	 * @param deploymentName
+	 * @param versionId
+	 * @param waveSize
+	 * @param wavePercent
+	 * @param replaceGroupDeployment
+	 *            If true, the deployment named deploymentName is deleted once
+	 *            the last wave is DEPLOYED, otherwise its existence stops the
+	 *            rolling deployment before the first wave
+	 * @return Ids of the deployments, one per server, in deployment order
+	 * @throws IOException
+	 * @throws IllegalArgumentException
+	 *             if the group has no server
+	 * @throws IllegalStateException
+	 *             if a deployment named deploymentName exists and
+	 *             replaceGroupDeployment is false
+	 * @throws TimeoutException
+	 * @throws InterruptedException
+	 */
+	public List<String> deploy(String serverGroupName, String deploymentName, String versionId, int waveSize, int wavePercent, boolean replaceGroupDeployment) throws IOException, TimeoutException, InterruptedException {
+		Set<String> serverIds = muleRest.restfullyGetServerIdsInGroup(serverGroupName);
+		if (serverIds.isEmpty()) {
+			throw new IllegalArgumentException("No server found in group \"" + serverGroupName + "\"");
+		}
+
+		String groupDeploymentId = muleRest.restfullyGetDeploymentIdByName(deploymentName);
+		if (groupDeploymentId != null && !replaceGroupDeployment) {
+			throw new IllegalStateException("Deployment \"" + deploymentName + "\" already targets group \"" + serverGroupName + "\", its servers would be targeted by two deployments of the application, replace it to roll over it");
+		}
+
+		List<List<String>> waves = planWaves(serverIds, waveSize, wavePercent);
+		_logger.info("Rolling deployment of \"" + deploymentName + "\" to " + serverIds.size() + " servers of group \"" + serverGroupName + "\" in " + waves.size() + " waves");
+
+		List<String> deploymentIds = new ArrayList<String>(serverIds.size());
+		int deployedServers = 0;
+		for (int i = 0; i < waves.size(); i++) {
+			List<String> wave = waves.get(i);
+			long startTime = System.currentTimeMillis();
+
+			List<String> waveDeploymentIds = new ArrayList<String>(wave.size());
+			for (String serverId : wave) {
+				String serverDeploymentName = serverDeploymentName(deploymentName, serverId);
+				muleRest.restfullyDeleteDeployment(serverDeploymentName);
+				String deploymentId = muleRest.restfullyCreateDeploymentById(serverId, serverDeploymentName, versionId);
+				muleRest.restfullyDeployDeploymentById(deploymentId);
+				waveDeploymentIds.add(deploymentId);
+			}
+
+			// the deployments of a wave run together, the timeout applies to
+			// the wave as a whole
+			for (int j = 0; j < wave.size(); j++) {
+				long remainingMs = Math.max(0, deploymentTimeoutMs - (System.currentTimeMillis() - startTime));
+				DeploymentState deploymentState = deploymentWaiter.waitForDeployment(waveDeploymentIds.get(j), remainingMs);
+				if (deploymentState.status != DeploymentStatus.DEPLOYED) {
+					throw new IOException("Deployment \"" + waveDeploymentIds.get(j) + "\" on server \"" + wave.get(j) + "\" reached state " + deploymentState.status + " in wave " + (i + 1) + "/" + waves.size()
+							+ ", rolling deployment stopped after " + deployedServers + " of " + serverIds.size() + " servers");
+				}
+			}
+
+			deployedServers += wave.size();
+			deploymentIds.addAll(waveDeploymentIds);
+			_logger.info("Wave " + (i + 1) + "/" + waves.size() + " deployed to " + wave + " in " + (System.currentTimeMillis() - startTime) + " ms");
+		}
+
+		if (groupDeploymentId != null) {
+			muleRest.restfullyDeleteDeploymentById(groupDeploymentId);
+			_logger.info("Group deployment \"" + deploymentName + "\" (" + groupDeploymentId + ") deleted, replaced by the deployments of the " + serverIds.size() + " servers");
+		}
+		return deploymentIds;
+	}
+}
@@ -0,0 +1,204 @@
+package org.mule.tools.mmc.rest;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Properties file shared by the Maven invocations of a machine, typically
+ * under ~/.m2, which may run at the same time.
+ *
+ * The changes made since the file was read are kept apart and merged into
+ * its current content when saving: under an exclusive lock of a
+ * &lt;file&gt;.lock file, the file is read again, the changes applied, and
+ * the result written to a temporary file of the same directory atomically
+ * moved over the file. An entry removed here is only removed from the file
+ * if no other invocation changed it in the meantime.
+ */
+public class SharedPropertiesFile {
+	private static final Logger _logger = LoggerFactory.getLogger(SharedPropertiesFile.class);
+
+	// a FileLock is held by the JVM, threads of the same JVM are kept apart by a monitor per file
+	private static final ConcurrentMap<String, Object> JVM_LOCKS = new ConcurrentHashMap<String, Object>();
+
+	private final File file;
+	private final String description;
+	private final String comment;
+	private final Properties entries = new Properties();
+	private final Map<String, String> setEntries = new HashMap<String, String>();
+	private final Map<String, String> removedEntries = new HashMap<String, String>();
+
+	/**
+	 * Loads the file, or starts empty if the file does not exist or cannot be
+	 * read
+	 *
+	 * @param file
+	 * @param description
+	 *            Description of the file in the messages
+	 * @param comment
+	 *            Comment written at the top of the file
+	 */
+	public SharedPropertiesFile(File file, String description, String comment) {
+		this.file = file;
+		this.description = description;
+		this.comment = comment;
+		_read(entries);
+	}
+
+	/**
+	 * @return The file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * @param key
+	 * @return The value of the key, or null if unknown
+	 */
+	public synchronized String get(String key) {
+		return entries.getProperty(key);
+	}
+
+	/**
+	 * @return The keys, as a copy
+	 */
+	public synchronized Set<String> keys() {
+		return new HashSet<String>(entries.stringPropertyNames());
+	}
+
+	/**
+	 * Sets the value of a key
+	 *
+	 * @param key
+	 * @param value
+	 */
+	public synchronized void put(String key, String value) {
+		entries.setProperty(key, value);
+		setEntries.put(key, value);
+		removedEntries.remove(key);
+	}
+
+	/**
+	 * Removes a key
+	 *
+	 * @param key
+	 * @return true if the key was known
+	 */
+	public synchronized boolean remove(String key) {
+		String value = (String) entries.remove(key);
+		if (value == null) {
+			return false;
+		}
+		setEntries.remove(key);
+		removedEntries.put(key, value);
+		return true;
+	}
+
+	/**
+	 * @return true if entries were set or removed since the last save
+	 */
+	public synchronized boolean isModified() {
+		return !setEntries.isEmpty() || !removedEntries.isEmpty();
+	}
+
+	/**
+	 * Merges the changes into the current content of the file and writes it,
+	 * does nothing if there is no change. The entries written by the other
+	 * invocations are then visible here.
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void save() throws IOException {
+		if (!isModified()) {
+			return;
+		}
+		File directory = file.getAbsoluteFile().getParentFile();
+		if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Unable to create directory \"" + directory.getAbsolutePath() + "\"");
+		}
+
+		File lockFile = new File(directory, file.getName() + ".lock");
+		Object jvmLock = _getJvmLock(lockFile);
+		synchronized (jvmLock) {
+			try (RandomAccessFile lockAccess = new RandomAccessFile(lockFile, "rw"); FileChannel lockChannel = lockAccess.getChannel(); FileLock lock = lockChannel.lock()) {
+				Properties merged = new Properties();
+				_read(merged);
+				for (Map.Entry<String, String> removedEntry : removedEntries.entrySet()) {
+					if (removedEntry.getValue().equals(merged.getProperty(removedEntry.getKey()))) {
+						merged.remove(removedEntry.getKey());
+					}
+				}
+				merged.putAll(setEntries);
+
+				_write(merged, directory);
+
+				entries.clear();
+				entries.putAll(merged);
+				setEntries.clear();
+				removedEntries.clear();
+			}
+		}
+	}
+
+	private void _read(Properties properties) {
+		if (!file.isFile()) {
+			return;
+		}
+		try (InputStream inputStream = new FileInputStream(file)) {
+			properties.load(inputStream);
+		} catch (IOException e) {
+			_logger.warn("Ignoring unreadable " + description + " \"" + file.getAbsolutePath() + "\": " + e.getMessage());
+			properties.clear();
+		}
+	}
+
+	private void _write(Properties properties, File directory) throws IOException {
+		File temporaryFile = File.createTempFile(file.getName() + ".", ".tmp", directory);
+		try {
+			try (OutputStream outputStream = new FileOutputStream(temporaryFile)) {
+				properties.store(outputStream, comment);
+			}
+			try {
+				Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			temporaryFile.delete();
+			throw new IOException("Unable to write " + description + " \"" + file.getAbsolutePath() + "\"", e);
+		}
+	}
+
+	private static Object _getJvmLock(File lockFile) throws IOException {
+		String path = lockFile.getCanonicalPath();
+		Object lock = JVM_LOCKS.get(path);
+		if (lock == null) {
+			Object newLock = new Object();
+			lock = JVM_LOCKS.putIfAbsent(path, newLock);
+			if (lock == null) {
+				lock = newLock;
+			}
+		}
+		return lock;
+	}
+}
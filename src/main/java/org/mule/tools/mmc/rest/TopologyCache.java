@@ -0,0 +1,111 @@
+package org.mule.tools.mmc.rest;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-process cache of the MMC topology: server and server group name to id
+ * maps, and the ids of the servers belonging to each group.
+ *
+ * Each listing is kept for the configured time to live, after which the next
+ * lookup downloads it again. A time to live of 0 or less disables the cache.
+ */
+public class TopologyCache {
+
+	public static final long DEFAULT_TTL_MS = 60000;
+
+	private final long ttlMs;
+
+	private Map<String, String> serverIdsByName;
+	private Map<String, Set<String>> serverIdsByGroupName;
+	private long serversLoadedAt;
+
+	private Map<String, String> groupIdsByName;
+	private long groupsLoadedAt;
+
+	/**
+	 * Constructor
+	 *
+	 * @param ttlMs
+	 *            Time to live of the cached listings, 0 or less to disable the
+	 *            cache
+	 */
+	public TopologyCache(long ttlMs) {
+		this.ttlMs = ttlMs;
+	}
+
+	public long getTtlMs() {
+		return ttlMs;
+	}
+
+	public boolean isEnabled() {
+		return ttlMs > 0;
+	}
+
+	/**
+	 * @return The server name to id map, or null if not loaded or expired
+	 */
+	public synchronized Map<String, String> getServerIdsByName() {
+		return _isFresh(serversLoadedAt) ? serverIdsByName : null;
+	}
+
+	/**
+	 * @return The group name to server ids map, or null if not loaded or
+	 *         expired
+	 */
+	public synchronized Map<String, Set<String>> getServerIdsByGroupName() {
+		return _isFresh(serversLoadedAt) ? serverIdsByGroupName : null;
+	}
+
+	/**
+	 * @return The server group name to id map, or null if not loaded or
+	 *         expired
+	 */
+	public synchronized Map<String, String> getGroupIdsByName() {
+		return _isFresh(groupsLoadedAt) ? groupIdsByName : null;
+	}
+
+	/**
+	 * Stores the maps built from the /servers listing
+	 *
+	 * @param serverIdsByName
+	 * @param serverIdsByGroupName
+	 */
+	public synchronized void putServers(Map<String, String> serverIdsByName, Map<String, Set<String>> serverIdsByGroupName) {
+		if (!isEnabled()) {
+			return;
+		}
+		this.serverIdsByName = Collections.unmodifiableMap(serverIdsByName);
+		this.serverIdsByGroupName = Collections.unmodifiableMap(serverIdsByGroupName);
+		this.serversLoadedAt = System.currentTimeMillis();
+	}
+
+	/**
+	 * Stores the map built from the /serverGroups listing
+	 *
+	 * @param groupIdsByName
+	 */
+	public synchronized void putGroups(Map<String, String> groupIdsByName) {
+		if (!isEnabled()) {
+			return;
+		}
+		this.groupIdsByName = Collections.unmodifiableMap(groupIdsByName);
+		this.groupsLoadedAt = System.currentTimeMillis();
+	}
+
+	/**
+	 * Forgets all the cached listings
+	 */
+	public synchronized void invalidate() {
+		serverIdsByName = null;
+		serverIdsByGroupName = null;
+		serversLoadedAt = 0;
+		groupIdsByName = null;
+		groupsLoadedAt = 0;
+	}
+
+	private boolean _isFresh(long loadedAt) {
+		return isEnabled() && loadedAt > 0 && System.currentTimeMillis() - loadedAt < ttlMs;
+	}
+}
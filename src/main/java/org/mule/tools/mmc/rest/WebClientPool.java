@@ -0,0 +1,192 @@
+package org.mule.tools.mmc.rest;
+
+import java.net.URL;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transports.http.configuration.ConnectionType;
+import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool of keep-alive {@link WebClient}s sharing the same MMC base
+ * address and credentials.
+ *
+ * A {@link WebClient} is not thread-safe, so each one is lent to a single
+ * caller at a time and reset to the base address when it is given back. Once
+ * created, a client keeps its conduit (and therefore its keep-alive socket)
+ * for as long as it stays in the pool, saving the conduit setup and the
+ * TCP/TLS handshake on every call.
+ */
+public class WebClientPool {
+	private static final Logger _logger = LoggerFactory.getLogger(WebClientPool.class);
+
+	public static final int DEFAULT_MAX_CONNECTIONS = 4;
+	public static final long DEFAULT_IDLE_TIMEOUT_MS = 30000;
+
+	private final URL mmcUrl;
+	private final String username;
+	private final String password;
+	private final long idleTimeoutMs;
+
+	private final Semaphore permits;
+	private final LinkedBlockingDeque<PooledClient> idleClients = new LinkedBlockingDeque<PooledClient>();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	private volatile boolean closed;
+
+	private static class PooledClient {
+		final WebClient webClient;
+		long releasedAt;
+
+		PooledClient(WebClient webClient) {
+			this.webClient = webClient;
+		}
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param mmcUrl
+	 * @param username
+	 * @param password
+	 * @param maxConnections
+	 *            Maximum number of clients lent at the same time
+	 * @param idleTimeoutMs
+	 *            Time after which an unused client is closed instead of being
+	 *            reused
+	 */
+	public WebClientPool(URL mmcUrl, String username, String password, int maxConnections, long idleTimeoutMs) {
+		if (maxConnections <= 0) {
+			throw new IllegalArgumentException("maxConnections must be greater than 0");
+		}
+		this.mmcUrl = mmcUrl;
+		this.username = username;
+		this.password = password;
+		this.idleTimeoutMs = idleTimeoutMs;
+		this.permits = new Semaphore(maxConnections, true);
+	}
+
+	/**
+	 * Lends a client positioned on the base address followed by the given
+	 * paths. Blocks while all the clients are lent. The client must be given
+	 * back with {@link #release(WebClient)}.
+	 *
+	 * @param paths
+	 * @return
+	 */
+	public WebClient borrow(String... paths) {
+		if (closed) {
+			throw new IllegalStateException("The MMC client pool is closed");
+		}
+		permits.acquireUninterruptibly();
+
+		WebClient webClient = null;
+		try {
+			webClient = _pollIdleClient();
+			if (webClient == null) {
+				misses.incrementAndGet();
+				webClient = _createWebClient();
+			} else {
+				hits.incrementAndGet();
+			}
+		} catch (RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+
+		for (String path : paths) {
+			webClient.path(path);
+		}
+		return webClient;
+	}
+
+	/**
+	 * Gives back a client lent by {@link #borrow(String...)}
+	 *
+	 * @param webClient
+	 */
+	public void release(WebClient webClient) {
+		try {
+			if (closed) {
+				webClient.close();
+				return;
+			}
+			webClient.reset();
+			PooledClient pooledClient = new PooledClient(webClient);
+			pooledClient.releasedAt = System.currentTimeMillis();
+			idleClients.offerFirst(pooledClient);
+		} finally {
+			permits.release();
+		}
+	}
+
+	/**
+	 * Closes the idle clients. Clients still lent are closed when given back.
+	 */
+	public void close() {
+		closed = true;
+		PooledClient pooledClient;
+		while ((pooledClient = idleClients.pollFirst()) != null) {
+			pooledClient.webClient.close();
+		}
+	}
+
+	/**
+	 * @return Number of calls served by an already opened client
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return Number of calls that had to open a new client
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * @return Number of clients closed because they stayed idle too long
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	private WebClient _pollIdleClient() {
+		long now = System.currentTimeMillis();
+		PooledClient pooledClient;
+		// most recently used first, its keep-alive socket is the most likely to be still open
+		while ((pooledClient = idleClients.pollFirst()) != null) {
+			if (idleTimeoutMs > 0 && now - pooledClient.releasedAt > idleTimeoutMs) {
+				evictions.incrementAndGet();
+				pooledClient.webClient.close();
+				continue;
+			}
+			return pooledClient.webClient;
+		}
+		return null;
+	}
+
+	private WebClient _createWebClient() {
+		WebClient webClient = WebClient.create(mmcUrl.toString(), username, password, null);
+
+		HTTPConduit conduit = WebClient.getConfig(webClient).getHttpConduit();
+		HTTPClientPolicy clientPolicy = conduit.getClient();
+		if (clientPolicy == null) {
+			clientPolicy = new HTTPClientPolicy();
+			conduit.setClient(clientPolicy);
+		}
+		clientPolicy.setConnection(ConnectionType.KEEP_ALIVE);
+
+		_logger.debug("Opened MMC client #{} to {}", misses.get(), mmcUrl);
+		return webClient;
+	}
+}
@@ -0,0 +1,121 @@
+package org.mule.tools.maven.plugin;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ArchiveOptimizerTest {
+
+	private File _tempDir;
+
+	@Before
+	public void setup() throws Exception {
+		_tempDir = File.createTempFile("ArchiveOptimizerUT", "");
+		_tempDir.delete();
+		_tempDir.mkdir();
+	}
+
+	@After
+	public void cleanup() throws Exception {
+		for (File file : _tempDir.listFiles()) {
+			file.delete();
+		}
+		_tempDir.delete();
+	}
+
+	@Test
+	public void testDropsExcludedAndDuplicateEntries() throws Exception {
+		File source = new File(_tempDir, "source.zip");
+		_writeZip(source, 1000L, "mule-config.xml", "lib/a.jar", "lib/b.jar", "classes/org/App.java", "classes/org/App.class", "Readme.java");
+		File target = new File(_tempDir, "target.zip");
+
+		ArchiveOptimizer.Report report = new ArchiveOptimizer(9, Arrays.asList("**/*.java"), true).optimize(source, target);
+
+		// a.jar and b.jar have the same content
+		Assert.assertEquals(Arrays.asList("Readme.java", "classes/org/App.java", "lib/b.jar"), report.droppedEntries);
+		Assert.assertEquals(Arrays.asList("classes/org/App.class", "lib/a.jar", "mule-config.xml"), _entryNames(target));
+		Assert.assertEquals(3, report.entries);
+		Assert.assertEquals(source.length(), report.originalBytes);
+		Assert.assertEquals(target.length(), report.optimizedBytes);
+		Assert.assertTrue(report.getReductionPercent() > 0);
+	}
+
+	@Test
+	public void testOutputIsReproducible() throws Exception {
+		File source1 = new File(_tempDir, "source1.zip");
+		File source2 = new File(_tempDir, "source2.zip");
+		// same entries, in another order and with other times
+		_writeZip(source1, 1000L, "a.xml", "lib/a.jar", "b.xml");
+		_writeZip(source2, System.currentTimeMillis(), "b.xml", "a.xml", "lib/a.jar");
+
+		File target1 = new File(_tempDir, "target1.zip");
+		File target2 = new File(_tempDir, "target2.zip");
+		ArchiveOptimizer archiveOptimizer = new ArchiveOptimizer(ArchiveOptimizer.DEFAULT_COMPRESSION_LEVEL, null, true);
+		archiveOptimizer.optimize(source1, target1);
+		archiveOptimizer.optimize(source2, target2);
+
+		Assert.assertEquals(ArchiveDigest.sha256(target1), ArchiveDigest.sha256(target2));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidCompressionLevel() {
+		new ArchiveOptimizer(10, null, false);
+	}
+
+	/**
+	 * Writes a zip whose entries are stored, with a content depending on the
+	 * extension only
+	 */
+	private static void _writeZip(File file, long time, String... names) throws IOException {
+		try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(file))) {
+			for (String name : names) {
+				byte[] content = _content(name.substring(name.lastIndexOf('.')));
+				CRC32 crc = new CRC32();
+				crc.update(content);
+
+				ZipEntry entry = new ZipEntry(name);
+				entry.setMethod(ZipEntry.STORED);
+				entry.setSize(content.length);
+				entry.setCrc(crc.getValue());
+				entry.setTime(time);
+				zipOutputStream.putNextEntry(entry);
+				zipOutputStream.write(content);
+				zipOutputStream.closeEntry();
+			}
+		}
+	}
+
+	private static byte[] _content(String extension) {
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 200; i++) {
+			content.append("Content of a ").append(extension).append(" file\n");
+		}
+		return content.toString().getBytes();
+	}
+
+	private static List<String> _entryNames(File file) throws IOException {
+		List<String> names = new ArrayList<String>();
+		try (ZipFile zipFile = new ZipFile(file)) {
+			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while (entries.hasMoreElements()) {
+				names.add(entries.nextElement().getName());
+			}
+		}
+		Collections.sort(names);
+		return names;
+	}
+}
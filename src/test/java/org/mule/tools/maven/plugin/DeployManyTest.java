@@ -0,0 +1,109 @@
+package org.mule.tools.maven.plugin;
+
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mule.tools.mmc.rest.DeploymentState;
+import org.mule.tools.mmc.rest.DeploymentStatus;
+import org.mule.tools.mmc.rest.MuleRest;
+
+public class DeployManyTest {
+
+	private static final String TARGET_DEPLOYMENT_SERVER = "Development";
+
+	private DeployMany deployMany;
+
+	private MuleRest mockMuleRest;
+
+	private File _tempDirectory;
+
+	@Before
+	public void setup() throws Exception {
+		deployMany = spy(new DeployMany());
+
+		_tempDirectory = File.createTempFile("DeployManyUT", "");
+		if (_tempDirectory.exists()) {
+			_tempDirectory.delete();
+		}
+		_tempDirectory.mkdir();
+
+		new File(_tempDirectory, "first-app-1.0.zip").createNewFile();
+		new File(_tempDirectory, "second-app-2.0.zip").createNewFile();
+		new File(_tempDirectory, "third-app-3.0.zip").createNewFile();
+
+		mockMuleRest = mock(MuleRest.class);
+		when(deployMany._createMuleRest(anyString(), anyString(), any(URL.class))).thenReturn(mockMuleRest);
+		when(mockMuleRest.restfullyUploadRepository(anyString(), anyString(), any(File.class))).thenReturn("versionId");
+		when(mockMuleRest.restfullyCreateDeployment(anyString(), anyString(), anyString())).thenReturn("deploymentId");
+
+		DeploymentState deploymentState = new DeploymentState();
+		deploymentState.status = DeploymentStatus.DEPLOYED;
+		when(mockMuleRest.restfullyGetDeploymentState(anyString())).thenReturn(deploymentState);
+
+		deployMany.setLog(new SystemStreamLog());
+		deployMany.mmcApiUrl = "http://localhost:8080/mmc/api";
+		deployMany.mmcUsername = "muleuser1";
+		deployMany.mmcPassword = "pwd1234";
+		deployMany.targetDeploymentServer = TARGET_DEPLOYMENT_SERVER;
+		deployMany.deduplicateUploads = false;
+		deployMany.deployThreads = 2;
+		deployMany.muleAppFiles = Arrays.asList(_tempDirectory.getAbsolutePath() + File.separatorChar + "*.zip");
+	}
+
+	@After
+	public void cleanup() throws Exception {
+		for (File file : _tempDirectory.listFiles()) {
+			file.delete();
+		}
+		_tempDirectory.delete();
+	}
+
+	@Test
+	public void testDeploysAllArchives() throws Exception {
+		deployMany.execute();
+
+		verify(mockMuleRest).restfullyUploadRepository(eq("first-app"), eq("1.0"), any(File.class));
+		verify(mockMuleRest).restfullyUploadRepository(eq("second-app"), eq("2.0"), any(File.class));
+		verify(mockMuleRest).restfullyUploadRepository(eq("third-app"), eq("3.0"), any(File.class));
+		verify(mockMuleRest).restfullyCreateDeployment(TARGET_DEPLOYMENT_SERVER, "first-app", "versionId");
+		verify(mockMuleRest).restfullyCreateDeployment(TARGET_DEPLOYMENT_SERVER, "second-app", "versionId");
+		verify(mockMuleRest).restfullyCreateDeployment(TARGET_DEPLOYMENT_SERVER, "third-app", "versionId");
+	}
+
+	@Test
+	public void testFailureDoesNotStopOtherArchives() throws Exception {
+		when(mockMuleRest.restfullyUploadRepository(eq("second-app"), anyString(), any(File.class))).thenThrow(new IOException("Upload failed"));
+
+		try {
+			deployMany.execute();
+			Assert.fail("Exception should have been thrown");
+		} catch (MojoFailureException e) {
+			Assert.assertTrue(e.getMessage().startsWith("1 of 3"));
+		}
+
+		verify(mockMuleRest).restfullyCreateDeployment(TARGET_DEPLOYMENT_SERVER, "first-app", "versionId");
+		verify(mockMuleRest).restfullyCreateDeployment(TARGET_DEPLOYMENT_SERVER, "third-app", "versionId");
+	}
+
+	@Test(expected = MojoFailureException.class)
+	public void testNoArchive() throws Exception {
+		deployMany.muleAppFiles = Arrays.asList(_tempDirectory.getAbsolutePath() + File.separatorChar + "*.jar");
+		deployMany.execute();
+	}
+}
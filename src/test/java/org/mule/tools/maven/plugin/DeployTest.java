@@ -3,6 +3,9 @@ package org.mule.tools.maven.plugin;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.TreeSet;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -16,6 +19,7 @@ import org.mule.tools.maven.plugin.Deploy;
 import org.mule.tools.mmc.rest.DeploymentState;
 import org.mule.tools.mmc.rest.DeploymentStatus;
 import org.mule.tools.mmc.rest.MuleRest;
+import org.mule.tools.mmc.rest.MuleRestMetrics;
 
 import static org.mockito.Mockito.*;
 
@@ -68,10 +72,14 @@ public class DeployTest {
 		deploy.mmcUsername = MMC_USERNAME;
 		deploy.mmcPassword = MMC_PASSWORD;
 		deploy.targetDeploymentServer = TARGET_DEPLOYMENT_SERVER;
+		deploy.uploadManifestFile = new File(_tempDirectory, "upload-manifest.properties");
 	}
 
 	@After
 	public void cleanup() throws Exception {
+		for (File file : _tempDirectory.listFiles()) {
+			file.delete();
+		}
 		_tempDirectory.delete();
 	}
 
@@ -96,6 +104,171 @@ public class DeployTest {
 		verify(mockMuleRest).restfullyDeployDeploymentById(MOCKED_DEPLOYMENT_ID);
 	}
 
+	@Test
+	public void testUploadSkippedWhenArchiveAlreadyInRepository() throws Exception {
+		String knownVersionId = "4242";
+		UploadManifest uploadManifest = new UploadManifest(deploy.uploadManifestFile);
+		uploadManifest.putVersionId(deploy.mmcApiUrl, ArchiveDigest.sha256(_muleAppFile), knownVersionId);
+		uploadManifest.save();
+		when(mockMuleRest.restfullyRepositoryContainsVersionId(knownVersionId)).thenReturn(true);
+
+		deploy.execute();
+
+		verify(mockMuleRest, never()).restfullyUploadRepository(anyString(), anyString(), any(File.class));
+		verify(mockMuleRest).restfullyCreateDeployment(TARGET_DEPLOYMENT_SERVER, ARTIFACT_ID, knownVersionId);
+	}
+
+	@Test
+	public void testUploadRecordedInManifest() throws Exception {
+		deploy.execute();
+
+		UploadManifest uploadManifest = new UploadManifest(deploy.uploadManifestFile);
+		Assert.assertEquals(MOCKED_VERSION_ID, uploadManifest.getVersionId(deploy.mmcApiUrl, ArchiveDigest.sha256(_muleAppFile)));
+	}
+
+	@Test
+	public void testUploadNotSkippedWhenVersionLeftRepository() throws Exception {
+		UploadManifest uploadManifest = new UploadManifest(deploy.uploadManifestFile);
+		uploadManifest.putVersionId(deploy.mmcApiUrl, ArchiveDigest.sha256(_muleAppFile), "deleted");
+		uploadManifest.save();
+
+		deploy.execute();
+
+		verify(mockMuleRest).restfullyUploadRepository(ARTIFACT_ID, VERSION, _muleAppFile);
+	}
+
+	@Test
+	public void testPipelined() throws Exception {
+		String serverId = "server-42";
+		when(mockMuleRest.restfullyResolveServerOrGroupId(TARGET_DEPLOYMENT_SERVER)).thenReturn(serverId);
+		when(mockMuleRest.restfullyCreateDeploymentById(serverId, ARTIFACT_ID, MOCKED_VERSION_ID)).thenReturn(MOCKED_DEPLOYMENT_ID);
+		deploy.pipelined = true;
+
+		deploy.execute();
+
+		verify(mockMuleRest).restfullyUploadRepository(ARTIFACT_ID, VERSION, _muleAppFile);
+		verify(mockMuleRest).restfullyDeleteDeployment(ARTIFACT_ID);
+		verify(mockMuleRest).restfullyCreateDeploymentById(serverId, ARTIFACT_ID, MOCKED_VERSION_ID);
+		verify(mockMuleRest, never()).restfullyCreateDeployment(anyString(), anyString(), anyString());
+		verify(mockMuleRest).restfullyDeployDeploymentById(MOCKED_DEPLOYMENT_ID);
+	}
+
+	@Test(expected = MojoFailureException.class)
+	public void testPipelinedUnknownTarget() throws Exception {
+		when(mockMuleRest.restfullyResolveServerOrGroupId(TARGET_DEPLOYMENT_SERVER)).thenThrow(new IllegalArgumentException("No group or server named \"" + TARGET_DEPLOYMENT_SERVER + "\" found"));
+		deploy.pipelined = true;
+
+		deploy.execute();
+	}
+
+	@Test
+	public void testRollingToGroup() throws Exception {
+		when(mockMuleRest.restfullyGetServerGroupId(TARGET_DEPLOYMENT_SERVER)).thenReturn("group-1");
+		when(mockMuleRest.restfullyGetServerIdsInGroup(TARGET_DEPLOYMENT_SERVER)).thenReturn(new TreeSet<String>(Arrays.asList("s1", "s2")));
+		when(mockMuleRest.restfullyCreateDeploymentById("s1", ARTIFACT_ID + "-s1", MOCKED_VERSION_ID)).thenReturn("d1");
+		when(mockMuleRest.restfullyCreateDeploymentById("s2", ARTIFACT_ID + "-s2", MOCKED_VERSION_ID)).thenReturn("d2");
+		deploy.rolling = true;
+
+		deploy.execute();
+
+		verify(mockMuleRest).restfullyDeployDeploymentById("d1");
+		verify(mockMuleRest).restfullyDeployDeploymentById("d2");
+		verify(mockMuleRest, never()).restfullyCreateDeployment(anyString(), anyString(), anyString());
+	}
+
+	@Test
+	public void testRollingToServer() throws Exception {
+		deploy.rolling = true;
+
+		deploy.execute();
+
+		verify(mockMuleRest).restfullyCreateDeployment(TARGET_DEPLOYMENT_SERVER, ARTIFACT_ID, MOCKED_VERSION_ID);
+		verify(mockMuleRest, never()).restfullyGetServerIdsInGroup(anyString());
+	}
+
+	@Test
+	public void testMmcTargets() throws Exception {
+		MuleRest otherMuleRest = _mockMmcTargets();
+
+		deploy.execute();
+
+		verify(mockMuleRest).restfullyUploadRepository(eq(ARTIFACT_ID), eq(VERSION), eq(_muleAppFile), any(ByteBuffer.class));
+		verify(mockMuleRest).restfullyCreateDeployment("Datacenter-A", ARTIFACT_ID, MOCKED_VERSION_ID);
+		verify(otherMuleRest).restfullyUploadRepository(eq(ARTIFACT_ID), eq(VERSION), eq(_muleAppFile), any(ByteBuffer.class));
+		verify(otherMuleRest).restfullyCreateDeployment(TARGET_DEPLOYMENT_SERVER, ARTIFACT_ID, MOCKED_VERSION_ID);
+		verify(mockMuleRest, never()).restfullyUploadRepository(anyString(), anyString(), any(File.class));
+	}
+
+	@Test(expected = MojoFailureException.class)
+	public void testMmcTargetsFailure() throws Exception {
+		MuleRest otherMuleRest = _mockMmcTargets();
+		when(otherMuleRest.restfullyUploadRepository(anyString(), anyString(), any(File.class), any(ByteBuffer.class))).thenThrow(new IOException("Connection refused"));
+
+		deploy.execute();
+	}
+
+	@Test
+	public void testMmcTargetsFailureAllowed() throws Exception {
+		MuleRest otherMuleRest = _mockMmcTargets();
+		when(otherMuleRest.restfullyUploadRepository(anyString(), anyString(), any(File.class), any(ByteBuffer.class))).thenThrow(new IOException("Connection refused"));
+		deploy.mmcTargetsMaxFailures = 1;
+
+		deploy.execute();
+
+		verify(mockMuleRest).restfullyDeployDeploymentById(MOCKED_DEPLOYMENT_ID);
+	}
+
+	/**
+	 * Targets the mocked MuleRest on a first MMC and returns the one of a
+	 * second MMC
+	 */
+	private MuleRest _mockMmcTargets() throws Exception {
+		String otherMmcApiUrl = "http://localhost:8082/mmc/api";
+		MuleRest otherMuleRest = mock(MuleRest.class);
+		when(deploy._createMuleRest(anyString(), anyString(), eq(new URL(otherMmcApiUrl)))).thenReturn(otherMuleRest);
+		when(otherMuleRest.restfullyCreateDeployment(anyString(), anyString(), anyString())).thenReturn(MOCKED_DEPLOYMENT_ID);
+		DeploymentState deploymentState = new DeploymentState();
+		deploymentState.status = DeploymentStatus.DEPLOYED;
+		when(otherMuleRest.restfullyGetDeploymentState(anyString())).thenReturn(deploymentState);
+
+		when(mockMuleRest.restfullyUploadRepository(anyString(), anyString(), any(File.class), any(ByteBuffer.class))).thenReturn(MOCKED_VERSION_ID);
+		when(otherMuleRest.restfullyUploadRepository(anyString(), anyString(), any(File.class), any(ByteBuffer.class))).thenReturn(MOCKED_VERSION_ID);
+
+		deploy.mmcTargets = Arrays.asList("Datacenter-A@http://localhost:8081/mmc/api", otherMmcApiUrl);
+		deploy.deduplicateUploads = false;
+		return otherMuleRest;
+	}
+
+	@Test
+	public void testMetricsWritten() throws Exception {
+		MuleRestMetrics metrics = new MuleRestMetrics();
+		metrics.recordRequest("GET /deployments", 1000000, 10, false);
+		when(mockMuleRest.getMetrics()).thenReturn(metrics);
+		deploy.metricsFile = new File(_tempDirectory, "metrics/mule-mmc-metrics.json");
+
+		deploy.execute();
+
+		Assert.assertTrue(deploy.metricsFile.isFile());
+		deploy.metricsFile.delete();
+		deploy.metricsFile.getParentFile().delete();
+	}
+
+	@Test
+	public void testMetricsOfMmcTargetsOnTheSameHostKeptApart() throws Exception {
+		MuleRestMetrics metrics = new MuleRestMetrics();
+		metrics.recordRequest("GET /deployments", 1000000, 10, false);
+		when(mockMuleRest.getMetrics()).thenReturn(metrics);
+		when(mockMuleRest.restfullyUploadRepository(anyString(), anyString(), any(File.class), any(ByteBuffer.class))).thenReturn(MOCKED_VERSION_ID);
+		deploy.mmcTargets = Arrays.asList("Datacenter-A@http://localhost:8080/mmc/api", "Datacenter-B@http://localhost:8080/mmc/api");
+		deploy.deduplicateUploads = false;
+		deploy.metricsFile = new File(_tempDirectory, "mule-mmc-metrics.json");
+
+		deploy.execute();
+
+		Assert.assertTrue(new File(_tempDirectory, "mule-mmc-metrics-1-localhost-8080.json").isFile());
+		Assert.assertTrue(new File(_tempDirectory, "mule-mmc-metrics-2-localhost-8080.json").isFile());
+	}
+
 	@Test(expected = MojoFailureException.class)
 	public void testUsernameNull() throws MojoExecutionException, MojoFailureException {
 		deploy.mmcUsername = null;
@@ -162,4 +335,16 @@ public class DeployTest {
 		verify(mockMuleRest).restfullyCreateDeployment(TARGET_DEPLOYMENT_SERVER, expectedDeploymentName, MOCKED_VERSION_ID);
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void testSameNamedArchivesAreOptimizedToDifferentFiles() {
+		File directory = new File(_tempDirectory, "mmc-optimized");
+		File optimizedFile = Deploy._getOptimizedArchiveFile(directory, _muleAppFile);
+		File otherOptimizedFile = Deploy._getOptimizedArchiveFile(directory, new File(new File(_tempDirectory, "other"), _muleAppFile.getName()));
+
+		Assert.assertEquals(_muleAppFile.getName(), optimizedFile.getName());
+		Assert.assertEquals(directory, optimizedFile.getParentFile().getParentFile());
+		Assert.assertFalse(optimizedFile.equals(otherOptimizedFile));
+		Assert.assertEquals(optimizedFile, Deploy._getOptimizedArchiveFile(directory, _muleAppFile));
+	}
+
+}
@@ -2,6 +2,8 @@ package org.mule.tools.maven.plugin;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.After;
 import org.junit.Assert;
@@ -97,4 +99,101 @@ public class FilesFinderTest {
 	public void FindSearchCurrentDirectoryIfNoPathSpecified() throws Exception {
 		Assert.assertEquals(_testingFileInCurrentDir, FileFinder.find("MyUnitTestFile*.txt"));
 	}
+
+	@Test
+	public void FindRecursivelyWithDoubleStar() throws Exception {
+		File subDir = new File(_tempDir, "sub");
+		File subSubDir = new File(subDir, "subsub");
+		subSubDir.mkdirs();
+
+		File rootFile = new File(_tempDir, "app-1.zip");
+		File subFile = new File(subDir, "app-2.zip");
+		File subSubFile = new File(subSubDir, "app-3.zip");
+		rootFile.createNewFile();
+		subFile.createNewFile();
+		subSubFile.createNewFile();
+		new File(subSubDir, "app-3.jar").createNewFile();
+
+		try {
+			String pattern = _tempDir.getAbsolutePath() + File.separatorChar + "**" + File.separatorChar + "app-*.zip";
+			List<File> expectedFiles = Arrays.asList(rootFile, subFile, subSubFile);
+
+			Assert.assertEquals(expectedFiles, FileFinder.findAll(pattern, false));
+			Assert.assertEquals(expectedFiles, FileFinder.findAll(pattern, true));
+
+			// without "**", only the files of the given depth are matched
+			Assert.assertEquals(Arrays.asList(subFile), FileFinder.findAll(_tempDir.getAbsolutePath() + "/*/app-*.zip", true));
+			Assert.assertEquals(Arrays.asList(rootFile), FileFinder.findAll(_tempDir.getAbsolutePath() + "/app-*.zip", false));
+		} finally {
+			_deleteTree(_tempDir);
+		}
+	}
+
+	@Test
+	public void FindRecursivelyWithDoubleStarAndGroup() throws Exception {
+		File subDir = new File(_tempDir, "sub");
+		subDir.mkdirs();
+
+		File rootFile = new File(_tempDir, "app-1.zip");
+		File subFile = new File(subDir, "app-2.jar");
+		File subLibFile = new File(new File(subDir, "lib"), "lib-1.jar");
+		subLibFile.getParentFile().mkdirs();
+		rootFile.createNewFile();
+		subFile.createNewFile();
+		subLibFile.createNewFile();
+		new File(_tempDir, "app-1.txt").createNewFile();
+
+		try {
+			// "**/" matches no directory, in a group or not
+			String pattern = _tempDir.getAbsolutePath() + "/**/*.{zip,jar}";
+			Assert.assertEquals(Arrays.asList(rootFile, subFile, subLibFile), FileFinder.findAll(pattern, false));
+			Assert.assertEquals(Arrays.asList(rootFile, subFile, subLibFile), FileFinder.findAll(pattern, true));
+			Assert.assertEquals(Arrays.asList(subFile, subLibFile), FileFinder.findAll(_tempDir.getAbsolutePath() + "/{sub/**/,nothing/}*.jar", false));
+		} finally {
+			_deleteTree(_tempDir);
+		}
+	}
+
+	@Test
+	public void FindAllFromSeveralPatterns() throws Exception {
+		File otherDir = new File(_tempDir, "other");
+		otherDir.mkdirs();
+
+		File file1 = new File(_tempDir, "app-1.zip");
+		File file2 = new File(otherDir, "app-2.zip");
+		file1.createNewFile();
+		file2.createNewFile();
+
+		try {
+			String pattern1 = _tempDir.getAbsolutePath() + "/app-*.zip";
+			String pattern2 = otherDir.getAbsolutePath() + "/*.zip";
+			String pattern3 = _tempDir.getAbsolutePath() + "/**/*.zip";
+
+			Assert.assertEquals(Arrays.asList(file1, file2), FileFinder.findAll(Arrays.asList(pattern1, pattern2, pattern3), false));
+		} finally {
+			_deleteTree(_tempDir);
+		}
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void ThrowsIfNoFileFoundRecursively() throws Exception {
+		_tempDir.mkdir();
+		new File(_tempDir, "MyFile1.txt").createNewFile();
+
+		try {
+			FileFinder.findAll(_tempDir.getAbsolutePath() + "/**/MySpecialFile*.txt", true);
+		} finally {
+			_deleteTree(_tempDir);
+		}
+	}
+
+	private static void _deleteTree(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				_deleteTree(child);
+			}
+		}
+		file.delete();
+	}
 }
@@ -1,5 +1,13 @@
 package org.mule.tools.maven.plugin;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -47,4 +55,89 @@ public class MuleFileInfoTest {
 		Assert.assertEquals("", mfi1.appName);
 		Assert.assertEquals("5", mfi1.appVersion);
 	}
+
+	@Test()
+	public void testAppNameAndVersionWhitespaces() {
+		MuleFileInfo mfi1 = MuleFileInfo.parseFromFile("Mule App - 2.1.zip");
+		Assert.assertEquals("Mule App", mfi1.appName);
+		Assert.assertEquals("2.1", mfi1.appVersion);
+
+		MuleFileInfo mfi2 = MuleFileInfo.parseFromFile("/any.dir/Mule-App-x-3");
+		Assert.assertEquals("Mule-App-x", mfi2.appName);
+		Assert.assertEquals("3", mfi2.appVersion);
+	}
+
+	@Test()
+	public void testParseAllSameAsRegex() {
+		String[] samples = { "c:\\anydir\\Mule-App-1.0.0-SNAPSHOT.zip", "c:/anydir/Mule-App-1.0.0-SNAPSHOT.zip", "Mule-App.zip", "Mule-App-.zip", "-5.zip", "Mule App -\t 2.1.zip",
+				"/any.dir/Mule-App-x-3", "a-b- 7 .jar", "", ".zip", "-", "dir/", "App - .zip" };
+		List<String> paths = new ArrayList<String>();
+		for (int i = 0; i < 5000; i++) {
+			paths.add(samples[i % samples.length]);
+		}
+
+		for (boolean parallel : new boolean[] { false, true }) {
+			List<MuleFileInfo> mfis = MuleFileInfo.parseAll(paths, parallel);
+			Assert.assertEquals(paths.size(), mfis.size());
+			for (int i = 0; i < paths.size(); i++) {
+				MuleFileInfo expected = _parseWithRegex(paths.get(i));
+				Assert.assertEquals(paths.get(i), expected.appName, mfis.get(i).appName);
+				Assert.assertEquals(paths.get(i), expected.appVersion, mfis.get(i).appVersion);
+			}
+		}
+	}
+
+	@Test()
+	public void testParseDirectory() throws Exception {
+		File tempDir = File.createTempFile("MuleFileInfoUT", "");
+		tempDir.delete();
+		tempDir.mkdir();
+		File[] files = { new File(tempDir, "Mule-App-1.0.0.zip"), new File(tempDir, "Other.zip"), new File(tempDir, "Sub-2.zip") };
+		files[0].createNewFile();
+		files[1].createNewFile();
+		files[2].mkdir();
+
+		Map<File, MuleFileInfo> mfis;
+		try {
+			mfis = MuleFileInfo.parseDirectory(tempDir, true);
+		} finally {
+			for (File file : files) {
+				file.delete();
+			}
+			tempDir.delete();
+		}
+		Assert.assertEquals(2, mfis.size());
+		Iterator<Map.Entry<File, MuleFileInfo>> iterator = mfis.entrySet().iterator();
+
+		Map.Entry<File, MuleFileInfo> entry = iterator.next();
+		Assert.assertEquals("Mule-App-1.0.0.zip", entry.getKey().getName());
+		Assert.assertEquals("Mule-App", entry.getValue().appName);
+		Assert.assertEquals("1.0.0", entry.getValue().appVersion);
+
+		entry = iterator.next();
+		Assert.assertEquals("Other.zip", entry.getKey().getName());
+		Assert.assertEquals("Other", entry.getValue().appName);
+		Assert.assertEquals(null, entry.getValue().appVersion);
+
+		Assert.assertTrue(MuleFileInfo.parseDirectory(tempDir, false).isEmpty());
+	}
+
+	/**
+	 * Former regular expression based parsing, the reference of the behavior
+	 */
+	private static MuleFileInfo _parseWithRegex(String path) {
+		String fileName = path.substring(path.replaceAll("\\\\", "/").lastIndexOf("/") + 1);
+		int dot = fileName.lastIndexOf(".");
+		String name = dot >= 0 ? fileName.substring(0, dot) : fileName;
+
+		MuleFileInfo mfi = new MuleFileInfo();
+		Matcher matcher = Pattern.compile("-\\s*\\d+").matcher(name);
+		if (matcher.find()) {
+			mfi.appName = name.substring(0, matcher.start()).trim();
+			mfi.appVersion = name.substring(matcher.start() + 1).trim();
+		} else {
+			mfi.appName = name;
+		}
+		return mfi;
+	}
 }
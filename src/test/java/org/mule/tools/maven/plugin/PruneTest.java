@@ -0,0 +1,105 @@
+package org.mule.tools.maven.plugin;
+
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.cxf.transport.http.HTTPException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mule.tools.mmc.rest.MuleRest;
+
+public class PruneTest {
+
+	private Prune prune;
+
+	private MuleRest mockMuleRest;
+
+	@Before
+	public void setup() throws Exception {
+		prune = spy(new Prune());
+
+		Map<String, String> ordersVersions = new LinkedHashMap<String, String>();
+		ordersVersions.put("1.0", "orders1");
+		ordersVersions.put("1.1", "orders2");
+		ordersVersions.put("1.2", "orders3");
+		ordersVersions.put("1.3", "orders4");
+		Map<String, String> domainVersions = new LinkedHashMap<String, String>();
+		domainVersions.put("1.0", "domain1");
+		domainVersions.put("2.0", "domain2");
+		Map<String, Map<String, String>> repository = new LinkedHashMap<String, Map<String, String>>();
+		repository.put("orders-api", ordersVersions);
+		repository.put("domain", domainVersions);
+
+		mockMuleRest = mock(MuleRest.class);
+		when(prune._createMuleRest(anyString(), anyString(), any(URL.class))).thenReturn(mockMuleRest);
+		when(mockMuleRest.restfullyGetRepositoryVersions()).thenReturn(repository);
+		when(mockMuleRest.restfullyGetDeployedVersionIds()).thenReturn(Collections.singleton("orders1"));
+
+		prune.setLog(new SystemStreamLog());
+		prune.mmcApiUrl = "http://localhost:8080/mmc/api";
+		prune.mmcUsername = "muleuser1";
+		prune.mmcPassword = "pwd1234";
+		prune.pruneKeepVersions = 1;
+		prune.pruneThreads = 2;
+	}
+
+	@Test
+	public void testDeletesTheOldUndeployedVersions() throws Exception {
+		prune.execute();
+
+		verify(mockMuleRest).restfullyDeleteApplicationById("orders2");
+		verify(mockMuleRest).restfullyDeleteApplicationById("orders3");
+		verify(mockMuleRest).restfullyDeleteApplicationById("domain1");
+		verify(mockMuleRest, never()).restfullyDeleteApplicationById("orders1");
+		verify(mockMuleRest, never()).restfullyDeleteApplicationById("orders4");
+		verify(mockMuleRest, never()).restfullyDeleteApplicationById("domain2");
+		verify(mockMuleRest).close();
+	}
+
+	@Test
+	public void testDryRunDeletesNothing() throws Exception {
+		prune.pruneDryRun = true;
+		prune.execute();
+
+		verify(mockMuleRest, never()).restfullyDeleteApplicationById(anyString());
+	}
+
+	@Test
+	public void testSelectedApplications() throws Exception {
+		prune.pruneApplications = " domain ,unknown";
+		prune.execute();
+
+		verify(mockMuleRest).restfullyDeleteApplicationById("domain1");
+		verify(mockMuleRest, never()).restfullyDeleteApplicationById("orders2");
+	}
+
+	@Test
+	public void testFailedDeletes() throws Exception {
+		doThrow(new HTTPException(404, "The resource was not found.", new URL(prune.mmcApiUrl))).when(mockMuleRest).restfullyDeleteApplicationById("orders2");
+		doThrow(new IOException("Delete failed")).when(mockMuleRest).restfullyDeleteApplicationById("orders3");
+
+		try {
+			prune.execute();
+			Assert.fail("Exception should have been thrown");
+		} catch (MojoFailureException e) {
+			// the version already gone is not a failure
+			Assert.assertEquals("1 of 3 application versions could not be deleted", e.getMessage());
+		}
+		verify(mockMuleRest).restfullyDeleteApplicationById("domain1");
+	}
+}
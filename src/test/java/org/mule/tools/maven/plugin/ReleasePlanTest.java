@@ -0,0 +1,103 @@
+package org.mule.tools.maven.plugin;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReleasePlanTest {
+
+	private static ReleasePlan.App app(String name, String... dependsOn) {
+		ReleasePlan.App app = new ReleasePlan.App();
+		app.name = name;
+		app.file = name + "-1.0.zip";
+		app.dependsOn.addAll(Arrays.asList(dependsOn));
+		return app;
+	}
+
+	@Test
+	public void testOrder() {
+		ReleasePlan plan = new ReleasePlan(Arrays.asList(app("consumer", "orders-api", "billing-api"), app("orders-api", "domain"), app("domain"), app("billing-api", "domain", "domain")));
+
+		Assert.assertEquals(Arrays.asList("domain", "orders-api", "billing-api", "consumer"), plan.getOrder());
+		Assert.assertEquals(2, plan.getDependants("domain").size());
+		// a dependency listed twice is a single edge
+		Assert.assertEquals(1, plan.getDependencies("billing-api").size());
+	}
+
+	@Test
+	public void testCriticalPath() {
+		ReleasePlan plan = new ReleasePlan(Arrays.asList(app("domain"), app("orders-api", "domain"), app("billing-api", "domain"), app("consumer", "orders-api", "billing-api"), app("standalone")));
+
+		Map<String, Long> endTimes = new HashMap<String, Long>();
+		endTimes.put("domain", 100L);
+		endTimes.put("orders-api", 300L);
+		endTimes.put("billing-api", 200L);
+		endTimes.put("consumer", 400L);
+		endTimes.put("standalone", 350L);
+		Assert.assertEquals(Arrays.asList("domain", "orders-api", "consumer"), plan.getCriticalPath(endTimes));
+
+		// without the consumer, the standalone application finished last
+		endTimes.remove("consumer");
+		Assert.assertEquals(Arrays.asList("standalone"), plan.getCriticalPath(endTimes));
+		Assert.assertTrue(plan.getCriticalPath(new HashMap<String, Long>()).isEmpty());
+	}
+
+	@Test
+	public void testCycle() {
+		try {
+			new ReleasePlan(Arrays.asList(app("domain"), app("a", "domain", "c"), app("b", "a"), app("c", "b")));
+			Assert.fail("The cycle should have been detected");
+		} catch (IllegalArgumentException e) {
+			Assert.assertTrue(e.getMessage(), e.getMessage().endsWith("[a, b, c]"));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownDependency() {
+		new ReleasePlan(Arrays.asList(app("a", "missing")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDuplicateName() {
+		new ReleasePlan(Arrays.asList(app("a"), app("a")));
+	}
+
+	@Test
+	public void testRead() throws Exception {
+		File file = File.createTempFile("ReleasePlanUT", ".json");
+		try {
+			try (FileOutputStream outputStream = new FileOutputStream(file)) {
+				outputStream.write(("{ \"apps\" : [" //
+						+ "{ \"name\" : \"domain\", \"file\" : \"domain-*.zip\", \"target\" : \"Production\", \"version\" : \"2.0\" }," //
+						+ "{ \"name\" : \"api\", \"file\" : \"api.zip\", \"deploymentName\" : \"api-prod\", \"dependsOn\" : [ \"domain\" ] }" //
+						+ "] }").getBytes("UTF-8"));
+			}
+			ReleasePlan plan = ReleasePlan.read(file);
+
+			ReleasePlan.App domain = plan.getApp("domain");
+			Assert.assertEquals("domain-*.zip", domain.file);
+			Assert.assertEquals("Production", domain.target);
+			Assert.assertEquals("2.0", domain.version);
+			ReleasePlan.App api = plan.getApp("api");
+			Assert.assertEquals("api-prod", api.deploymentName);
+			Assert.assertNull(api.target);
+			Assert.assertEquals(new ArrayList<String>(Arrays.asList("domain")), api.dependsOn);
+			Assert.assertEquals(Arrays.asList("domain", "api"), plan.getOrder());
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testOrderKeepsFileOrder() {
+		List<ReleasePlan.App> apps = Arrays.asList(app("c"), app("a"), app("b"));
+		Assert.assertEquals(Arrays.asList("c", "a", "b"), new ReleasePlan(apps).getOrder());
+	}
+}
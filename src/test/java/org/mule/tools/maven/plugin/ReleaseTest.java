@@ -0,0 +1,133 @@
+package org.mule.tools.maven.plugin;
+
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mule.tools.mmc.rest.DeploymentState;
+import org.mule.tools.mmc.rest.DeploymentStatus;
+import org.mule.tools.mmc.rest.MuleRest;
+
+public class ReleaseTest {
+
+	private static final String TARGET_DEPLOYMENT_SERVER = "Development";
+
+	private static final String PLAN = "{ \"apps\" : [" //
+			+ "{ \"name\" : \"consumer\", \"file\" : \"consumer-3.0.zip\", \"dependsOn\" : [ \"orders-api\" ] }," //
+			+ "{ \"name\" : \"orders-api\", \"file\" : \"orders-api-2.0.zip\", \"target\" : \"Production\", \"dependsOn\" : [ \"domain\" ] }," //
+			+ "{ \"name\" : \"domain\", \"file\" : \"domain-*.zip\" }," //
+			+ "{ \"name\" : \"standalone\", \"file\" : \"standalone-4.0.zip\", \"version\" : \"4.1\" }" //
+			+ "] }";
+
+	private Release release;
+
+	private MuleRest mockMuleRest;
+
+	private File _tempDirectory;
+
+	@Before
+	public void setup() throws Exception {
+		release = spy(new Release());
+
+		_tempDirectory = File.createTempFile("ReleaseUT", "");
+		if (_tempDirectory.exists()) {
+			_tempDirectory.delete();
+		}
+		_tempDirectory.mkdir();
+
+		new File(_tempDirectory, "domain-1.0.zip").createNewFile();
+		new File(_tempDirectory, "orders-api-2.0.zip").createNewFile();
+		new File(_tempDirectory, "consumer-3.0.zip").createNewFile();
+		new File(_tempDirectory, "standalone-4.0.zip").createNewFile();
+		File plan = new File(_tempDirectory, "release.json");
+		try (FileOutputStream outputStream = new FileOutputStream(plan)) {
+			outputStream.write(PLAN.getBytes("UTF-8"));
+		}
+
+		mockMuleRest = mock(MuleRest.class);
+		when(release._createMuleRest(anyString(), anyString(), any(URL.class))).thenReturn(mockMuleRest);
+		when(mockMuleRest.restfullyUploadRepository(anyString(), anyString(), any(File.class))).thenReturn("versionId");
+		when(mockMuleRest.restfullyCreateDeployment(anyString(), anyString(), anyString())).thenReturn("deploymentId");
+
+		DeploymentState deploymentState = new DeploymentState();
+		deploymentState.status = DeploymentStatus.DEPLOYED;
+		when(mockMuleRest.restfullyGetDeploymentState(anyString())).thenReturn(deploymentState);
+
+		release.setLog(new SystemStreamLog());
+		release.mmcApiUrl = "http://localhost:8080/mmc/api";
+		release.mmcUsername = "muleuser1";
+		release.mmcPassword = "pwd1234";
+		release.targetDeploymentServer = TARGET_DEPLOYMENT_SERVER;
+		release.deduplicateUploads = false;
+		release.releaseThreads = 2;
+		release.releasePlan = plan;
+	}
+
+	@After
+	public void cleanup() throws Exception {
+		for (File file : _tempDirectory.listFiles()) {
+			file.delete();
+		}
+		_tempDirectory.delete();
+	}
+
+	@Test
+	public void testDeploysInDependencyOrder() throws Exception {
+		release.execute();
+
+		verify(mockMuleRest).restfullyUploadRepository(eq("domain"), eq("1.0"), any(File.class));
+		verify(mockMuleRest).restfullyUploadRepository(eq("standalone"), eq("4.1"), any(File.class));
+		verify(mockMuleRest).restfullyCreateDeployment(TARGET_DEPLOYMENT_SERVER, "standalone", "versionId");
+
+		InOrder inOrder = inOrder(mockMuleRest);
+		inOrder.verify(mockMuleRest).restfullyCreateDeployment(TARGET_DEPLOYMENT_SERVER, "domain", "versionId");
+		inOrder.verify(mockMuleRest).restfullyUploadRepository(eq("orders-api"), eq("2.0"), any(File.class));
+		inOrder.verify(mockMuleRest).restfullyCreateDeployment("Production", "orders-api", "versionId");
+		inOrder.verify(mockMuleRest).restfullyUploadRepository(eq("consumer"), eq("3.0"), any(File.class));
+		inOrder.verify(mockMuleRest).restfullyCreateDeployment(TARGET_DEPLOYMENT_SERVER, "consumer", "versionId");
+	}
+
+	@Test
+	public void testFailureSkipsDependants() throws Exception {
+		when(mockMuleRest.restfullyUploadRepository(eq("domain"), anyString(), any(File.class))).thenThrow(new IOException("Upload failed"));
+
+		try {
+			release.execute();
+			Assert.fail("Exception should have been thrown");
+		} catch (MojoFailureException e) {
+			Assert.assertEquals("1 of 4 Mule applications failed to deploy, 2 skipped", e.getMessage());
+		}
+
+		verify(mockMuleRest).restfullyCreateDeployment(TARGET_DEPLOYMENT_SERVER, "standalone", "versionId");
+		verify(mockMuleRest, never()).restfullyUploadRepository(eq("orders-api"), anyString(), any(File.class));
+		verify(mockMuleRest, never()).restfullyUploadRepository(eq("consumer"), anyString(), any(File.class));
+	}
+
+	@Test(expected = MojoFailureException.class)
+	public void testMissingArchiveFailsBeforeDeploying() throws Exception {
+		new File(_tempDirectory, "consumer-3.0.zip").delete();
+		try {
+			release.execute();
+		} finally {
+			verify(mockMuleRest, never()).restfullyUploadRepository(anyString(), anyString(), any(File.class));
+		}
+	}
+}
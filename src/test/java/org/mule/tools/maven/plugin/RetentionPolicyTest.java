@@ -0,0 +1,112 @@
+package org.mule.tools.maven.plugin;
+
+import static org.junit.Assert.assertEquals;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class RetentionPolicyTest {
+
+	private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+	private static Map<String, String> _versions(String... namesAndIds) {
+		Map<String, String> versions = new LinkedHashMap<String, String>();
+		for (int i = 0; i < namesAndIds.length; i += 2) {
+			versions.put(namesAndIds[i], namesAndIds[i + 1]);
+		}
+		return versions;
+	}
+
+	private static String _ids(List<RetentionPolicy.Version> versions) {
+		StringBuilder ids = new StringBuilder();
+		for (RetentionPolicy.Version version : versions) {
+			ids.append(ids.length() == 0 ? "" : ",").append(version.versionId);
+		}
+		return ids.toString();
+	}
+
+	@Test
+	public void testKeepsTheLastVersions() {
+		Map<String, Map<String, String>> repository = new LinkedHashMap<String, Map<String, String>>();
+		repository.put("app", _versions("1.0", "a1", "1.1", "a2", "1.2", "a3", "1.3", "a4"));
+		repository.put("other", _versions("1.0", "o1"));
+
+		List<RetentionPolicy.Version> versions = new RetentionPolicy(2, 0).selectVersionsToDelete(repository, Collections.<String> emptySet(), System.currentTimeMillis());
+		assertEquals("a1,a2", _ids(versions));
+		assertEquals("app", versions.get(0).applicationName);
+		assertEquals("1.0", versions.get(0).version);
+
+		assertEquals("", _ids(new RetentionPolicy(0, 0).selectVersionsToDelete(repository, Collections.<String> emptySet(), System.currentTimeMillis())));
+	}
+
+	@Test
+	public void testRanksMavenVersionsWhateverTheListingOrder() {
+		Map<String, Map<String, String>> repository = new LinkedHashMap<String, Map<String, String>>();
+		repository.put("app", _versions("1.10", "a10", "1.2", "a2", "1.0-SNAPSHOT", "a0", "1.9", "a9"));
+
+		assertEquals("a2,a0", _ids(new RetentionPolicy(2, 0).selectVersionsToDelete(repository, Collections.<String> emptySet(), System.currentTimeMillis())));
+	}
+
+	@Test
+	public void testRanksTimestampVersionsByTime() {
+		long now = System.currentTimeMillis();
+		SimpleDateFormat format = new SimpleDateFormat(Deploy.TIMESTAMP_VERSION_FORMAT);
+		Map<String, Map<String, String>> repository = new LinkedHashMap<String, Map<String, String>>();
+		// a string order would rank the January version last
+		repository.put("app", _versions(format.format(now - 400 * DAY_MS), "old", format.format(now - DAY_MS), "recent", format.format(now - 10 * DAY_MS), "middle"));
+
+		assertEquals("old,middle", _ids(new RetentionPolicy(1, 0).selectVersionsToDelete(repository, Collections.<String> emptySet(), now)));
+	}
+
+	@Test
+	public void testKeepsVersionsThatCannotBeRanked() {
+		SimpleDateFormat format = new SimpleDateFormat(Deploy.TIMESTAMP_VERSION_FORMAT);
+		Map<String, Map<String, String>> repository = new LinkedHashMap<String, Map<String, String>>();
+		repository.put("mixed", _versions("1.0", "m1", format.format(System.currentTimeMillis()), "m2"));
+		// ranking the same as the last version
+		repository.put("tied", _versions("1.0", "t1", "1.0.0", "t2"));
+
+		assertEquals("", _ids(new RetentionPolicy(1, 0).selectVersionsToDelete(repository, Collections.<String> emptySet(), System.currentTimeMillis())));
+	}
+
+	@Test
+	public void testKeepsDeployedVersions() {
+		Map<String, Map<String, String>> repository = new LinkedHashMap<String, Map<String, String>>();
+		repository.put("app", _versions("1.0", "a1", "1.1", "a2", "1.2", "a3", "1.3", "a4"));
+
+		List<RetentionPolicy.Version> versions = new RetentionPolicy(1, 0).selectVersionsToDelete(repository, new HashSet<String>(Arrays.asList("a2", "unknown")), System.currentTimeMillis());
+		assertEquals("a1,a3", _ids(versions));
+	}
+
+	@Test
+	public void testDropsOldTimestampVersions() {
+		long now = System.currentTimeMillis();
+		SimpleDateFormat format = new SimpleDateFormat(Deploy.TIMESTAMP_VERSION_FORMAT);
+		String old = format.format(now - 40 * DAY_MS);
+		String recent = format.format(now - 2 * DAY_MS);
+
+		Map<String, Map<String, String>> repository = new LinkedHashMap<String, Map<String, String>>();
+		repository.put("app", _versions("1.0", "a1", old, "a2", recent, "a3"));
+
+		// the untimed version is kept, its age is unknown
+		assertEquals("a2", _ids(new RetentionPolicy(0, 30).selectVersionsToDelete(repository, Collections.<String> emptySet(), now)));
+		// the versions mix both kinds of names, none is deleted for not being one of the last
+		assertEquals("a2", _ids(new RetentionPolicy(1, 30).selectVersionsToDelete(repository, Collections.<String> emptySet(), now)));
+		assertEquals("", _ids(new RetentionPolicy(0, 30).selectVersionsToDelete(repository, Collections.singleton("a2"), now)));
+	}
+
+	@Test
+	public void testVersionTime() throws Exception {
+		assertEquals(new SimpleDateFormat(Deploy.TIMESTAMP_VERSION_FORMAT).parse("10-16-2026-09:30:00").getTime(), RetentionPolicy.versionTime("10-16-2026-09:30:00"));
+		assertEquals(-1, RetentionPolicy.versionTime("1.0.0"));
+		assertEquals(-1, RetentionPolicy.versionTime("10-16-2026-09:30:00-SNAPSHOT"));
+		assertEquals(-1, RetentionPolicy.versionTime("13-45-2026-09:30:00"));
+	}
+}
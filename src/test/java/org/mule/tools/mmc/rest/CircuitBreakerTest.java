@@ -0,0 +1,74 @@
+package org.mule.tools.mmc.rest;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+	@Test
+	public void testOpensAfterConsecutiveFailures() throws Exception {
+		CircuitBreaker circuitBreaker = new CircuitBreaker(3, 60000);
+
+		for (int i = 0; i < 2; i++) {
+			circuitBreaker.acquire();
+			circuitBreaker.onFailure();
+		}
+		circuitBreaker.acquire();
+		circuitBreaker.onSuccess();
+		assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+		for (int i = 0; i < 3; i++) {
+			circuitBreaker.acquire();
+			circuitBreaker.onFailure();
+		}
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+		assertEquals(1, circuitBreaker.getOpenedCount());
+
+		try {
+			circuitBreaker.acquire();
+			Assert.fail("Exception should have been thrown");
+		} catch (CircuitBreakerOpenException e) {
+			assertEquals(1, circuitBreaker.getRejectedCount());
+		}
+	}
+
+	@Test
+	public void testTrialCallClosesOrReopens() throws Exception {
+		CircuitBreaker circuitBreaker = new CircuitBreaker(1, 10);
+		circuitBreaker.acquire();
+		circuitBreaker.onFailure();
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+		Thread.sleep(20);
+		circuitBreaker.acquire();
+		assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+		try {
+			circuitBreaker.acquire();
+			Assert.fail("Only one trial call at a time");
+		} catch (CircuitBreakerOpenException e) {
+			// expected
+		}
+		circuitBreaker.onFailure();
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+		Thread.sleep(20);
+		circuitBreaker.acquire();
+		circuitBreaker.onSuccess();
+		assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+		assertEquals(2, circuitBreaker.getOpenedCount());
+		assertEquals(2, circuitBreaker.getHalfOpenedCount());
+		assertEquals(1, circuitBreaker.getClosedCount());
+	}
+
+	@Test
+	public void testDisabled() throws Exception {
+		CircuitBreaker circuitBreaker = new CircuitBreaker(0, 60000);
+		for (int i = 0; i < 100; i++) {
+			circuitBreaker.acquire();
+			circuitBreaker.onFailure();
+		}
+		assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+	}
+}
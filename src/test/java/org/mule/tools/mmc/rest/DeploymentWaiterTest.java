@@ -0,0 +1,209 @@
+package org.mule.tools.mmc.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+public class DeploymentWaiterTest {
+
+	private static DeploymentState state(DeploymentStatus status) {
+		DeploymentState deploymentState = new DeploymentState();
+		deploymentState.status = status;
+		return deploymentState;
+	}
+
+	@Test
+	public void testWaitsUntilNotInProgress() throws Exception {
+		MuleRest muleRest = mock(MuleRest.class);
+		when(muleRest.restfullyGetDeploymentState("1234")).thenReturn(state(DeploymentStatus.IN_PROGRESS), state(DeploymentStatus.IN_PROGRESS), state(DeploymentStatus.DEPLOYED));
+
+		DeploymentWaiter deploymentWaiter = new DeploymentWaiter(muleRest, new FixedPollingStrategy(1));
+		DeploymentState deploymentState = deploymentWaiter.waitForDeployment("1234", 10000);
+
+		assertEquals(DeploymentStatus.DEPLOYED, deploymentState.status);
+		assertEquals(3, deploymentWaiter.getPollCount("1234"));
+		assertEquals(3, deploymentWaiter.getTotalPolls());
+	}
+
+	@Test
+	public void testReturnsFailedState() throws Exception {
+		MuleRest muleRest = mock(MuleRest.class);
+		when(muleRest.restfullyGetDeploymentState("1234")).thenReturn(state(DeploymentStatus.FAILED));
+
+		DeploymentWaiter deploymentWaiter = new DeploymentWaiter(muleRest, new FixedPollingStrategy(1));
+
+		assertEquals(DeploymentStatus.FAILED, deploymentWaiter.waitForDeployment("1234", 10000).status);
+		assertEquals(1, deploymentWaiter.getPollCount("1234"));
+	}
+
+	@Test(expected = TimeoutException.class)
+	public void testTimeout() throws Exception {
+		MuleRest muleRest = mock(MuleRest.class);
+		when(muleRest.restfullyGetDeploymentState("1234")).thenReturn(state(DeploymentStatus.IN_PROGRESS));
+
+		new DeploymentWaiter(muleRest, new FixedPollingStrategy(5)).waitForDeployment("1234", 50);
+	}
+
+	@Test
+	public void testBatchWaitsFromOneListing() throws Exception {
+		Map<String, DeploymentState> inProgress = new HashMap<String, DeploymentState>();
+		inProgress.put("1", state(DeploymentStatus.IN_PROGRESS));
+		inProgress.put("2", state(DeploymentStatus.IN_PROGRESS));
+		Map<String, DeploymentState> done = new HashMap<String, DeploymentState>();
+		done.put("1", state(DeploymentStatus.DEPLOYED));
+		done.put("2", state(DeploymentStatus.FAILED));
+
+		MuleRest muleRest = mock(MuleRest.class);
+		when(muleRest.restfullyGetDeploymentStates(any(Collection.class))).thenReturn(inProgress, done);
+
+		final BatchDeploymentWaiter deploymentWaiter = new BatchDeploymentWaiter(muleRest, new FixedPollingStrategy(50));
+		try {
+			ExecutorService executor = Executors.newFixedThreadPool(2);
+			List<Future<DeploymentState>> futures = new ArrayList<Future<DeploymentState>>();
+			for (final String deploymentId : Arrays.asList("1", "2")) {
+				futures.add(executor.submit(new Callable<DeploymentState>() {
+					@Override
+					public DeploymentState call() throws Exception {
+						return deploymentWaiter.waitForDeployment(deploymentId, 10000);
+					}
+				}));
+			}
+			executor.shutdown();
+
+			assertEquals(DeploymentStatus.DEPLOYED, futures.get(0).get().status);
+			assertEquals(DeploymentStatus.FAILED, futures.get(1).get().status);
+		} finally {
+			deploymentWaiter.close();
+		}
+		verify(muleRest, never()).restfullyGetDeploymentState(anyString());
+		assertTrue(deploymentWaiter.getTotalPolls() <= 3);
+	}
+
+	@Test
+	public void testBatchPollsMissingDeploymentsOneByOne() throws Exception {
+		MuleRest muleRest = mock(MuleRest.class);
+		when(muleRest.restfullyGetDeploymentStates(any(Collection.class))).thenReturn(new HashMap<String, DeploymentState>());
+		when(muleRest.restfullyGetDeploymentState("1234")).thenReturn(state(DeploymentStatus.DEPLOYED));
+
+		BatchDeploymentWaiter deploymentWaiter = new BatchDeploymentWaiter(muleRest, new FixedPollingStrategy(1));
+		try {
+			assertEquals(DeploymentStatus.DEPLOYED, deploymentWaiter.waitForDeployment("1234", 10000).status);
+			assertEquals(2, deploymentWaiter.getTotalPolls());
+			// the count is dropped once the deployment completes
+			assertEquals(0, deploymentWaiter.getPollCount("1234"));
+		} finally {
+			deploymentWaiter.close();
+		}
+	}
+
+	@Test
+	public void testBatchFailsOnlyTheDeploymentWhosePollFailed() throws Exception {
+		Map<String, DeploymentState> listing = new HashMap<String, DeploymentState>();
+		listing.put("1", state(DeploymentStatus.DEPLOYED));
+		MuleRest muleRest = mock(MuleRest.class);
+		when(muleRest.restfullyGetDeploymentStates(any(Collection.class))).thenReturn(listing);
+		when(muleRest.restfullyGetDeploymentState("2")).thenThrow(new IOException("404 Not Found"));
+
+		final BatchDeploymentWaiter deploymentWaiter = new BatchDeploymentWaiter(muleRest, new FixedPollingStrategy(50));
+		try {
+			ExecutorService executor = Executors.newFixedThreadPool(2);
+			List<Future<DeploymentState>> futures = new ArrayList<Future<DeploymentState>>();
+			for (final String deploymentId : Arrays.asList("1", "2")) {
+				futures.add(executor.submit(new Callable<DeploymentState>() {
+					@Override
+					public DeploymentState call() throws Exception {
+						return deploymentWaiter.waitForDeployment(deploymentId, 10000);
+					}
+				}));
+			}
+			executor.shutdown();
+
+			assertEquals(DeploymentStatus.DEPLOYED, futures.get(0).get().status);
+			try {
+				futures.get(1).get();
+				fail("The deployment missing from the listing should have failed");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof IOException);
+			}
+		} finally {
+			deploymentWaiter.close();
+		}
+	}
+
+	@Test
+	public void testBatchPollsAgainWhenTheListingFails() throws Exception {
+		Map<String, DeploymentState> done = new HashMap<String, DeploymentState>();
+		done.put("1234", state(DeploymentStatus.DEPLOYED));
+		MuleRest muleRest = mock(MuleRest.class);
+		when(muleRest.restfullyGetDeploymentStates(any(Collection.class))).thenThrow(new IOException("503 Service Unavailable")).thenReturn(done);
+
+		BatchDeploymentWaiter deploymentWaiter = new BatchDeploymentWaiter(muleRest, new FixedPollingStrategy(1));
+		try {
+			assertEquals(DeploymentStatus.DEPLOYED, deploymentWaiter.waitForDeployment("1234", 10000).status);
+			assertEquals(2, deploymentWaiter.getTotalPolls());
+		} finally {
+			deploymentWaiter.close();
+		}
+		verify(muleRest, never()).restfullyGetDeploymentState(anyString());
+	}
+
+	@Test(expected = TimeoutException.class)
+	public void testBatchTimeout() throws Exception {
+		Map<String, DeploymentState> inProgress = new HashMap<String, DeploymentState>();
+		inProgress.put("1234", state(DeploymentStatus.IN_PROGRESS));
+		MuleRest muleRest = mock(MuleRest.class);
+		when(muleRest.restfullyGetDeploymentStates(any(Collection.class))).thenReturn(inProgress);
+
+		BatchDeploymentWaiter deploymentWaiter = new BatchDeploymentWaiter(muleRest, new FixedPollingStrategy(5));
+		try {
+			deploymentWaiter.waitForDeployment("1234", 50);
+		} finally {
+			deploymentWaiter.close();
+		}
+	}
+
+	@Test
+	public void testExponentialBackoff() {
+		PollingStrategy pollingStrategy = new ExponentialBackoffPollingStrategy(100, 1000, 2.0, 0);
+
+		assertEquals(100, pollingStrategy.nextDelayMs(1));
+		assertEquals(200, pollingStrategy.nextDelayMs(2));
+		assertEquals(400, pollingStrategy.nextDelayMs(3));
+		assertEquals(800, pollingStrategy.nextDelayMs(4));
+		assertEquals(1000, pollingStrategy.nextDelayMs(5));
+		assertEquals(1000, pollingStrategy.nextDelayMs(50));
+	}
+
+	@Test
+	public void testExponentialBackoffJitter() {
+		PollingStrategy pollingStrategy = new ExponentialBackoffPollingStrategy(100, 1000, 2.0, 0.5);
+
+		for (int i = 0; i < 100; i++) {
+			long delayMs = pollingStrategy.nextDelayMs(2);
+			assertTrue(delayMs >= 100 && delayMs <= 300);
+			assertTrue(pollingStrategy.nextDelayMs(10) <= 1000);
+		}
+	}
+}
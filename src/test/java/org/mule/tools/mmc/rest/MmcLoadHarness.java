@@ -0,0 +1,244 @@
+package org.mule.tools.mmc.rest;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drives concurrent deploy pipelines against an {@link MmcSimulator} and
+ * reports the throughput and the deploy latency percentiles.
+ *
+ * Each pipeline loops over the calls of the deploy goal: upload of the
+ * archive, creation of the deployment on the server of the pipeline, deploy
+ * and wait for the DEPLOYED state. The pipelines share one {@link MuleRest}
+ * and one {@link BatchDeploymentWaiter}, as the goals deploying several
+ * archives do. Run with:
+ *
+ * <pre>
+ * mvn -Pload test-compile exec:exec [-Dload.args="pipelines=32 deploymentsPerPipeline=20 latencyMs=20"]
+ * </pre>
+ *
+ * The arguments are the public fields of {@link Settings}.
+ */
+public class MmcLoadHarness {
+	private static final Logger _logger = LoggerFactory.getLogger(MmcLoadHarness.class);
+
+	/**
+	 * Shape of the load and behavior of the simulated MMC
+	 */
+	public static class Settings {
+		public int pipelines = 4;
+		public int deploymentsPerPipeline = 5;
+		public int archiveBytes = 64 * 1024;
+		public long latencyMs = 5;
+		public long uploadBytesPerSecond = 0;
+		public double errorRate = 0;
+		public long deployDurationMs = 50;
+		public long pollingDelayMs = 20;
+		public long timeoutMs = 60000;
+		public boolean entityTags = true;
+
+		/**
+		 * Reads settings given as <code>name=value</code> arguments, the
+		 * missing ones keeping their default value
+		 *
+		 * @param args
+		 * @return
+		 */
+		public static Settings parse(String... args) {
+			Settings settings = new Settings();
+			for (String arg : args) {
+				int separator = arg.indexOf('=');
+				if (separator <= 0) {
+					throw new IllegalArgumentException("Expected name=value, got \"" + arg + "\"");
+				}
+				settings._set(arg.substring(0, separator).trim(), arg.substring(separator + 1).trim());
+			}
+			return settings;
+		}
+
+		private void _set(String name, String value) {
+			try {
+				Field field = Settings.class.getField(name);
+				if (field.getType() == int.class) {
+					field.setInt(this, Integer.parseInt(value));
+				} else if (field.getType() == long.class) {
+					field.setLong(this, Long.parseLong(value));
+				} else if (field.getType() == boolean.class) {
+					field.setBoolean(this, Boolean.parseBoolean(value));
+				} else {
+					field.setDouble(this, Double.parseDouble(value));
+				}
+			} catch (NoSuchFieldException e) {
+				throw new IllegalArgumentException("Unknown setting \"" + name + "\"");
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	/**
+	 * Outcome of a run
+	 */
+	public static class Result {
+		public int deployments;
+		public int failures;
+		public long durationMs;
+		public long requests;
+		public long retries;
+		public long sentBytes;
+		public long notModified;
+		/**
+		 * Latencies of the successful deployments, sorted
+		 */
+		public List<Long> latenciesMs = new ArrayList<Long>();
+
+		/**
+		 * @return Successful deployments per second
+		 */
+		public double getThroughputPerSecond() {
+			return durationMs == 0 ? 0 : (deployments - failures) * 1000.0 / durationMs;
+		}
+
+		/**
+		 * @param percentile
+		 *            Between 0 and 100
+		 * @return Latency in ms of the successful deployments at the
+		 *         percentile, 0 if none succeeded
+		 */
+		public long getPercentileMs(double percentile) {
+			if (latenciesMs.isEmpty()) {
+				return 0;
+			}
+			int rank = (int) Math.ceil(latenciesMs.size() * percentile / 100.0);
+			return latenciesMs.get(Math.max(rank, 1) - 1);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d deployments, %d failed, in %d ms: %.1f deployments/s, p50 %d ms, p99 %d ms, %d requests, %d retries, %d response bytes, %d not modified", deployments, failures, durationMs, getThroughputPerSecond(), getPercentileMs(50), getPercentileMs(99), requests, retries, sentBytes, notModified);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		Settings settings = Settings.parse(args);
+		_logger.info("Load settings: " + Arrays.toString(args));
+		run(settings);
+	}
+
+	/**
+	 * Starts a simulator, runs the pipelines against it and stops it
+	 *
+	 * @param settings
+	 * @return
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public static Result run(final Settings settings) throws IOException, InterruptedException {
+		final File archive = File.createTempFile("MmcLoadHarness", ".zip");
+		archive.deleteOnExit();
+		byte[] content = new byte[settings.archiveBytes];
+		new Random(0).nextBytes(content);
+		try (FileOutputStream outputStream = new FileOutputStream(archive)) {
+			outputStream.write(content);
+		}
+
+		final Result result = new Result();
+		final List<Long> latenciesMs = Collections.synchronizedList(new ArrayList<Long>());
+		final AtomicInteger failures = new AtomicInteger();
+
+		try (MmcSimulator simulator = new MmcSimulator().start()) {
+			simulator.setLatencyMs(settings.latencyMs).setUploadBytesPerSecond(settings.uploadBytesPerSecond).setErrorRate(settings.errorRate).setDeployDurationMs(settings.deployDurationMs).setEntityTags(settings.entityTags);
+			for (int pipeline = 0; pipeline < settings.pipelines; pipeline++) {
+				simulator.addServer("load-server-" + pipeline, "load-group");
+			}
+
+			// one connection per pipeline and one for the waiter
+			final MuleRest muleRest = new MuleRest(simulator.getUrl(), "admin", "admin", settings.pipelines + 1, WebClientPool.DEFAULT_IDLE_TIMEOUT_MS);
+			final DeploymentWaiter waiter = new BatchDeploymentWaiter(muleRest, new FixedPollingStrategy(settings.pollingDelayMs));
+			ExecutorService executor = Executors.newFixedThreadPool(settings.pipelines);
+			long startTime = System.currentTimeMillis();
+			try {
+				for (int pipeline = 0; pipeline < settings.pipelines; pipeline++) {
+					final int pipelineIndex = pipeline;
+					executor.execute(new Runnable() {
+						@Override
+						public void run() {
+							for (int i = 0; i < settings.deploymentsPerPipeline; i++) {
+								long deployStartTime = System.nanoTime();
+								if (_deploy(muleRest, waiter, archive, pipelineIndex, i, settings.timeoutMs)) {
+									latenciesMs.add((System.nanoTime() - deployStartTime) / 1000000L);
+								} else {
+									failures.incrementAndGet();
+								}
+							}
+						}
+					});
+				}
+				executor.shutdown();
+				if (!executor.awaitTermination(settings.timeoutMs * settings.deploymentsPerPipeline, TimeUnit.MILLISECONDS)) {
+					executor.shutdownNow();
+					throw new IOException("Load run did not finish in time");
+				}
+			} finally {
+				result.durationMs = System.currentTimeMillis() - startTime;
+				waiter.close();
+				muleRest.close();
+			}
+
+			result.deployments = settings.pipelines * settings.deploymentsPerPipeline;
+			result.failures = failures.get();
+			result.requests = simulator.getRequestCount();
+			result.retries = muleRest.getRetryCount();
+			result.sentBytes = simulator.getSentBytes();
+			result.notModified = simulator.getNotModifiedCount();
+		} finally {
+			archive.delete();
+		}
+
+		result.latenciesMs.addAll(latenciesMs);
+		Collections.sort(result.latenciesMs);
+		_logger.info("Load run: " + result);
+		return result;
+	}
+
+	/**
+	 * Runs one pipeline iteration
+	 *
+	 * @return true if the deployment reached the DEPLOYED state
+	 */
+	private static boolean _deploy(MuleRest muleRest, DeploymentWaiter waiter, File archive, int pipeline, int iteration, long timeoutMs) {
+		String name = "load-app-" + pipeline;
+		try {
+			String versionId = muleRest.restfullyUploadRepository(name, "1." + iteration, archive);
+			String deploymentId = muleRest.restfullyCreateDeployment("load-server-" + pipeline, name, versionId);
+			muleRest.restfullyDeployDeploymentById(deploymentId);
+			DeploymentState state = waiter.waitForDeployment(deploymentId, timeoutMs);
+			if (state.status != DeploymentStatus.DEPLOYED) {
+				_logger.warn("Deployment \"" + name + "\" ended in state " + state.status);
+				return false;
+			}
+			return true;
+		} catch (IOException | TimeoutException e) {
+			_logger.warn("Deployment \"" + name + "\" failed: " + e.getMessage());
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+}
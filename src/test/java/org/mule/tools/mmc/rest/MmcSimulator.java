@@ -0,0 +1,733 @@
+package org.mule.tools.mmc.rest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Stateful stand-in of the MMC REST API, for tests and load runs.
+ *
+ * The servers, server groups, repository and deployments live in memory:
+ * uploads add application versions to the repository, deployments are created
+ * UNDEPLOYED, are IN_PROGRESS once deployed and DEPLOYED when the deploy
+ * duration has elapsed. The latency of every request, the bandwidth of the
+ * uploads and a rate of injected 500 errors can be set to reproduce a slow or
+ * flaky console.
+ *
+ * The GET responses carry an ETag computed from their body, and a GET whose
+ * If-None-Match header holds the current ETag is answered 304 Not Modified
+ * without a body, unless the entity tags are disabled. They can also carry a
+ * Last-Modified date, of one second resolution like the real console, the
+ * time the simulator first sent their current body, a GET whose
+ * If-Modified-Since header is not older than that second being answered 304.
+ *
+ * The listings honour the {@value MuleRest#OFFSET_PARAMETER} and
+ * {@value MuleRest#LIMIT_PARAMETER} query parameters, unless the paging is
+ * disabled to reproduce a console sending whole listings.
+ */
+public class MmcSimulator implements Closeable {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+	private static final Pattern MULTIPART_FIELD = Pattern.compile("Content-Disposition: form-data; name=\"([^\"]+)\"\r\n\r\n([^\r\n]*)");
+	private static final String MULTIPART_FILE = "Content-Disposition: form-data; name=\"file\"; filename=";
+	private static final int BUFFER_SIZE = 8 * 1024;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final Map<String, Server> servers = new LinkedHashMap<String, Server>();
+	private final Map<String, String> groupIdsByName = new LinkedHashMap<String, String>();
+	private final Map<String, Map<String, String>> versionIdsByApplication = new LinkedHashMap<String, Map<String, String>>();
+	private final Map<String, Deployment> deployments = new LinkedHashMap<String, Deployment>();
+	private final Map<String, Integer> bodyHashesByUri = new HashMap<String, Integer>();
+	private final Map<String, Long> modifiedTimesByUri = new HashMap<String, Long>();
+
+	private final AtomicLong nextId = new AtomicLong();
+	private final AtomicLong requestCount = new AtomicLong();
+	private final AtomicLong injectedErrorCount = new AtomicLong();
+	private final AtomicLong uploadedBytes = new AtomicLong();
+	private final AtomicLong sentBytes = new AtomicLong();
+	private final AtomicLong notModifiedCount = new AtomicLong();
+
+	private volatile long latencyMs;
+	private volatile long uploadBytesPerSecond;
+	private volatile double errorRate;
+	private volatile long deployDurationMs;
+	private volatile boolean entityTags = true;
+	private volatile boolean lastModified;
+	private volatile boolean paging = true;
+
+	private HttpServer httpServer;
+	private ExecutorService executor;
+
+	private static class Server {
+		final String id;
+		final List<String> groupNames = new ArrayList<String>();
+
+		Server(String id) {
+			this.id = id;
+		}
+	}
+
+	private static class Deployment {
+		final String id;
+		final String name;
+		final List<String> targetIds;
+		final List<String> versionIds;
+		long deployTime = -1;
+
+		Deployment(String id, String name, List<String> targetIds, List<String> versionIds) {
+			this.id = id;
+			this.name = name;
+			this.targetIds = targetIds;
+			this.versionIds = versionIds;
+		}
+	}
+
+	/**
+	 * Response of the simulator
+	 */
+	private static class Reply {
+		final int statusCode;
+		final String body;
+
+		Reply(int statusCode, String body) {
+			this.statusCode = statusCode;
+			this.body = body;
+		}
+	}
+
+	/**
+	 * Starts listening on a free port of the loopback interface
+	 *
+	 * @return this simulator
+	 * @throws IOException
+	 */
+	public MmcSimulator start() throws IOException {
+		executor = Executors.newCachedThreadPool();
+		httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		httpServer.setExecutor(executor);
+		httpServer.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				_handle(exchange);
+			}
+		});
+		httpServer.start();
+		return this;
+	}
+
+	/**
+	 * Stops listening, the requests in progress are dropped
+	 */
+	@Override
+	public void close() {
+		if (httpServer != null) {
+			httpServer.stop(0);
+			executor.shutdownNow();
+			httpServer = null;
+		}
+	}
+
+	/**
+	 * @return Base URL of the simulated API, to give to {@link MuleRest}
+	 */
+	public URL getUrl() throws IOException {
+		return new URL("http://127.0.0.1:" + httpServer.getAddress().getPort());
+	}
+
+	/**
+	 * Adds a server, the groups being created on first use
+	 *
+	 * @param name
+	 * @param groupNames
+	 * @return The id of the server
+	 */
+	public synchronized String addServer(String name, String... groupNames) {
+		Server server = new Server(_newId());
+		for (String groupName : groupNames) {
+			if (!groupIdsByName.containsKey(groupName)) {
+				groupIdsByName.put(groupName, _newId());
+			}
+			server.groupNames.add(groupName);
+		}
+		servers.put(name, server);
+		return server.id;
+	}
+
+	/**
+	 * @param latencyMs
+	 *            Time spent by the simulator before handling each request
+	 * @return this simulator
+	 */
+	public MmcSimulator setLatencyMs(long latencyMs) {
+		this.latencyMs = latencyMs;
+		return this;
+	}
+
+	/**
+	 * @param uploadBytesPerSecond
+	 *            Rate at which the uploads are read, 0 or less for no limit
+	 * @return this simulator
+	 */
+	public MmcSimulator setUploadBytesPerSecond(long uploadBytesPerSecond) {
+		this.uploadBytesPerSecond = uploadBytesPerSecond;
+		return this;
+	}
+
+	/**
+	 * @param errorRate
+	 *            Fraction of the requests failing with a 500 status without
+	 *            being handled, between 0 and 1
+	 * @return this simulator
+	 */
+	public MmcSimulator setErrorRate(double errorRate) {
+		this.errorRate = errorRate;
+		return this;
+	}
+
+	/**
+	 * @param deployDurationMs
+	 *            Time a deployment stays IN_PROGRESS after being deployed
+	 * @return this simulator
+	 */
+	public MmcSimulator setDeployDurationMs(long deployDurationMs) {
+		this.deployDurationMs = deployDurationMs;
+		return this;
+	}
+
+	/**
+	 * @param entityTags
+	 *            false to answer the GETs without ETag, as a console not
+	 *            supporting conditional requests
+	 * @return this simulator
+	 */
+	public MmcSimulator setEntityTags(boolean entityTags) {
+		this.entityTags = entityTags;
+		return this;
+	}
+
+	/**
+	 * @param lastModified
+	 *            true to answer the GETs with a Last-Modified date and honour
+	 *            If-Modified-Since
+	 * @return this simulator
+	 */
+	public MmcSimulator setLastModified(boolean lastModified) {
+		this.lastModified = lastModified;
+		return this;
+	}
+
+	/**
+	 * @param paging
+	 *            false to ignore the paging parameters of the listings
+	 * @return this simulator
+	 */
+	public MmcSimulator setPaging(boolean paging) {
+		this.paging = paging;
+		return this;
+	}
+
+	/**
+	 * @return Number of requests received, injected errors included
+	 */
+	public long getRequestCount() {
+		return requestCount.get();
+	}
+
+	/**
+	 * @return Number of requests answered with an injected error
+	 */
+	public long getInjectedErrorCount() {
+		return injectedErrorCount.get();
+	}
+
+	/**
+	 * @return Number of bytes received by the uploads
+	 */
+	public long getUploadedBytes() {
+		return uploadedBytes.get();
+	}
+
+	/**
+	 * @return Number of bytes of response bodies sent
+	 */
+	public long getSentBytes() {
+		return sentBytes.get();
+	}
+
+	/**
+	 * @return Number of GETs answered 304 Not Modified
+	 */
+	public long getNotModifiedCount() {
+		return notModifiedCount.get();
+	}
+
+	/**
+	 * @param name
+	 * @param version
+	 * @return The id of the application version or null if not in the
+	 *         repository
+	 */
+	public synchronized String getVersionId(String name, String version) {
+		Map<String, String> versionIds = versionIdsByApplication.get(name);
+		return versionIds == null ? null : versionIds.get(version);
+	}
+
+	/**
+	 * @return Number of deployments, whatever their state
+	 */
+	public synchronized int getDeploymentCount() {
+		return deployments.size();
+	}
+
+	/**
+	 * @param deploymentId
+	 * @return The current state of the deployment or null if it does not exist
+	 */
+	public synchronized DeploymentStatus getDeploymentStatus(String deploymentId) {
+		Deployment deployment = deployments.get(deploymentId);
+		return deployment == null ? null : _status(deployment);
+	}
+
+	private void _handle(HttpExchange exchange) throws IOException {
+		try {
+			requestCount.incrementAndGet();
+			_sleep(latencyMs);
+
+			Reply reply;
+			if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+				injectedErrorCount.incrementAndGet();
+				_readBody(exchange.getRequestBody(), 0);
+				reply = new Reply(500, "Injected error");
+			} else {
+				reply = _route(exchange.getRequestMethod(), _paths(exchange.getRequestURI().getPath()), exchange);
+			}
+
+			byte[] body = reply.body.getBytes(UTF_8);
+			if (entityTags && reply.statusCode == 200 && "GET".equals(exchange.getRequestMethod())) {
+				String entityTag = "\"" + Integer.toHexString(reply.body.hashCode()) + "-" + Integer.toHexString(body.length) + "\"";
+				exchange.getResponseHeaders().set("ETag", entityTag);
+				if (entityTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+					notModifiedCount.incrementAndGet();
+					exchange.sendResponseHeaders(304, -1);
+					return;
+				}
+			}
+			if (lastModified && reply.statusCode == 200 && "GET".equals(exchange.getRequestMethod())) {
+				long modifiedTime = _modifiedTime(exchange.getRequestURI().toString(), reply.body) / 1000 * 1000;
+				exchange.getResponseHeaders().set("Date", _httpDate(System.currentTimeMillis()));
+				exchange.getResponseHeaders().set("Last-Modified", _httpDate(modifiedTime));
+				Long ifModifiedSince = _parseHttpDate(exchange.getRequestHeaders().getFirst("If-Modified-Since"));
+				if (ifModifiedSince != null && modifiedTime <= ifModifiedSince) {
+					notModifiedCount.incrementAndGet();
+					exchange.sendResponseHeaders(304, -1);
+					return;
+				}
+			}
+			exchange.getResponseHeaders().set("Content-Type", reply.statusCode < 300 ? "application/json" : "text/plain");
+			sentBytes.addAndGet(body.length);
+			exchange.sendResponseHeaders(reply.statusCode, body.length == 0 ? -1 : body.length);
+			if (body.length > 0) {
+				try (OutputStream outputStream = exchange.getResponseBody()) {
+					outputStream.write(body);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * @return The time the given body of the resource was first sent
+	 */
+	private synchronized long _modifiedTime(String uri, String body) {
+		Integer bodyHash = body.hashCode();
+		Long modifiedTime = modifiedTimesByUri.get(uri);
+		if (modifiedTime == null || !bodyHash.equals(bodyHashesByUri.get(uri))) {
+			modifiedTime = System.currentTimeMillis();
+			bodyHashesByUri.put(uri, bodyHash);
+			modifiedTimesByUri.put(uri, modifiedTime);
+		}
+		return modifiedTime;
+	}
+
+	private static String _httpDate(long time) {
+		return _httpDateFormat().format(new Date(time));
+	}
+
+	private static Long _parseHttpDate(String value) {
+		if (value == null) {
+			return null;
+		}
+		try {
+			return _httpDateFormat().parse(value).getTime();
+		} catch (ParseException e) {
+			return null;
+		}
+	}
+
+	private static SimpleDateFormat _httpDateFormat() {
+		SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+		format.setTimeZone(TimeZone.getTimeZone("GMT"));
+		return format;
+	}
+
+	private Reply _route(String method, String[] paths, HttpExchange exchange) throws IOException, InterruptedException {
+		String resource = paths.length > 0 ? paths[0] : "";
+		int[] range = _range(exchange.getRequestURI().getQuery());
+		if (paths.length == 1 && "GET".equals(method) && "servers".equals(resource)) {
+			return new Reply(200, _serversJson(range));
+		} else if (paths.length == 1 && "GET".equals(method) && "serverGroups".equals(resource)) {
+			return new Reply(200, _serverGroupsJson(range));
+		} else if (paths.length == 1 && "GET".equals(method) && "repository".equals(resource)) {
+			return new Reply(200, _repositoryJson(range));
+		} else if (paths.length == 1 && "POST".equals(method) && "repository".equals(resource)) {
+			return _upload(_readBody(exchange.getRequestBody(), uploadBytesPerSecond));
+		} else if (paths.length == 2 && "DELETE".equals(method) && "repository".equals(resource)) {
+			return _deleteVersion(paths[1]);
+		} else if (paths.length == 1 && "GET".equals(method) && "deployments".equals(resource)) {
+			return new Reply(200, _deploymentsJson(range));
+		} else if (paths.length == 1 && "POST".equals(method) && "deployments".equals(resource)) {
+			return _createDeployment(objectMapper.readTree(new String(_readBody(exchange.getRequestBody(), 0), UTF_8)));
+		} else if (paths.length == 2 && "GET".equals(method) && "deployments".equals(resource)) {
+			return _deploymentJson(paths[1]);
+		} else if (paths.length == 2 && "DELETE".equals(method) && "deployments".equals(resource)) {
+			return _deleteDeployment(paths[1]);
+		} else if (paths.length == 3 && "POST".equals(method) && "deployments".equals(resource) && "deploy".equals(paths[2])) {
+			return _deploy(paths[1]);
+		}
+		return new Reply(404, "No such resource");
+	}
+
+	/**
+	 * Reads the paging parameters of a query
+	 *
+	 * @return The offset and limit of the requested page, the limit being
+	 *         negative for the whole listing
+	 */
+	private int[] _range(String query) {
+		int[] range = { 0, -1 };
+		if (!paging || query == null) {
+			return range;
+		}
+		for (String parameter : query.split("&")) {
+			String[] nameAndValue = parameter.split("=", 2);
+			if (nameAndValue.length == 2 && MuleRest.OFFSET_PARAMETER.equals(nameAndValue[0])) {
+				range[0] = Integer.parseInt(nameAndValue[1]);
+			} else if (nameAndValue.length == 2 && MuleRest.LIMIT_PARAMETER.equals(nameAndValue[0])) {
+				range[1] = Integer.parseInt(nameAndValue[1]);
+			}
+		}
+		return range;
+	}
+
+	/**
+	 * @return The elements of the requested page
+	 */
+	private static <T> List<T> _page(Collection<T> elements, int[] range) {
+		List<T> list = new ArrayList<T>(elements);
+		int fromIndex = Math.min(range[0], list.size());
+		int toIndex = range[1] < 0 ? list.size() : Math.min(fromIndex + range[1], list.size());
+		return list.subList(fromIndex, toIndex);
+	}
+
+	private synchronized String _serversJson(int[] range) throws IOException {
+		StringWriter stringWriter = new StringWriter();
+		JsonGenerator generator = _startListing(stringWriter, servers.size());
+		for (Map.Entry<String, Server> server : _page(servers.entrySet(), range)) {
+			generator.writeStartObject();
+			generator.writeStringField("name", server.getKey());
+			generator.writeStringField("id", server.getValue().id);
+			generator.writeArrayFieldStart("groups");
+			for (String groupName : server.getValue().groupNames) {
+				generator.writeStartObject();
+				generator.writeStringField("name", groupName);
+				generator.writeStringField("id", groupIdsByName.get(groupName));
+				generator.writeEndObject();
+			}
+			generator.writeEndArray();
+			generator.writeEndObject();
+		}
+		return _endListing(generator, stringWriter);
+	}
+
+	private synchronized String _serverGroupsJson(int[] range) throws IOException {
+		StringWriter stringWriter = new StringWriter();
+		JsonGenerator generator = _startListing(stringWriter, groupIdsByName.size());
+		for (Map.Entry<String, String> group : _page(groupIdsByName.entrySet(), range)) {
+			generator.writeStartObject();
+			generator.writeStringField("name", group.getKey());
+			generator.writeStringField("id", group.getValue());
+			generator.writeEndObject();
+		}
+		return _endListing(generator, stringWriter);
+	}
+
+	private synchronized String _repositoryJson(int[] range) throws IOException {
+		StringWriter stringWriter = new StringWriter();
+		JsonGenerator generator = _startListing(stringWriter, versionIdsByApplication.size());
+		for (Map.Entry<String, Map<String, String>> application : _page(versionIdsByApplication.entrySet(), range)) {
+			generator.writeStartObject();
+			generator.writeStringField("name", application.getKey());
+			generator.writeArrayFieldStart("versions");
+			for (Map.Entry<String, String> version : application.getValue().entrySet()) {
+				generator.writeStartObject();
+				generator.writeStringField("name", version.getKey());
+				generator.writeStringField("id", version.getValue());
+				generator.writeEndObject();
+			}
+			generator.writeEndArray();
+			generator.writeEndObject();
+		}
+		return _endListing(generator, stringWriter);
+	}
+
+	private synchronized String _deploymentsJson(int[] range) throws IOException {
+		StringWriter stringWriter = new StringWriter();
+		JsonGenerator generator = _startListing(stringWriter, deployments.size());
+		for (Deployment deployment : _page(deployments.values(), range)) {
+			_writeDeployment(generator, deployment);
+		}
+		return _endListing(generator, stringWriter);
+	}
+
+	private synchronized Reply _deploymentJson(String deploymentId) throws IOException {
+		Deployment deployment = deployments.get(deploymentId);
+		if (deployment == null) {
+			return new Reply(404, "No deployment with id " + deploymentId);
+		}
+		StringWriter stringWriter = new StringWriter();
+		JsonGenerator generator = MmcJson.JSON_FACTORY.createJsonGenerator(stringWriter);
+		_writeDeployment(generator, deployment);
+		generator.close();
+		return new Reply(200, stringWriter.toString());
+	}
+
+	private void _writeDeployment(JsonGenerator generator, Deployment deployment) throws IOException {
+		generator.writeStartObject();
+		generator.writeStringField("id", deployment.id);
+		generator.writeStringField("name", deployment.name);
+		generator.writeStringField("status", _status(deployment).name());
+		generator.writeStringField("href", "/deployments/" + deployment.id);
+		generator.writeBooleanField("reconciled", _status(deployment) == DeploymentStatus.DEPLOYED);
+		generator.writeArrayFieldStart("servers");
+		for (String targetId : deployment.targetIds) {
+			generator.writeString(targetId);
+		}
+		generator.writeEndArray();
+		generator.writeArrayFieldStart("applications");
+		for (String versionId : deployment.versionIds) {
+			generator.writeString(versionId);
+		}
+		generator.writeEndArray();
+		generator.writeEndObject();
+	}
+
+	private DeploymentStatus _status(Deployment deployment) {
+		if (deployment.deployTime < 0) {
+			return DeploymentStatus.UNDEPLOYED;
+		}
+		return System.currentTimeMillis() - deployment.deployTime < deployDurationMs ? DeploymentStatus.IN_PROGRESS : DeploymentStatus.DEPLOYED;
+	}
+
+	private Reply _upload(byte[] body) throws IOException {
+		uploadedBytes.addAndGet(body.length);
+
+		String text = new String(body, ISO_8859_1);
+		Map<String, String> fields = new LinkedHashMap<String, String>();
+		Matcher matcher = MULTIPART_FIELD.matcher(text);
+		while (matcher.find()) {
+			fields.put(matcher.group(1), new String(matcher.group(2).getBytes(ISO_8859_1), UTF_8));
+		}
+		String name = fields.get("name");
+		String version = fields.get("version");
+		if (name == null || version == null || !text.contains(MULTIPART_FILE)) {
+			return new Reply(400, "Expected the name, version and file fields");
+		}
+
+		String applicationId;
+		String versionId;
+		synchronized (this) {
+			Map<String, String> versionIds = versionIdsByApplication.get(name);
+			if (versionIds == null) {
+				versionIds = new LinkedHashMap<String, String>();
+				versionIdsByApplication.put(name, versionIds);
+			} else if (versionIds.containsKey(version)) {
+				return new Reply(409, "Version " + version + " of " + name + " already exists");
+			}
+			applicationId = "local$" + name;
+			versionId = _newId();
+			versionIds.put(version, versionId);
+		}
+		return new Reply(200, _object("applicationId", applicationId, "versionId", versionId));
+	}
+
+	private synchronized Reply _deleteVersion(String versionId) {
+		for (Map<String, String> versionIds : versionIdsByApplication.values()) {
+			if (versionIds.values().remove(versionId)) {
+				return new Reply(200, "");
+			}
+		}
+		return new Reply(404, "No application version with id " + versionId);
+	}
+
+	private synchronized Reply _createDeployment(JsonNode request) throws IOException {
+		String name = request.path("name").getTextValue();
+		List<String> targetIds = _texts(request.path("servers"));
+		List<String> versionIds = _texts(request.path("applications"));
+		if (name == null || targetIds.isEmpty() || versionIds.isEmpty()) {
+			return new Reply(400, "Expected a name, servers and applications");
+		}
+		for (Deployment deployment : deployments.values()) {
+			if (deployment.name.equals(name)) {
+				return new Reply(409, "Deployment " + name + " already exists");
+			}
+		}
+		for (String targetId : targetIds) {
+			if (!_isServerOrGroupId(targetId)) {
+				return new Reply(404, "No server or group with id " + targetId);
+			}
+		}
+
+		Deployment deployment = new Deployment(_newId(), name, targetIds, versionIds);
+		deployments.put(deployment.id, deployment);
+		return new Reply(200, _object("id", deployment.id));
+	}
+
+	private synchronized Reply _deleteDeployment(String deploymentId) {
+		if (deployments.remove(deploymentId) == null) {
+			return new Reply(404, "No deployment with id " + deploymentId);
+		}
+		return new Reply(200, "");
+	}
+
+	private synchronized Reply _deploy(String deploymentId) throws IOException {
+		Deployment deployment = deployments.get(deploymentId);
+		if (deployment == null) {
+			return new Reply(404, "No deployment with id " + deploymentId);
+		}
+		deployment.deployTime = System.currentTimeMillis();
+		return new Reply(200, _object("status", _status(deployment).name()));
+	}
+
+	private boolean _isServerOrGroupId(String id) {
+		if (groupIdsByName.containsValue(id)) {
+			return true;
+		}
+		for (Server server : servers.values()) {
+			if (server.id.equals(id)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static List<String> _texts(JsonNode array) {
+		List<String> texts = new ArrayList<String>();
+		for (int i = 0; i < array.size(); i++) {
+			texts.add(array.path(i).getTextValue());
+		}
+		return texts;
+	}
+
+	/**
+	 * Writes an object of string fields
+	 *
+	 * @param namesAndValues
+	 *            Name of the first field, its value, name of the second field...
+	 */
+	private static String _object(String... namesAndValues) throws IOException {
+		StringWriter stringWriter = new StringWriter();
+		JsonGenerator generator = MmcJson.JSON_FACTORY.createJsonGenerator(stringWriter);
+		generator.writeStartObject();
+		for (int i = 0; i < namesAndValues.length; i += 2) {
+			generator.writeStringField(namesAndValues[i], namesAndValues[i + 1]);
+		}
+		generator.writeEndObject();
+		generator.close();
+		return stringWriter.toString();
+	}
+
+	private static JsonGenerator _startListing(StringWriter stringWriter, int total) throws IOException {
+		JsonGenerator generator = MmcJson.JSON_FACTORY.createJsonGenerator(stringWriter);
+		generator.writeStartObject();
+		generator.writeNumberField("total", total);
+		generator.writeArrayFieldStart("data");
+		return generator;
+	}
+
+	private static String _endListing(JsonGenerator generator, StringWriter stringWriter) throws IOException {
+		generator.writeEndArray();
+		generator.writeEndObject();
+		generator.close();
+		return stringWriter.toString();
+	}
+
+	private static String[] _paths(String path) {
+		String trimmed = path.replaceAll("^/+|/+$", "");
+		return trimmed.isEmpty() ? new String[0] : trimmed.split("/+");
+	}
+
+	/**
+	 * Reads a request body, at most at the given rate if positive
+	 */
+	private static byte[] _readBody(InputStream inputStream, long bytesPerSecond) throws IOException, InterruptedException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[BUFFER_SIZE];
+		long startTime = System.nanoTime();
+		int read;
+		while ((read = inputStream.read(buffer)) != -1) {
+			body.write(buffer, 0, read);
+			if (bytesPerSecond > 0) {
+				long dueNanos = body.size() * 1000000000L / bytesPerSecond;
+				long aheadMs = (dueNanos - (System.nanoTime() - startTime)) / 1000000L;
+				_sleep(aheadMs);
+			}
+		}
+		return body.toByteArray();
+	}
+
+	private static void _sleep(long ms) throws InterruptedException {
+		if (ms > 0) {
+			Thread.sleep(ms);
+		}
+	}
+
+	private String _newId() {
+		return "local$" + nextId.incrementAndGet() + "-" + UUID.randomUUID();
+	}
+}
@@ -0,0 +1,200 @@
+package org.mule.tools.mmc.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import org.apache.cxf.transport.http.HTTPException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MmcSimulatorTest {
+
+	private MmcSimulator simulator;
+	private MuleRest muleRest;
+	private File archive;
+
+	@Before
+	public void setup() throws Exception {
+		simulator = new MmcSimulator().start();
+		muleRest = new MuleRest(simulator.getUrl(), "admin", "admin");
+		muleRest.setRetryPolicy(2, 1, 1);
+
+		archive = File.createTempFile("MmcSimulatorUT", ".zip");
+		try (FileOutputStream outputStream = new FileOutputStream(archive)) {
+			outputStream.write(new byte[100 * 1024]);
+		}
+	}
+
+	@After
+	public void cleanup() {
+		muleRest.close();
+		simulator.close();
+		archive.delete();
+	}
+
+	@Test
+	public void testDeploymentLifecycle() throws Exception {
+		String serverId = simulator.addServer("server1", "group1");
+		simulator.setDeployDurationMs(300);
+
+		String versionId = muleRest.restfullyUploadRepository("app", "1.0", archive);
+		assertEquals(simulator.getVersionId("app", "1.0"), versionId);
+		assertEquals(versionId, muleRest.restfullyGetApplicationId("app", "1.0"));
+		assertTrue(simulator.getUploadedBytes() > archive.length());
+		assertTrue(muleRest.restfullyGetServerIdsInGroup("group1").contains(serverId));
+
+		String deploymentId = muleRest.restfullyCreateDeployment("server1", "app", versionId);
+		assertEquals(DeploymentStatus.UNDEPLOYED, muleRest.restfullyGetDeploymentState(deploymentId).status);
+
+		muleRest.restfullyDeployDeploymentById(deploymentId);
+		assertEquals(DeploymentStatus.IN_PROGRESS, muleRest.restfullyGetDeploymentState(deploymentId).status);
+		DeploymentState state = new DeploymentWaiter(muleRest, new FixedPollingStrategy(20)).waitForDeployment(deploymentId, 10000);
+		assertEquals(DeploymentStatus.DEPLOYED, state.status);
+
+		// deploying again under the same name replaces the deployment
+		String newDeploymentId = muleRest.restfullyCreateDeployment("server1", "app", versionId);
+		assertEquals(1, simulator.getDeploymentCount());
+		assertEquals(null, simulator.getDeploymentStatus(deploymentId));
+		assertEquals(DeploymentStatus.UNDEPLOYED, simulator.getDeploymentStatus(newDeploymentId));
+	}
+
+	@Test
+	public void testInjectedErrors() throws Exception {
+		simulator.addServer("server1");
+		simulator.setErrorRate(1);
+
+		try {
+			muleRest.restfullyGetServerId("server1");
+			fail("The injected error should have failed the request");
+		} catch (HTTPException e) {
+			assertEquals(500, e.getResponseCode());
+		}
+		// the GET is retried once
+		assertEquals(2, simulator.getInjectedErrorCount());
+	}
+
+	@Test
+	public void testUploadBandwidth() throws Exception {
+		// 100 KB at 400 KB/s
+		simulator.setUploadBytesPerSecond(400 * 1024);
+
+		long startTime = System.currentTimeMillis();
+		muleRest.restfullyUploadRepository("app", "1.0", archive);
+		assertTrue(System.currentTimeMillis() - startTime >= 200);
+	}
+
+	@Test
+	public void testConditionalGets() throws Exception {
+		String serverId = simulator.addServer("server1");
+		muleRest.setTopologyCacheTtlMs(0);
+
+		assertEquals(serverId, muleRest.restfullyGetServerId("server1"));
+		long sentBytes = simulator.getSentBytes();
+		assertEquals(serverId, muleRest.restfullyGetServerId("server1"));
+		assertEquals(1, simulator.getNotModifiedCount());
+		assertEquals(sentBytes, simulator.getSentBytes());
+
+		// a change of the listing changes its ETag
+		String otherServerId = simulator.addServer("server2");
+		assertEquals(otherServerId, muleRest.restfullyGetServerId("server2"));
+		assertEquals(serverId, muleRest.restfullyGetServerId("server1"));
+		assertEquals(1, simulator.getNotModifiedCount());
+		assertTrue(simulator.getSentBytes() > sentBytes);
+	}
+
+	@Test
+	public void testFullGetsWithoutEntityTags() throws Exception {
+		simulator.addServer("server1");
+		simulator.setEntityTags(false);
+		muleRest.setTopologyCacheTtlMs(0);
+
+		muleRest.restfullyGetServerId("server1");
+		muleRest.restfullyGetServerId("server1");
+		assertEquals(0, simulator.getNotModifiedCount());
+		assertEquals(2, muleRest.getConditionalGetCache().getUnvalidatedCount());
+	}
+
+	@Test
+	public void testStateChangedWithinTheLastModifiedSecondIsSeen() throws Exception {
+		simulator.addServer("server1");
+		simulator.setEntityTags(false).setLastModified(true).setDeployDurationMs(100);
+		String versionId = muleRest.restfullyUploadRepository("app", "1.0", archive);
+		String deploymentId = muleRest.restfullyCreateDeployment("server1", "app", versionId);
+
+		// the deployment ends in the second of the first poll
+		Thread.sleep(1000 - System.currentTimeMillis() % 1000 + 10);
+		muleRest.restfullyDeployDeploymentById(deploymentId);
+		assertEquals(DeploymentStatus.IN_PROGRESS, muleRest.restfullyGetDeploymentState(deploymentId).status);
+		Thread.sleep(200);
+		assertEquals(DeploymentStatus.DEPLOYED, muleRest.restfullyGetDeploymentState(deploymentId).status);
+		assertEquals(0, simulator.getNotModifiedCount());
+
+		// a state older than a second is validated by its Last-Modified date
+		Thread.sleep(1100);
+		assertEquals(DeploymentStatus.DEPLOYED, muleRest.restfullyGetDeploymentState(deploymentId).status);
+		assertEquals(DeploymentStatus.DEPLOYED, muleRest.restfullyGetDeploymentState(deploymentId).status);
+		assertEquals(1, simulator.getNotModifiedCount());
+	}
+
+	@Test
+	public void testPagedLookups() throws Exception {
+		for (int i = 0; i < 10; i++) {
+			simulator.addServer("server" + i, "group" + (i % 2));
+		}
+		muleRest.setTopologyCacheTtlMs(0);
+		muleRest.setConditionalGetCacheSize(0);
+		muleRest.setPageSize(3);
+
+		// the lookup stops at the second page
+		String serverId = muleRest.restfullyGetServerId("server4");
+		assertEquals(2, simulator.getRequestCount());
+		assertEquals(null, muleRest.restfullyGetServerId("unknown"));
+		assertEquals(2 + 4, simulator.getRequestCount());
+
+		muleRest.setTopologyCacheTtlMs(60000);
+		assertEquals(5, muleRest.restfullyGetServerIdsInGroup("group0").size());
+		assertTrue(muleRest.restfullyGetServerIdsInGroup("group0").contains(serverId));
+		assertEquals(5, muleRest.restfullyGetServerIdsInGroup("group1").size());
+	}
+
+	@Test
+	public void testPagingIgnoredByTheConsole() throws Exception {
+		for (int i = 0; i < 10; i++) {
+			simulator.addServer("server" + i);
+		}
+		simulator.setPaging(false);
+		muleRest.setTopologyCacheTtlMs(0);
+		muleRest.setPageSize(3);
+
+		PagedIterator<String[]> servers = muleRest.restfullyIterate("servers", "name", "id");
+		int count = 0;
+		while (servers.hasNext()) {
+			assertEquals("server" + count++, servers.next()[0]);
+		}
+		assertEquals(10, count);
+		assertEquals(1, simulator.getRequestCount());
+		assertEquals(null, muleRest.restfullyGetServerId("unknown"));
+		assertEquals(2, simulator.getRequestCount());
+	}
+
+	@Test
+	public void testLoadHarness() throws Exception {
+		MmcLoadHarness.Result result = MmcLoadHarness.run(MmcLoadHarness.Settings.parse("pipelines=3", "deploymentsPerPipeline=3", "latencyMs=1", "deployDurationMs=20", "pollingDelayMs=5"));
+
+		assertEquals(9, result.deployments);
+		assertEquals(0, result.failures);
+		assertEquals(9, result.latenciesMs.size());
+		assertTrue(result.getPercentileMs(99) >= result.getPercentileMs(50));
+		assertTrue(result.getThroughputPerSecond() > 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownLoadSetting() {
+		MmcLoadHarness.Settings.parse("pipelinez=3");
+	}
+}
@@ -0,0 +1,131 @@
+package org.mule.tools.mmc.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MuleRestAsyncTest {
+
+	private MuleRest mockMuleRest;
+
+	private MuleRestAsync muleRestAsync;
+
+	@Before
+	public void setup() {
+		mockMuleRest = mock(MuleRest.class);
+		muleRestAsync = new MuleRestAsync(mockMuleRest, 2);
+	}
+
+	@After
+	public void cleanup() {
+		muleRestAsync.close();
+	}
+
+	@Test
+	public void testFutureAndCallbackGetResult() throws Exception {
+		when(mockMuleRest.restfullyUploadRepository(any(String.class), any(String.class), any(File.class))).thenReturn("versionId");
+
+		final AtomicReference<String> callbackResult = new AtomicReference<String>();
+		final CountDownLatch callbackCalled = new CountDownLatch(1);
+		Future<String> future = muleRestAsync.restfullyUploadRepository("app", "1.0", new File("app-1.0.zip"), new MuleRestCallback<String>() {
+			@Override
+			public void onSuccess(String result) {
+				callbackResult.set(result);
+				callbackCalled.countDown();
+			}
+
+			@Override
+			public void onFailure(Throwable failure) {
+				callbackCalled.countDown();
+			}
+		});
+
+		assertEquals("versionId", future.get());
+		assertTrue(callbackCalled.await(5, TimeUnit.SECONDS));
+		assertEquals("versionId", callbackResult.get());
+	}
+
+	@Test
+	public void testFailureIsReported() throws Exception {
+		IOException failure = new IOException("MMC down");
+		when(mockMuleRest.restfullyGetDeploymentIdByName("app")).thenThrow(failure);
+
+		final AtomicReference<Throwable> callbackFailure = new AtomicReference<Throwable>();
+		final CountDownLatch callbackCalled = new CountDownLatch(1);
+		Future<String> future = muleRestAsync.restfullyGetDeploymentIdByName("app", new MuleRestCallback<String>() {
+			@Override
+			public void onSuccess(String result) {
+				callbackCalled.countDown();
+			}
+
+			@Override
+			public void onFailure(Throwable failure) {
+				callbackFailure.set(failure);
+				callbackCalled.countDown();
+			}
+		});
+
+		try {
+			future.get();
+			Assert.fail("Exception should have been thrown");
+		} catch (ExecutionException e) {
+			assertSame(failure, e.getCause());
+		}
+		assertTrue(callbackCalled.await(5, TimeUnit.SECONDS));
+		assertSame(failure, callbackFailure.get());
+	}
+
+	@Test
+	public void testFailingCallbackKeepsTheResult() throws Exception {
+		when(mockMuleRest.restfullyGetDeploymentIdByName("app")).thenReturn("deploymentId");
+		when(mockMuleRest.restfullyGetDeploymentIdByName("other")).thenThrow(new IOException("MMC down"));
+		MuleRestCallback<String> failingCallback = new MuleRestCallback<String>() {
+			@Override
+			public void onSuccess(String result) {
+				throw new IllegalStateException("onSuccess");
+			}
+
+			@Override
+			public void onFailure(Throwable failure) {
+				throw new IllegalStateException("onFailure");
+			}
+		};
+
+		assertEquals("deploymentId", muleRestAsync.restfullyGetDeploymentIdByName("app", failingCallback).get());
+		try {
+			muleRestAsync.restfullyGetDeploymentIdByName("other", failingCallback).get();
+			Assert.fail("Exception should have been thrown");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+	}
+
+	@Test
+	public void testCallsWithoutCallback() throws Exception {
+		List<Future<Void>> futures = new ArrayList<Future<Void>>();
+		for (int i = 0; i < 10; i++) {
+			futures.add(muleRestAsync.restfullyDeleteDeploymentById("deployment" + i, null));
+		}
+		for (Future<Void> future : futures) {
+			future.get();
+		}
+	}
+}
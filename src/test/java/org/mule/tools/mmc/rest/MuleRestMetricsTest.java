@@ -0,0 +1,71 @@
+package org.mule.tools.mmc.rest;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+public class MuleRestMetricsTest {
+
+	@Test
+	public void testEndpointOf() {
+		assertEquals("GET /deployments", MuleRestMetrics.endpointOf("GET", "deployments"));
+		assertEquals("GET /deployments/{id}", MuleRestMetrics.endpointOf("GET", "deployments", "1234"));
+		assertEquals("POST /deployments/{id}/deploy", MuleRestMetrics.endpointOf("POST", "deployments", "1234", "deploy"));
+		assertEquals("DELETE /repository/{id}", MuleRestMetrics.endpointOf("DELETE", "repository", "local$1234"));
+	}
+
+	@Test
+	public void testBuckets() {
+		assertEquals(0, MuleRestMetrics.bucketOf(TimeUnit.MICROSECONDS.toNanos(500)));
+		assertEquals(1, MuleRestMetrics.bucketOf(TimeUnit.MILLISECONDS.toNanos(1)));
+		assertEquals(4, MuleRestMetrics.bucketOf(TimeUnit.MILLISECONDS.toNanos(10)));
+		assertEquals(MuleRestMetrics.HISTOGRAM_BUCKETS - 1, MuleRestMetrics.bucketOf(TimeUnit.DAYS.toNanos(1)));
+	}
+
+	@Test
+	public void testPercentiles() {
+		MuleRestMetrics metrics = new MuleRestMetrics();
+		for (int i = 0; i < 90; i++) {
+			metrics.recordRequest("GET /servers", TimeUnit.MILLISECONDS.toNanos(3), 100, false);
+		}
+		for (int i = 0; i < 10; i++) {
+			metrics.recordRequest("GET /servers", TimeUnit.MILLISECONDS.toNanos(100), 100, true);
+		}
+
+		MuleRestMetrics.EndpointMetrics endpointMetrics = metrics.getEndpoints().get("GET /servers");
+		assertEquals(100, endpointMetrics.getRequests());
+		assertEquals(10, endpointMetrics.getErrors());
+		assertEquals(10000, endpointMetrics.getResponseBytes());
+		assertEquals(4, endpointMetrics.getPercentileMs(50));
+		assertEquals(4, endpointMetrics.getPercentileMs(90));
+		assertEquals(128, endpointMetrics.getPercentileMs(99));
+		assertEquals(100.0, endpointMetrics.getMaxMs(), 0.001);
+	}
+
+	@Test
+	public void testWriteJson() throws Exception {
+		MuleRestMetrics metrics = new MuleRestMetrics();
+		metrics.recordRequest("GET /repository", TimeUnit.MILLISECONDS.toNanos(20), 2048, false);
+		metrics.recordRequest("POST /repository", TimeUnit.SECONDS.toNanos(2), 50, false);
+		metrics.recordUpload(4 * 1024 * 1024, TimeUnit.SECONDS.toNanos(2));
+
+		File file = File.createTempFile("mule-mmc-metrics", ".json");
+		try {
+			metrics.writeJson(file);
+
+			JsonNode json = new ObjectMapper().readTree(file);
+			assertEquals(1, json.path("endpoints").path("GET /repository").path("requests").getLongValue());
+			assertEquals(2048, json.path("endpoints").path("GET /repository").path("responseBytes").getLongValue());
+			assertEquals(1, json.path("endpoints").path("GET /repository").path("histogramMs").path("<32").getLongValue());
+			assertEquals(4 * 1024 * 1024, json.path("uploads").path("bytes").getLongValue());
+			assertEquals(2.0, json.path("uploads").path("mbPerSecond").getDoubleValue(), 0.001);
+		} finally {
+			file.delete();
+		}
+	}
+}
@@ -30,12 +30,18 @@ import java.io.InputStream;
 import java.io.StringWriter;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
 import junit.framework.Assert;
 
 import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.transport.http.HTTPException;
+import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Rule;
 import org.junit.Test;
@@ -44,7 +50,9 @@ import org.mule.tools.mmc.rest.MuleRest;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerationException;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.github.tomakehurst.wiremock.http.Fault;
 import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
 
 public class MuleRestTest {
 
@@ -58,6 +66,16 @@ public class MuleRestTest {
 	@BeforeClass
 	public static void init() throws MalformedURLException {
 		muleRest = new MuleRest(new URL("http://0.0.0.0:12312"), "admin", "admin");
+		muleRest.setRetryPolicy(3, 10, 100);
+	}
+
+	@Before
+	public void invalidateCaches() {
+		muleRest.invalidateTopologyCache();
+		muleRest.invalidateRepositoryIndex();
+		muleRest.setCircuitBreaker(new CircuitBreaker());
+		muleRest.setPersistentIdCache(null);
+		muleRest.setConditionalGetCacheSize(ConditionalGetCache.DEFAULT_MAX_ENTRIES);
 	}
 
 	private String generateDeploymentIdJson(String name, String id) throws IOException {
@@ -343,6 +361,134 @@ public class MuleRestTest {
 		verifyGetDeploymentIdByName();
 	}
 
+	@Test
+	public void testRestfullyGetDeploymentStates() throws IOException {
+		String json = "{\"total\":3,\"data\":[" //
+				+ "{\"name\":\"first\",\"id\":\"1\",\"status\":\"deployed\",\"reconciled\":true,\"servers\":[\"s1\"]}," //
+				+ "{\"name\":\"other\",\"id\":\"2\",\"status\":\"FAILED\",\"reconciled\":false}," //
+				+ "{\"name\":\"second\",\"id\":\"3\",\"status\":\"IN_PROGRESS\",\"reconciled\":false}]}";
+		stubFor(get(urlEqualTo("/deployments")).willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json").withBody(json)));
+
+		Map<String, DeploymentState> deploymentStates = muleRest.restfullyGetDeploymentStates(Arrays.asList("1", "3", "4"));
+
+		assertEquals(2, deploymentStates.size());
+		assertEquals(DeploymentStatus.DEPLOYED, deploymentStates.get("1").status);
+		assertEquals("first", deploymentStates.get("1").name);
+		assertTrue(deploymentStates.get("1").reconciled);
+		assertEquals(DeploymentStatus.IN_PROGRESS, deploymentStates.get("3").status);
+		assertNull(deploymentStates.get("4"));
+		verify(1, getRequestedFor(urlEqualTo("/deployments")));
+	}
+
+	@Test
+	public void testRestfullyGetDeployedVersionIds() throws IOException {
+		String json = "{\"total\":2,\"data\":[" //
+				+ "{\"name\":\"first\",\"id\":\"1\",\"applications\":[\"v1\",\"v2\"]}," //
+				+ "{\"applications\":[\"v3\"],\"name\":\"second\",\"id\":\"2\"}]}";
+		stubFor(get(urlEqualTo("/deployments")).willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json").withBody(json)));
+
+		assertEquals(new HashSet<String>(Arrays.asList("v1", "v2", "v3")), muleRest.restfullyGetDeployedVersionIds());
+	}
+
+	@Test(expected = IOException.class)
+	public void testUnexpectedDeployedVersionFailsTheRead() throws IOException {
+		// a reference the reader does not understand must not leave its version unreferenced
+		String json = "{\"total\":1,\"data\":[{\"name\":\"first\",\"id\":\"1\",\"applications\":[{\"id\":\"v1\"}]}]}";
+		stubFor(get(urlEqualTo("/deployments")).willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json").withBody(json)));
+
+		muleRest.restfullyGetDeployedVersionIds();
+	}
+
+	@Test
+	public void testRequestsAreMeasured() throws IOException {
+		String name = UUID.randomUUID().toString();
+		String id = UUID.randomUUID().toString();
+		String json = generateDeploymentIdJson(name, id);
+		stubFor(get(urlEqualTo("/deployments")).willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json").withBody(json)));
+
+		MuleRestMetrics.EndpointMetrics before = muleRest.getMetrics().getEndpoints().get("GET /deployments");
+		long requestsBefore = before == null ? 0 : before.getRequests();
+		long bytesBefore = before == null ? 0 : before.getResponseBytes();
+
+		muleRest.restfullyGetDeploymentIdByName("other");
+
+		MuleRestMetrics.EndpointMetrics after = muleRest.getMetrics().getEndpoints().get("GET /deployments");
+		assertEquals(requestsBefore + 1, after.getRequests());
+		assertEquals(bytesBefore + json.length(), after.getResponseBytes());
+	}
+
+	@Test
+	public void testUnmodifiedListingIsNotDownloadedAgain() throws IOException {
+		String name = UUID.randomUUID().toString();
+		String id = UUID.randomUUID().toString();
+		stubFor(get(urlEqualTo("/deployments")).willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json").withHeader("ETag", "\"v1\"").withBody(generateDeploymentIdJson(name, id))));
+		stubFor(get(urlEqualTo("/deployments")).withHeader("If-None-Match", equalTo("\"v1\"")).willReturn(aResponse().withStatus(304)));
+
+		assertEquals(id, muleRest.restfullyGetDeploymentIdByName(name));
+		assertEquals(id, muleRest.restfullyGetDeploymentIdByName(name));
+
+		verify(2, getRequestedFor(urlEqualTo("/deployments")));
+		verify(1, getRequestedFor(urlEqualTo("/deployments")).withHeader("If-None-Match", equalTo("\"v1\"")));
+		assertEquals(1, muleRest.getConditionalGetCache().getNotModifiedCount());
+	}
+
+	@Test
+	public void testLastModifiedIsSentBack() throws IOException {
+		String name = UUID.randomUUID().toString();
+		String id = UUID.randomUUID().toString();
+		String lastModified = "Wed, 14 Oct 2015 10:00:00 GMT";
+		stubFor(get(urlEqualTo("/serverGroups")).willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json").withHeader("Last-Modified", lastModified).withBody(generateServerGroupIdJson(name, id))));
+		stubFor(get(urlEqualTo("/serverGroups")).withHeader("If-Modified-Since", equalTo(lastModified)).willReturn(aResponse().withStatus(304)));
+
+		assertEquals(id, muleRest.restfullyGetServerGroupId(name));
+		muleRest.invalidateTopologyCache();
+		assertEquals(id, muleRest.restfullyGetServerGroupId(name));
+
+		verify(1, getRequestedFor(urlEqualTo("/serverGroups")).withHeader("If-Modified-Since", equalTo(lastModified)));
+		assertEquals(1, muleRest.getConditionalGetCache().getNotModifiedCount());
+	}
+
+	@Test
+	public void testOnlyEntityTagIsSentBackWhenKnown() throws IOException {
+		String name = UUID.randomUUID().toString();
+		String id = UUID.randomUUID().toString();
+		stubFor(get(urlEqualTo("/deployments")).willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json").withHeader("ETag", "\"v1\"").withHeader("Last-Modified", "Wed, 14 Oct 2015 10:00:00 GMT").withBody(generateDeploymentIdJson(name, id))));
+
+		assertEquals(id, muleRest.restfullyGetDeploymentIdByName(name));
+		assertEquals(id, muleRest.restfullyGetDeploymentIdByName(name));
+
+		verify(1, getRequestedFor(urlEqualTo("/deployments")).withHeader("If-None-Match", equalTo("\"v1\"")).withoutHeader("If-Modified-Since"));
+	}
+
+	@Test
+	public void testLastModifiedInTheSecondOfTheResponseIsNotSentBack() throws IOException {
+		String name = UUID.randomUUID().toString();
+		String id = UUID.randomUUID().toString();
+		String date = "Wed, 14 Oct 2015 10:00:00 GMT";
+		stubFor(get(urlEqualTo("/deployments")).willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json").withHeader("Date", date).withHeader("Last-Modified", date).withBody(generateDeploymentIdJson(name, id))));
+
+		assertEquals(id, muleRest.restfullyGetDeploymentIdByName(name));
+		assertEquals(id, muleRest.restfullyGetDeploymentIdByName(name));
+
+		verify(2, getRequestedFor(urlEqualTo("/deployments")).withoutHeader("If-Modified-Since"));
+		assertEquals(0, muleRest.getConditionalGetCache().size());
+	}
+
+	@Test
+	public void testListingWithoutValidatorsIsDownloadedAgain() throws IOException {
+		String name = UUID.randomUUID().toString();
+		String id = UUID.randomUUID().toString();
+		stubGetDeploymentIdByName(name, id);
+
+		assertEquals(id, muleRest.restfullyGetDeploymentIdByName(name));
+		assertEquals(id, muleRest.restfullyGetDeploymentIdByName(name));
+
+		verify(2, getRequestedFor(urlEqualTo("/deployments")));
+		assertEquals(0, muleRest.getConditionalGetCache().getNotModifiedCount());
+		assertEquals(2, muleRest.getConditionalGetCache().getUnvalidatedCount());
+		assertEquals(0, muleRest.getConditionalGetCache().size());
+	}
+
 	@Test
 	public void testRestfullyGetServerGroupId() throws IOException {
 		String name = UUID.randomUUID().toString();
@@ -356,6 +502,38 @@ public class MuleRestTest {
 		verify(getRequestedFor(urlMatching("/serverGroups")).withHeader("Authorization", equalTo("Basic YWRtaW46YWRtaW4=")));
 	}
 
+	@Test
+	public void testServerGroupIdsAreCached() throws IOException {
+		String name = UUID.randomUUID().toString();
+		String id = UUID.randomUUID().toString();
+
+		stubGetServerGroups(name, id);
+
+		Assert.assertEquals("Group Id doesn't match", id, muleRest.restfullyGetServerGroupId(name));
+		Assert.assertEquals("Group Id doesn't match", id, muleRest.restfullyGetServerGroupId(name));
+		assertNull(muleRest.restfullyGetServerGroupId("unknown group"));
+
+		verify(1, getRequestedFor(urlMatching("/serverGroups")));
+
+		muleRest.invalidateTopologyCache();
+		muleRest.restfullyGetServerGroupId(name);
+		verify(2, getRequestedFor(urlMatching("/serverGroups")));
+	}
+
+	@Test
+	public void testServersAreCached() throws IOException {
+		String serverGroupToFind = UUID.randomUUID().toString();
+		String serverId = UUID.randomUUID().toString();
+
+		stubGetServers("DummyServerName", serverGroupToFind, serverId);
+
+		Assert.assertEquals("Server Id doesn't match", serverId, muleRest.restfullyGetServerId("DummyServerName"));
+		Assert.assertTrue("Server Id doesn't match", muleRest.restfullyGetServerIdsInGroup(serverGroupToFind).contains(serverId));
+		Assert.assertTrue(muleRest.restfullyGetServerIdsInGroup("unknown group").isEmpty());
+
+		verify(1, getRequestedFor(urlMatching("/servers")));
+	}
+
 	@Test
 	public void testRestfullyGetServers() throws IOException {
 		String serverGroupToFind = UUID.randomUUID().toString();
@@ -383,6 +561,137 @@ public class MuleRestTest {
 		assertNull(muleRest.restfullyGetApplicationId("wrong application name", version));
 	}
 
+	@Test
+	public void testRepositoryIndexIsUpdatedByUploadsAndDeletes() throws Exception {
+		String applicationName = "My_Mule_App";
+		String version = "1.0-SNAPSHOT";
+		String uploadedVersionId = UUID.randomUUID().toString();
+
+		stubFor(get(urlEqualTo("/repository")).willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json").withBody(generateApplicationsJson(applicationName, version))));
+		stubFor(delete(urlEqualTo("/repository/" + APPLICATION_VERSION_ID)).willReturn(aResponse().withStatus(200)));
+		stubFor(delete(urlEqualTo("/repository/" + uploadedVersionId)).willReturn(aResponse().withStatus(200)));
+		stubFor(post(urlEqualTo("/repository")).willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json").withBody(generateUploadedPackageJson(uploadedVersionId, UUID.randomUUID().toString()))));
+
+		assertEquals(APPLICATION_VERSION_ID, muleRest.restfullyGetApplicationId(applicationName, version));
+
+		File file = File.createTempFile("prefix", "suffix");
+		assertEquals(uploadedVersionId, muleRest.restfullyUploadRepository(applicationName, version, file));
+		assertEquals(uploadedVersionId, muleRest.restfullyGetApplicationId(applicationName, version));
+
+		muleRest.restfullyDeleteApplicationById(uploadedVersionId);
+		assertNull(muleRest.restfullyGetApplicationId(applicationName, version));
+
+		verify(1, getRequestedFor(urlMatching("/repository")));
+		verify(deleteRequestedFor(urlEqualTo("/repository/" + APPLICATION_VERSION_ID)));
+	}
+
+	@Test
+	public void testRestfullyGetApplicationIdVersionsBeforeName() throws Exception {
+		String json = "{\"total\":2,\"data\":[" //
+				+ "{\"versions\":[{\"id\":\"other\",\"name\":\"1.0\"}],\"name\":\"Other_App\",\"id\":\"1\"}," //
+				+ "{\"href\":\"http://localhost\",\"versions\":[{\"parentPath\":\"/Applications\",\"id\":\"" + APPLICATION_VERSION_ID + "\",\"name\":\"1.0\"}],\"name\":\"My_Mule_App\"}]}";
+		stubFor(get(urlEqualTo("/repository")).willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json").withBody(json)));
+
+		assertEquals(APPLICATION_VERSION_ID, muleRest.restfullyGetApplicationId("My_Mule_App", "1.0"));
+		assertEquals("other", muleRest.restfullyGetApplicationId("Other_App", "1.0"));
+	}
+
+	@Test
+	public void testErrorBodyIsTruncated() throws Exception {
+		StringBuilder body = new StringBuilder();
+		for (int i = 0; i < 100000; i++) {
+			body.append('x');
+		}
+		stubFor(get(urlEqualTo("/deployments")).willReturn(aResponse().withStatus(503).withBody(body.toString())));
+
+		try {
+			muleRest.restfullyGetDeploymentIdByName("any");
+			Assert.fail("Exception should have been thrown");
+		} catch (HTTPException e) {
+			assertEquals(503, e.getResponseCode());
+			assertTrue(e.getMessage().length() < 5000);
+		}
+		verify(3, getRequestedFor(urlEqualTo("/deployments")));
+	}
+
+	@Test
+	public void testServerErrorIsRetried() throws Exception {
+		long retryCount = muleRest.getRetryCount();
+		stubFor(get(urlEqualTo("/deployments")).inScenario("retry").whenScenarioStateIs(Scenario.STARTED).willReturn(aResponse().withStatus(502)).willSetStateTo("recovered"));
+		stubFor(get(urlEqualTo("/deployments")).inScenario("retry").whenScenarioStateIs("recovered").willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json").withBody(generateDeploymentIdJson("name", "id"))));
+
+		assertEquals("id", muleRest.restfullyGetDeploymentIdByName("name"));
+		assertEquals(retryCount + 1, muleRest.getRetryCount());
+		verify(2, getRequestedFor(urlEqualTo("/deployments")));
+	}
+
+	@Test
+	public void testBodyReadFailureIsRetried() throws Exception {
+		long retryCount = muleRest.getRetryCount();
+		stubFor(get(urlEqualTo("/deployments")).inScenario("reset").whenScenarioStateIs(Scenario.STARTED).willReturn(aResponse().withFault(Fault.MALFORMED_RESPONSE_CHUNK)).willSetStateTo("recovered"));
+		stubFor(get(urlEqualTo("/deployments")).inScenario("reset").whenScenarioStateIs("recovered").willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json").withBody(generateDeploymentIdJson("name", "id"))));
+
+		assertEquals("id", muleRest.restfullyGetDeploymentIdByName("name"));
+		assertEquals(retryCount + 1, muleRest.getRetryCount());
+		verify(2, getRequestedFor(urlEqualTo("/deployments")));
+	}
+
+	@Test
+	public void testBodyReadFailuresOpenTheCircuitBreaker() throws Exception {
+		muleRest.setCircuitBreaker(new CircuitBreaker(2, 60000));
+		stubFor(get(urlEqualTo("/deployments")).willReturn(aResponse().withFault(Fault.MALFORMED_RESPONSE_CHUNK)));
+
+		try {
+			muleRest.restfullyGetDeploymentIdByName("any");
+			Assert.fail("Exception should have been thrown");
+		} catch (IOException e) {
+			// the body could not be read
+			assertFalse(e instanceof CircuitBreakerOpenException);
+		}
+
+		verify(2, getRequestedFor(urlEqualTo("/deployments")));
+		assertEquals(CircuitBreaker.State.OPEN, muleRest.getCircuitBreaker().getState());
+	}
+
+	@Test
+	public void testPostIsNotRetried() throws Exception {
+		stubFor(post(urlEqualTo("/deployments/1234/deploy")).willReturn(aResponse().withStatus(503)));
+
+		try {
+			muleRest.restfullyDeployDeploymentById("1234");
+			Assert.fail("Exception should have been thrown");
+		} catch (HTTPException e) {
+			assertEquals(503, e.getResponseCode());
+		}
+		verify(1, postRequestedFor(urlEqualTo("/deployments/1234/deploy")));
+	}
+
+	@Test
+	public void testCircuitBreakerFailsFast() throws Exception {
+		muleRest.setCircuitBreaker(new CircuitBreaker(2, 60000));
+		stubFor(get(urlEqualTo("/deployments")).willReturn(aResponse().withStatus(503)));
+
+		try {
+			muleRest.restfullyGetDeploymentIdByName("any");
+			Assert.fail("Exception should have been thrown");
+		} catch (HTTPException e) {
+			// opened by the second failed attempt, whose error is kept
+			assertEquals(503, e.getResponseCode());
+			assertEquals(1, e.getSuppressed().length);
+			assertTrue(e.getSuppressed()[0] instanceof CircuitBreakerOpenException);
+		}
+		try {
+			muleRest.restfullyGetDeploymentIdByName("any");
+			Assert.fail("Exception should have been thrown");
+		} catch (CircuitBreakerOpenException e) {
+			// rejected without calling the MMC
+		}
+
+		verify(2, getRequestedFor(urlEqualTo("/deployments")));
+		assertEquals(CircuitBreaker.State.OPEN, muleRest.getCircuitBreaker().getState());
+		assertEquals(2, muleRest.getCircuitBreaker().getRejectedCount());
+	}
+
 	@Test
 	public void testRestfullyDeleteApplicationById() throws Exception {
 		stubFor(delete(urlEqualTo("/repository/" + APPLICATION_VERSION_ID)).willReturn(aResponse().withStatus(200).withHeader("Authorization", "Basic YWRtaW46YWRtaW4=")));
@@ -411,6 +720,23 @@ public class MuleRestTest {
 				.withRequestBody(containing("Content-Type: application/octet-stream\r\nContent-Transfer-Encoding: binary\r\nContent-ID: <file>\r\nContent-Disposition: form-data; name=\"file\"; filename=\"" + file.getName() + "\"\r\n" + fileContent + "\r\n")));
 	}
 
+	@Test
+	public void testRestfullyUploadRepositoryFromBuffer() throws Exception {
+		String versionId = UUID.randomUUID().toString();
+		File file = File.createTempFile("prefix", "suffix");
+		ByteBuffer content = ByteBuffer.wrap("archive content".getBytes("UTF-8"));
+
+		stubFor(post(urlEqualTo("/repository")).willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json").withBody(generateUploadedPackageJson(versionId, UUID.randomUUID().toString()))));
+
+		Assert.assertEquals(versionId, muleRest.restfullyUploadRepository("name", "1.0", file, content));
+		Assert.assertEquals(versionId, muleRest.restfullyUploadRepository("name", "1.0", file, content));
+
+		// the buffer is shared, its position is left untouched
+		assertEquals(0, content.position());
+		verify(2, postRequestedFor(urlMatching("/repository")).withRequestBody(containing("filename=\"" + file.getName() + "\"\r\n\r\narchive content\r\n")));
+		file.delete();
+	}
+
 	@Test
 	public void testRestfullyDeleteApplication() throws Exception {
 		String applicationName = "My_Mule_App";
@@ -439,6 +765,75 @@ public class MuleRestTest {
 		org.mockito.Mockito.verify(muleRestSpy, never()).restfullyDeleteApplicationById(anyString());
 	}
 
+	@Test
+	public void testPersistentIdCacheSkipsListings() throws IOException {
+		File cacheFile = File.createTempFile("MuleRestUT", ".properties");
+		try {
+			PersistentIdCache idCache = new PersistentIdCache(cacheFile, PersistentIdCache.DEFAULT_MAX_AGE_MS);
+			idCache.put("http://0.0.0.0:12312", PersistentIdCache.Kind.GROUP, "group", "cachedGroupId");
+			muleRest.setPersistentIdCache(idCache);
+
+			String name = UUID.randomUUID().toString();
+			stubGetDeploymentIdByName("other", "otherId");
+			stubCreateDeployment("deploymentId");
+
+			assertEquals("deploymentId", muleRest.restfullyCreateDeployment("group", name, "versionId"));
+
+			verifyCreateDeployment("cachedGroupId", name, "versionId");
+			verify(0, getRequestedFor(urlEqualTo("/serverGroups")));
+			assertEquals("deploymentId", idCache.get("http://0.0.0.0:12312", PersistentIdCache.Kind.DEPLOYMENT, name));
+		} finally {
+			cacheFile.delete();
+		}
+	}
+
+	@Test
+	public void testStaleCachedIdsAreResolvedAgain() throws IOException {
+		File cacheFile = File.createTempFile("MuleRestUT", ".properties");
+		try {
+			PersistentIdCache idCache = new PersistentIdCache(cacheFile, PersistentIdCache.DEFAULT_MAX_AGE_MS);
+			idCache.put("http://0.0.0.0:12312", PersistentIdCache.Kind.GROUP, "group", "staleGroupId");
+			idCache.put("http://0.0.0.0:12312", PersistentIdCache.Kind.DEPLOYMENT, "app", "staleDeploymentId");
+			muleRest.setPersistentIdCache(idCache);
+
+			stubFor(get(urlEqualTo("/deployments/staleDeploymentId")).willReturn(aResponse().withStatus(404)));
+			stubGetDeploymentIdByName("app", "deploymentId");
+			stubDeleteDeploymentById("deploymentId");
+			stubGetServerGroups("group", "groupId");
+			stubFor(post(urlEqualTo("/deployments")).inScenario("stale").whenScenarioStateIs(Scenario.STARTED).willReturn(aResponse().withStatus(404)).willSetStateTo("resolved"));
+			stubFor(post(urlEqualTo("/deployments")).inScenario("stale").whenScenarioStateIs("resolved").willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json").withBody(generateDeploymentResponseJson("newDeploymentId"))));
+
+			assertEquals("newDeploymentId", muleRest.restfullyCreateDeployment("group", "app", "versionId"));
+
+			verifyDeleteDeploymentById("deploymentId");
+			verifyCreateDeployment("groupId", "app", "versionId");
+			assertEquals("groupId", idCache.get("http://0.0.0.0:12312", PersistentIdCache.Kind.GROUP, "group"));
+			assertEquals("newDeploymentId", idCache.get("http://0.0.0.0:12312", PersistentIdCache.Kind.DEPLOYMENT, "app"));
+			assertTrue(idCache.getInvalidations() >= 2);
+		} finally {
+			cacheFile.delete();
+		}
+	}
+
+	@Test
+	public void testConnectionsAreReused() throws IOException {
+		String name = UUID.randomUUID().toString();
+		String id = UUID.randomUUID().toString();
+		stubGetDeploymentIdByName(name, id);
+
+		MuleRest pooledMuleRest = new MuleRest(new URL("http://0.0.0.0:12312"), "admin", "admin", 1, 60000);
+		try {
+			pooledMuleRest.restfullyGetDeploymentIdByName(name);
+			pooledMuleRest.restfullyGetDeploymentIdByName(name);
+			pooledMuleRest.restfullyGetDeploymentIdByName(name);
+		} finally {
+			pooledMuleRest.close();
+		}
+
+		assertEquals(1, pooledMuleRest.getConnectionPoolMisses());
+		assertEquals(2, pooledMuleRest.getConnectionPoolHits());
+	}
+
 	@Test
 	public void testIsSnapshotVersion() {
 		assertTrue(muleRest.isSnapshotVersion("1.0-SNAPSHOT"));
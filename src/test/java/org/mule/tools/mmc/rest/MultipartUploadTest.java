@@ -0,0 +1,162 @@
+package org.mule.tools.mmc.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class MultipartUploadTest {
+
+	private HttpServer httpServer;
+	private URL url;
+	private File file;
+	private final AtomicReference<String> contentLength = new AtomicReference<String>();
+	private final AtomicLong receivedBytes = new AtomicLong();
+
+	@Before
+	public void setup() throws Exception {
+		httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		httpServer.createContext("/repository", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				contentLength.set(exchange.getRequestHeaders().getFirst("Content-Length"));
+				long count = 0;
+				byte[] buffer = new byte[8192];
+				try (InputStream body = exchange.getRequestBody()) {
+					int read;
+					while ((read = body.read(buffer)) != -1) {
+						count += read;
+					}
+				}
+				receivedBytes.set(count);
+				byte[] response = "{\"versionId\":\"1\"}".getBytes("UTF-8");
+				exchange.sendResponseHeaders(200, response.length);
+				try (OutputStream responseBody = exchange.getResponseBody()) {
+					responseBody.write(response);
+				}
+			}
+		});
+		httpServer.start();
+		url = new URL("http://127.0.0.1:" + httpServer.getAddress().getPort() + "/repository");
+
+		file = File.createTempFile("MultipartUploadUT", ".zip");
+		byte[] archive = new byte[MultipartUpload.BUFFER_SIZE * 2 + 123];
+		for (int i = 0; i < archive.length; i++) {
+			archive[i] = (byte) i;
+		}
+		try (OutputStream outputStream = new FileOutputStream(file)) {
+			outputStream.write(archive);
+		}
+	}
+
+	@After
+	public void cleanup() {
+		httpServer.stop(0);
+		file.delete();
+	}
+
+	@Test
+	public void testContentLengthIsTheBodySent() throws Exception {
+		HttpURLConnection connection = new MultipartUpload(url, "admin", "admin").file("file", file).field("name", "app").field("version", "1.0").send();
+		assertEquals(200, connection.getResponseCode());
+		connection.getInputStream().close();
+
+		assertEquals(String.valueOf(receivedBytes.get()), contentLength.get());
+		assertTrue(receivedBytes.get() > file.length());
+	}
+
+	@Test
+	public void testContentLengthIsTheBodySentFromABuffer() throws Exception {
+		ByteBuffer content = ByteBuffer.allocateDirect((int) file.length());
+		content.put(Files.readAllBytes(file.toPath())).flip();
+
+		HttpURLConnection connection = new MultipartUpload(url, "admin", "admin").file("file", file, content).field("name", "app").send();
+		assertEquals(200, connection.getResponseCode());
+		connection.getInputStream().close();
+
+		assertEquals(String.valueOf(receivedBytes.get()), contentLength.get());
+		// the buffer is left untouched for the next upload
+		assertEquals(file.length(), content.remaining());
+	}
+
+	@Test
+	public void testShrunkFileFailsTheUpload() throws Exception {
+		File shrunkFile = new File(file.getPath()) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public long length() {
+				return super.length() + 10;
+			}
+		};
+		_assertChangedDuringUpload(shrunkFile);
+	}
+
+	@Test
+	public void testGrownFileFailsTheUpload() throws Exception {
+		File grownFile = new File(file.getPath()) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public long length() {
+				return super.length() - 10;
+			}
+		};
+		_assertChangedDuringUpload(grownFile);
+	}
+
+	private void _assertChangedDuringUpload(File changedFile) throws Exception {
+		try {
+			new MultipartUpload(url, "admin", "admin").file("file", changedFile).field("name", "app").send();
+			fail("The upload should have failed");
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("changed during upload"));
+		}
+		assertFalse("The file is still open", _isOpen(file));
+	}
+
+	/**
+	 * @return true if the process has a descriptor open on the file, Linux
+	 *         only
+	 */
+	private static boolean _isOpen(File file) throws IOException {
+		Path descriptors = Paths.get("/proc/self/fd");
+		assumeTrue(Files.isDirectory(descriptors));
+
+		Path path = file.toPath().toRealPath();
+		for (File descriptor : descriptors.toFile().listFiles()) {
+			try {
+				if (path.equals(Files.readSymbolicLink(descriptor.toPath()))) {
+					return true;
+				}
+			} catch (IOException e) {
+				// closed meanwhile
+			}
+		}
+		return false;
+	}
+}
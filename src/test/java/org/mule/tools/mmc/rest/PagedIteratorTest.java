@@ -0,0 +1,159 @@
+package org.mule.tools.mmc.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class PagedIteratorTest {
+
+	/**
+	 * Listing of numbered elements, optionally ignoring the paging parameters
+	 * and without total
+	 */
+	private static class Listing implements PagedIterator.PageFetcher<String> {
+		final int size;
+		final boolean paging;
+		final boolean total;
+		final AtomicInteger fetches = new AtomicInteger();
+		int failAtOffset = -1;
+
+		Listing(int size, boolean paging, boolean total) {
+			this.size = size;
+			this.paging = paging;
+			this.total = total;
+		}
+
+		@Override
+		public PagedIterator.Page<String> fetch(int offset, int limit) throws IOException {
+			fetches.incrementAndGet();
+			if (offset == failAtOffset) {
+				throw new IOException("page at " + offset + " failed");
+			}
+			List<String> elements = new ArrayList<String>();
+			int from = paging ? offset : 0;
+			int to = paging && limit > 0 ? Math.min(size, offset + limit) : size;
+			for (int i = from; i < to; i++) {
+				elements.add("element" + i);
+			}
+			return new PagedIterator.Page<String>(elements, total ? size : -1);
+		}
+	}
+
+	private static List<String> _readAll(PagedIterator<String> iterator) {
+		List<String> elements = new ArrayList<String>();
+		while (iterator.hasNext()) {
+			elements.add(iterator.next());
+		}
+		return elements;
+	}
+
+	private static PagedIterator.Filter<String> _equalTo(final String wanted) {
+		return new PagedIterator.Filter<String>() {
+			@Override
+			public boolean accept(String element) {
+				return wanted.equals(element);
+			}
+		};
+	}
+
+	@Test
+	public void testPagesAreReadInOrder() {
+		Listing listing = new Listing(7, true, false);
+		PagedIterator<String> iterator = new PagedIterator<String>(listing, 3, null);
+
+		List<String> elements = _readAll(iterator);
+		assertEquals(7, elements.size());
+		assertEquals("element0", elements.get(0));
+		assertEquals("element6", elements.get(6));
+		assertEquals(3, listing.fetches.get());
+	}
+
+	@Test
+	public void testFindStopsAtTheMatchingPage() throws IOException {
+		Listing listing = new Listing(100, true, true);
+
+		assertEquals("element4", new PagedIterator<String>(listing, 3, null).find(_equalTo("element4")));
+		assertEquals(2, listing.fetches.get());
+
+		assertNull(new PagedIterator<String>(listing, 50, null).find(_equalTo("unknown")));
+		assertEquals(4, listing.fetches.get());
+	}
+
+	@Test
+	public void testTotalEndsTheListing() {
+		Listing listing = new Listing(6, true, true);
+		assertEquals(6, _readAll(new PagedIterator<String>(listing, 3, null)).size());
+		// no request for an empty third page
+		assertEquals(2, listing.fetches.get());
+	}
+
+	@Test
+	public void testConsoleIgnoringPaging() {
+		Listing listing = new Listing(10, false, true);
+		assertEquals(10, _readAll(new PagedIterator<String>(listing, 3, null)).size());
+		assertEquals(1, listing.fetches.get());
+
+		// as many elements as the page size and no total: the second page is
+		// the first one again
+		listing = new Listing(3, false, false);
+		assertEquals(3, _readAll(new PagedIterator<String>(listing, 3, null)).size());
+		assertEquals(2, listing.fetches.get());
+	}
+
+	@Test
+	public void testWithoutPaging() {
+		Listing listing = new Listing(10, true, false);
+		assertEquals(10, _readAll(new PagedIterator<String>(listing, 0, null)).size());
+		assertEquals(1, listing.fetches.get());
+	}
+
+	@Test
+	public void testPrefetch() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Listing listing = new Listing(10, true, true);
+			PagedIterator<String> iterator = new PagedIterator<String>(listing, 4, executor);
+			List<String> elements = _readAll(iterator);
+			assertEquals(10, elements.size());
+			assertEquals("element9", elements.get(9));
+			assertEquals(3, iterator.getPageCount());
+
+			// the page after the match is prefetched, then cancelled
+			listing = new Listing(10, true, true);
+			assertEquals("element1", new PagedIterator<String>(listing, 4, executor).find(_equalTo("element1")));
+			assertFalse(listing.fetches.get() > 2);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testPageFailure() {
+		Listing listing = new Listing(10, true, true);
+		listing.failAtOffset = 4;
+		PagedIterator<String> iterator = new PagedIterator<String>(listing, 4, null);
+		try {
+			_readAll(iterator);
+			fail("The failed page should have stopped the iteration");
+		} catch (PagedIterator.PageException e) {
+			assertEquals("page at 4 failed", e.getCause().getMessage());
+		}
+
+		try {
+			new PagedIterator<String>(listing, 4, null).find(_equalTo("element9"));
+			fail("The failed page should have failed the lookup");
+		} catch (IOException e) {
+			assertEquals("page at 4 failed", e.getMessage());
+		}
+	}
+}
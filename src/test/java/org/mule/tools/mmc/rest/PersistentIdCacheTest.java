@@ -0,0 +1,99 @@
+package org.mule.tools.mmc.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PersistentIdCacheTest {
+
+	private static final String MMC_URL = "http://mmc:8080/mmc/api";
+
+	private File file;
+
+	@Before
+	public void setup() throws Exception {
+		file = File.createTempFile("PersistentIdCacheUT", ".properties");
+		file.delete();
+	}
+
+	@After
+	public void cleanup() {
+		file.delete();
+		new File(file.getPath() + ".lock").delete();
+	}
+
+	@Test
+	public void testSavedIdsAreReloaded() throws Exception {
+		PersistentIdCache idCache = new PersistentIdCache(file, PersistentIdCache.DEFAULT_MAX_AGE_MS);
+		idCache.put(MMC_URL, PersistentIdCache.Kind.GROUP, "Production", "groupId");
+		idCache.put(MMC_URL, PersistentIdCache.Kind.VERSION, PersistentIdCache.versionName("app", "1.0"), "versionId");
+		idCache.save();
+
+		PersistentIdCache reloaded = new PersistentIdCache(file, PersistentIdCache.DEFAULT_MAX_AGE_MS);
+		assertEquals("groupId", reloaded.get(MMC_URL, PersistentIdCache.Kind.GROUP, "Production"));
+		assertEquals("versionId", reloaded.get(MMC_URL, PersistentIdCache.Kind.VERSION, PersistentIdCache.versionName("app", "1.0")));
+		// keyed by MMC and by kind
+		assertNull(reloaded.get("http://other:8080/mmc/api", PersistentIdCache.Kind.GROUP, "Production"));
+		assertNull(reloaded.get(MMC_URL, PersistentIdCache.Kind.SERVER, "Production"));
+		assertEquals(2, reloaded.getHits());
+		assertEquals(2, reloaded.getMisses());
+	}
+
+	@Test
+	public void testConcurrentInvocationsKeepEachOthersIds() throws Exception {
+		PersistentIdCache first = new PersistentIdCache(file, PersistentIdCache.DEFAULT_MAX_AGE_MS);
+		PersistentIdCache second = new PersistentIdCache(file, PersistentIdCache.DEFAULT_MAX_AGE_MS);
+		first.put(MMC_URL, PersistentIdCache.Kind.GROUP, "Production", "groupId");
+		second.put(MMC_URL, PersistentIdCache.Kind.SERVER, "server1", "serverId");
+		first.save();
+		second.save();
+
+		PersistentIdCache reloaded = new PersistentIdCache(file, PersistentIdCache.DEFAULT_MAX_AGE_MS);
+		assertEquals("groupId", reloaded.get(MMC_URL, PersistentIdCache.Kind.GROUP, "Production"));
+		assertEquals("serverId", reloaded.get(MMC_URL, PersistentIdCache.Kind.SERVER, "server1"));
+	}
+
+	@Test
+	public void testOldIdsAreIgnored() throws Exception {
+		PersistentIdCache idCache = new PersistentIdCache(file, 0);
+		idCache.put(MMC_URL, PersistentIdCache.Kind.SERVER, "server1", "serverId");
+		Thread.sleep(5);
+		assertNull(idCache.get(MMC_URL, PersistentIdCache.Kind.SERVER, "server1"));
+	}
+
+	@Test
+	public void testRemoveId() throws Exception {
+		PersistentIdCache idCache = new PersistentIdCache(file, PersistentIdCache.DEFAULT_MAX_AGE_MS);
+		idCache.put(MMC_URL, PersistentIdCache.Kind.DEPLOYMENT, "app1", "deploymentId");
+		idCache.put(MMC_URL, PersistentIdCache.Kind.DEPLOYMENT, "app2", "deploymentId2");
+		idCache.put(MMC_URL, PersistentIdCache.Kind.SERVER, "server1", "deploymentId");
+
+		idCache.removeId(MMC_URL, PersistentIdCache.Kind.DEPLOYMENT, "deploymentId");
+
+		assertNull(idCache.get(MMC_URL, PersistentIdCache.Kind.DEPLOYMENT, "app1"));
+		assertEquals("deploymentId2", idCache.get(MMC_URL, PersistentIdCache.Kind.DEPLOYMENT, "app2"));
+		assertEquals("deploymentId", idCache.get(MMC_URL, PersistentIdCache.Kind.SERVER, "server1"));
+		assertEquals(1, idCache.getInvalidations());
+	}
+
+	@Test
+	public void testUnmodifiedCacheIsNotWritten() throws Exception {
+		new PersistentIdCache(file, PersistentIdCache.DEFAULT_MAX_AGE_MS).save();
+		assertFalse(file.exists());
+	}
+
+	@Test
+	public void testUnparsableEntryIsIgnored() throws Exception {
+		try (FileOutputStream outputStream = new FileOutputStream(file)) {
+			outputStream.write((MMC_URL + "#group#Production=groupId\n").replace(":", "\\:").getBytes("ISO-8859-1"));
+		}
+		assertNull(new PersistentIdCache(file, PersistentIdCache.DEFAULT_MAX_AGE_MS).get(MMC_URL, PersistentIdCache.Kind.GROUP, "Production"));
+	}
+}
@@ -0,0 +1,67 @@
+package org.mule.tools.mmc.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class RepositoryIndexTest {
+
+	@Test
+	public void testVersionsOfAnApplication() {
+		RepositoryIndex index = new RepositoryIndex();
+		index.put("app", "1.0", "id1");
+		index.put("app", "2.0", "id2");
+		index.put("other", "1.0", "id3");
+
+		assertEquals("id1", index.get("app", "1.0"));
+		assertEquals("id2", index.get("app", "2.0"));
+		assertEquals("id3", index.get("other", "1.0"));
+		assertNull(index.get("other", "2.0"));
+		assertEquals(3, index.size());
+	}
+
+	@Test
+	public void testReplacedVersionIdIsForgotten() {
+		RepositoryIndex index = new RepositoryIndex();
+		index.put("app", "1.0-SNAPSHOT", "id1");
+		index.put("app", "1.0-SNAPSHOT", "id2");
+
+		assertFalse(index.containsVersionId("id1"));
+		assertFalse(index.removeById("id1"));
+		assertEquals("id2", index.get("app", "1.0-SNAPSHOT"));
+		assertEquals(1, index.size());
+	}
+
+	@Test
+	public void testRemoveById() {
+		RepositoryIndex index = new RepositoryIndex();
+		index.put("app", "1.0", "id1");
+		index.put("app", "2.0", "id2");
+
+		assertTrue(index.removeById("id1"));
+		assertNull(index.get("app", "1.0"));
+		assertEquals("id2", index.get("app", "2.0"));
+
+		assertTrue(index.removeById("id2"));
+		assertNull(index.get("app", "2.0"));
+		assertEquals(0, index.size());
+	}
+
+	@Test
+	public void testCopyIsIndependent() {
+		RepositoryIndex index = new RepositoryIndex();
+		index.put("app", "1.0", "id1");
+
+		RepositoryIndex copy = index.copy();
+		copy.put("app", "2.0", "id2");
+		index.removeById("id1");
+
+		assertEquals("id1", copy.get("app", "1.0"));
+		assertEquals("id2", copy.get("app", "2.0"));
+		assertNull(index.get("app", "2.0"));
+		assertEquals(0, index.size());
+	}
+}
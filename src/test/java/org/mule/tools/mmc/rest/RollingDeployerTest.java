@@ -0,0 +1,146 @@
+package org.mule.tools.mmc.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+
+public class RollingDeployerTest {
+
+	private static DeploymentState state(DeploymentStatus status) {
+		DeploymentState deploymentState = new DeploymentState();
+		deploymentState.status = status;
+		return deploymentState;
+	}
+
+	@Test
+	public void testPlanWaves() {
+		List<String> servers = Arrays.asList("s1", "s2", "s3", "s4", "s5");
+
+		List<List<String>> waves = RollingDeployer.planWaves(servers, 2, 0);
+		assertEquals(Arrays.asList(Arrays.asList("s1", "s2"), Arrays.asList("s3", "s4"), Arrays.asList("s5")), waves);
+
+		// 40% of 5 servers is 2 servers, the percentage wins over the size
+		assertEquals(3, RollingDeployer.planWaves(servers, 1, 40).size());
+		// rounded up
+		assertEquals(Arrays.asList("s1", "s2"), RollingDeployer.planWaves(servers, 1, 30).get(0));
+		assertEquals(1, RollingDeployer.planWaves(servers, 1, 100).size());
+		assertEquals(5, RollingDeployer.planWaves(servers, 0, 0).size());
+	}
+
+	@Test
+	public void testDeploysWaveAfterWave() throws Exception {
+		MuleRest muleRest = _mockGroup("s1", "s2", "s3");
+		when(muleRest.restfullyGetDeploymentState(anyString())).thenReturn(state(DeploymentStatus.DEPLOYED));
+
+		RollingDeployer rollingDeployer = new RollingDeployer(muleRest, new DeploymentWaiter(muleRest, new FixedPollingStrategy(1)), 10000);
+		List<String> deploymentIds = rollingDeployer.deploy("group", "app", "v1", 2, 0);
+
+		assertEquals(Arrays.asList("d-s1", "d-s2", "d-s3"), deploymentIds);
+
+		// the second wave starts once the first one is deployed
+		InOrder inOrder = inOrder(muleRest);
+		inOrder.verify(muleRest).restfullyDeleteDeployment("app-s1");
+		inOrder.verify(muleRest).restfullyDeployDeploymentById("d-s1");
+		inOrder.verify(muleRest).restfullyDeployDeploymentById("d-s2");
+		inOrder.verify(muleRest).restfullyGetDeploymentState("d-s2");
+		inOrder.verify(muleRest).restfullyDeleteDeployment("app-s3");
+		inOrder.verify(muleRest).restfullyCreateDeploymentById("s3", "app-s3", "v1");
+		inOrder.verify(muleRest).restfullyDeployDeploymentById("d-s3");
+	}
+
+	@Test
+	public void testFailedWaveStopsTheRelease() throws Exception {
+		MuleRest muleRest = _mockGroup("s1", "s2", "s3");
+		when(muleRest.restfullyGetDeploymentState("d-s1")).thenReturn(state(DeploymentStatus.DEPLOYED));
+		when(muleRest.restfullyGetDeploymentState("d-s2")).thenReturn(state(DeploymentStatus.FAILED));
+
+		RollingDeployer rollingDeployer = new RollingDeployer(muleRest, new DeploymentWaiter(muleRest, new FixedPollingStrategy(1)), 10000);
+		try {
+			rollingDeployer.deploy("group", "app", "v1", 1, 0);
+			fail("The rolling deployment should have failed");
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("after 1 of 3 servers"));
+		}
+
+		verify(muleRest, never()).restfullyCreateDeploymentById("s3", "app-s3", "v1");
+	}
+
+	@Test
+	public void testRefusesToRollOverAGroupDeployment() throws Exception {
+		MuleRest muleRest = _mockGroup("s1", "s2");
+		when(muleRest.restfullyGetDeploymentIdByName("app")).thenReturn("d-group");
+
+		RollingDeployer rollingDeployer = new RollingDeployer(muleRest, new DeploymentWaiter(muleRest, new FixedPollingStrategy(1)), 10000);
+		try {
+			rollingDeployer.deploy("group", "app", "v1", 1, 0);
+			fail("The rolling deployment should have been refused");
+		} catch (IllegalStateException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("\"app\""));
+		}
+
+		verify(muleRest, never()).restfullyCreateDeploymentById(anyString(), anyString(), anyString());
+		verify(muleRest, never()).restfullyDeleteDeploymentById("d-group");
+	}
+
+	@Test
+	public void testReplacesTheGroupDeploymentAfterTheLastWave() throws Exception {
+		MuleRest muleRest = _mockGroup("s1", "s2");
+		when(muleRest.restfullyGetDeploymentIdByName("app")).thenReturn("d-group");
+		when(muleRest.restfullyGetDeploymentState(anyString())).thenReturn(state(DeploymentStatus.DEPLOYED));
+
+		RollingDeployer rollingDeployer = new RollingDeployer(muleRest, new DeploymentWaiter(muleRest, new FixedPollingStrategy(1)), 10000);
+		assertEquals(Arrays.asList("d-s1", "d-s2"), rollingDeployer.deploy("group", "app", "v1", 1, 0, true));
+
+		// the group deployment keeps the servers of the following waves running until the end
+		InOrder inOrder = inOrder(muleRest);
+		inOrder.verify(muleRest).restfullyDeployDeploymentById("d-s1");
+		inOrder.verify(muleRest).restfullyGetDeploymentState("d-s2");
+		inOrder.verify(muleRest).restfullyDeleteDeploymentById("d-group");
+	}
+
+	@Test
+	public void testKeepsTheGroupDeploymentWhenAWaveFails() throws Exception {
+		MuleRest muleRest = _mockGroup("s1", "s2");
+		when(muleRest.restfullyGetDeploymentIdByName("app")).thenReturn("d-group");
+		when(muleRest.restfullyGetDeploymentState("d-s1")).thenReturn(state(DeploymentStatus.FAILED));
+
+		RollingDeployer rollingDeployer = new RollingDeployer(muleRest, new DeploymentWaiter(muleRest, new FixedPollingStrategy(1)), 10000);
+		try {
+			rollingDeployer.deploy("group", "app", "v1", 1, 0, true);
+			fail("The rolling deployment should have failed");
+		} catch (IOException e) {
+			// expected
+		}
+
+		verify(muleRest, never()).restfullyDeleteDeploymentById("d-group");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEmptyGroup() throws Exception {
+		MuleRest muleRest = _mockGroup();
+		new RollingDeployer(muleRest, new DeploymentWaiter(muleRest, new FixedPollingStrategy(1)), 10000).deploy("group", "app", "v1", 1, 0);
+	}
+
+	private static MuleRest _mockGroup(String... serverIds) throws IOException {
+		MuleRest muleRest = mock(MuleRest.class);
+		when(muleRest.restfullyGetServerIdsInGroup("group")).thenReturn(new TreeSet<String>(Arrays.asList(serverIds)));
+		for (String serverId : serverIds) {
+			when(muleRest.restfullyCreateDeploymentById(serverId, "app-" + serverId, "v1")).thenReturn("d-" + serverId);
+		}
+		return muleRest;
+	}
+}
@@ -0,0 +1,124 @@
+package org.mule.tools.mmc.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SharedPropertiesFileTest {
+
+	private File directory;
+	private File file;
+
+	@Before
+	public void setup() throws Exception {
+		directory = File.createTempFile("SharedPropertiesFileUT", "");
+		directory.delete();
+		directory.mkdirs();
+		file = new File(directory, "shared.properties");
+	}
+
+	@After
+	public void cleanup() {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File child : files) {
+				child.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void testSavesMergeTheEntriesOfEachInstance() throws Exception {
+		SharedPropertiesFile first = _open();
+		SharedPropertiesFile second = _open();
+		first.put("a", "1");
+		second.put("b", "2");
+
+		first.save();
+		second.save();
+
+		SharedPropertiesFile reloaded = _open();
+		assertEquals("1", reloaded.get("a"));
+		assertEquals("2", reloaded.get("b"));
+		// the save brings in the entries written by the others
+		assertEquals("1", second.get("a"));
+	}
+
+	@Test
+	public void testRemovalKeepsAnEntryChangedByAnotherInstance() throws Exception {
+		SharedPropertiesFile initial = _open();
+		initial.put("a", "1");
+		initial.put("b", "1");
+		initial.save();
+
+		SharedPropertiesFile first = _open();
+		SharedPropertiesFile second = _open();
+		second.put("a", "2");
+		second.save();
+		assertTrue(first.remove("a"));
+		assertTrue(first.remove("b"));
+		first.save();
+
+		SharedPropertiesFile reloaded = _open();
+		assertEquals("2", reloaded.get("a"));
+		assertNull(reloaded.get("b"));
+	}
+
+	@Test
+	public void testUnmodifiedFileIsNotWritten() throws Exception {
+		SharedPropertiesFile sharedFile = _open();
+		assertFalse(sharedFile.isModified());
+		sharedFile.save();
+		assertFalse(file.exists());
+	}
+
+	@Test
+	public void testConcurrentSavesLoseNoEntry() throws Exception {
+		int instances = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(instances);
+		try {
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (int i = 0; i < instances; i++) {
+				final String key = "key" + i;
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						SharedPropertiesFile sharedFile = _open();
+						for (int j = 0; j < 20; j++) {
+							sharedFile.put(key + "." + j, key);
+							sharedFile.save();
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(instances * 20, _open().keys().size());
+		// no temporary file left behind
+		assertEquals(2, directory.listFiles().length);
+	}
+
+	private SharedPropertiesFile _open() {
+		return new SharedPropertiesFile(file, "test file", "Test");
+	}
+}